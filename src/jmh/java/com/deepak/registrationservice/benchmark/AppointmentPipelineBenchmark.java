@@ -0,0 +1,143 @@
+package com.deepak.registrationservice.benchmark;
+
+import com.deepak.registrationservice.model.appointment.AppointmentDetails;
+import com.deepak.registrationservice.repository.AppointmentRepository;
+import com.deepak.registrationservice.repository.QueueManagementRepository;
+import com.deepak.registrationservice.repository.SlotInformationRepository;
+import com.deepak.registrationservice.service.AppointmentChanges;
+import com.deepak.registrationservice.service.AppointmentQueryService;
+import com.deepak.registrationservice.service.AppointmentServiceImpl;
+import com.deepak.registrationservice.service.AppointmentStatsService;
+import com.deepak.registrationservice.service.BatchBookingEngine;
+import com.deepak.registrationservice.service.PipelineMetrics;
+import com.deepak.registrationservice.service.QueueEngine;
+import com.deepak.registrationservice.service.QueueEventHub;
+import com.deepak.registrationservice.service.ReadCoalescer;
+import com.deepak.registrationservice.service.ReservationCoordinator;
+import com.deepak.registrationservice.service.ResourceVersions;
+import com.deepak.registrationservice.service.ScheduleSnapshots;
+import com.deepak.registrationservice.service.SlotAvailabilityIndex;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+/**
+ * Runs the booking, reschedule and cancel chains of {@link AppointmentServiceImpl} end to end
+ * against {@link InMemoryRepositories}. Every statement completes immediately, so the numbers are
+ * the cost the service adds around its statements: lane hand-off, index, cache and counter
+ * upkeep, metrics and the reactive operators themselves.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class AppointmentPipelineBenchmark {
+
+  private InMemoryRepositories repositories;
+  private AppointmentServiceImpl appointmentService;
+  private AppointmentDetails rescheduled;
+  private int nextSlotId;
+
+  @Setup
+  public void setUp() {
+    this.repositories = new InMemoryRepositories();
+    this.appointmentService = appointmentService(this.repositories);
+    this.rescheduled = this.repositories.seed(Fixtures.appointment(1));
+    this.nextSlotId = 3;
+  }
+
+  /** The service as the application wires it, over {@code repositories}. */
+  static AppointmentServiceImpl appointmentService(InMemoryRepositories repositories) {
+    AppointmentRepository appointmentRepository = repositories.appointmentRepository();
+    SlotInformationRepository slotInformationRepository = repositories.slotInformationRepository();
+    QueueManagementRepository queueManagementRepository = repositories.queueManagementRepository();
+    TransactionalOperator transactionalOperator = InMemoryRepositories.transactionalOperator();
+    MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    ReservationCoordinator reservationCoordinator =
+        new ReservationCoordinator(meterRegistry, 32, 256, Duration.ofSeconds(2));
+    QueueEventHub queueEventHub = new QueueEventHub(queueManagementRepository, meterRegistry);
+    ReadCoalescer readCoalescer = new ReadCoalescer(meterRegistry, Duration.ofMillis(250));
+    ScheduleSnapshots scheduleSnapshots =
+        new ScheduleSnapshots(
+            slotInformationRepository,
+            appointmentRepository,
+            queueManagementRepository,
+            Jackson2ObjectMapperBuilder.json().build(),
+            512);
+    return new AppointmentServiceImpl(
+        appointmentRepository,
+        queueManagementRepository,
+        slotInformationRepository,
+        transactionalOperator,
+        new BatchBookingEngine(
+            slotInformationRepository,
+            InMemoryRepositories.databaseClient(),
+            transactionalOperator),
+        reservationCoordinator,
+        new AppointmentChanges(
+            new SlotAvailabilityIndex(slotInformationRepository, 1024, Duration.ofMinutes(5)),
+            queueEventHub,
+            new QueueEngine(
+                queueManagementRepository,
+                InMemoryRepositories.databaseClient(),
+                reservationCoordinator,
+                queueEventHub,
+                scheduleSnapshots,
+                1024),
+            new AppointmentStatsService(
+                appointmentRepository, readCoalescer, Duration.ofMinutes(15)),
+            scheduleSnapshots,
+            new ResourceVersions(true, 4096),
+            // Only its invalidation runs here, which does not touch the entity template.
+            new AppointmentQueryService(appointmentRepository, null, readCoalescer, 500)),
+        new PipelineMetrics(meterRegistry));
+  }
+
+  /** Books one appointment into a free slot, then frees the slot again outside the service. */
+  @Benchmark
+  public List<AppointmentDetails> book() {
+    List<AppointmentDetails> saved =
+        this.appointmentService
+            .savedAppointment(List.of(Fixtures.appointment(this.nextSlotId++)))
+            .block();
+    this.repositories.forget(saved.get(0));
+    return saved;
+  }
+
+  /** Moves one appointment back and forth between two slots of the same doctor and day. */
+  @Benchmark
+  public AppointmentDetails reschedule() {
+    AppointmentDetails update = Fixtures.appointment(this.rescheduled.getSlotId() == 1 ? 2 : 1);
+    update.setDoctorId(this.rescheduled.getDoctorId());
+    update.setAppointmentDate(this.rescheduled.getAppointmentDate());
+    this.rescheduled =
+        this.appointmentService
+            .updateAppointment(this.rescheduled.getAppointmentId(), update)
+            .block();
+    return this.rescheduled;
+  }
+
+  /** Cancels an appointment stored just before, outside the service. */
+  @Benchmark
+  public void cancel() {
+    AppointmentDetails booked = this.repositories.seed(Fixtures.appointment(this.nextSlotId++));
+    this.appointmentService.cancelAppointment(booked.getAppointmentId()).block();
+    this.repositories.forget(booked);
+  }
+}
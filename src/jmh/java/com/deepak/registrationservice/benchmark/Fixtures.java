@@ -0,0 +1,46 @@
+package com.deepak.registrationservice.benchmark;
+
+import com.deepak.registrationservice.model.appointment.AppointmentDetails;
+import com.deepak.registrationservice.model.appointment.enums.AppointmentFor;
+import com.deepak.registrationservice.model.appointment.enums.AppointmentType;
+import com.deepak.registrationservice.model.appointment.enums.Symptom;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Appointments shaped like the ones the service books, for use as benchmark input. */
+final class Fixtures {
+
+  static final LocalDateTime DAY = LocalDateTime.of(2024, 6, 3, 9, 0);
+
+  private Fixtures() {}
+
+  /** A new, unsaved appointment for {@code slotId}; the id is left for the repository to set. */
+  static AppointmentDetails appointment(int slotId) {
+    AppointmentDetails appointment = new AppointmentDetails();
+    appointment.setUserId(1000 + slotId % 500);
+    appointment.setAppointmentType(AppointmentType.CONSULTATION);
+    appointment.setAppointmentFor(AppointmentFor.SELF);
+    appointment.setAppointmentForName("Patient " + slotId);
+    appointment.setAppointmentForAge(20 + slotId % 60);
+    appointment.setSymptom(Symptom.FEVER);
+    appointment.setOtherSymptoms("Cough for three days");
+    appointment.setAppointmentDate(DAY.plusMinutes(10L * (slotId % 48)));
+    appointment.setSlotId(slotId);
+    appointment.setDoctorId("DOC" + (slotId % 20));
+    appointment.setClinicId(1 + slotId % 5);
+    appointment.setActive(true);
+    return appointment;
+  }
+
+  /** {@code count} saved appointments, as a list endpoint would return them. */
+  static List<AppointmentDetails> appointments(int count) {
+    List<AppointmentDetails> appointments = new ArrayList<>(count);
+    for (int i = 1; i <= count; i++) {
+      AppointmentDetails appointment = appointment(i);
+      appointment.setAppointmentId(i);
+      appointments.add(appointment);
+    }
+    return appointments;
+  }
+}
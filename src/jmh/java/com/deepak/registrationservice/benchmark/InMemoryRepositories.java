@@ -0,0 +1,222 @@
+package com.deepak.registrationservice.benchmark;
+
+import com.deepak.registrationservice.model.appointment.AppointmentDetails;
+import com.deepak.registrationservice.model.appointment.QueueManagement;
+import com.deepak.registrationservice.model.appointment.SlotInformation;
+import com.deepak.registrationservice.repository.AppointmentRepository;
+import com.deepak.registrationservice.repository.QueueManagementRepository;
+import com.deepak.registrationservice.repository.SlotInformationRepository;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import org.springframework.beans.BeanUtils;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Repositories backed by maps, implementing only the statements the booking, reschedule and cancel
+ * paths run, so a benchmark measures the service's own reactive chain rather than a database.
+ * Entities are copied on the way in and out, as they would be by a round trip through a row.
+ * Statements complete immediately unless a statement latency is given, which every statement then
+ * waits before it completes, standing in for the round trip to a database.
+ */
+final class InMemoryRepositories {
+
+  private final Map<Integer, AppointmentDetails> appointments = new ConcurrentHashMap<>();
+  private final Set<Integer> bookedSlots = ConcurrentHashMap.newKeySet();
+  private final AtomicInteger appointmentIds = new AtomicInteger();
+  private final Duration statementLatency;
+
+  InMemoryRepositories() {
+    this(Duration.ZERO);
+  }
+
+  InMemoryRepositories(Duration statementLatency) {
+    this.statementLatency = statementLatency;
+  }
+
+  /** Stores an active appointment as if it had been booked, and returns it with its id. */
+  AppointmentDetails seed(AppointmentDetails appointment) {
+    this.bookedSlots.add(appointment.getSlotId());
+    return save(appointment);
+  }
+
+  /** Drops an appointment and frees its slot without going through the service. */
+  void forget(AppointmentDetails appointment) {
+    this.appointments.remove(appointment.getAppointmentId());
+    this.bookedSlots.remove(appointment.getSlotId());
+  }
+
+  AppointmentRepository appointmentRepository() {
+    return stub(
+        AppointmentRepository.class,
+        this.statementLatency,
+        (method, args) ->
+            switch (method) {
+              case "save" -> Mono.just(save((AppointmentDetails) args[0]));
+              case "findById" ->
+                  Mono.justOrEmpty(this.appointments.get((Integer) args[0]))
+                      .map(InMemoryRepositories::copy);
+              case "lockAllById" -> find(ids(args[0])).map(InMemoryRepositories::copy);
+              case "lockActiveById" ->
+                  find(ids(args[0]))
+                      .filter(AppointmentDetails::isActive)
+                      .map(InMemoryRepositories::copy);
+              case "cancelAllById" -> Mono.just(cancel(ids(args[0])));
+              case "deleteAllWithQueueEntriesById" -> Mono.just(delete(ids(args[0])));
+              default -> null;
+            });
+  }
+
+  SlotInformationRepository slotInformationRepository() {
+    return stub(
+        SlotInformationRepository.class,
+        this.statementLatency,
+        (method, args) ->
+            switch (method) {
+              case "findById" -> Mono.just(slot((Integer) args[0]));
+              case "save" -> Mono.just(saveSlot((SlotInformation) args[0]));
+              case "claimSlot" -> Mono.just(this.bookedSlots.add((Integer) args[0]) ? 1 : 0);
+              case "releaseSlot" -> Mono.just(this.bookedSlots.remove((Integer) args[0]) ? 1 : 0);
+              case "releaseSlotsOfActiveAppointments" ->
+                  find(ids(args[0]))
+                      .filter(AppointmentDetails::isActive)
+                      .filter(appointment -> this.bookedSlots.remove(appointment.getSlotId()))
+                      .count()
+                      .map(Long::intValue);
+              default -> null;
+            });
+  }
+
+  QueueManagementRepository queueManagementRepository() {
+    return stub(
+        QueueManagementRepository.class,
+        this.statementLatency,
+        (method, args) ->
+            switch (method) {
+              case "findByAppointmentId" -> Mono.just(queueEntry((Integer) args[0]));
+              case "save" -> Mono.just(args[0]);
+              case "insertForSlot", "moveToSlot" -> Mono.just(1);
+              case "deleteAllByAppointmentIds" -> Mono.just(ids(args[0]).size());
+              default -> null;
+            });
+  }
+
+  /** Runs everything outside a transaction; the stores apply each statement immediately. */
+  static TransactionalOperator transactionalOperator() {
+    return stub(
+        TransactionalOperator.class,
+        Duration.ZERO,
+        (method, args) -> method.equals("transactional") ? args[0] : null);
+  }
+
+  /** For collaborators that are constructed but never asked to run SQL on these paths. */
+  static DatabaseClient databaseClient() {
+    return stub(DatabaseClient.class, Duration.ZERO, (method, args) -> null);
+  }
+
+  private AppointmentDetails save(AppointmentDetails appointment) {
+    AppointmentDetails saved = copy(appointment);
+    if (saved.getAppointmentId() == null) {
+      saved.setAppointmentId(this.appointmentIds.incrementAndGet());
+    }
+    this.appointments.put(saved.getAppointmentId(), saved);
+    return copy(saved);
+  }
+
+  private SlotInformation slot(Integer slotId) {
+    SlotInformation slot = new SlotInformation();
+    slot.setSlotId(slotId);
+    slot.setSlotNo(slotId);
+    slot.setIsAvailable(!this.bookedSlots.contains(slotId));
+    return slot;
+  }
+
+  private SlotInformation saveSlot(SlotInformation slot) {
+    if (Boolean.TRUE.equals(slot.getIsAvailable())) {
+      this.bookedSlots.remove(slot.getSlotId());
+    } else {
+      this.bookedSlots.add(slot.getSlotId());
+    }
+    return slot;
+  }
+
+  private static QueueManagement queueEntry(Integer appointmentId) {
+    QueueManagement entry = new QueueManagement();
+    entry.setAppointmentId(appointmentId);
+    return entry;
+  }
+
+  private Flux<AppointmentDetails> find(Collection<Integer> ids) {
+    return Flux.fromIterable(ids).mapNotNull(this.appointments::get);
+  }
+
+  private int cancel(Collection<Integer> ids) {
+    int cancelled = 0;
+    for (Integer id : ids) {
+      AppointmentDetails appointment = this.appointments.get(id);
+      if (appointment != null && appointment.isActive()) {
+        appointment.setActive(false);
+        this.bookedSlots.remove(appointment.getSlotId());
+        cancelled++;
+      }
+    }
+    return cancelled;
+  }
+
+  private int delete(Collection<Integer> ids) {
+    return (int) ids.stream().map(this.appointments::remove).filter(Objects::nonNull).count();
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Collection<Integer> ids(Object ids) {
+    return (Collection<Integer>) ids;
+  }
+
+  private static AppointmentDetails copy(AppointmentDetails appointment) {
+    AppointmentDetails copy = new AppointmentDetails();
+    BeanUtils.copyProperties(appointment, copy);
+    return copy;
+  }
+
+  /**
+   * Implements {@code type} with {@code handler}, which gets the method name and arguments and
+   * returns {@code null} for methods it does not implement. Every result waits {@code latency}
+   * before it is emitted.
+   */
+  private static <T> T stub(
+      Class<T> type, Duration latency, BiFunction<String, Object[], Object> handler) {
+    return type.cast(
+        Proxy.newProxyInstance(
+            type.getClassLoader(),
+            new Class<?>[] {type},
+            (proxy, method, args) -> {
+              if (method.getDeclaringClass() == Object.class) {
+                return switch (method.getName()) {
+                  case "equals" -> proxy == args[0];
+                  case "hashCode" -> System.identityHashCode(proxy);
+                  default -> type.getSimpleName() + " stub";
+                };
+              }
+              Object result = handler.apply(method.getName(), args);
+              if (result == null) {
+                throw new UnsupportedOperationException(
+                    type.getSimpleName() + "." + method.getName() + " is not stubbed");
+              }
+              if (latency.isZero()) {
+                return result;
+              }
+              return result instanceof Flux<?> rows
+                  ? rows.delaySubscription(latency)
+                  : result instanceof Mono<?> row ? row.delaySubscription(latency) : result;
+            }));
+  }
+}
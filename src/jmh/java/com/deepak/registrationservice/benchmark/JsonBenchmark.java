@@ -0,0 +1,63 @@
+package com.deepak.registrationservice.benchmark;
+
+import com.deepak.registrationservice.model.appointment.AppointmentDetails;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Encodes and decodes lists of appointments the way the WebFlux codecs do, with an object mapper
+ * built with the same defaults Spring Boot applies.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class JsonBenchmark {
+
+  @Param({"1", "50", "1000"})
+  public int size;
+
+  private ObjectWriter writer;
+  private ObjectReader reader;
+  private List<AppointmentDetails> appointments;
+  private byte[] json;
+
+  @Setup
+  public void setUp() throws IOException {
+    ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    TypeReference<List<AppointmentDetails>> type = new TypeReference<>() {};
+    this.writer = objectMapper.writerFor(type);
+    this.reader = objectMapper.readerFor(type);
+    this.appointments = Fixtures.appointments(this.size);
+    this.json = this.writer.writeValueAsBytes(this.appointments);
+  }
+
+  @Benchmark
+  public byte[] encode() throws IOException {
+    return this.writer.writeValueAsBytes(this.appointments);
+  }
+
+  @Benchmark
+  public List<AppointmentDetails> decode() throws IOException {
+    return this.reader.readValue(this.json);
+  }
+}
@@ -0,0 +1,133 @@
+package com.deepak.registrationservice.benchmark;
+
+import com.deepak.registrationservice.exception.AppointmentNotFoundException;
+import com.deepak.registrationservice.exception.SlotIdNotAvailableException;
+import com.deepak.registrationservice.model.appointment.AppointmentDetails;
+import com.deepak.registrationservice.repository.AppointmentRepository;
+import com.deepak.registrationservice.repository.QueueManagementRepository;
+import com.deepak.registrationservice.repository.SlotInformationRepository;
+import com.deepak.registrationservice.service.AppointmentServiceImpl;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.Mono;
+
+/**
+ * Compares the latency of a reschedule before and after it became one transaction of conditional
+ * updates. {@code chained} replays the statements the service used to run one after another: three
+ * slot reads, two slot saves, a queue read and save and the appointment read and save.
+ * {@code transactional} runs {@link AppointmentServiceImpl#updateAppointment}, which reads the
+ * appointment, claims and releases the slots, moves the queue entry and saves the appointment.
+ *
+ * <p>Each statement waits {@code statementLatencyMillis} before it completes, standing in for the
+ * round trip to the database, so with a latency the difference is the round trips saved.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RescheduleBenchmark {
+
+  @Param({"0", "1"})
+  private int statementLatencyMillis;
+
+  private AppointmentRepository appointmentRepository;
+  private SlotInformationRepository slotInformationRepository;
+  private QueueManagementRepository queueManagementRepository;
+  private AppointmentServiceImpl appointmentService;
+  private AppointmentDetails rescheduled;
+
+  @Setup
+  public void setUp() {
+    InMemoryRepositories repositories =
+        new InMemoryRepositories(Duration.ofMillis(this.statementLatencyMillis));
+    this.appointmentRepository = repositories.appointmentRepository();
+    this.slotInformationRepository = repositories.slotInformationRepository();
+    this.queueManagementRepository = repositories.queueManagementRepository();
+    this.appointmentService = AppointmentPipelineBenchmark.appointmentService(repositories);
+    this.rescheduled = repositories.seed(Fixtures.appointment(1));
+  }
+
+  /** The reschedule as it was: nine dependent statements outside a transaction. */
+  @Benchmark
+  public AppointmentDetails chained() {
+    AppointmentDetails update = nextMove();
+    Integer id = this.rescheduled.getAppointmentId();
+    this.rescheduled =
+        this.slotInformationRepository
+            .findById(update.getSlotId())
+            .flatMap(
+                slot -> {
+                  if (!slot.getIsAvailable()) {
+                    return Mono.error(new SlotIdNotAvailableException("Slot not available"));
+                  }
+                  return this.appointmentRepository
+                      .findById(id)
+                      .switchIfEmpty(
+                          Mono.error(new AppointmentNotFoundException("Appointment not found")))
+                      .flatMap(existing -> moveChained(existing, update));
+                })
+            .block();
+    return this.rescheduled;
+  }
+
+  /** The reschedule as it is: five statements in one transaction. */
+  @Benchmark
+  public AppointmentDetails transactional() {
+    this.rescheduled =
+        this.appointmentService
+            .updateAppointment(this.rescheduled.getAppointmentId(), nextMove())
+            .block();
+    return this.rescheduled;
+  }
+
+  private Mono<AppointmentDetails> moveChained(
+      AppointmentDetails existing, AppointmentDetails update) {
+    return this.slotInformationRepository
+        .findById(existing.getSlotId())
+        .flatMap(
+            oldSlot -> {
+              oldSlot.setIsAvailable(true);
+              return this.slotInformationRepository.save(oldSlot);
+            })
+        .then(this.slotInformationRepository.findById(update.getSlotId()))
+        .flatMap(
+            newSlot -> {
+              newSlot.setIsAvailable(false);
+              existing.setSlotId(update.getSlotId());
+              return this.slotInformationRepository
+                  .save(newSlot)
+                  .then(
+                      this.queueManagementRepository.findByAppointmentId(
+                          existing.getAppointmentId()))
+                  .flatMap(
+                      entry -> {
+                        entry.setInitialQueueNo(newSlot.getSlotNo());
+                        entry.setCurrentQueueNo(newSlot.getSlotNo());
+                        entry.setSlotId(update.getSlotId());
+                        return this.queueManagementRepository.save(entry);
+                      })
+                  .then(this.appointmentRepository.save(existing));
+            });
+  }
+
+  /** The same appointment, moved to whichever of slots 1 and 2 it is not in. */
+  private AppointmentDetails nextMove() {
+    AppointmentDetails update = Fixtures.appointment(this.rescheduled.getSlotId() == 1 ? 2 : 1);
+    update.setDoctorId(this.rescheduled.getDoctorId());
+    update.setAppointmentDate(this.rescheduled.getAppointmentDate());
+    return update;
+  }
+}
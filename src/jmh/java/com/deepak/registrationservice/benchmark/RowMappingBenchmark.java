@@ -0,0 +1,154 @@
+package com.deepak.registrationservice.benchmark;
+
+import com.deepak.registrationservice.model.appointment.AppointmentDetails;
+import com.deepak.registrationservice.model.appointment.AppointmentSummary;
+import io.r2dbc.spi.ColumnMetadata;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import io.r2dbc.spi.Type;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.r2dbc.convert.MappingR2dbcConverter;
+import org.springframework.data.r2dbc.convert.R2dbcConverter;
+import org.springframework.data.r2dbc.convert.R2dbcCustomConversions;
+import org.springframework.data.r2dbc.dialect.MySqlDialect;
+import org.springframework.data.r2dbc.mapping.R2dbcMappingContext;
+
+/**
+ * Maps one appointment row to an entity with the converter Spring Data R2DBC uses for MySQL, for
+ * the full row and for the columns of a summary. Column values have the types the MySQL driver
+ * returns, so the conversions it needs, such as {@code TINYINT} to {@code boolean}, are included.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RowMappingBenchmark {
+
+  private R2dbcConverter converter;
+  private MapRow appointmentRow;
+  private MapRow summaryRow;
+
+  @Setup
+  public void setUp() {
+    R2dbcCustomConversions conversions = R2dbcCustomConversions.of(MySqlDialect.INSTANCE);
+    R2dbcMappingContext mappingContext = new R2dbcMappingContext();
+    mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+    this.converter = new MappingR2dbcConverter(mappingContext, conversions);
+
+    Map<String, Object> columns = new LinkedHashMap<>();
+    columns.put("appointment_id", 42);
+    columns.put("user_id", 1042);
+    columns.put("appointment_type", "CONSULTATION");
+    columns.put("appointment_for", "SELF");
+    columns.put("appointment_for_name", "Patient 42");
+    columns.put("appointment_for_age", 34);
+    columns.put("symptom", "FEVER");
+    columns.put("other_symptoms", "Cough for three days");
+    columns.put("appointment_date", Fixtures.DAY);
+    columns.put("slot_id", 42);
+    columns.put("doctor_id", "DOC2");
+    columns.put("clinic_id", 3);
+    columns.put("active", (byte) 1);
+    this.appointmentRow = new MapRow(columns);
+
+    Map<String, Object> summaryColumns = new LinkedHashMap<>();
+    for (String column : AppointmentSummary.COLUMNS) {
+      summaryColumns.put(column, columns.get(column));
+    }
+    this.summaryRow = new MapRow(summaryColumns);
+  }
+
+  @Benchmark
+  public AppointmentDetails appointment() {
+    return this.converter.read(AppointmentDetails.class, this.appointmentRow, this.appointmentRow);
+  }
+
+  @Benchmark
+  public AppointmentSummary summary() {
+    return this.converter.read(AppointmentSummary.class, this.summaryRow, this.summaryRow);
+  }
+
+  /** A result row held in memory, which is also its own metadata. */
+  private static final class MapRow implements Row, RowMetadata {
+    private final Map<String, Object> values;
+    private final List<Column> columns;
+
+    private MapRow(Map<String, Object> values) {
+      this.values = values;
+      this.columns = values.entrySet().stream().map(Column::new).toList();
+    }
+
+    @Override
+    public <T> T get(int index, Class<T> type) {
+      return get(this.columns.get(index).getName(), type);
+    }
+
+    @Override
+    public <T> T get(String name, Class<T> type) {
+      if (!this.values.containsKey(name)) {
+        throw new NoSuchElementException(name);
+      }
+      return type.cast(this.values.get(name));
+    }
+
+    @Override
+    public RowMetadata getMetadata() {
+      return this;
+    }
+
+    @Override
+    public ColumnMetadata getColumnMetadata(int index) {
+      return this.columns.get(index);
+    }
+
+    @Override
+    public ColumnMetadata getColumnMetadata(String name) {
+      return this.columns.stream()
+          .filter(column -> column.getName().equalsIgnoreCase(name))
+          .findFirst()
+          .orElseThrow(() -> new NoSuchElementException(name));
+    }
+
+    @Override
+    public List<? extends ColumnMetadata> getColumnMetadatas() {
+      return this.columns;
+    }
+  }
+
+  private record Column(String name, Class<?> javaType) implements ColumnMetadata, Type {
+    private Column(Map.Entry<String, Object> value) {
+      this(value.getKey(), value.getValue().getClass());
+    }
+
+    @Override
+    public String getName() {
+      return this.name;
+    }
+
+    @Override
+    public Type getType() {
+      return this;
+    }
+
+    @Override
+    public Class<?> getJavaType() {
+      return this.javaType;
+    }
+  }
+}
@@ -0,0 +1,457 @@
+package com.deepak.registrationservice.loadtest;
+
+import com.deepak.registrationservice.RegistrationServiceApplication;
+import com.deepak.registrationservice.model.appointment.AppointmentDetails;
+import com.deepak.registrationservice.model.appointment.enums.AppointmentFor;
+import com.deepak.registrationservice.model.appointment.enums.AppointmentType;
+import com.deepak.registrationservice.model.appointment.enums.Symptom;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongFunction;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Starts the service against the MySQL database of the {@code loadtest} profile and drives its
+ * HTTP endpoints with an open workload: requests arrive at fixed rates whether or not earlier ones
+ * have completed, as they do from real clients. Three scenarios run side by side:
+ *
+ * <ul>
+ *   <li>a booking storm on random slots of one doctor's day;
+ *   <li>mixed traffic of single-appointment, user, doctor, slot and schedule reads with a share of
+ *       writes: bookings of free slots, and cancellations, reschedules and deletions of booked
+ *       appointments;
+ *   <li>NDJSON exports of a range of days.
+ * </ul>
+ *
+ * <p>Afterwards it prints throughput and latency percentiles per operation, writes them to {@code
+ * loadtest.report} as JSON, and checks the database for double bookings. The exit code is 1 if
+ * any booking invariant was violated.
+ */
+public final class LoadTest {
+
+  private final Environment environment;
+  private final DatabaseClient databaseClient;
+  private final ObjectMapper objectMapper;
+  private final WebClient webClient;
+  private final Results results = new Results();
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicInteger nextFreeSlot = new AtomicInteger();
+  // Active future appointments outside the storm that no write has changed yet.
+  private final Queue<Booked> bookedAppointments = new ConcurrentLinkedQueue<>();
+  // Storm slot id -> bookings the service confirmed for it.
+  private final Map<Integer, Integer> stormBookings = new ConcurrentHashMap<>();
+  private final LocalDate today = LocalDate.now();
+  private final int maxInFlight;
+  private final Duration warmup;
+  private final Duration duration;
+  private final long stormRotateEveryNanos;
+  private final double mixedWriteRatio;
+  private final int[] mixedWriteWeights;
+  private final int exportDays;
+  private List<List<Slot>> stormDays;
+  private List<Slot> freeSlots;
+  private int maxAppointmentId;
+  private long startNanos;
+
+  private LoadTest(ConfigurableApplicationContext context) {
+    this.environment = context.getEnvironment();
+    this.databaseClient = context.getBean(DatabaseClient.class);
+    this.objectMapper = context.getBean(ObjectMapper.class);
+    this.maxInFlight = setting("loadtest.max-in-flight", Integer.class);
+    this.warmup = setting("loadtest.warmup", Duration.class);
+    this.duration = setting("loadtest.duration", Duration.class);
+    this.stormRotateEveryNanos = setting("loadtest.storm.rotate-every", Duration.class).toNanos();
+    this.mixedWriteRatio = setting("loadtest.mixed.write-ratio", Double.class);
+    this.mixedWriteWeights = new int[Write.values().length];
+    for (Write write : Write.values()) {
+      this.mixedWriteWeights[write.ordinal()] =
+          setting(
+              "loadtest.mixed.write-weights." + write.name().toLowerCase(Locale.ROOT),
+              Integer.class);
+    }
+    this.exportDays = setting("loadtest.export.days", Integer.class);
+    HttpClient httpClient =
+        HttpClient.create(
+                ConnectionProvider.builder("loadtest")
+                    .maxConnections(this.maxInFlight)
+                    .pendingAcquireMaxCount(-1)
+                    .build())
+            .responseTimeout(Duration.ofSeconds(30));
+    this.webClient =
+        context
+            .getBean(WebClient.Builder.class)
+            .baseUrl("http://localhost:" + setting("local.server.port", Integer.class) + "/v1")
+            .clientConnector(new ReactorClientHttpConnector(httpClient))
+            .build();
+  }
+
+  public static void main(String[] args) {
+    ConfigurableApplicationContext context =
+        new SpringApplicationBuilder(RegistrationServiceApplication.class)
+            .profiles("loadtest")
+            .run(args);
+    int exitCode = new LoadTest(context).run();
+    System.exit(SpringApplication.exit(context, () -> exitCode));
+  }
+
+  private int run() {
+    loadSlots();
+    this.startNanos = System.nanoTime();
+    Flux.merge(
+            arrivals("storm", setting("loadtest.storm.rate", Double.class), this::stormBooking),
+            arrivals("mixed", setting("loadtest.mixed.rate", Double.class), this::mixedRequest),
+            arrivals("export", setting("loadtest.export.rate", Double.class), this::rangeExport))
+        .blockLast();
+    Map<String, Long> violations = checkBookings();
+    String engine = this.environment.acceptsProfiles(Profiles.of("jdbc")) ? "jdbc" : "r2dbc";
+    Map<String, Object> report = this.results.report(engine, this.duration, violations);
+    System.out.print(this.results.table(report));
+    writeReport(report);
+    return violations.values().stream().anyMatch(count -> count > 0) ? 1 : 0;
+  }
+
+  private void loadSlots() {
+    String stormDoctorId = setting("loadtest.storm.doctor-id", String.class);
+    Map<LocalDate, List<Slot>> byDay = new LinkedHashMap<>();
+    slots("doctor_id = :doctorId", stormDoctorId)
+        .toIterable()
+        .forEach(slot -> byDay.computeIfAbsent(slot.date(), day -> new ArrayList<>()).add(slot));
+    this.stormDays = new ArrayList<>(byDay.values());
+    this.freeSlots =
+        slots("doctor_id <> :doctorId AND is_available = TRUE", stormDoctorId)
+            .collectList()
+            .block();
+    Collections.shuffle(this.freeSlots, new Random(1));
+    List<Booked> booked =
+        this.databaseClient
+            .sql(
+                "SELECT appointment_id, user_id FROM appointments WHERE active = TRUE"
+                    + " AND appointment_date >= :tomorrow AND doctor_id <> :doctorId")
+            .bind("tomorrow", this.today.plusDays(1).atStartOfDay())
+            .bind("doctorId", stormDoctorId)
+            .map(
+                row ->
+                    new Booked(
+                        row.get("appointment_id", Integer.class),
+                        row.get("user_id", Integer.class)))
+            .all()
+            .collectList()
+            .block();
+    Collections.shuffle(booked, new Random(2));
+    this.bookedAppointments.addAll(booked);
+    this.maxAppointmentId =
+        this.databaseClient
+            .sql("SELECT MAX(appointment_id) AS max_id FROM appointments")
+            .map(row -> row.get("max_id", Integer.class))
+            .one()
+            .block();
+  }
+
+  /** Future slots matching {@code condition}, in day and slot order. */
+  private Flux<Slot> slots(String condition, String doctorId) {
+    return this.databaseClient
+        .sql(
+            "SELECT slot_id, doctor_id, clinic_id, slot_date, slot_time FROM slot_information"
+                + " WHERE slot_date > :today AND "
+                + condition
+                + " ORDER BY slot_date, doctor_id, slot_no")
+        .bind("today", this.today.toString())
+        .bind("doctorId", doctorId)
+        .map(
+            row ->
+                new Slot(
+                    row.get("slot_id", Integer.class),
+                    row.get("doctor_id", String.class),
+                    Integer.parseInt(row.get("clinic_id", String.class)),
+                    LocalDate.parse(row.get("slot_date", String.class)),
+                    LocalTime.parse(row.get("slot_time", String.class))))
+        .all();
+  }
+
+  /**
+   * Sends {@code request} {@code rate} times a second for the warm-up and the measured run. Each
+   * request gets the time it was due, which is where its latency is measured from.
+   */
+  private Mono<Void> arrivals(String scenario, double rate, LongFunction<Mono<Void>> request) {
+    if (rate <= 0) {
+      return Mono.empty();
+    }
+    long periodNanos = Math.round(1_000_000_000 / rate);
+    long arrivals = this.warmup.plus(this.duration).toNanos() / periodNanos;
+    return Flux.interval(Duration.ofNanos(periodNanos))
+        .take(arrivals)
+        .flatMap(
+            tick -> {
+              long due = this.startNanos + (tick + 1) * periodNanos;
+              if (this.inFlight.incrementAndGet() > this.maxInFlight) {
+                this.inFlight.decrementAndGet();
+                if (measured(due)) {
+                  this.results.dropped(scenario);
+                }
+                return Mono.empty();
+              }
+              return request.apply(due).doFinally(signal -> this.inFlight.decrementAndGet());
+            },
+            Integer.MAX_VALUE)
+        .then();
+  }
+
+  private Mono<Void> stormBooking(long due) {
+    long rotations = (due - this.startNanos) / this.stormRotateEveryNanos;
+    List<Slot> day = this.stormDays.get((int) Math.min(rotations, this.stormDays.size() - 1));
+    Slot slot = day.get(ThreadLocalRandom.current().nextInt(day.size()));
+    return book("storm/book", due, slot)
+        .doOnNext(
+            status -> {
+              if (status / 100 == 2) {
+                this.stormBookings.merge(slot.slotId(), 1, Integer::sum);
+              }
+            })
+        .then();
+  }
+
+  private Mono<Void> mixedRequest(long due) {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    if (random.nextDouble() < this.mixedWriteRatio) {
+      Mono<Void> write = mixedWrite(due, random);
+      if (write != null) {
+        return write;
+      }
+    }
+    int doctor = random.nextInt(1, 51);
+    LocalDate date = this.today.plusDays(random.nextInt(-30, 31));
+    return switch (random.nextInt(5)) {
+      case 0 ->
+          get(
+              "mixed/appointment",
+              due,
+              "/appointment/{id}",
+              random.nextInt(1, this.maxAppointmentId + 1));
+      case 1 -> get("mixed/user", due, "/user/by/id/{id}", random.nextInt(1, 10_001));
+      case 2 -> get("mixed/doctor-page", due, "/appointment/bydoctor/{id}?size=20", "DOC" + doctor);
+      case 3 ->
+          get(
+              "mixed/available-slots",
+              due,
+              "/slots/available?doctorId={doctorId}&clinicId={clinicId}&date={date}",
+              "DOC" + doctor,
+              doctor % 10 + 1,
+              date);
+      default -> get("mixed/schedule", due, "/schedule/{doctorId}/{date}", "DOC" + doctor, date);
+    };
+  }
+
+  /**
+   * One write of the mix, picked by weight, or {@code null} once the free slots or the booked
+   * appointments it needs have run out. Every write takes a slot and an appointment of its own.
+   */
+  private Mono<Void> mixedWrite(long due, ThreadLocalRandom random) {
+    int totalWeight = Arrays.stream(this.mixedWriteWeights).sum();
+    if (totalWeight <= 0) {
+      return null;
+    }
+    int pick = random.nextInt(totalWeight);
+    Write write = Write.BOOK;
+    while (pick >= this.mixedWriteWeights[write.ordinal()]) {
+      pick -= this.mixedWriteWeights[write.ordinal()];
+      write = Write.values()[write.ordinal() + 1];
+    }
+    Slot slot = null;
+    if (write == Write.BOOK || write == Write.RESCHEDULE) {
+      int next = this.nextFreeSlot.getAndIncrement();
+      if (next >= this.freeSlots.size()) {
+        return null;
+      }
+      slot = this.freeSlots.get(next);
+    }
+    Booked booked = write == Write.BOOK ? null : this.bookedAppointments.poll();
+    if (write != Write.BOOK && booked == null) {
+      return null;
+    }
+    return switch (write) {
+      case BOOK -> book("mixed/book", due, slot).then();
+      case CANCEL ->
+          send(
+                  "mixed/cancel",
+                  due,
+                  this.webClient.put().uri("/appointments/cancel/{id}", booked.appointmentId()))
+              .then();
+      case RESCHEDULE ->
+          send(
+                  "mixed/reschedule",
+                  due,
+                  this.webClient
+                      .put()
+                      .uri("/appointments/{id}", booked.appointmentId())
+                      .contentType(MediaType.APPLICATION_JSON)
+                      .bodyValue(appointment(slot, booked.userId())))
+              .then();
+      case DELETE ->
+          send(
+                  "mixed/delete",
+                  due,
+                  this.webClient.delete().uri("/appointment/{id}", booked.appointmentId()))
+              .then();
+    };
+  }
+
+  private Mono<Void> rangeExport(long due) {
+    LocalDate from = this.today.minusDays(this.exportDays - 1);
+    return send(
+            "export/range",
+            due,
+            this.webClient
+                .get()
+                .uri("/appointments/between/{from}/{to}", from, this.today)
+                .accept(MediaType.APPLICATION_NDJSON))
+        .then();
+  }
+
+  private Mono<Integer> book(String operation, long due, Slot slot) {
+    AppointmentDetails appointment =
+        appointment(slot, ThreadLocalRandom.current().nextInt(1, 10_001));
+    return send(
+        operation,
+        due,
+        this.webClient
+            .post()
+            .uri("/appointments")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(List.of(appointment)));
+  }
+
+  private static AppointmentDetails appointment(Slot slot, int userId) {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    AppointmentDetails appointment = new AppointmentDetails();
+    appointment.setUserId(userId);
+    appointment.setAppointmentType(AppointmentType.CONSULTATION);
+    appointment.setAppointmentFor(AppointmentFor.SELF);
+    appointment.setAppointmentForName("Load Test");
+    appointment.setAppointmentForAge(random.nextInt(1, 90));
+    appointment.setSymptom(Symptom.FEVER);
+    appointment.setAppointmentDate(LocalDateTime.of(slot.date(), slot.time()));
+    appointment.setSlotId(slot.slotId());
+    appointment.setDoctorId(slot.doctorId());
+    appointment.setClinicId(slot.clinicId());
+    appointment.setActive(true);
+    return appointment;
+  }
+
+  private Mono<Void> get(String operation, long due, String uri, Object... variables) {
+    return send(operation, due, this.webClient.get().uri(uri, variables)).then();
+  }
+
+  /** Sends a request, reads its whole body and records it; emits its status unless it failed. */
+  private Mono<Integer> send(String operation, long due, WebClient.RequestHeadersSpec<?> request) {
+    return request
+        .exchangeToMono(
+            response -> response.releaseBody().thenReturn(response.statusCode().value()))
+        .doOnNext(
+            status -> {
+              if (measured(due)) {
+                this.results.record(operation, System.nanoTime() - due, status);
+              }
+            })
+        .onErrorResume(
+            error -> {
+              if (measured(due)) {
+                this.results.failed(operation, System.nanoTime() - due);
+              }
+              return Mono.empty();
+            });
+  }
+
+  private boolean measured(long due) {
+    return due - this.startNanos >= this.warmup.toNanos();
+  }
+
+  /**
+   * Counts slots held by more than one active appointment, slots marked free although an active
+   * appointment holds them, and storm slots the service confirmed to more than one client.
+   */
+  private Map<String, Long> checkBookings() {
+    Map<String, Long> violations = new LinkedHashMap<>();
+    violations.put(
+        "doubleBookedSlots",
+        count(
+            "SELECT COUNT(*) AS violations FROM (SELECT slot_id FROM appointments"
+                + " WHERE active = TRUE GROUP BY slot_id HAVING COUNT(*) > 1) d"));
+    violations.put(
+        "bookedSlotsMarkedFree",
+        count(
+            "SELECT COUNT(*) AS violations FROM appointments a"
+                + " JOIN slot_information s ON s.slot_id = a.slot_id"
+                + " WHERE a.active = TRUE AND s.is_available = TRUE"));
+    violations.put(
+        "stormSlotsConfirmedTwice",
+        this.stormBookings.values().stream().filter(bookings -> bookings > 1).count());
+    return violations;
+  }
+
+  private long count(String sql) {
+    return this.databaseClient
+        .sql(sql)
+        .map(row -> row.get("violations", Long.class))
+        .one()
+        .block();
+  }
+
+  private void writeReport(Map<String, Object> report) {
+    Path path = Path.of(setting("loadtest.report", String.class));
+    try {
+      if (path.getParent() != null) {
+        Files.createDirectories(path.getParent());
+      }
+      this.objectMapper.writerWithDefaultPrettyPrinter().writeValue(path.toFile(), report);
+      System.out.println("Report written to " + path.toAbsolutePath());
+    } catch (IOException e) {
+      System.err.println("Could not write report to " + path + ": " + e.getMessage());
+    }
+  }
+
+  private <T> T setting(String name, Class<T> type) {
+    return this.environment.getRequiredProperty(name, type);
+  }
+
+  private record Slot(int slotId, String doctorId, int clinicId, LocalDate date, LocalTime time) {}
+
+  private record Booked(int appointmentId, int userId) {}
+
+  private enum Write {
+    BOOK,
+    CANCEL,
+    RESCHEDULE,
+    DELETE
+  }
+}
@@ -0,0 +1,141 @@
+package com.deepak.registrationservice.loadtest;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Outcomes and latencies of the measured requests, per operation. Latencies run from the moment
+ * a request was due to be sent, so time spent waiting behind a slow server is included.
+ */
+final class Results {
+
+  private final Map<String, Operation> operations = new ConcurrentSkipListMap<>();
+  private final Map<String, LongAdder> dropped = new ConcurrentSkipListMap<>();
+
+  void record(String operation, long latencyNanos, int status) {
+    Operation stats = operation(operation);
+    stats.latencies.recordValue(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+    if (status == 429) {
+      stats.throttled.increment();
+    } else if (status >= 500) {
+      stats.failed.increment();
+    } else if (status >= 400) {
+      stats.rejected.increment();
+    } else {
+      stats.ok.increment();
+    }
+  }
+
+  void failed(String operation, long latencyNanos) {
+    Operation stats = operation(operation);
+    stats.latencies.recordValue(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+    stats.failed.increment();
+  }
+
+  /** Counts an arrival that was not sent because too many requests were outstanding. */
+  void dropped(String scenario) {
+    this.dropped.computeIfAbsent(scenario, name -> new LongAdder()).increment();
+  }
+
+  /** The results as nested maps, ready to be written as JSON. */
+  Map<String, Object> report(String engine, Duration duration, Map<String, Long> violations) {
+    double seconds = duration.toMillis() / 1000.0;
+    Map<String, Object> operations = new LinkedHashMap<>();
+    this.operations.forEach(
+        (name, stats) -> {
+          Histogram latencies = stats.latencies;
+          Map<String, Object> operation = new LinkedHashMap<>();
+          operation.put("requests", latencies.getTotalCount());
+          operation.put("ok", stats.ok.sum());
+          operation.put("rejected", stats.rejected.sum());
+          operation.put("throttled", stats.throttled.sum());
+          operation.put("failed", stats.failed.sum());
+          operation.put("throughputPerSecond", round(latencies.getTotalCount() / seconds));
+          Map<String, Object> millis = new LinkedHashMap<>();
+          millis.put("p50", millis(latencies.getValueAtPercentile(50)));
+          millis.put("p95", millis(latencies.getValueAtPercentile(95)));
+          millis.put("p99", millis(latencies.getValueAtPercentile(99)));
+          millis.put("max", millis(latencies.getMaxValue()));
+          operation.put("latencyMillis", millis);
+          operations.put(name, operation);
+        });
+    Map<String, Long> dropped = new LinkedHashMap<>();
+    this.dropped.forEach((scenario, count) -> dropped.put(scenario, count.sum()));
+    Map<String, Object> report = new LinkedHashMap<>();
+    report.put("engine", engine);
+    report.put("durationSeconds", seconds);
+    report.put("operations", operations);
+    report.put("droppedArrivals", dropped);
+    report.put("violations", violations);
+    return report;
+  }
+
+  /** The results as a table for the console. */
+  @SuppressWarnings("unchecked")
+  String table(Map<String, Object> report) {
+    StringBuilder table = new StringBuilder();
+    table.append("engine: ").append(report.get("engine")).append('\n');
+    table.append(
+        String.format(
+            "%-26s %9s %9s %9s %9s %9s %9s %9s %9s %9s %9s%n",
+            "operation",
+            "requests",
+            "ok",
+            "rejected",
+            "throttled",
+            "failed",
+            "req/s",
+            "p50 ms",
+            "p95 ms",
+            "p99 ms",
+            "max ms"));
+    ((Map<String, Map<String, Object>>) report.get("operations"))
+        .forEach(
+            (name, operation) -> {
+              Map<String, Object> millis = (Map<String, Object>) operation.get("latencyMillis");
+              table.append(
+                  String.format(
+                      "%-26s %9s %9s %9s %9s %9s %9s %9s %9s %9s %9s%n",
+                      name,
+                      operation.get("requests"),
+                      operation.get("ok"),
+                      operation.get("rejected"),
+                      operation.get("throttled"),
+                      operation.get("failed"),
+                      operation.get("throughputPerSecond"),
+                      millis.get("p50"),
+                      millis.get("p95"),
+                      millis.get("p99"),
+                      millis.get("max")));
+            });
+    table.append("dropped arrivals: ").append(report.get("droppedArrivals")).append('\n');
+    table.append("violations: ").append(report.get("violations")).append('\n');
+    return table.toString();
+  }
+
+  private Operation operation(String name) {
+    return this.operations.computeIfAbsent(name, key -> new Operation());
+  }
+
+  private static double millis(long micros) {
+    return round(micros / 1000.0);
+  }
+
+  private static double round(double value) {
+    return Math.round(value * 100) / 100.0;
+  }
+
+  private static final class Operation {
+    private final Histogram latencies = new ConcurrentHistogram(3);
+    private final LongAdder ok = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+  }
+}
@@ -0,0 +1,77 @@
+-- 10,000 users and 50 doctors across 10 clinics, each with 48 ten-minute slots a day from 30 days
+-- ago to 30 days ahead: 146,400 slots. Three in five past slots are booked, one in ten future
+-- ones, and one booking in seventeen was cancelled. The storm doctor, DOC1, has no future
+-- bookings so that booking storms start from free days.
+
+-- The numbers 1 to 10,000, which the statements below draw their rows from.
+DROP TABLE IF EXISTS loadtest_numbers;
+CREATE TABLE loadtest_numbers (x INT NOT NULL PRIMARY KEY);
+INSERT INTO loadtest_numbers (x)
+SELECT 1 + a.d + 10 * b.d + 100 * c.d + 1000 * e.d
+FROM (SELECT 0 AS d UNION ALL SELECT 1 UNION ALL SELECT 2 UNION ALL SELECT 3 UNION ALL SELECT 4
+      UNION ALL SELECT 5 UNION ALL SELECT 6 UNION ALL SELECT 7 UNION ALL SELECT 8
+      UNION ALL SELECT 9) a,
+     (SELECT 0 AS d UNION ALL SELECT 1 UNION ALL SELECT 2 UNION ALL SELECT 3 UNION ALL SELECT 4
+      UNION ALL SELECT 5 UNION ALL SELECT 6 UNION ALL SELECT 7 UNION ALL SELECT 8
+      UNION ALL SELECT 9) b,
+     (SELECT 0 AS d UNION ALL SELECT 1 UNION ALL SELECT 2 UNION ALL SELECT 3 UNION ALL SELECT 4
+      UNION ALL SELECT 5 UNION ALL SELECT 6 UNION ALL SELECT 7 UNION ALL SELECT 8
+      UNION ALL SELECT 9) c,
+     (SELECT 0 AS d UNION ALL SELECT 1 UNION ALL SELECT 2 UNION ALL SELECT 3 UNION ALL SELECT 4
+      UNION ALL SELECT 5 UNION ALL SELECT 6 UNION ALL SELECT 7 UNION ALL SELECT 8
+      UNION ALL SELECT 9) e;
+
+INSERT INTO users (id, name, phoneNumber, email, birthdate)
+SELECT x, CONCAT('User ', x), CONCAT('+91', 9000000000 + x), CONCAT('user', x, '@example.com'),
+       DATE '2010-01-01' - INTERVAL MOD(x * 37, 25000) DAY
+FROM loadtest_numbers;
+
+INSERT INTO slot_information
+  (slot_no, shift_time, slot_time, clinic_id, doctor_id, slot_date, is_available)
+SELECT s.x,
+       CASE WHEN s.x <= 24 THEN 'Morning' ELSE 'Afternoon' END,
+       TIME_FORMAT(SEC_TO_TIME((540 + (s.x - 1) * 10) * 60), '%H:%i'),
+       CAST(MOD(d.x, 10) + 1 AS CHAR),
+       CONCAT('DOC', d.x),
+       DATE_FORMAT(CURRENT_DATE + INTERVAL dd.x - 31 DAY, '%Y-%m-%d'),
+       TRUE
+FROM loadtest_numbers d, loadtest_numbers dd, loadtest_numbers s
+WHERE d.x <= 50 AND dd.x <= 61 AND s.x <= 48
+ORDER BY d.x, dd.x, s.x;
+
+INSERT INTO appointments
+  (user_id, appointment_type, appointment_for, appointment_for_name, appointment_for_age,
+   symptom, other_symptoms, appointment_date, slot_id, doctor_id, clinic_id, active)
+SELECT MOD(slot_id * 7919, 10000) + 1,
+       CASE MOD(slot_id, 5)
+         WHEN 0 THEN 'GENERAL_CHECKUP' WHEN 1 THEN 'DENTAL' WHEN 2 THEN 'VACCINATION'
+         WHEN 3 THEN 'CONSULTATION' ELSE 'FOLLOW_UP' END,
+       CASE MOD(slot_id, 4) WHEN 0 THEN 'SELF' WHEN 1 THEN 'KIDS' WHEN 2 THEN 'SPOUSE'
+         ELSE 'PARENTS' END,
+       CONCAT('Patient ', slot_id),
+       MOD(slot_id, 80) + 1,
+       CASE MOD(slot_id, 3) WHEN 0 THEN 'FEVER' WHEN 1 THEN 'HEADACHE' ELSE 'COUGH' END,
+       NULL,
+       CAST(slot_date AS DATETIME) + INTERVAL 540 + (slot_no - 1) * 10 MINUTE,
+       slot_id,
+       doctor_id,
+       CAST(clinic_id AS SIGNED),
+       MOD(slot_id, 17) <> 0
+FROM slot_information
+WHERE (slot_date <= DATE_FORMAT(CURRENT_DATE, '%Y-%m-%d') AND MOD(slot_id, 5) < 3)
+   OR (slot_date > DATE_FORMAT(CURRENT_DATE, '%Y-%m-%d') AND doctor_id <> 'DOC1'
+       AND MOD(slot_id, 10) = 0);
+
+UPDATE slot_information SET is_available = FALSE
+WHERE slot_id IN (SELECT slot_id FROM appointments WHERE active);
+
+INSERT INTO queue_management
+  (appointment_id, slot_id, clinic_id, doctor_id, initial_queue_no, current_queue_no,
+   advance_paid, cancelled, advance_revert_if_paid, patient_reached, consultation_fee_paid,
+   queue_date)
+SELECT a.appointment_id, a.slot_id, a.clinic_id, a.doctor_id, s.slot_no, s.slot_no,
+       FALSE, NOT a.active, FALSE, a.appointment_date < CURRENT_TIMESTAMP, FALSE,
+       CAST(a.appointment_date AS DATE)
+FROM appointments a JOIN slot_information s ON s.slot_id = a.slot_id;
+
+DROP TABLE loadtest_numbers;
@@ -0,0 +1,82 @@
+-- Tables of the registration service, for MySQL 8. Each run starts from empty tables.
+
+DROP TABLE IF EXISTS idempotency_keys, queue_management_archive, appointments_archive,
+  queue_management, appointments, slot_information, users;
+
+CREATE TABLE users (
+  id INT AUTO_INCREMENT PRIMARY KEY,
+  name VARCHAR(255),
+  phoneNumber VARCHAR(20) UNIQUE,
+  email VARCHAR(255),
+  birthdate DATE
+);
+
+CREATE TABLE slot_information (
+  slot_id INT AUTO_INCREMENT PRIMARY KEY,
+  slot_no INT NOT NULL,
+  shift_time VARCHAR(32),
+  slot_time VARCHAR(8),
+  clinic_id VARCHAR(16) NOT NULL,
+  doctor_id VARCHAR(32) NOT NULL,
+  slot_date VARCHAR(10) NOT NULL,
+  is_available BOOLEAN NOT NULL DEFAULT TRUE,
+  CONSTRAINT uk_slot_information_day_slot UNIQUE (doctor_id, clinic_id, slot_date, slot_no)
+);
+
+CREATE TABLE appointments (
+  appointment_id INT AUTO_INCREMENT PRIMARY KEY,
+  user_id INT,
+  appointment_type VARCHAR(32),
+  appointment_for VARCHAR(32),
+  appointment_for_name VARCHAR(256),
+  appointment_for_age INT,
+  symptom VARCHAR(32),
+  other_symptoms VARCHAR(256),
+  appointment_date DATETIME,
+  slot_id INT,
+  doctor_id VARCHAR(32),
+  clinic_id INT,
+  active BOOLEAN NOT NULL DEFAULT TRUE
+);
+
+CREATE INDEX idx_appointments_date ON appointments (appointment_date, appointment_id);
+CREATE INDEX idx_appointments_doctor_date ON appointments (doctor_id, appointment_date);
+CREATE INDEX idx_appointments_clinic_date ON appointments (clinic_id, appointment_date);
+CREATE INDEX idx_appointments_user ON appointments (user_id);
+CREATE INDEX idx_appointments_slot ON appointments (slot_id);
+
+CREATE TABLE queue_management (
+  queue_management_id INT AUTO_INCREMENT PRIMARY KEY,
+  appointment_id INT NOT NULL,
+  slot_id INT,
+  clinic_id INT,
+  doctor_id VARCHAR(32),
+  initial_queue_no INT,
+  current_queue_no INT,
+  advance_paid BOOLEAN,
+  cancelled BOOLEAN,
+  advance_revert_if_paid BOOLEAN,
+  patient_reached BOOLEAN,
+  visit_status VARCHAR(32),
+  consultation_fee_paid BOOLEAN,
+  consultation_fee_amount DOUBLE,
+  transaction_id_advance_fee VARCHAR(64),
+  transaction_id_consultation_fee VARCHAR(64),
+  transaction_id_advance_revert VARCHAR(64),
+  queue_date DATE
+);
+
+CREATE INDEX idx_queue_management_appointment ON queue_management (appointment_id);
+CREATE INDEX idx_queue_management_doctor ON queue_management (doctor_id);
+
+CREATE TABLE appointments_archive LIKE appointments;
+CREATE TABLE queue_management_archive LIKE queue_management;
+
+CREATE TABLE idempotency_keys (
+  idempotency_key VARCHAR(255) NOT NULL PRIMARY KEY,
+  request_hash CHAR(64),
+  response MEDIUMTEXT NOT NULL,
+  created_at DATETIME NOT NULL
+);
+
+CREATE INDEX idx_idempotency_keys_created_at ON idempotency_keys (created_at);
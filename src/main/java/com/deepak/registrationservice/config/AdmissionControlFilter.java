@@ -0,0 +1,188 @@
+package com.deepak.registrationservice.config;
+
+import com.deepak.registrationservice.exception.ErrorDetails;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Admission control for the API. Appointment writes and every class of read endpoint each have
+ * their own {@link GradientConcurrencyLimit}, so a burst of bookings cannot starve cheap reads of
+ * the connection pool or the other way round. Reads are split by endpoint class because their
+ * costs differ by orders of magnitude: a user lookup that hits the cache must not set the latency
+ * a date range query is expected to have. A request over its budget's limit is answered at once
+ * with 429 and {@code Retry-After} instead of waiting for a connection.
+ *
+ * <p>Streaming responses are not limited: they are long by design and their duration says nothing
+ * about saturation. Neither does the latency of a 304, which is answered without a query, so it
+ * releases its permit without adapting the limit.
+ */
+@Component
+public class AdmissionControlFilter implements WebFilter {
+
+  private static final List<MediaType> STREAMING_TYPES =
+      List.of(MediaType.TEXT_EVENT_STREAM, MediaType.APPLICATION_NDJSON);
+  // Classes of read endpoint, by the first path segment after /v1/.
+  private static final List<String> READ_ENDPOINTS =
+      List.of(
+          "appointment", "appointments", "user", "users", "queue", "schedule", "slots", "stats");
+
+  private final ObjectMapper objectMapper;
+  private final boolean enabled;
+  private final String retryAfterSeconds;
+  private final Budget writes;
+  private final Map<String, Budget> reads;
+  // Reads of paths outside the known classes, which are mostly 404s.
+  private final Budget otherReads;
+
+  public AdmissionControlFilter(
+      ObjectMapper objectMapper,
+      MeterRegistry meterRegistry,
+      @Value("${admission.enabled:true}") boolean enabled,
+      @Value("${admission.retry-after:1s}") Duration retryAfter,
+      @Value("${admission.writes.initial-limit:10}") int writesInitialLimit,
+      @Value("${admission.writes.min-limit:2}") int writesMinLimit,
+      @Value("${admission.writes.max-limit:100}") int writesMaxLimit,
+      @Value("${admission.reads.initial-limit:20}") int readsInitialLimit,
+      @Value("${admission.reads.min-limit:4}") int readsMinLimit,
+      @Value("${admission.reads.max-limit:200}") int readsMaxLimit) {
+    this.objectMapper = objectMapper;
+    this.enabled = enabled;
+    this.retryAfterSeconds = String.valueOf(Math.max(1, (retryAfter.toMillis() + 999) / 1000));
+    this.writes =
+        new Budget(
+            "writes",
+            "appointment",
+            new GradientConcurrencyLimit(writesInitialLimit, writesMinLimit, writesMaxLimit),
+            meterRegistry);
+    Function<String, Budget> readBudget =
+        endpoint ->
+            new Budget(
+                "reads",
+                endpoint,
+                new GradientConcurrencyLimit(readsInitialLimit, readsMinLimit, readsMaxLimit),
+                meterRegistry);
+    this.reads =
+        READ_ENDPOINTS.stream()
+            .collect(Collectors.toUnmodifiableMap(Function.identity(), readBudget));
+    this.otherReads = readBudget.apply("other");
+  }
+
+  @Override
+  public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+    Budget budget = this.enabled ? budgetOf(exchange.getRequest()) : null;
+    if (budget == null) {
+      return chain.filter(exchange);
+    }
+    if (!budget.limit.tryAcquire()) {
+      budget.rejections.increment();
+      return reject(exchange.getResponse());
+    }
+    long started = System.nanoTime();
+    return chain
+        .filter(exchange)
+        .doFinally(
+            signal -> {
+              if (signal == SignalType.CANCEL
+                  || HttpStatus.NOT_MODIFIED.equals(exchange.getResponse().getStatusCode())) {
+                budget.limit.release();
+              } else {
+                budget.limit.release(System.nanoTime() - started);
+              }
+            });
+  }
+
+  private Budget budgetOf(ServerHttpRequest request) {
+    String path = request.getPath().pathWithinApplication().value();
+    if (!path.startsWith("/v1/")) {
+      return null;
+    }
+    HttpMethod method = request.getMethod();
+    if (HttpMethod.GET.equals(method) || HttpMethod.HEAD.equals(method)) {
+      if (isStreaming(request) || path.endsWith("/stream")) {
+        return null;
+      }
+      int end = path.indexOf('/', "/v1/".length());
+      String endpoint = path.substring("/v1/".length(), end < 0 ? path.length() : end);
+      return this.reads.getOrDefault(endpoint, this.otherReads);
+    }
+    // Booking, rescheduling, cancelling and deleting appointments.
+    return path.startsWith("/v1/appointment") ? this.writes : null;
+  }
+
+  private static boolean isStreaming(ServerHttpRequest request) {
+    return request.getHeaders().getAccept().stream()
+        .anyMatch(type -> STREAMING_TYPES.stream().anyMatch(type::equalsTypeAndSubtype));
+  }
+
+  private Mono<Void> reject(ServerHttpResponse response) {
+    response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+    response.getHeaders().set(HttpHeaders.RETRY_AFTER, this.retryAfterSeconds);
+    response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+    ErrorDetails errorDetails =
+        ErrorDetails.builder()
+            .message("Too many requests")
+            .details("The service is at capacity; retry after " + this.retryAfterSeconds + "s")
+            .timestamp(String.valueOf(LocalDateTime.now()))
+            .build();
+    byte[] body;
+    try {
+      body = this.objectMapper.writeValueAsBytes(errorDetails);
+    } catch (JsonProcessingException e) {
+      return response.setComplete();
+    }
+    DataBuffer buffer = response.bufferFactory().wrap(body);
+    return response.writeWith(Mono.just(buffer));
+  }
+
+  private static final class Budget {
+    private final GradientConcurrencyLimit limit;
+    private final Counter rejections;
+
+    private Budget(
+        String name,
+        String endpoint,
+        GradientConcurrencyLimit limit,
+        MeterRegistry meterRegistry) {
+      this.limit = limit;
+      Gauge.builder("admission.limit", limit, GradientConcurrencyLimit::getLimit)
+          .description("Requests of the budget admitted at once")
+          .tag("budget", name)
+          .tag("endpoint", endpoint)
+          .register(meterRegistry);
+      Gauge.builder("admission.in.flight", limit, GradientConcurrencyLimit::getInFlight)
+          .description("Requests of the budget currently running")
+          .tag("budget", name)
+          .tag("endpoint", endpoint)
+          .register(meterRegistry);
+      this.rejections =
+          Counter.builder("admission.rejections")
+              .description("Requests of the budget refused with 429")
+              .tag("budget", name)
+              .tag("endpoint", endpoint)
+              .register(meterRegistry);
+    }
+  }
+}
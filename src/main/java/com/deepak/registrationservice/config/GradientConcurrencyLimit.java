@@ -0,0 +1,90 @@
+package com.deepak.registrationservice.config;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A concurrency limit that adapts to latency. It compares the latency of each completed request
+ * with the lowest latency seen recently, which is what a request costs when it does not queue.
+ * While the two agree the limit grows by roughly its square root; once requests take markedly
+ * longer, which is what queueing for a saturated connection pool looks like, the limit shrinks in
+ * proportion. Requests beyond the limit are refused instead of queued.
+ *
+ * <p>The limit only grows while it is actually in use, so a quiet period does not leave it too
+ * high for the next burst. The lowest latency is taken over the last two windows of samples, so
+ * it follows a lasting change in the cost of a request.
+ */
+public class GradientConcurrencyLimit {
+
+  // Samples per window of the lowest-latency tracking.
+  private static final int WINDOW = 500;
+  // Latency may rise this much above the lowest recent latency before the limit shrinks.
+  private static final double TOLERANCE = 1.5;
+  private static final double SMOOTHING = 0.2;
+
+  private final int minLimit;
+  private final int maxLimit;
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private volatile double limit;
+  // Lowest latency of the previous and of the current window, and samples in the current one.
+  // Guarded by this.
+  private long previousMinRttNanos = Long.MAX_VALUE;
+  private long minRttNanos = Long.MAX_VALUE;
+  private int windowSamples;
+
+  public GradientConcurrencyLimit(int initialLimit, int minLimit, int maxLimit) {
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+  }
+
+  /** Admits a request if fewer than the limit are in flight; admitted requests must release. */
+  public boolean tryAcquire() {
+    while (true) {
+      int current = this.inFlight.get();
+      if (current >= (int) this.limit) {
+        return false;
+      }
+      if (this.inFlight.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+
+  /** Releases a request that completed after {@code rttNanos} and adapts the limit to it. */
+  public void release(long rttNanos) {
+    int current = this.inFlight.getAndDecrement();
+    sample(rttNanos, current);
+  }
+
+  /** Releases a request whose latency says nothing about load, such as one the client dropped. */
+  public void release() {
+    this.inFlight.decrementAndGet();
+  }
+
+  public int getLimit() {
+    return (int) this.limit;
+  }
+
+  public int getInFlight() {
+    return this.inFlight.get();
+  }
+
+  private synchronized void sample(long rttNanos, int inFlight) {
+    long rtt = Math.max(rttNanos, 1);
+    this.minRttNanos = Math.min(this.minRttNanos, rtt);
+    if (++this.windowSamples == WINDOW) {
+      this.previousMinRttNanos = this.minRttNanos;
+      this.minRttNanos = Long.MAX_VALUE;
+      this.windowSamples = 0;
+    }
+    double current = this.limit;
+    if (inFlight < current / 2) {
+      return;
+    }
+    double noQueueRtt = Math.min(this.previousMinRttNanos, this.minRttNanos);
+    double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * noQueueRtt / rtt));
+    double target = current * gradient + Math.sqrt(current);
+    double next = current * (1 - SMOOTHING) + target * SMOOTHING;
+    this.limit = Math.max(this.minLimit, Math.min(this.maxLimit, next));
+  }
+}
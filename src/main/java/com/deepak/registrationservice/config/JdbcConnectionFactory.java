@@ -0,0 +1,681 @@
+package com.deepak.registrationservice.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.r2dbc.spi.Batch;
+import io.r2dbc.spi.Closeable;
+import io.r2dbc.spi.ColumnMetadata;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import io.r2dbc.spi.ConnectionMetadata;
+import io.r2dbc.spi.IsolationLevel;
+import io.r2dbc.spi.Parameter;
+import io.r2dbc.spi.R2dbcBadGrammarException;
+import io.r2dbc.spi.R2dbcDataIntegrityViolationException;
+import io.r2dbc.spi.R2dbcException;
+import io.r2dbc.spi.R2dbcNonTransientException;
+import io.r2dbc.spi.R2dbcNonTransientResourceException;
+import io.r2dbc.spi.R2dbcRollbackException;
+import io.r2dbc.spi.R2dbcTimeoutException;
+import io.r2dbc.spi.R2dbcTransientResourceException;
+import io.r2dbc.spi.R2dbcType;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import io.r2dbc.spi.Statement;
+import io.r2dbc.spi.TransactionDefinition;
+import io.r2dbc.spi.Type;
+import io.r2dbc.spi.ValidationDepth;
+import java.sql.JDBCType;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLSyntaxErrorException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransactionRollbackException;
+import java.sql.SQLTransientException;
+import java.sql.Savepoint;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import javax.sql.DataSource;
+import org.reactivestreams.Publisher;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.util.ClassUtils;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * The R2DBC API on top of a JDBC data source, for the {@code jdbc} profile. The repositories, the
+ * {@code DatabaseClient} and reactive transactions keep working unchanged, but every statement runs
+ * on MySQL Connector/J with a connection from the Hikari pool, on a virtual thread of the given
+ * scheduler, so the profile never opens a jasync connection. An R2DBC connection holds its JDBC
+ * connection until it is closed, so a transaction's statements share one.
+ *
+ * <p>Result sets are read whole before their rows are emitted, as jasync does too; large ranges
+ * are streamed in keyset chunks anyway. Statements arrive with the {@code ?} markers of the MySQL
+ * dialect, which is why the metadata names MySQL, and are bound by index. Driver errors become
+ * the matching {@link R2dbcException}, so Spring translates them as it does jasync's.
+ */
+class JdbcConnectionFactory implements ConnectionFactory, Closeable, Disposable {
+
+  private static final ConnectionFactoryMetadata METADATA = () -> "MySQL";
+  private static final ConversionService CONVERSIONS = DefaultConversionService.getSharedInstance();
+  private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+
+  private final DataSource dataSource;
+  private final Scheduler scheduler;
+  // Replica pools are created here, so they are closed here too.
+  private final boolean ownsDataSource;
+
+  JdbcConnectionFactory(DataSource dataSource, Scheduler scheduler) {
+    this(dataSource, scheduler, false);
+  }
+
+  private JdbcConnectionFactory(
+      DataSource dataSource, Scheduler scheduler, boolean ownsDataSource) {
+    this.dataSource = dataSource;
+    this.scheduler = scheduler;
+    this.ownsDataSource = ownsDataSource;
+  }
+
+  /** A factory with a Hikari pool of its own for a read replica, on the same scheduler. */
+  JdbcConnectionFactory replica(
+      String poolName, String jdbcUrl, String username, String password, int maxPoolSize) {
+    HikariDataSource replica = new HikariDataSource();
+    replica.setPoolName(poolName);
+    replica.setJdbcUrl(jdbcUrl);
+    replica.setUsername(username);
+    replica.setPassword(password);
+    replica.setMaximumPoolSize(maxPoolSize);
+    return new JdbcConnectionFactory(replica, this.scheduler, true);
+  }
+
+  @Override
+  public Publisher<? extends Connection> create() {
+    return call(null, () -> new JdbcConnection(this.dataSource.getConnection()));
+  }
+
+  @Override
+  public ConnectionFactoryMetadata getMetadata() {
+    return METADATA;
+  }
+
+  @Override
+  public Publisher<Void> close() {
+    return Mono.fromRunnable(this::dispose);
+  }
+
+  @Override
+  public void dispose() {
+    if (this.ownsDataSource && this.dataSource instanceof HikariDataSource pool) {
+      pool.close();
+    }
+  }
+
+  @Override
+  public boolean isDisposed() {
+    return this.ownsDataSource
+        && this.dataSource instanceof HikariDataSource pool
+        && pool.isClosed();
+  }
+
+  /** Runs blocking JDBC work on a virtual thread; a {@code null} result completes empty. */
+  private <T> Mono<T> call(String sql, SqlWork<T> work) {
+    return Mono.fromCallable(() -> now(sql, work)).subscribeOn(this.scheduler);
+  }
+
+  private static <T> T now(String sql, SqlWork<T> work) {
+    try {
+      return work.run();
+    } catch (SQLException ex) {
+      throw translate(ex, sql);
+    }
+  }
+
+  private static R2dbcException translate(SQLException ex, String sql) {
+    String reason = ex.getMessage();
+    String state = ex.getSQLState() == null ? "" : ex.getSQLState();
+    int code = ex.getErrorCode();
+    if (ex instanceof SQLIntegrityConstraintViolationException || state.startsWith("23")) {
+      return new R2dbcDataIntegrityViolationException(reason, state, code, sql, ex);
+    }
+    if (ex instanceof SQLTransactionRollbackException || state.startsWith("40")) {
+      return new R2dbcRollbackException(reason, state, code, sql, ex);
+    }
+    if (ex instanceof SQLTimeoutException) {
+      return new R2dbcTimeoutException(reason, state, code, sql, ex);
+    }
+    if (ex instanceof SQLSyntaxErrorException || state.startsWith("42")) {
+      return new R2dbcBadGrammarException(reason, state, code, sql, ex);
+    }
+    if (ex instanceof SQLTransientException) {
+      return new R2dbcTransientResourceException(reason, state, code, sql, ex);
+    }
+    if (ex instanceof SQLNonTransientConnectionException || state.startsWith("08")) {
+      return new R2dbcNonTransientResourceException(reason, state, code, sql, ex);
+    }
+    return new UncategorizedJdbcException(reason, state, code, sql, ex);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> T convert(Object value, Class<T> type) {
+    Class<?> target = ClassUtils.resolvePrimitiveIfNecessary(type);
+    if (value == null || target.isInstance(value)) {
+      return (T) value;
+    }
+    if (target == Boolean.class && value instanceof Number number) {
+      return (T) Boolean.valueOf(number.intValue() != 0);
+    }
+    return (T) CONVERSIONS.convert(value, target);
+  }
+
+  private static int jdbcLevel(IsolationLevel isolationLevel) {
+    if (IsolationLevel.READ_UNCOMMITTED.equals(isolationLevel)) {
+      return java.sql.Connection.TRANSACTION_READ_UNCOMMITTED;
+    }
+    if (IsolationLevel.READ_COMMITTED.equals(isolationLevel)) {
+      return java.sql.Connection.TRANSACTION_READ_COMMITTED;
+    }
+    if (IsolationLevel.REPEATABLE_READ.equals(isolationLevel)) {
+      return java.sql.Connection.TRANSACTION_REPEATABLE_READ;
+    }
+    return java.sql.Connection.TRANSACTION_SERIALIZABLE;
+  }
+
+  private static IsolationLevel r2dbcLevel(int jdbcLevel) {
+    return switch (jdbcLevel) {
+      case java.sql.Connection.TRANSACTION_READ_UNCOMMITTED -> IsolationLevel.READ_UNCOMMITTED;
+      case java.sql.Connection.TRANSACTION_READ_COMMITTED -> IsolationLevel.READ_COMMITTED;
+      case java.sql.Connection.TRANSACTION_REPEATABLE_READ -> IsolationLevel.REPEATABLE_READ;
+      default -> IsolationLevel.SERIALIZABLE;
+    };
+  }
+
+  private static Type typeOf(int sqlType) {
+    JDBCType jdbcType;
+    try {
+      jdbcType = JDBCType.valueOf(sqlType);
+    } catch (IllegalArgumentException ex) {
+      return R2dbcType.VARCHAR;
+    }
+    return switch (jdbcType) {
+      case BIT, BOOLEAN -> R2dbcType.BOOLEAN;
+      case TINYINT -> R2dbcType.TINYINT;
+      case SMALLINT -> R2dbcType.SMALLINT;
+      case INTEGER -> R2dbcType.INTEGER;
+      case BIGINT -> R2dbcType.BIGINT;
+      case DECIMAL -> R2dbcType.DECIMAL;
+      case NUMERIC -> R2dbcType.NUMERIC;
+      case FLOAT -> R2dbcType.FLOAT;
+      case REAL -> R2dbcType.REAL;
+      case DOUBLE -> R2dbcType.DOUBLE;
+      case DATE -> R2dbcType.DATE;
+      case TIME -> R2dbcType.TIME;
+      case TIMESTAMP -> R2dbcType.TIMESTAMP;
+      case CHAR -> R2dbcType.CHAR;
+      case BINARY -> R2dbcType.BINARY;
+      case VARBINARY, LONGVARBINARY -> R2dbcType.VARBINARY;
+      case BLOB -> R2dbcType.BLOB;
+      case CLOB -> R2dbcType.CLOB;
+      default -> R2dbcType.VARCHAR;
+    };
+  }
+
+  @FunctionalInterface
+  private interface SqlWork<T> {
+    T run() throws SQLException;
+  }
+
+  private final class JdbcConnection implements Connection {
+    private final java.sql.Connection jdbc;
+    private final Map<String, Savepoint> savepoints = new HashMap<>();
+    private volatile int statementTimeoutSeconds;
+    private volatile boolean readOnly;
+
+    private JdbcConnection(java.sql.Connection jdbc) {
+      this.jdbc = jdbc;
+    }
+
+    @Override
+    public Publisher<Void> beginTransaction() {
+      return call(null, () -> begin(null, false, null));
+    }
+
+    @Override
+    public Publisher<Void> beginTransaction(TransactionDefinition definition) {
+      return call(
+          null,
+          () ->
+              begin(
+                  definition.getAttribute(TransactionDefinition.ISOLATION_LEVEL),
+                  Boolean.TRUE.equals(definition.getAttribute(TransactionDefinition.READ_ONLY)),
+                  definition.getAttribute(TransactionDefinition.LOCK_WAIT_TIMEOUT)));
+    }
+
+    private Void begin(IsolationLevel isolationLevel, boolean readOnly, Duration lockWaitTimeout)
+        throws SQLException {
+      if (isolationLevel != null) {
+        this.jdbc.setTransactionIsolation(jdbcLevel(isolationLevel));
+      }
+      if (lockWaitTimeout != null) {
+        lockWaitTimeout(lockWaitTimeout);
+      }
+      if (readOnly) {
+        this.jdbc.setReadOnly(true);
+        this.readOnly = true;
+      }
+      this.jdbc.setAutoCommit(false);
+      return null;
+    }
+
+    @Override
+    public Publisher<Void> commitTransaction() {
+      return call(
+          null,
+          () -> {
+            this.jdbc.commit();
+            return end();
+          });
+    }
+
+    @Override
+    public Publisher<Void> rollbackTransaction() {
+      return call(
+          null,
+          () -> {
+            this.jdbc.rollback();
+            return end();
+          });
+    }
+
+    /** Back to auto-commit, as R2DBC leaves a connection after a transaction. */
+    private Void end() throws SQLException {
+      this.savepoints.clear();
+      this.jdbc.setAutoCommit(true);
+      if (this.readOnly) {
+        this.jdbc.setReadOnly(false);
+        this.readOnly = false;
+      }
+      return null;
+    }
+
+    @Override
+    public Publisher<Void> close() {
+      return call(
+          null,
+          () -> {
+            this.jdbc.close();
+            return null;
+          });
+    }
+
+    @Override
+    public Batch createBatch() {
+      List<String> statements = new ArrayList<>();
+      return new Batch() {
+        @Override
+        public Batch add(String sql) {
+          statements.add(sql);
+          return this;
+        }
+
+        @Override
+        public Publisher<? extends Result> execute() {
+          return Flux.fromIterable(statements)
+              .concatMap(sql -> new JdbcStatement(sql).execute());
+        }
+      };
+    }
+
+    @Override
+    public Publisher<Void> createSavepoint(String name) {
+      return call(
+          null,
+          () -> {
+            this.jdbc.setAutoCommit(false);
+            this.savepoints.put(name, this.jdbc.setSavepoint(name));
+            return null;
+          });
+    }
+
+    @Override
+    public Publisher<Void> releaseSavepoint(String name) {
+      return call(
+          null,
+          () -> {
+            this.jdbc.releaseSavepoint(this.savepoints.remove(name));
+            return null;
+          });
+    }
+
+    @Override
+    public Publisher<Void> rollbackTransactionToSavepoint(String name) {
+      return call(
+          null,
+          () -> {
+            this.jdbc.rollback(this.savepoints.get(name));
+            return null;
+          });
+    }
+
+    @Override
+    public Statement createStatement(String sql) {
+      return new JdbcStatement(sql);
+    }
+
+    @Override
+    public boolean isAutoCommit() {
+      return now(null, this.jdbc::getAutoCommit);
+    }
+
+    @Override
+    public ConnectionMetadata getMetadata() {
+      return new ConnectionMetadata() {
+        @Override
+        public String getDatabaseProductName() {
+          return now(null, () -> jdbc.getMetaData().getDatabaseProductName());
+        }
+
+        @Override
+        public String getDatabaseVersion() {
+          return now(null, () -> jdbc.getMetaData().getDatabaseProductVersion());
+        }
+      };
+    }
+
+    @Override
+    public IsolationLevel getTransactionIsolationLevel() {
+      return now(null, () -> r2dbcLevel(this.jdbc.getTransactionIsolation()));
+    }
+
+    @Override
+    public Publisher<Void> setAutoCommit(boolean autoCommit) {
+      return call(
+          null,
+          () -> {
+            this.jdbc.setAutoCommit(autoCommit);
+            return null;
+          });
+    }
+
+    @Override
+    public Publisher<Void> setLockWaitTimeout(Duration timeout) {
+      return call(null, () -> lockWaitTimeout(timeout));
+    }
+
+    private Void lockWaitTimeout(Duration timeout) throws SQLException {
+      try (java.sql.Statement statement = this.jdbc.createStatement()) {
+        statement.execute("SET innodb_lock_wait_timeout = " + Math.max(1, timeout.toSeconds()));
+      }
+      return null;
+    }
+
+    @Override
+    public Publisher<Void> setStatementTimeout(Duration timeout) {
+      return Mono.fromRunnable(
+          () -> this.statementTimeoutSeconds = (int) Math.ceil(timeout.toMillis() / 1000.0));
+    }
+
+    @Override
+    public Publisher<Void> setTransactionIsolationLevel(IsolationLevel isolationLevel) {
+      return call(
+          null,
+          () -> {
+            this.jdbc.setTransactionIsolation(jdbcLevel(isolationLevel));
+            return null;
+          });
+    }
+
+    @Override
+    public Publisher<Boolean> validate(ValidationDepth depth) {
+      return call(
+          null,
+          () ->
+              depth == ValidationDepth.LOCAL
+                  ? !this.jdbc.isClosed()
+                  : this.jdbc.isValid(VALIDATION_TIMEOUT_SECONDS));
+    }
+
+    private final class JdbcStatement implements Statement {
+      private final String sql;
+      private final List<Map<Integer, Object>> bindings = new ArrayList<>();
+      private Map<Integer, Object> current = new HashMap<>();
+      private String[] generatedColumns;
+
+      private JdbcStatement(String sql) {
+        this.sql = sql;
+      }
+
+      @Override
+      public Statement add() {
+        this.bindings.add(this.current);
+        this.current = new HashMap<>();
+        return this;
+      }
+
+      @Override
+      public Statement bind(int index, Object value) {
+        Object bound = value instanceof Parameter parameter ? parameter.getValue() : value;
+        this.current.put(index, bound);
+        return this;
+      }
+
+      @Override
+      public Statement bind(String name, Object value) {
+        throw new UnsupportedOperationException("Parameters are bound by index: " + name);
+      }
+
+      @Override
+      public Statement bindNull(int index, Class<?> type) {
+        this.current.put(index, null);
+        return this;
+      }
+
+      @Override
+      public Statement bindNull(String name, Class<?> type) {
+        throw new UnsupportedOperationException("Parameters are bound by index: " + name);
+      }
+
+      @Override
+      public Statement returnGeneratedValues(String... columns) {
+        this.generatedColumns = columns;
+        return this;
+      }
+
+      @Override
+      public Flux<Result> execute() {
+        List<Map<Integer, Object>> runs = new ArrayList<>(this.bindings);
+        if (runs.isEmpty() || !this.current.isEmpty()) {
+          runs.add(this.current);
+        }
+        return call(
+                this.sql,
+                () -> {
+                  List<Result> results = new ArrayList<>(runs.size());
+                  for (Map<Integer, Object> parameters : runs) {
+                    results.add(execute(parameters));
+                  }
+                  return results;
+                })
+            .flatMapIterable(results -> results);
+      }
+
+      private Result execute(Map<Integer, Object> parameters) throws SQLException {
+        try (PreparedStatement statement = prepare()) {
+          for (Map.Entry<Integer, Object> parameter : parameters.entrySet()) {
+            statement.setObject(parameter.getKey() + 1, parameter.getValue());
+          }
+          statement.setQueryTimeout(JdbcConnection.this.statementTimeoutSeconds);
+          if (statement.execute()) {
+            try (ResultSet rows = statement.getResultSet()) {
+              return new JdbcResult(read(rows));
+            }
+          }
+          List<Result.Segment> segments = new ArrayList<>();
+          long updated = statement.getUpdateCount();
+          segments.add((Result.UpdateCount) () -> updated);
+          if (this.generatedColumns != null) {
+            try (ResultSet keys = statement.getGeneratedKeys()) {
+              segments.addAll(read(keys));
+            }
+          }
+          return new JdbcResult(segments);
+        }
+      }
+
+      private PreparedStatement prepare() throws SQLException {
+        if (this.generatedColumns == null) {
+          return jdbc.prepareStatement(this.sql);
+        }
+        return this.generatedColumns.length == 0
+            ? jdbc.prepareStatement(this.sql, java.sql.Statement.RETURN_GENERATED_KEYS)
+            : jdbc.prepareStatement(this.sql, this.generatedColumns);
+      }
+    }
+  }
+
+  private static List<Result.Segment> read(ResultSet resultSet) throws SQLException {
+    JdbcRowMetadata metadata = new JdbcRowMetadata(resultSet.getMetaData());
+    int columns = metadata.columns.size();
+    List<Result.Segment> rows = new ArrayList<>();
+    while (resultSet.next()) {
+      Object[] values = new Object[columns];
+      for (int i = 0; i < columns; i++) {
+        values[i] = resultSet.getObject(i + 1);
+      }
+      JdbcRow row = new JdbcRow(metadata, values);
+      rows.add((Result.RowSegment) () -> row);
+    }
+    return rows;
+  }
+
+  /** A statement's update count, generated keys or rows, read before it was emitted. */
+  private record JdbcResult(List<Result.Segment> segments) implements Result {
+
+    @Override
+    public Mono<Long> getRowsUpdated() {
+      return Flux.fromIterable(this.segments)
+          .ofType(Result.UpdateCount.class)
+          .map(Result.UpdateCount::value)
+          .reduce(Long::sum);
+    }
+
+    @Override
+    public <T> Flux<T> map(BiFunction<Row, RowMetadata, ? extends T> mappingFunction) {
+      return Flux.fromIterable(this.segments)
+          .ofType(Result.RowSegment.class)
+          .map(segment -> mappingFunction.apply(segment.row(), segment.row().getMetadata()));
+    }
+
+    @Override
+    public Result filter(Predicate<Result.Segment> filter) {
+      return new JdbcResult(this.segments.stream().filter(filter).toList());
+    }
+
+    @Override
+    public <T> Flux<T> flatMap(
+        Function<Result.Segment, ? extends Publisher<? extends T>> mappingFunction) {
+      return Flux.fromIterable(this.segments).concatMap(mappingFunction);
+    }
+  }
+
+  private record JdbcRow(JdbcRowMetadata metadata, Object[] values) implements Row {
+
+    @Override
+    public <T> T get(int index, Class<T> type) {
+      return convert(this.values[index], type);
+    }
+
+    @Override
+    public <T> T get(String name, Class<T> type) {
+      return get(this.metadata.indexOf(name), type);
+    }
+
+    @Override
+    public RowMetadata getMetadata() {
+      return this.metadata;
+    }
+  }
+
+  /** Columns by label, matched without regard to case as R2DBC requires. */
+  private static final class JdbcRowMetadata implements RowMetadata {
+    private final List<JdbcColumnMetadata> columns = new ArrayList<>();
+    private final Map<String, Integer> indexes = new HashMap<>();
+
+    private JdbcRowMetadata(ResultSetMetaData metaData) throws SQLException {
+      for (int i = 0; i < metaData.getColumnCount(); i++) {
+        String name = metaData.getColumnLabel(i + 1);
+        this.columns.add(new JdbcColumnMetadata(name, typeOf(metaData.getColumnType(i + 1))));
+        this.indexes.putIfAbsent(name.toLowerCase(Locale.ROOT), i);
+      }
+    }
+
+    private int indexOf(String name) {
+      Integer index = this.indexes.get(name.toLowerCase(Locale.ROOT));
+      if (index == null) {
+        throw new NoSuchElementException("No column named " + name);
+      }
+      return index;
+    }
+
+    @Override
+    public ColumnMetadata getColumnMetadata(int index) {
+      return this.columns.get(index);
+    }
+
+    @Override
+    public ColumnMetadata getColumnMetadata(String name) {
+      return this.columns.get(indexOf(name));
+    }
+
+    @Override
+    public List<? extends ColumnMetadata> getColumnMetadatas() {
+      return this.columns;
+    }
+
+    @Override
+    public boolean contains(String name) {
+      return this.indexes.containsKey(name.toLowerCase(Locale.ROOT));
+    }
+  }
+
+  private record JdbcColumnMetadata(String name, Type type) implements ColumnMetadata {
+
+    @Override
+    public String getName() {
+      return this.name;
+    }
+
+    @Override
+    public Type getType() {
+      return this.type;
+    }
+
+    @Override
+    public Class<?> getJavaType() {
+      return this.type.getJavaType();
+    }
+  }
+
+  /** A driver error with no more specific R2DBC type; Spring reports it as uncategorized. */
+  private static final class UncategorizedJdbcException extends R2dbcNonTransientException {
+    private UncategorizedJdbcException(
+        String reason, String sqlState, int errorCode, String sql, SQLException cause) {
+      super(reason, sqlState, errorCode, sql, cause);
+    }
+  }
+}
@@ -0,0 +1,51 @@
+package com.deepak.registrationservice.config;
+
+import io.r2dbc.spi.ConnectionFactory;
+import java.util.concurrent.Executors;
+import javax.sql.DataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Runs blocking JDBC calls for the {@code jdbc} profile. Every call gets its own virtual thread, so
+ * a call waiting for a pooled connection or for the database parks cheaply instead of holding an
+ * event-loop or platform thread; the Hikari pool size is what bounds concurrent statements.
+ *
+ * <p>No R2DBC driver is used in this profile: {@link JdbcConnectionFactory} serves the
+ * repositories, {@code DatabaseClient} and reactive transactions from the same Hikari pool, and
+ * R2DBC auto-configuration backs off from creating the jasync pool for {@code spring.r2dbc.url}.
+ * The data source auto-configuration, which {@code application.properties} excludes, is imported
+ * here; an import registers before this class's own beans, so it does not back off from the
+ * connection factory either.
+ *
+ * <p>R2DBC and JDBC transaction managers live side by side in this profile, so the JDBC engine
+ * builds its transaction template from the data source itself instead of relying on
+ * auto-configuration to pick one.
+ */
+@Configuration
+@Profile("jdbc")
+@Import(DataSourceAutoConfiguration.class)
+public class JdbcEngineConfig {
+
+  @Bean(destroyMethod = "dispose")
+  public Scheduler jdbcScheduler() {
+    return Schedulers.fromExecutorService(Executors.newVirtualThreadPerTaskExecutor(), "jdbc");
+  }
+
+  @Bean
+  public ConnectionFactory connectionFactory(DataSource dataSource) {
+    return new JdbcConnectionFactory(dataSource, jdbcScheduler());
+  }
+
+  @Bean
+  public TransactionTemplate jdbcTransactionTemplate(DataSource dataSource) {
+    return new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+  }
+}
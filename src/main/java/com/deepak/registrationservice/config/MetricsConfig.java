@@ -0,0 +1,54 @@
+package com.deepak.registrationservice.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+/**
+ * Timings that Spring does not record for a reactive stack: every repository call until its
+ * result terminates, and the wait for a pooled connection. Percentiles and the Prometheus
+ * endpoint are configured in {@code application.properties}.
+ */
+@Configuration
+public class MetricsConfig {
+
+  @Bean
+  public static BeanPostProcessor repositoryMetricsPostProcessor(
+      ObjectProvider<MeterRegistry> meterRegistry) {
+    return new BeanPostProcessor() {
+      @Override
+      public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+          factoryBean.addRepositoryFactoryCustomizer(
+              factory ->
+                  factory.addRepositoryProxyPostProcessor(
+                      (proxyFactory, repositoryInformation) ->
+                          proxyFactory.addAdvice(
+                              new RepositoryMetricsInterceptor(
+                                  meterRegistry.getObject(),
+                                  repositoryInformation.getRepositoryInterface()))));
+        }
+        return bean;
+      }
+    };
+  }
+
+  @Bean
+  public static BeanPostProcessor connectionFactoryMetricsPostProcessor(
+      ObjectProvider<MeterRegistry> meterRegistry) {
+    return new BeanPostProcessor() {
+      @Override
+      public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof ConnectionFactory connectionFactory
+            && !(bean instanceof TimedConnectionFactory)) {
+          return new TimedConnectionFactory(connectionFactory, meterRegistry.getObject());
+        }
+        return bean;
+      }
+    };
+  }
+}
@@ -0,0 +1,78 @@
+package com.deepak.registrationservice.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Times reactive calls from subscription until they complete, fail or are cancelled, and records
+ * them under one timer name tagged with the outcome and, for failures, the exception type. Timers
+ * are registered once per outcome, so timing a call costs two clock reads and a map lookup.
+ */
+public final class ReactiveTimer {
+
+  private static final String NO_EXCEPTION = "none";
+
+  private final MeterRegistry meterRegistry;
+  private final String name;
+  private final Tags tags;
+  private final Timer succeeded;
+  private final Map<String, Timer> failed = new ConcurrentHashMap<>();
+
+  public ReactiveTimer(MeterRegistry meterRegistry, String name, Tags tags) {
+    this.meterRegistry = meterRegistry;
+    this.name = name;
+    this.tags = tags;
+    this.succeeded = timer("SUCCESS", NO_EXCEPTION);
+  }
+
+  public <T> Mono<T> time(Mono<T> mono) {
+    return Mono.defer(
+        () -> {
+          long started = System.nanoTime();
+          return mono.doOnSuccess(value -> record(this.succeeded, started))
+              .doOnError(error -> record(failure(error), started))
+              .doOnCancel(() -> record(outcome("CANCELLED", NO_EXCEPTION), started));
+        });
+  }
+
+  public <T> Flux<T> time(Flux<T> flux) {
+    return Flux.defer(
+        () -> {
+          long started = System.nanoTime();
+          return flux.doOnComplete(() -> record(this.succeeded, started))
+              .doOnError(error -> record(failure(error), started))
+              .doOnCancel(() -> record(outcome("CANCELLED", NO_EXCEPTION), started));
+        });
+  }
+
+  /** Records a call that ran synchronously; {@code error} is {@code null} if it succeeded. */
+  public void record(long startedNanos, Throwable error) {
+    record(error == null ? this.succeeded : failure(error), startedNanos);
+  }
+
+  private Timer failure(Throwable error) {
+    return outcome("ERROR", error.getClass().getSimpleName());
+  }
+
+  private Timer outcome(String outcome, String exception) {
+    return this.failed.computeIfAbsent(outcome + ':' + exception, key -> timer(outcome, exception));
+  }
+
+  private Timer timer(String outcome, String exception) {
+    return Timer.builder(this.name)
+        .tags(this.tags)
+        .tag("outcome", outcome)
+        .tag("exception", exception)
+        .register(this.meterRegistry);
+  }
+
+  private static void record(Timer timer, long startedNanos) {
+    timer.record(System.nanoTime() - startedNanos, TimeUnit.NANOSECONDS);
+  }
+}
@@ -0,0 +1,125 @@
+package com.deepak.registrationservice.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Puts a {@link ReadReplicaConnectionFactory} in front of the primary connection factory when
+ * {@code read-replicas.urls} lists one or more replicas. Each replica gets a pool of its own and
+ * uses the primary's credentials unless its URL or {@code read-replicas.username} says otherwise.
+ * Under the {@code jdbc} profile that pool is a Hikari pool reached through {@link
+ * JdbcConnectionFactory}, so replicas are read without jasync as well.
+ */
+@Configuration
+public class ReadReplicaConfig {
+
+  @Bean
+  public static ReplicaRoutingPostProcessor readReplicaRoutingPostProcessor(
+      ObjectProvider<MeterRegistry> meterRegistry,
+      @Value("${read-replicas.urls:}") List<String> urls,
+      @Value("${read-replicas.username:${spring.r2dbc.username:}}") String username,
+      @Value("${read-replicas.password:${spring.r2dbc.password:}}") String password,
+      @Value("${read-replicas.pool.max-size:10}") int poolMaxSize,
+      @Value("${read-replicas.max-lag:2s}") Duration maxLag,
+      @Value("${read-replicas.check-interval:5s}") Duration checkInterval) {
+    return new ReplicaRoutingPostProcessor(
+        meterRegistry, urls, username, password, poolMaxSize, maxLag, checkInterval);
+  }
+
+  /**
+   * Ordered, so it runs before the unordered post-processors and the pool-acquire timing of {@link
+   * MetricsConfig} wraps the routing factory, timing replica connections as well as primary ones.
+   */
+  static final class ReplicaRoutingPostProcessor implements BeanPostProcessor, Ordered {
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final List<String> urls;
+    private final String username;
+    private final String password;
+    private final int poolMaxSize;
+    private final Duration maxLag;
+    private final Duration checkInterval;
+
+    private ReplicaRoutingPostProcessor(
+        ObjectProvider<MeterRegistry> meterRegistry,
+        List<String> urls,
+        String username,
+        String password,
+        int poolMaxSize,
+        Duration maxLag,
+        Duration checkInterval) {
+      this.meterRegistry = meterRegistry;
+      this.urls = urls;
+      this.username = username;
+      this.password = password;
+      this.poolMaxSize = poolMaxSize;
+      this.maxLag = maxLag;
+      this.checkInterval = checkInterval;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+      if (this.urls.isEmpty()
+          || !(bean instanceof ConnectionFactory primary)
+          || bean instanceof ReadReplicaConnectionFactory) {
+        return bean;
+      }
+      Map<String, ConnectionFactory> replicas = new LinkedHashMap<>();
+      for (String url : this.urls) {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(url.trim());
+        String name = options.getValue(ConnectionFactoryOptions.HOST) + ":" + port(options);
+        replicas.put(name, pool(name, options, primary));
+      }
+      return new ReadReplicaConnectionFactory(
+          primary, replicas, this.meterRegistry.getObject(), this.maxLag, this.checkInterval);
+    }
+
+    @Override
+    public int getOrder() {
+      return 0;
+    }
+
+    private ConnectionFactory pool(
+        String name, ConnectionFactoryOptions options, ConnectionFactory primary) {
+      ConnectionFactoryOptions.Builder builder = options.mutate();
+      if (!options.hasOption(ConnectionFactoryOptions.USER)) {
+        builder.option(ConnectionFactoryOptions.USER, this.username);
+        builder.option(ConnectionFactoryOptions.PASSWORD, this.password);
+      }
+      ConnectionFactoryOptions replica = builder.build();
+      if (primary instanceof JdbcConnectionFactory jdbc) {
+        Object database = replica.getValue(ConnectionFactoryOptions.DATABASE);
+        Object password = replica.getValue(ConnectionFactoryOptions.PASSWORD);
+        return jdbc.replica(
+            "replica-" + name,
+            "jdbc:mysql://" + name + "/" + (database == null ? "" : database),
+            (String) replica.getValue(ConnectionFactoryOptions.USER),
+            password == null ? null : password.toString(),
+            this.poolMaxSize);
+      }
+      return new ConnectionPool(
+          ConnectionPoolConfiguration.builder(ConnectionFactories.get(replica))
+              .name("replica-" + name)
+              .maxSize(this.poolMaxSize)
+              .build());
+    }
+
+    private static Object port(ConnectionFactoryOptions options) {
+      Object port = options.getValue(ConnectionFactoryOptions.PORT);
+      return port == null ? 3306 : port;
+    }
+  }
+}
@@ -0,0 +1,239 @@
+package com.deepak.registrationservice.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.spi.Closeable;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.Wrapped;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Hands out connections to the primary or to a read replica, depending on the {@link ReadRouting}
+ * marker in the caller's context. Marked reads are spread round robin over the replicas that are
+ * up and caught up; everything else, including every transaction, uses the primary. If no replica
+ * is usable, or acquiring a replica connection fails, the read falls back to the primary.
+ *
+ * <p>Each replica is checked every interval with {@code SHOW REPLICA STATUS}. A replica is skipped
+ * while the check fails, while its replication is stopped, or while it is more than the maximum
+ * lag behind. An instance that does not replicate at all is treated as caught up, so two
+ * independent local databases can stand in for a primary and a replica. Connections are counted
+ * as {@code r2dbc.routed.connections}, tagged with the target and the reason it was chosen.
+ */
+class ReadReplicaConnectionFactory
+    implements ConnectionFactory, Wrapped<ConnectionFactory>, Closeable, Disposable {
+  private static final Logger LOGGER = LoggerFactory.getLogger(ReadReplicaConnectionFactory.class);
+  private static final String PRIMARY = "primary";
+  private static final String FALLBACK = "fallback";
+
+  private final ConnectionFactory primary;
+  private final List<Replica> replicas = new ArrayList<>();
+  private final MeterRegistry meterRegistry;
+  private final long maxLagSeconds;
+  private final Map<String, Counter> routed = new ConcurrentHashMap<>();
+  private final AtomicInteger next = new AtomicInteger();
+  private final Disposable checks;
+
+  ReadReplicaConnectionFactory(
+      ConnectionFactory primary,
+      Map<String, ConnectionFactory> replicas,
+      MeterRegistry meterRegistry,
+      Duration maxLag,
+      Duration checkInterval) {
+    this.primary = primary;
+    this.meterRegistry = meterRegistry;
+    this.maxLagSeconds = maxLag.toSeconds();
+    replicas.forEach(
+        (name, connectionFactory) -> {
+          Replica replica = new Replica(name, connectionFactory);
+          this.replicas.add(replica);
+          Gauge.builder("r2dbc.replica.lag", replica, r -> r.lagSeconds)
+              .description("Seconds the replica is behind the primary, NaN while it is unusable")
+              .baseUnit("seconds")
+              .tag("target", name)
+              .register(meterRegistry);
+        });
+    this.checks =
+        Flux.interval(Duration.ZERO, checkInterval)
+            .onBackpressureDrop()
+            .concatMap(
+                tick -> Flux.fromIterable(this.replicas).flatMap(r -> check(r, checkInterval)))
+            .subscribe();
+  }
+
+  @Override
+  public Publisher<? extends Connection> create() {
+    return Mono.deferContextual(
+        context -> {
+          String reason = ReadRouting.reason(context);
+          if (!ReadRouting.REPLICA.equals(reason)) {
+            return fromPrimary(reason);
+          }
+          Replica replica = nextUsable();
+          if (replica == null) {
+            return fromPrimary(FALLBACK);
+          }
+          return Mono.<Connection>from(replica.connectionFactory.create())
+              .doOnNext(connection -> counter(replica.name, ReadRouting.REPLICA).increment())
+              .onErrorResume(
+                  error -> {
+                    replica.unusable("connection failed: " + error.getMessage());
+                    return fromPrimary(FALLBACK);
+                  });
+        });
+  }
+
+  @Override
+  public ConnectionFactoryMetadata getMetadata() {
+    return this.primary.getMetadata();
+  }
+
+  @Override
+  public ConnectionFactory unwrap() {
+    return this.primary;
+  }
+
+  @Override
+  public Publisher<Void> close() {
+    this.checks.dispose();
+    return Flux.fromIterable(this.replicas)
+        .map(replica -> replica.connectionFactory)
+        .concatWithValues(this.primary)
+        .concatMap(
+            connectionFactory ->
+                connectionFactory instanceof Closeable closeable
+                    ? closeable.close()
+                    : Mono.empty())
+        .then();
+  }
+
+  @Override
+  public void dispose() {
+    this.checks.dispose();
+    for (Replica replica : this.replicas) {
+      if (replica.connectionFactory instanceof Disposable disposable) {
+        disposable.dispose();
+      }
+    }
+    if (this.primary instanceof Disposable disposable) {
+      disposable.dispose();
+    }
+  }
+
+  @Override
+  public boolean isDisposed() {
+    return this.primary instanceof Disposable disposable && disposable.isDisposed();
+  }
+
+  private Mono<Connection> fromPrimary(String reason) {
+    return Mono.<Connection>from(this.primary.create())
+        .doOnNext(connection -> counter(PRIMARY, reason).increment());
+  }
+
+  private Replica nextUsable() {
+    int size = this.replicas.size();
+    int start = Math.floorMod(this.next.getAndIncrement(), size);
+    for (int i = 0; i < size; i++) {
+      Replica replica = this.replicas.get((start + i) % size);
+      if (replica.usable) {
+        return replica;
+      }
+    }
+    return null;
+  }
+
+  private Mono<Void> check(Replica replica, Duration timeout) {
+    return Mono.usingWhen(
+            replica.connectionFactory.create(),
+            connection ->
+                Flux.from(connection.createStatement("SHOW REPLICA STATUS").execute())
+                    .flatMap(result -> result.map((row, metadata) -> lagOf(row)))
+                    .next()
+                    // No status row: the instance does not replicate, so it cannot lag.
+                    .defaultIfEmpty(Optional.of(0L)),
+            Connection::close)
+        .timeout(timeout)
+        .doOnNext(
+            lag -> {
+              if (lag.isEmpty()) {
+                replica.unusable("replication is stopped");
+              } else if (lag.get() > this.maxLagSeconds) {
+                replica.unusable(lag.get() + "s behind the primary");
+              } else {
+                replica.usable(lag.get());
+              }
+            })
+        .onErrorResume(
+            error -> {
+              replica.unusable("check failed: " + error.getMessage());
+              return Mono.empty();
+            })
+        .then();
+  }
+
+  private static Optional<Long> lagOf(Row row) {
+    Object lag = row.get("Seconds_Behind_Source");
+    if (lag instanceof Number number) {
+      return Optional.of(number.longValue());
+    }
+    return lag == null ? Optional.empty() : Optional.of(Long.parseLong(lag.toString()));
+  }
+
+  private Counter counter(String target, String reason) {
+    return this.routed.computeIfAbsent(
+        target + '|' + reason,
+        key ->
+            Counter.builder("r2dbc.routed.connections")
+                .description("Connections handed out, one per statement outside a transaction")
+                .tag("target", target)
+                .tag("reason", reason)
+                .register(this.meterRegistry));
+  }
+
+  private static final class Replica {
+    private final String name;
+    private final ConnectionFactory connectionFactory;
+    // Unusable until the first check has passed.
+    private volatile boolean usable;
+    private volatile boolean checked;
+    private volatile double lagSeconds = Double.NaN;
+
+    private Replica(String name, ConnectionFactory connectionFactory) {
+      this.name = name;
+      this.connectionFactory = connectionFactory;
+    }
+
+    private void usable(long lag) {
+      if (!this.usable) {
+        LOGGER.info("Read replica {} is usable, {}s behind the primary", this.name, lag);
+      }
+      this.lagSeconds = lag;
+      this.usable = true;
+      this.checked = true;
+    }
+
+    private void unusable(String why) {
+      if (this.usable || !this.checked) {
+        LOGGER.warn("Read replica {} is not used, reads go to the primary: {}", this.name, why);
+      }
+      this.lagSeconds = Double.NaN;
+      this.usable = false;
+      this.checked = true;
+    }
+  }
+}
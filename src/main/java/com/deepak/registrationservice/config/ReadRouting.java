@@ -0,0 +1,58 @@
+package com.deepak.registrationservice.config;
+
+import org.springframework.web.server.ServerWebExchange;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+/**
+ * Where the connections of a reactive chain may come from, carried in its Reactor context. Without
+ * a marker every connection comes from the primary; {@link ReadYourWritesFilter} marks the reads
+ * that a replica may answer, and code that keeps what it reads for longer than a request pins its
+ * reads back to the primary with {@link #pinToPrimary}. The filter also records its decision on
+ * the exchange, for handler code that runs before the reactive chain.
+ */
+public final class ReadRouting {
+
+  static final String KEY = ReadRouting.class.getName();
+  static final String REPLICA = "replica";
+  static final String STICKY = "sticky";
+  static final String PINNED = "pinned";
+  static final String DEFAULT = "default";
+
+  private ReadRouting() {}
+
+  /** Lets the reads of a chain go to a replica. */
+  static Context allowReplica(Context context) {
+    return context.put(KEY, REPLICA);
+  }
+
+  /** Keeps the reads of a chain on the primary because its client has just written. */
+  static Context stickToPrimary(Context context) {
+    return context.put(KEY, STICKY);
+  }
+
+  /**
+   * Keeps the reads of a chain on the primary, for results that are cached or kept in memory and
+   * must not miss a committed write because a replica lagged behind.
+   */
+  public static Context pinToPrimary(Context context) {
+    return context.put(KEY, PINNED);
+  }
+
+  /** Whether connections of a chain with this context may come from a replica. */
+  public static boolean replicaAllowed(ContextView context) {
+    return REPLICA.equals(reason(context));
+  }
+
+  /**
+   * Whether the reads of the exchange's handler may go to a replica. An entity tag must not be
+   * handed out for such a read: the replica may not yet have the write that moved the tag on.
+   */
+  public static boolean replicaAllowed(ServerWebExchange exchange) {
+    return REPLICA.equals(exchange.getAttributes().get(KEY));
+  }
+
+  static String reason(ContextView context) {
+    return context.getOrDefault(KEY, DEFAULT);
+  }
+}
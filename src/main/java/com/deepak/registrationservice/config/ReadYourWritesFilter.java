@@ -0,0 +1,96 @@
+package com.deepak.registrationservice.config;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * Decides which appointment and user reads a read replica may answer. When replicas are
+ * configured, GET and HEAD requests under {@code /v1/appointment} and {@code /v1/user} are marked
+ * for a replica, except for clients that sent a write within the sticky window: their reads stay
+ * on the primary so they see what they just wrote. Clients are told apart by remote address, so
+ * behind a proxy {@code server.forward-headers-strategy} must be set for the caller's address to
+ * be used.
+ */
+@Component
+public class ReadYourWritesFilter implements WebFilter {
+
+  private final boolean enabled;
+  private final long stickyNanos;
+  private final Map<String, Long> lastWrites;
+
+  public ReadYourWritesFilter(
+      @Value("${read-replicas.urls:}") List<String> urls,
+      @Value("${read-replicas.sticky-window:5s}") Duration stickyWindow,
+      @Value("${read-replicas.max-clients:10000}") int maxClients) {
+    this.enabled = !urls.isEmpty();
+    this.stickyNanos = stickyWindow.toNanos();
+    this.lastWrites =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > maxClients;
+          }
+        };
+  }
+
+  @Override
+  public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+    ServerHttpRequest request = exchange.getRequest();
+    String path = request.getPath().pathWithinApplication().value();
+    if (!this.enabled || !path.startsWith("/v1/")) {
+      return chain.filter(exchange);
+    }
+    String client = clientOf(request);
+    HttpMethod method = request.getMethod();
+    if (!HttpMethod.GET.equals(method) && !HttpMethod.HEAD.equals(method)) {
+      // Recorded before and after the write, so a read sent as soon as it returns is covered.
+      wrote(client);
+      return chain.filter(exchange).doFinally(signal -> wrote(client));
+    }
+    if (!path.startsWith("/v1/appointment") && !path.startsWith("/v1/user")) {
+      return chain.filter(exchange);
+    }
+    if (wroteRecently(client)) {
+      exchange.getAttributes().put(ReadRouting.KEY, ReadRouting.STICKY);
+      return chain.filter(exchange).contextWrite(ReadRouting::stickToPrimary);
+    }
+    exchange.getAttributes().put(ReadRouting.KEY, ReadRouting.REPLICA);
+    return chain.filter(exchange).contextWrite(ReadRouting::allowReplica);
+  }
+
+  private void wrote(String client) {
+    long now = System.nanoTime();
+    synchronized (this.lastWrites) {
+      this.lastWrites.put(client, now);
+    }
+  }
+
+  private boolean wroteRecently(String client) {
+    Long lastWrite;
+    synchronized (this.lastWrites) {
+      lastWrite = this.lastWrites.get(client);
+    }
+    return lastWrite != null && System.nanoTime() - lastWrite < this.stickyNanos;
+  }
+
+  private static String clientOf(ServerHttpRequest request) {
+    InetSocketAddress address = request.getRemoteAddress();
+    if (address == null) {
+      return "unknown";
+    }
+    return address.getAddress() == null
+        ? address.getHostString()
+        : address.getAddress().getHostAddress();
+  }
+}
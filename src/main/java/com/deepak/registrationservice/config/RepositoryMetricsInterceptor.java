@@ -0,0 +1,60 @@
+package com.deepak.registrationservice.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Times every call of a repository as {@code repository.calls}, tagged with the repository and
+ * method. Reactive results are timed until they terminate, so the timing covers the statement and
+ * reading its rows rather than just building the query.
+ */
+class RepositoryMetricsInterceptor implements MethodInterceptor {
+
+  private final MeterRegistry meterRegistry;
+  private final String repository;
+  private final Map<Method, ReactiveTimer> timers = new ConcurrentHashMap<>();
+
+  RepositoryMetricsInterceptor(MeterRegistry meterRegistry, Class<?> repositoryInterface) {
+    this.meterRegistry = meterRegistry;
+    this.repository = repositoryInterface.getSimpleName();
+  }
+
+  @Override
+  public Object invoke(MethodInvocation invocation) throws Throwable {
+    Method method = invocation.getMethod();
+    if (method.getDeclaringClass() == Object.class) {
+      return invocation.proceed();
+    }
+    ReactiveTimer timer = this.timers.computeIfAbsent(method, this::timer);
+    long started = System.nanoTime();
+    Object result;
+    try {
+      result = invocation.proceed();
+    } catch (Throwable error) {
+      timer.record(started, error);
+      throw error;
+    }
+    if (result instanceof Mono<?> mono) {
+      return timer.time(mono);
+    }
+    if (result instanceof Flux<?> flux) {
+      return timer.time(flux);
+    }
+    timer.record(started, null);
+    return result;
+  }
+
+  private ReactiveTimer timer(Method method) {
+    return new ReactiveTimer(
+        this.meterRegistry,
+        "repository.calls",
+        Tags.of("repository", this.repository, "method", method.getName()));
+  }
+}
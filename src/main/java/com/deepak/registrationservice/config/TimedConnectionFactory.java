@@ -0,0 +1,62 @@
+package com.deepak.registrationservice.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.r2dbc.spi.Closeable;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import io.r2dbc.spi.Wrapped;
+import org.reactivestreams.Publisher;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+/**
+ * Records how long callers wait for a connection as {@code r2dbc.pool.acquire}. With a pool in
+ * front of the database this is the time spent queued for a free connection, the first number to
+ * look at when every statement seems slow at once.
+ */
+class TimedConnectionFactory
+    implements ConnectionFactory, Wrapped<ConnectionFactory>, Closeable, Disposable {
+
+  private final ConnectionFactory delegate;
+  private final ReactiveTimer acquire;
+
+  TimedConnectionFactory(ConnectionFactory delegate, MeterRegistry meterRegistry) {
+    this.delegate = delegate;
+    this.acquire = new ReactiveTimer(meterRegistry, "r2dbc.pool.acquire", Tags.empty());
+  }
+
+  @Override
+  public Publisher<? extends Connection> create() {
+    return this.acquire.time(Mono.from(this.delegate.create()));
+  }
+
+  @Override
+  public ConnectionFactoryMetadata getMetadata() {
+    return this.delegate.getMetadata();
+  }
+
+  @Override
+  public ConnectionFactory unwrap() {
+    return this.delegate;
+  }
+
+  // The context holds this wrapper, so it must pass the pool's shutdown on to the pool.
+  @Override
+  public Publisher<Void> close() {
+    return this.delegate instanceof Closeable closeable ? closeable.close() : Mono.empty();
+  }
+
+  @Override
+  public void dispose() {
+    if (this.delegate instanceof Disposable disposable) {
+      disposable.dispose();
+    }
+  }
+
+  @Override
+  public boolean isDisposed() {
+    return this.delegate instanceof Disposable disposable && disposable.isDisposed();
+  }
+}
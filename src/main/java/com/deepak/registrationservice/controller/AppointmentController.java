@@ -3,10 +3,21 @@ package com.deepak.registrationservice.controller;
 import com.deepak.registrationservice.exception.AppointmentNotFoundException;
 import com.deepak.registrationservice.exception.DuplicateEntryException;
 import com.deepak.registrationservice.exception.ErrorDetails;
+import com.deepak.registrationservice.exception.InvalidRequestException;
 import com.deepak.registrationservice.exception.SlotIdNotAvailableException;
 import com.deepak.registrationservice.model.appointment.AppointmentDetails;
+import com.deepak.registrationservice.model.appointment.AppointmentSummary;
+import com.deepak.registrationservice.model.appointment.BookingResult;
+import com.deepak.registrationservice.model.appointment.BulkCancelRequest;
+import com.deepak.registrationservice.pagination.CursorPage;
+import com.deepak.registrationservice.pagination.PageCursor;
 import com.deepak.registrationservice.repository.AppointmentRepository;
-import com.deepak.registrationservice.service.AppointmentServiceImpl;
+import com.deepak.registrationservice.service.AppointmentQueryService;
+import com.deepak.registrationservice.service.AppointmentService;
+import com.deepak.registrationservice.service.IdempotencyStore;
+import com.deepak.registrationservice.service.ResourceVersions;
+import com.deepak.registrationservice.service.ResourceVersions.Resource;
+import com.fasterxml.jackson.core.type.TypeReference;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -17,13 +28,19 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.List;
+import java.util.Objects;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.lang.NonNull;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
@@ -34,13 +51,26 @@ import reactor.core.publisher.Mono;
 public class AppointmentController {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(AppointmentController.class);
+  private static final TypeReference<List<AppointmentDetails>> CREATED_APPOINTMENTS =
+      new TypeReference<>() {};
+  private static final int MAX_BULK_CANCEL_IDS = 1000;
   private final AppointmentRepository appointmentRepository;
-  private final AppointmentServiceImpl appointmentService;
+  private final AppointmentService appointmentService;
+  private final AppointmentQueryService appointmentQueryService;
+  private final IdempotencyStore idempotencyStore;
+  private final ResourceVersions resourceVersions;
 
   public AppointmentController(
-      AppointmentRepository appointmentRepository, AppointmentServiceImpl appointmentService) {
+      AppointmentRepository appointmentRepository,
+      AppointmentService appointmentService,
+      AppointmentQueryService appointmentQueryService,
+      IdempotencyStore idempotencyStore,
+      ResourceVersions resourceVersions) {
     this.appointmentRepository = appointmentRepository;
     this.appointmentService = appointmentService;
+    this.appointmentQueryService = appointmentQueryService;
+    this.idempotencyStore = idempotencyStore;
+    this.resourceVersions = resourceVersions;
   }
 
   @GetMapping("/appointments")
@@ -63,13 +93,205 @@ public class AppointmentController {
                     schema = @Schema(implementation = ErrorDetails.class))),
       })
   public Flux<AppointmentDetails> getAllAppointments(
-      @RequestParam(defaultValue = "0") int page, @RequestParam(defaultValue = "10") int size) {
+      @RequestParam(defaultValue = "0") int page,
+      @RequestParam(defaultValue = "10") int size,
+      ServerWebExchange exchange) {
+    if (this.resourceVersions.notModified(exchange, Resource.APPOINTMENTS, null)) {
+      return null;
+    }
     LOGGER.info("Retrieving all appointments");
     return this.appointmentRepository
         .findAllBy(PageRequest.of(page, size))
         .doOnError(error -> LOGGER.error("Error retrieving appointments: {}", error.getMessage()));
   }
 
+  @GetMapping("/appointments/cursor")
+  @Operation(
+      summary = "Retrieve all appointments page by page",
+      description =
+          "Retrieve appointments ordered by date using an opaque cursor instead of page numbers")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "appointments Retrieved",
+            content =
+                @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = CursorPage.class))),
+        @ApiResponse(
+            responseCode = "400",
+            description = "cursor or size is not valid",
+            content =
+                @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorDetails.class))),
+      })
+  public Mono<CursorPage<AppointmentDetails>> getAllAppointmentsByCursor(
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "10") int size,
+      ServerWebExchange exchange) {
+    if (this.resourceVersions.notModified(exchange, Resource.APPOINTMENTS, null)) {
+      return null;
+    }
+    LOGGER.info("Retrieving all appointments after cursor {}", cursor);
+    return seekAppointments(
+        cursor,
+        size,
+        this.appointmentRepository::findPage,
+        (after, limit) ->
+            this.appointmentRepository.findPageAfter(after.date(), after.id(), limit),
+        this.appointmentRepository::findPageAfterUndated);
+  }
+
+  @GetMapping("/appointments/summary")
+  @Operation(
+      summary = "Retrieve appointment summaries",
+      description =
+          "Id, slot, time, patient name and status of every appointment, in schedule order")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Appointment summaries retrieved",
+            content =
+                @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = AppointmentSummary.class))),
+        @ApiResponse(
+            responseCode = "500",
+            description = "Internal server error",
+            content =
+                @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorDetails.class)))
+      })
+  public Flux<AppointmentSummary> getAllAppointmentSummaries(
+      @RequestParam(defaultValue = "0") int page,
+      @RequestParam(defaultValue = "10") int size,
+      ServerWebExchange exchange) {
+    if (this.resourceVersions.notModified(exchange, Resource.APPOINTMENTS, null)) {
+      return null;
+    }
+    LOGGER.info("Retrieving appointment summaries");
+    return this.appointmentQueryService
+        .findSummaries(page, size)
+        .doOnError(error -> LOGGER.error("Error retrieving appointments: {}", error.getMessage()));
+  }
+
+  @GetMapping("/appointment/bydoctor/{id}/summary")
+  @Operation(
+      summary = "Retrieve appointment summaries by doctor id",
+      description =
+          "Id, slot, time, patient name and status of a doctor's appointments, in schedule order")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Appointment summaries retrieved",
+            content =
+                @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = AppointmentSummary.class))),
+        @ApiResponse(
+            responseCode = "500",
+            description = "Internal server error",
+            content =
+                @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorDetails.class)))
+      })
+  public Flux<AppointmentSummary> getAppointmentSummariesByDoctorId(
+      @PathVariable("id") @NonNull String id,
+      @RequestParam(defaultValue = "0") int page,
+      @RequestParam(defaultValue = "10") int size,
+      ServerWebExchange exchange) {
+    if (this.resourceVersions.notModified(exchange, Resource.DOCTOR_APPOINTMENTS, id)) {
+      return null;
+    }
+    LOGGER.info("Retrieving appointment summaries by doctor id {}", id);
+    return this.appointmentQueryService
+        .findSummariesByDoctorId(id, page, size)
+        .doOnError(error -> LOGGER.error("Error retrieving appointments: {}", error.getMessage()));
+  }
+
+  @GetMapping("/appointment/byclinic/{id}/summary")
+  @Operation(
+      summary = "Retrieve appointment summaries by clinic id",
+      description =
+          "Id, slot, time, patient name and status of a clinic's appointments, in schedule order")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Appointment summaries retrieved",
+            content =
+                @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = AppointmentSummary.class))),
+        @ApiResponse(
+            responseCode = "500",
+            description = "Internal server error",
+            content =
+                @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorDetails.class)))
+      })
+  public Flux<AppointmentSummary> getAppointmentSummariesByClinicId(
+      @PathVariable("id") @NonNull Integer id,
+      @RequestParam(defaultValue = "0") int page,
+      @RequestParam(defaultValue = "10") int size,
+      ServerWebExchange exchange) {
+    if (this.resourceVersions.notModified(exchange, Resource.CLINIC_APPOINTMENTS, id)) {
+      return null;
+    }
+    LOGGER.info("Retrieving appointment summaries by clinic id {}", id);
+    return this.appointmentQueryService
+        .findSummariesByClinicId(id, page, size)
+        .doOnError(error -> LOGGER.error("Error retrieving appointments: {}", error.getMessage()));
+  }
+
+  @GetMapping("/appointments/bydoctorid/{doctorId}/between/{fromDate}/{toDate}/summary")
+  @Operation(
+      summary = "Retrieve appointment summaries of a doctor between dates",
+      description =
+          "Id, slot, time, patient name and status of a doctor's appointments in a date range")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Appointment summaries retrieved",
+            content =
+                @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = AppointmentSummary.class))),
+        @ApiResponse(
+            responseCode = "500",
+            description = "Internal server error",
+            content =
+                @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorDetails.class)))
+      })
+  public Flux<AppointmentSummary> getAppointmentSummariesByDoctorIdBetweenDates(
+      @PathVariable String doctorId,
+      @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+      @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate,
+      ServerWebExchange exchange) {
+    if (this.resourceVersions.notModified(exchange, Resource.DOCTOR_APPOINTMENTS, doctorId)) {
+      return null;
+    }
+    LOGGER.info(
+        "Retrieving appointment summaries for doctor {} between dates {} and {}",
+        doctorId,
+        fromDate,
+        toDate);
+    return this.appointmentQueryService
+        .findSummariesByDoctorIdBetween(
+            doctorId, fromDate.atStartOfDay(), toDate.atTime(LocalTime.MAX))
+        .doOnError(error -> LOGGER.error("Error retrieving appointments: {}", error.getMessage()));
+  }
+
   @GetMapping("/appointment/{id}")
   @Operation(summary = "Retrieve appointment by id", description = "Retrieve appointment by id")
   @ApiResponses(
@@ -89,7 +311,11 @@ public class AppointmentController {
                     mediaType = "application/json",
                     schema = @Schema(implementation = ErrorDetails.class))),
       })
-  public Mono<AppointmentDetails> getAppointment(@PathVariable("id") Integer id) {
+  public Mono<AppointmentDetails> getAppointment(
+      @PathVariable("id") Integer id, ServerWebExchange exchange) {
+    if (this.resourceVersions.notModified(exchange, Resource.APPOINTMENT, id)) {
+      return null;
+    }
     LOGGER.info("Retrieving appointment by id {}", id);
     return this.appointmentRepository
         .findById(id)
@@ -117,10 +343,16 @@ public class AppointmentController {
                     mediaType = "application/json",
                     schema = @Schema(implementation = ErrorDetails.class))),
       })
-  public Flux<AppointmentDetails> getAppointmentByUserId(@PathVariable("id") @NonNull Integer id) {
+  public Flux<AppointmentDetails> getAppointmentByUserId(
+      @PathVariable("id") @NonNull Integer id,
+      @RequestParam(defaultValue = "false") boolean includeArchive,
+      ServerWebExchange exchange) {
+    if (this.resourceVersions.notModified(exchange, Resource.USER_APPOINTMENTS, id)) {
+      return null;
+    }
     LOGGER.info("Retrieving appointment by user id {}", id);
-    return this.appointmentRepository
-        .findAllByUserId(id)
+    return this.appointmentQueryService
+        .findByUserId(id, includeArchive)
         .doOnError(error -> LOGGER.error("Error retrieving appointments: {}", error.getMessage()));
   }
 
@@ -148,13 +380,60 @@ public class AppointmentController {
   public Flux<AppointmentDetails> getAppointmentByDoctorId(
       @PathVariable("id") @NonNull String id,
       @RequestParam(defaultValue = "0") int page,
-      @RequestParam(defaultValue = "10") int size) {
+      @RequestParam(defaultValue = "10") int size,
+      ServerWebExchange exchange) {
+    if (this.resourceVersions.notModified(exchange, Resource.DOCTOR_APPOINTMENTS, id)) {
+      return null;
+    }
     LOGGER.info("Retrieving appointment by doctor id {}", id);
-    return this.appointmentRepository
-        .findAllByDoctorId(id, PageRequest.of(page, size))
+    return this.appointmentQueryService
+        .findByDoctorId(id, page, size)
         .doOnError(error -> LOGGER.error("Error retrieving appointments: {}", error.getMessage()));
   }
 
+  @GetMapping("/appointment/bydoctor/{id}/cursor")
+  @Operation(
+      summary = "Retrieve all appointment by doctor id page by page",
+      description =
+          "Retrieve appointments of a doctor ordered by date using an opaque cursor instead of"
+              + " page numbers")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "appointments Retrieved",
+            content =
+                @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = CursorPage.class))),
+        @ApiResponse(
+            responseCode = "400",
+            description = "cursor or size is not valid",
+            content =
+                @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorDetails.class))),
+      })
+  public Mono<CursorPage<AppointmentDetails>> getAppointmentByDoctorIdByCursor(
+      @PathVariable("id") @NonNull String id,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "10") int size,
+      ServerWebExchange exchange) {
+    if (this.resourceVersions.notModified(exchange, Resource.DOCTOR_APPOINTMENTS, id)) {
+      return null;
+    }
+    LOGGER.info("Retrieving appointment by doctor id {} after cursor {}", id, cursor);
+    return seekAppointments(
+        cursor,
+        size,
+        limit -> this.appointmentRepository.findPageByDoctorId(id, limit),
+        (after, limit) ->
+            this.appointmentRepository.findPageByDoctorIdAfter(
+                id, after.date(), after.id(), limit),
+        (afterId, limit) ->
+            this.appointmentRepository.findPageByDoctorIdAfterUndated(id, afterId, limit));
+  }
+
   @GetMapping("/appointment/byclinic/{id}")
   @Operation(
       summary = "Retrieve all appointment by clinic id",
@@ -179,13 +458,60 @@ public class AppointmentController {
   public Flux<AppointmentDetails> getAppointmentByClinicId(
       @PathVariable("id") Integer id,
       @RequestParam(defaultValue = "0") int page,
-      @RequestParam(defaultValue = "10") int size) {
+      @RequestParam(defaultValue = "10") int size,
+      ServerWebExchange exchange) {
+    if (this.resourceVersions.notModified(exchange, Resource.CLINIC_APPOINTMENTS, id)) {
+      return null;
+    }
     LOGGER.info("Retrieving appointment by clinic id {}", id);
     return this.appointmentRepository
         .findAllByClinicId(id, PageRequest.of(page, size))
         .doOnError(error -> LOGGER.error("Error retrieving appointments: {}", error.getMessage()));
   }
 
+  @GetMapping("/appointment/byclinic/{id}/cursor")
+  @Operation(
+      summary = "Retrieve all appointment by clinic id page by page",
+      description =
+          "Retrieve appointments of a clinic ordered by date using an opaque cursor instead of"
+              + " page numbers")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "appointments Retrieved",
+            content =
+                @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = CursorPage.class))),
+        @ApiResponse(
+            responseCode = "400",
+            description = "cursor or size is not valid",
+            content =
+                @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorDetails.class))),
+      })
+  public Mono<CursorPage<AppointmentDetails>> getAppointmentByClinicIdByCursor(
+      @PathVariable("id") Integer id,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "10") int size,
+      ServerWebExchange exchange) {
+    if (this.resourceVersions.notModified(exchange, Resource.CLINIC_APPOINTMENTS, id)) {
+      return null;
+    }
+    LOGGER.info("Retrieving appointment by clinic id {} after cursor {}", id, cursor);
+    return seekAppointments(
+        cursor,
+        size,
+        limit -> this.appointmentRepository.findPageByClinicId(id, limit),
+        (after, limit) ->
+            this.appointmentRepository.findPageByClinicIdAfter(
+                id, after.date(), after.id(), limit),
+        (afterId, limit) ->
+            this.appointmentRepository.findPageByClinicIdAfterUndated(id, afterId, limit));
+  }
+
   @GetMapping("/appointments/between/{fromDate}/{toDate}")
   @Operation(
       summary = "Retrieve all appointments between a date range",
@@ -209,13 +535,49 @@ public class AppointmentController {
       })
   public Flux<AppointmentDetails> getAppointmentsBetweenDates(
       @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
-      @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate) {
+      @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate,
+      @RequestParam(defaultValue = "false") boolean includeArchive,
+      ServerWebExchange exchange) {
+    if (this.resourceVersions.notModified(exchange, Resource.APPOINTMENTS, null)) {
+      return null;
+    }
     LOGGER.info("Retrieving appointments between dates {} and {}", fromDate, toDate);
-    return this.appointmentRepository
-        .findAllByAppointmentDateBetween(fromDate.atStartOfDay(), toDate.atTime(LocalTime.MAX))
+    return this.appointmentQueryService
+        .findBetween(fromDate.atStartOfDay(), toDate.atTime(LocalTime.MAX), includeArchive)
         .doOnError(error -> LOGGER.error("Error retrieving appointments: {}", error.getMessage()));
   }
 
+  @GetMapping(
+      value = "/appointments/between/{fromDate}/{toDate}",
+      produces = MediaType.APPLICATION_NDJSON_VALUE)
+  @Operation(
+      summary = "Stream all appointments between a date range",
+      description =
+          "Stream appointments between a date range as newline delimited JSON, one row at a time")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Appointments streamed",
+            content =
+                @Content(
+                    mediaType = "application/x-ndjson",
+                    schema = @Schema(implementation = AppointmentDetails.class))),
+      })
+  public Flux<AppointmentDetails> streamAppointmentsBetweenDates(
+      @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+      @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate,
+      @RequestParam(defaultValue = "false") boolean includeArchive,
+      ServerWebExchange exchange) {
+    if (this.resourceVersions.notModified(exchange, Resource.APPOINTMENTS, null)) {
+      return null;
+    }
+    LOGGER.info("Streaming appointments between dates {} and {}", fromDate, toDate);
+    return this.appointmentQueryService
+        .streamBetween(fromDate.atStartOfDay(), toDate.atTime(LocalTime.MAX), includeArchive)
+        .doOnError(error -> LOGGER.error("Error streaming appointments: {}", error.getMessage()));
+  }
+
   @GetMapping("/appointments/bydoctorid/{doctorId}/between/{fromDate}/{toDate}")
   @Operation(
       summary = "Retrieve all appointments for a doctor between a date range",
@@ -241,7 +603,12 @@ public class AppointmentController {
   public Flux<AppointmentDetails> getAppointmentsByDoctorIdBetweenDates(
       @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
       @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate,
-      @PathVariable String doctorId) {
+      @PathVariable String doctorId,
+      @RequestParam(defaultValue = "false") boolean includeArchive,
+      ServerWebExchange exchange) {
+    if (this.resourceVersions.notModified(exchange, Resource.DOCTOR_APPOINTMENTS, doctorId)) {
+      return null;
+    }
     LOGGER.info(
         "Retrieving appointments for doctor {} between dates {} and {}",
         doctorId,
@@ -249,11 +616,45 @@ public class AppointmentController {
         toDate);
     LocalDateTime startOfDay = fromDate.atStartOfDay();
     LocalDateTime endOfDay = toDate.atTime(LocalTime.MAX);
-    return this.appointmentRepository
-        .findAllByDoctorIdAndAppointmentDateBetween(doctorId, startOfDay, endOfDay)
+    return this.appointmentQueryService
+        .findByDoctorIdBetween(doctorId, startOfDay, endOfDay, includeArchive)
         .doOnError(error -> LOGGER.error("Error retrieving appointments: {}", error.getMessage()));
   }
 
+  @GetMapping(
+      value = "/appointments/bydoctorid/{doctorId}/between/{fromDate}/{toDate}",
+      produces = MediaType.APPLICATION_NDJSON_VALUE)
+  @Operation(
+      summary = "Stream all appointments for a doctor between a date range",
+      description =
+          "Stream appointments of a doctor between a date range as newline delimited JSON")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Appointments streamed",
+            content =
+                @Content(
+                    mediaType = "application/x-ndjson",
+                    schema = @Schema(implementation = AppointmentDetails.class))),
+      })
+  public Flux<AppointmentDetails> streamAppointmentsByDoctorIdBetweenDates(
+      @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+      @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate,
+      @PathVariable String doctorId,
+      @RequestParam(defaultValue = "false") boolean includeArchive,
+      ServerWebExchange exchange) {
+    if (this.resourceVersions.notModified(exchange, Resource.DOCTOR_APPOINTMENTS, doctorId)) {
+      return null;
+    }
+    LOGGER.info(
+        "Streaming appointments for doctor {} between dates {} and {}", doctorId, fromDate, toDate);
+    return this.appointmentQueryService
+        .streamByDoctorIdBetween(
+            doctorId, fromDate.atStartOfDay(), toDate.atTime(LocalTime.MAX), includeArchive)
+        .doOnError(error -> LOGGER.error("Error streaming appointments: {}", error.getMessage()));
+  }
+
   @GetMapping("/appointments/byclinicid/{clinicId}/between/{fromDate}/{toDate}")
   @Operation(
       summary = "Retrieve all appointments for a clinic between a date range",
@@ -279,7 +680,12 @@ public class AppointmentController {
   public Flux<AppointmentDetails> getAppointmentsByClinicIdBetweenDates(
       @PathVariable Integer clinicId,
       @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
-      @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate) {
+      @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate,
+      @RequestParam(defaultValue = "false") boolean includeArchive,
+      ServerWebExchange exchange) {
+    if (this.resourceVersions.notModified(exchange, Resource.CLINIC_APPOINTMENTS, clinicId)) {
+      return null;
+    }
     LOGGER.info(
         "Retrieving appointments for clinic {} between dates {} and {}",
         clinicId,
@@ -287,11 +693,45 @@ public class AppointmentController {
         toDate);
     LocalDateTime startOfDay = fromDate.atStartOfDay();
     LocalDateTime endOfDay = toDate.atTime(LocalTime.MAX);
-    return this.appointmentRepository
-        .findAllByClinicIdAndAppointmentDateBetween(clinicId, startOfDay, endOfDay)
+    return this.appointmentQueryService
+        .findByClinicIdBetween(clinicId, startOfDay, endOfDay, includeArchive)
         .doOnError(error -> LOGGER.error("Error retrieving appointments: {}", error.getMessage()));
   }
 
+  @GetMapping(
+      value = "/appointments/byclinicid/{clinicId}/between/{fromDate}/{toDate}",
+      produces = MediaType.APPLICATION_NDJSON_VALUE)
+  @Operation(
+      summary = "Stream all appointments for a clinic between a date range",
+      description =
+          "Stream appointments of a clinic between a date range as newline delimited JSON")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Appointments streamed",
+            content =
+                @Content(
+                    mediaType = "application/x-ndjson",
+                    schema = @Schema(implementation = AppointmentDetails.class))),
+      })
+  public Flux<AppointmentDetails> streamAppointmentsByClinicIdBetweenDates(
+      @PathVariable Integer clinicId,
+      @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+      @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate,
+      @RequestParam(defaultValue = "false") boolean includeArchive,
+      ServerWebExchange exchange) {
+    if (this.resourceVersions.notModified(exchange, Resource.CLINIC_APPOINTMENTS, clinicId)) {
+      return null;
+    }
+    LOGGER.info(
+        "Streaming appointments for clinic {} between dates {} and {}", clinicId, fromDate, toDate);
+    return this.appointmentQueryService
+        .streamByClinicIdBetween(
+            clinicId, fromDate.atStartOfDay(), toDate.atTime(LocalTime.MAX), includeArchive)
+        .doOnError(error -> LOGGER.error("Error streaming appointments: {}", error.getMessage()));
+  }
+
   @PostMapping("/appointments")
   @Operation(
       summary = "Create an appointment or multiple appointment",
@@ -305,6 +745,13 @@ public class AppointmentController {
                 @Content(
                     mediaType = "application/json",
                     schema = @Schema(implementation = AppointmentDetails.class))),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Idempotency-Key is longer than 255 characters",
+            content =
+                @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorDetails.class))),
         @ApiResponse(
             responseCode = "500",
             description = "Problem creating appointment",
@@ -314,10 +761,48 @@ public class AppointmentController {
                     schema = @Schema(implementation = ErrorDetails.class))),
       })
   public Mono<List<AppointmentDetails>> createAppointments(
-      @RequestBody List<AppointmentDetails> appointmentDetailsList)
+      @RequestBody List<AppointmentDetails> appointmentDetailsList,
+      @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey)
       throws DuplicateEntryException, SlotIdNotAvailableException {
     LOGGER.info("Received request to create appointments: {}", appointmentDetailsList);
-    return this.appointmentService.savedAppointment(appointmentDetailsList);
+    if (idempotencyKey == null || idempotencyKey.isBlank()) {
+      return this.appointmentService.savedAppointment(appointmentDetailsList);
+    }
+    return this.idempotencyStore.execute(
+        "appointments:" + usersOf(appointmentDetailsList),
+        idempotencyKey,
+        appointmentDetailsList,
+        CREATED_APPOINTMENTS,
+        () -> this.appointmentService.savedAppointment(appointmentDetailsList));
+  }
+
+  @PostMapping("/appointments/batch")
+  @Operation(
+      summary = "Book multiple appointments in one request",
+      description =
+          "Books every appointment whose slot is still available and reports per item whether"
+              + " it was booked or why it was rejected")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Booking results, in request order",
+            content =
+                @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = BookingResult.class))),
+        @ApiResponse(
+            responseCode = "500",
+            description = "Problem creating appointments",
+            content =
+                @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorDetails.class))),
+      })
+  public Mono<List<BookingResult>> bookAppointments(
+      @RequestBody List<AppointmentDetails> appointmentDetailsList) {
+    LOGGER.info("Received request to book {} appointments", appointmentDetailsList.size());
+    return this.appointmentService.bookAppointments(appointmentDetailsList);
   }
 
   @PutMapping("/appointments/{id}")
@@ -356,6 +841,59 @@ public class AppointmentController {
     return this.appointmentService.updateAppointment(id, updatedAppointmentDetails);
   }
 
+  @PutMapping("/appointments/cancel/bulk")
+  @Operation(
+      summary = "Cancel many appointments at once",
+      description =
+          "Cancel the appointments with the given ids, or every active appointment of a doctor"
+              + " on a day, in one transaction. Returns the ids that were cancelled")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Appointments cancelled",
+            content =
+                @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = Integer.class))),
+        @ApiResponse(
+            responseCode = "400",
+            description =
+                "Neither appointment ids nor a doctor and date were given, or more than 1000 ids",
+            content =
+                @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorDetails.class))),
+        @ApiResponse(
+            responseCode = "500",
+            description = "Internal server error",
+            content =
+                @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorDetails.class)))
+      })
+  public Mono<List<Integer>> cancelAppointments(@RequestBody BulkCancelRequest request) {
+    LOGGER.info("Cancelling appointments in bulk: {}", request);
+    Mono<List<Integer>> cancelled;
+    if (request.getAppointmentIds() != null && !request.getAppointmentIds().isEmpty()) {
+      if (request.getAppointmentIds().size() > MAX_BULK_CANCEL_IDS) {
+        return Mono.error(
+            new InvalidRequestException(
+                "At most " + MAX_BULK_CANCEL_IDS + " appointmentIds can be cancelled at once"));
+      }
+      cancelled = this.appointmentService.cancelAppointments(request.getAppointmentIds());
+    } else if (request.getDoctorId() != null && request.getDate() != null) {
+      cancelled =
+          this.appointmentService.cancelAppointmentsOfDoctor(
+              request.getDoctorId(), request.getDate());
+    } else {
+      return Mono.error(
+          new InvalidRequestException("Either appointmentIds or doctorId and date are required"));
+    }
+    return cancelled.doOnError(
+        error -> LOGGER.error("Error cancelling appointments: {}", error.getMessage()));
+  }
+
   @PutMapping("/appointments/cancel/{id}")
   @Operation(
       summary = "Cancel an appointment by ID",
@@ -413,4 +951,43 @@ public class AppointmentController {
     LOGGER.info("Received request to delete appointment with id: {}", id);
     return appointmentService.deleteAppointment(id);
   }
+
+  private Mono<CursorPage<AppointmentDetails>> seekAppointments(
+      String cursor,
+      int size,
+      Function<Integer, Flux<AppointmentDetails>> firstPage,
+      BiFunction<PageCursor, Integer, Flux<AppointmentDetails>> nextPage,
+      BiFunction<Integer, Integer, Flux<AppointmentDetails>> nextPageAfterUndated) {
+    return Mono.defer(
+        () -> {
+          int limit = CursorPage.checkSize(size) + 1;
+          PageCursor after = PageCursor.decode(cursor, true);
+          Flux<AppointmentDetails> rows;
+          if (after == null) {
+            rows = firstPage.apply(limit);
+          } else if (after.date() == null) {
+            rows = nextPageAfterUndated.apply(after.id(), limit);
+          } else {
+            rows = nextPage.apply(after, limit);
+          }
+          return CursorPage.of(
+              rows.doOnError(
+                  error -> LOGGER.error("Error retrieving appointments: {}", error.getMessage())),
+              size,
+              appointment ->
+                  new PageCursor(appointment.getAppointmentDate(), appointment.getAppointmentId())
+                      .encode());
+        });
+  }
+
+  /** The users a booking is for, so that one user's key never answers another user's request. */
+  private static String usersOf(List<AppointmentDetails> appointmentDetailsList) {
+    return appointmentDetailsList.stream()
+        .map(AppointmentDetails::getUserId)
+        .filter(Objects::nonNull)
+        .distinct()
+        .sorted()
+        .map(String::valueOf)
+        .collect(Collectors.joining(","));
+  }
 }
@@ -0,0 +1,259 @@
+package com.deepak.registrationservice.controller;
+
+import com.deepak.registrationservice.exception.ErrorDetails;
+import com.deepak.registrationservice.model.appointment.QueueEvent;
+import com.deepak.registrationservice.model.appointment.QueueManagement;
+import com.deepak.registrationservice.service.QueueEngine;
+import com.deepak.registrationservice.service.QueueEventHub;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("/v1")
+@Tag(name = "Queue", description = "Queue advancement and live updates for waiting rooms")
+public class QueueController {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(QueueController.class);
+  private final QueueEventHub queueEventHub;
+  private final QueueEngine queueEngine;
+  private final Duration heartbeatInterval;
+
+  public QueueController(
+      QueueEventHub queueEventHub,
+      QueueEngine queueEngine,
+      @Value("${queue.stream.heartbeat-interval:15s}") Duration heartbeatInterval) {
+    this.queueEventHub = queueEventHub;
+    this.queueEngine = queueEngine;
+    this.heartbeatInterval = heartbeatInterval;
+  }
+
+  @GetMapping(
+      value = "/queue/{doctorId}/{date}/stream",
+      produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  @Operation(
+      summary = "Stream queue changes of a doctor for a day",
+      description =
+          "Server-Sent Events with one event per queue change; slow clients receive only the"
+              + " latest pending event")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Queue events streamed",
+            content =
+                @Content(
+                    mediaType = "text/event-stream",
+                    schema = @Schema(implementation = QueueEvent.class))),
+      })
+  public Flux<ServerSentEvent<QueueEvent>> streamQueue(
+      @PathVariable String doctorId,
+      @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+    LOGGER.info("Client subscribed to queue of doctor {} on {}", doctorId, date);
+    Flux<ServerSentEvent<QueueEvent>> events =
+        this.queueEventHub
+            .subscribe(doctorId, date)
+            .map(
+                event ->
+                    ServerSentEvent.builder(event)
+                        .id(String.valueOf(event.getVersion()))
+                        .event(event.getType().name())
+                        .build());
+    // Comments keep idle connections open through proxies; they are dropped for slow clients.
+    Flux<ServerSentEvent<QueueEvent>> heartbeats =
+        Flux.interval(this.heartbeatInterval)
+            .onBackpressureDrop()
+            .map(tick -> ServerSentEvent.<QueueEvent>builder().comment("heartbeat").build());
+    return Flux.merge(events, heartbeats)
+        .doFinally(signal -> LOGGER.info("Client left queue of doctor {} on {}", doctorId, date));
+  }
+
+  @GetMapping("/queue/{doctorId}/{date}")
+  @Operation(
+      summary = "Retrieve the queue of a doctor for a day",
+      description = "The patient being seen followed by the waiting patients in queue order")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Queue retrieved",
+            content =
+                @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = QueueManagement.class))),
+        @ApiResponse(
+            responseCode = "500",
+            description = "Internal server error",
+            content =
+                @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorDetails.class)))
+      })
+  public Mono<List<QueueManagement>> getQueue(
+      @PathVariable String doctorId,
+      @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+    LOGGER.info("Retrieving queue of doctor {} on {}", doctorId, date);
+    return this.queueEngine
+        .getQueue(doctorId, date)
+        .doOnError(error -> LOGGER.error("Error retrieving queue: {}", error.getMessage()));
+  }
+
+  @PostMapping("/queue/{doctorId}/{date}/next")
+  @Operation(
+      summary = "Call the next patient",
+      description =
+          "Completes the consultation in progress, calls the first waiting patient and moves the"
+              + " rest up")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Queue advanced",
+            content =
+                @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = QueueManagement.class))),
+        @ApiResponse(
+            responseCode = "500",
+            description = "Internal server error",
+            content =
+                @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorDetails.class)))
+      })
+  public Mono<List<QueueManagement>> callNext(
+      @PathVariable String doctorId,
+      @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+    LOGGER.info("Calling next patient of doctor {} on {}", doctorId, date);
+    return this.queueEngine
+        .callNext(doctorId, date)
+        .doOnError(error -> LOGGER.error("Error updating queue: {}", error.getMessage()));
+  }
+
+  @PostMapping("/queue/{doctorId}/{date}/skip/{appointmentId}")
+  @Operation(
+      summary = "Skip a waiting patient",
+      description = "Takes the patient out of the queue until they are marked as reached")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Patient skipped",
+            content =
+                @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = QueueManagement.class))),
+        @ApiResponse(
+            responseCode = "404",
+            description = "Appointment not in the queue",
+            content =
+                @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorDetails.class))),
+        @ApiResponse(
+            responseCode = "500",
+            description = "Internal server error",
+            content =
+                @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorDetails.class)))
+      })
+  public Mono<List<QueueManagement>> skipPatient(
+      @PathVariable String doctorId,
+      @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+      @PathVariable Integer appointmentId) {
+    LOGGER.info("Skipping appointment {} in queue of doctor {}", appointmentId, doctorId);
+    return this.queueEngine
+        .skip(doctorId, date, appointmentId)
+        .doOnError(error -> LOGGER.error("Error updating queue: {}", error.getMessage()));
+  }
+
+  @PostMapping("/queue/{doctorId}/{date}/reached/{appointmentId}")
+  @Operation(
+      summary = "Mark a patient as reached",
+      description =
+          "Records that the patient is at the clinic; a skipped patient rejoins at the end of the"
+              + " queue")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Patient marked as reached",
+            content =
+                @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = QueueManagement.class))),
+        @ApiResponse(
+            responseCode = "404",
+            description = "Appointment not in the queue",
+            content =
+                @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorDetails.class))),
+        @ApiResponse(
+            responseCode = "500",
+            description = "Internal server error",
+            content =
+                @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorDetails.class)))
+      })
+  public Mono<List<QueueManagement>> markPatientReached(
+      @PathVariable String doctorId,
+      @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+      @PathVariable Integer appointmentId) {
+    LOGGER.info("Appointment {} reached in queue of doctor {}", appointmentId, doctorId);
+    return this.queueEngine
+        .markReached(doctorId, date, appointmentId)
+        .doOnError(error -> LOGGER.error("Error updating queue: {}", error.getMessage()));
+  }
+
+  @PostMapping("/queue/{doctorId}/{date}/compact")
+  @Operation(
+      summary = "Renumber the waiting patients",
+      description = "Closes the gaps that cancellations leave in the queue numbers")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Queue compacted",
+            content =
+                @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = QueueManagement.class))),
+        @ApiResponse(
+            responseCode = "500",
+            description = "Internal server error",
+            content =
+                @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorDetails.class)))
+      })
+  public Mono<List<QueueManagement>> compactQueue(
+      @PathVariable String doctorId,
+      @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+    LOGGER.info("Compacting queue of doctor {} on {}", doctorId, date);
+    return this.queueEngine
+        .compact(doctorId, date)
+        .doOnError(error -> LOGGER.error("Error updating queue: {}", error.getMessage()));
+  }
+}
@@ -0,0 +1,102 @@
+package com.deepak.registrationservice.controller;
+
+import com.deepak.registrationservice.exception.ErrorDetails;
+import com.deepak.registrationservice.model.appointment.DaySchedule;
+import com.deepak.registrationservice.service.ScheduleSnapshots;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import java.time.LocalDate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("/v1")
+@Tag(name = "Schedule", description = "Day schedules of a doctor for reception screens")
+public class ScheduleController {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ScheduleController.class);
+  private final ScheduleSnapshots scheduleSnapshots;
+
+  public ScheduleController(ScheduleSnapshots scheduleSnapshots) {
+    this.scheduleSnapshots = scheduleSnapshots;
+  }
+
+  @GetMapping("/schedule/{doctorId}/{date}")
+  @Operation(
+      summary = "Retrieve the schedule of a doctor for a day",
+      description =
+          "Slots of the day in slot order, each with its active appointment and queue entry. The"
+              + " response carries an ETag; send it back in If-None-Match to get 304 while the"
+              + " schedule is unchanged")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Schedule retrieved",
+            content =
+                @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = DaySchedule.class))),
+        @ApiResponse(responseCode = "304", description = "Schedule unchanged since the ETag"),
+        @ApiResponse(
+            responseCode = "500",
+            description = "Internal server error",
+            content =
+                @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorDetails.class)))
+      })
+  public Mono<ResponseEntity<DataBuffer>> getSchedule(
+      @PathVariable String doctorId,
+      @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+    LOGGER.info("Retrieving schedule of doctor {} on {}", doctorId, date);
+    return this.scheduleSnapshots
+        .get(doctorId, date)
+        .map(
+            snapshot -> {
+              if (matches(ifNoneMatch, snapshot.etag())) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(snapshot.etag())
+                    .<DataBuffer>build();
+              }
+              // Wraps the held bytes; nothing is serialized or copied per request.
+              DataBuffer body = DefaultDataBufferFactory.sharedInstance.wrap(snapshot.body());
+              return ResponseEntity.ok()
+                  .eTag(snapshot.etag())
+                  .contentType(MediaType.APPLICATION_JSON)
+                  .body(body);
+            })
+        .doOnError(error -> LOGGER.error("Error retrieving schedule: {}", error.getMessage()));
+  }
+
+  private static boolean matches(String ifNoneMatch, String etag) {
+    if (ifNoneMatch == null) {
+      return false;
+    }
+    for (String candidate : ifNoneMatch.split(",")) {
+      String tag = candidate.trim();
+      if (tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
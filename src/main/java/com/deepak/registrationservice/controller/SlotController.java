@@ -0,0 +1,118 @@
+package com.deepak.registrationservice.controller;
+
+import com.deepak.registrationservice.exception.ErrorDetails;
+import com.deepak.registrationservice.model.appointment.SlotGenerationResult;
+import com.deepak.registrationservice.model.appointment.SlotInformation;
+import com.deepak.registrationservice.model.appointment.SlotTemplate;
+import com.deepak.registrationservice.service.SlotAvailabilityIndex;
+import com.deepak.registrationservice.service.SlotGenerator;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import java.time.LocalDate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("/v1")
+@Tag(name = "Slot", description = "Handles slot availability lookups and slot generation")
+public class SlotController {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SlotController.class);
+  private final SlotAvailabilityIndex slotAvailabilityIndex;
+  private final SlotGenerator slotGenerator;
+
+  public SlotController(SlotAvailabilityIndex slotAvailabilityIndex, SlotGenerator slotGenerator) {
+    this.slotAvailabilityIndex = slotAvailabilityIndex;
+    this.slotGenerator = slotGenerator;
+  }
+
+  @GetMapping("/slots/available")
+  @Operation(
+      summary = "Retrieve the free slots of a doctor for a day",
+      description = "Retrieve the free slots of a doctor at a clinic for a day, by slot number")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Available slots retrieved",
+            content =
+                @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = SlotInformation.class))),
+        @ApiResponse(
+            responseCode = "500",
+            description = "Internal server error",
+            content =
+                @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorDetails.class)))
+      })
+  public Flux<SlotInformation> getAvailableSlots(
+      @RequestParam String doctorId,
+      @RequestParam String clinicId,
+      @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+    LOGGER.info(
+        "Retrieving available slots for doctor {} at clinic {} on {}", doctorId, clinicId, date);
+    return this.slotAvailabilityIndex
+        .findAvailable(doctorId, clinicId, date.toString())
+        .flatMapMany(Flux::fromIterable)
+        .doOnError(error -> LOGGER.error("Error retrieving slots: {}", error.getMessage()));
+  }
+
+  @PostMapping("/slots/generate")
+  @Operation(
+      summary = "Generate slots from a weekly template",
+      description =
+          "Expands the template into slots for every matching day and inserts the ones that do not"
+              + " exist yet; repeating a request only adds missing slots")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Slots generated",
+            content =
+                @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = SlotGenerationResult.class))),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Template is not valid",
+            content =
+                @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorDetails.class))),
+        @ApiResponse(
+            responseCode = "500",
+            description = "Internal server error",
+            content =
+                @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorDetails.class)))
+      })
+  public Mono<SlotGenerationResult> generateSlots(@RequestBody SlotTemplate template) {
+    LOGGER.info("Generating slots from template: {}", template);
+    return this.slotGenerator
+        .generate(template)
+        .doOnSuccess(
+            result ->
+                LOGGER.info(
+                    "Generated {} slots, {} new, at {} rows/s",
+                    result.getGenerated(),
+                    result.getInserted(),
+                    Math.round(result.getRowsPerSecond())))
+        .doOnError(error -> LOGGER.error("Error generating slots: {}", error.getMessage()));
+  }
+}
@@ -0,0 +1,76 @@
+package com.deepak.registrationservice.controller;
+
+import com.deepak.registrationservice.exception.ErrorDetails;
+import com.deepak.registrationservice.model.appointment.AppointmentStats;
+import com.deepak.registrationservice.service.AppointmentStatsService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import java.time.LocalDate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+@RestController
+@RequestMapping("/v1")
+@Tag(name = "Stats", description = "Daily appointment counts for clinic and doctor dashboards")
+public class StatsController {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(StatsController.class);
+  private final AppointmentStatsService appointmentStatsService;
+
+  public StatsController(AppointmentStatsService appointmentStatsService) {
+    this.appointmentStatsService = appointmentStatsService;
+  }
+
+  @GetMapping("/stats")
+  @Operation(
+      summary = "Retrieve daily appointment counts",
+      description =
+          "Counts booked and cancelled appointments per clinic, doctor, day, appointment type and"
+              + " symptom for the days from 'from' to 'to'; clinicId and doctorId narrow the counts"
+              + " to one clinic or doctor")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Counts retrieved",
+            content =
+                @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = AppointmentStats.class))),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Date range is not valid",
+            content =
+                @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorDetails.class))),
+        @ApiResponse(
+            responseCode = "500",
+            description = "Internal server error",
+            content =
+                @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorDetails.class)))
+      })
+  public Flux<AppointmentStats> getStats(
+      @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+      @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+      @RequestParam(required = false) Integer clinicId,
+      @RequestParam(required = false) String doctorId) {
+    LOGGER.info(
+        "Retrieving stats from {} to {} for clinic {} and doctor {}", from, to, clinicId, doctorId);
+    return this.appointmentStatsService
+        .getStats(from, to, clinicId, doctorId)
+        .doOnError(error -> LOGGER.error("Error retrieving stats: {}", error.getMessage()));
+  }
+}
@@ -3,7 +3,12 @@ package com.deepak.registrationservice.controller;
 import com.deepak.registrationservice.exception.ErrorDetails;
 import com.deepak.registrationservice.exception.UserNotFoundException;
 import com.deepak.registrationservice.model.user.User;
+import com.deepak.registrationservice.pagination.CursorPage;
+import com.deepak.registrationservice.pagination.PageCursor;
 import com.deepak.registrationservice.repository.UserRepository;
+import com.deepak.registrationservice.service.ResourceVersions;
+import com.deepak.registrationservice.service.ResourceVersions.Resource;
+import com.deepak.registrationservice.service.UserCache;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -19,6 +24,7 @@ import org.springframework.lang.NonNull;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
@@ -28,9 +34,14 @@ import reactor.core.publisher.Mono;
 public class UserController {
   private static final Logger LOGGER = LoggerFactory.getLogger(UserController.class);
   private final UserRepository userRepository;
+  private final UserCache userCache;
+  private final ResourceVersions resourceVersions;
 
-  public UserController(UserRepository userRepository) {
+  public UserController(
+      UserRepository userRepository, UserCache userCache, ResourceVersions resourceVersions) {
     this.userRepository = userRepository;
+    this.userCache = userCache;
+    this.resourceVersions = resourceVersions;
   }
 
   @GetMapping("/users")
@@ -53,13 +64,63 @@ public class UserController {
                     schema = @Schema(implementation = ErrorDetails.class))),
       })
   public Flux<User> getAllUsers(
-      @RequestParam(defaultValue = "0") int page, @RequestParam(defaultValue = "10") int size) {
+      @RequestParam(defaultValue = "0") int page,
+      @RequestParam(defaultValue = "10") int size,
+      ServerWebExchange exchange) {
+    if (this.resourceVersions.notModified(exchange, Resource.USERS, null)) {
+      return null;
+    }
     LOGGER.info("Retrieving all users");
     return this.userRepository
         .findAllBy(PageRequest.of(page, size))
         .doOnError(error -> LOGGER.error("Error retrieving users: {}", error.getMessage()));
   }
 
+  @GetMapping("/users/cursor")
+  @Operation(
+      summary = "Retrieve all users page by page",
+      description = "Retrieve users ordered by id using an opaque cursor instead of page numbers")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Users Retrieved",
+            content =
+                @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = CursorPage.class))),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Cursor or size is not valid",
+            content =
+                @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorDetails.class))),
+      })
+  public Mono<CursorPage<User>> getAllUsersByCursor(
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "10") int size,
+      ServerWebExchange exchange) {
+    if (this.resourceVersions.notModified(exchange, Resource.USERS, null)) {
+      return null;
+    }
+    LOGGER.info("Retrieving all users after cursor {}", cursor);
+    return Mono.defer(
+        () -> {
+          int limit = CursorPage.checkSize(size) + 1;
+          PageCursor after = PageCursor.decode(cursor, false);
+          Flux<User> rows =
+              after == null
+                  ? this.userRepository.findPage(limit)
+                  : this.userRepository.findPageAfter(after.id(), limit);
+          return CursorPage.of(
+              rows.doOnError(
+                  error -> LOGGER.error("Error retrieving users: {}", error.getMessage())),
+              size,
+              user -> PageCursor.ofId(user.getId()).encode());
+        });
+  }
+
   @GetMapping("/user/by/id/{id}")
   @Operation(summary = "Retrieve a user by id")
   @ApiResponses(
@@ -79,9 +140,12 @@ public class UserController {
                     mediaType = "application/json",
                     schema = @Schema(implementation = ErrorDetails.class)))
       })
-  public Mono<User> getUserById(@PathVariable @NonNull Integer id) {
+  public Mono<User> getUserById(@PathVariable @NonNull Integer id, ServerWebExchange exchange) {
+    if (this.resourceVersions.notModified(exchange, Resource.USER, id)) {
+      return null;
+    }
     LOGGER.info("Retrieving user with ID: {}", id);
-    return this.userRepository
+    return this.userCache
         .findById(id)
         .map(
             user -> {
@@ -110,9 +174,13 @@ public class UserController {
                     mediaType = "application/json",
                     schema = @Schema(implementation = ErrorDetails.class)))
       })
-  public Mono<User> getUserByPhoneNumber(@PathVariable String phoneNumber) {
+  public Mono<User> getUserByPhoneNumber(
+      @PathVariable String phoneNumber, ServerWebExchange exchange) {
+    if (this.resourceVersions.notModified(exchange, Resource.USER_PHONE_NUMBER, phoneNumber)) {
+      return null;
+    }
     LOGGER.info("Attempting to retrieve user with phoneNumber: {}", phoneNumber);
-    return this.userRepository
+    return this.userCache
         .findByPhoneNumber(phoneNumber)
         .flatMap(
             user -> {
@@ -143,7 +211,11 @@ public class UserController {
     return this.userRepository
         .save(user)
         .doOnSuccess(
-            createdUser -> LOGGER.info("User Id : {} has been created", createdUser.getId()))
+            createdUser -> {
+              // Drops a cached "not found" for the new user's phone number.
+              userChanged(createdUser.getId(), createdUser.getPhoneNumber());
+              LOGGER.info("User Id : {} has been created", createdUser.getId());
+            })
         .onErrorResume(
             e -> {
               if (e instanceof MethodArgumentNotValidException) {
@@ -172,11 +244,18 @@ public class UserController {
         .findById(id)
         .flatMap(
             existingUser -> {
+              String previousPhoneNumber = existingUser.getPhoneNumber();
               existingUser.setName(user.getName());
               existingUser.setEmail(user.getEmail());
               existingUser.setPhoneNumber(user.getPhoneNumber());
               existingUser.setBirthdate(user.getBirthdate());
-              return this.userRepository.save(existingUser);
+              return this.userRepository
+                  .save(existingUser)
+                  .doOnSuccess(
+                      updatedUser -> {
+                        userChanged(id, previousPhoneNumber);
+                        userChanged(null, updatedUser.getPhoneNumber());
+                      });
             })
         .doOnSuccess(
             updatedUser -> LOGGER.info("User with ID {} has been updated", updatedUser.getId()))
@@ -204,11 +283,21 @@ public class UserController {
             user ->
                 this.userRepository
                     .delete(user)
-                    .doOnSuccess(deletedUser -> LOGGER.info("Deleted user with ID: {}", id))
+                    .doOnSuccess(
+                        deletedUser -> {
+                          userChanged(user.getId(), user.getPhoneNumber());
+                          LOGGER.info("Deleted user with ID: {}", id);
+                        })
                     .doOnError(
                         error ->
                             LOGGER.error(
                                 "Error deleting user with ID {}: {}", id, error.getMessage())))
         .switchIfEmpty(Mono.error(new UserNotFoundException("User not found with ID: " + id)));
   }
+
+  /** Drops cached lookups of the user and moves the ETags of its resources on. */
+  private void userChanged(Integer id, String phoneNumber) {
+    this.userCache.invalidate(id, phoneNumber);
+    this.resourceVersions.userChanged(id, phoneNumber);
+  }
 }
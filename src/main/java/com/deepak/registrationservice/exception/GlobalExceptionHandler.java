@@ -3,6 +3,7 @@ package com.deepak.registrationservice.exception;
 import java.time.LocalDateTime;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -50,6 +51,58 @@ public class GlobalExceptionHandler {
     return new ResponseEntity<>(errorDetails, HttpStatus.BAD_REQUEST);
   }
 
+  @ExceptionHandler(InvalidCursorException.class)
+  public ResponseEntity<ErrorDetails> handleInvalidCursorException(InvalidCursorException ex) {
+    LOGGER.error("Invalid cursor: {}", ex.getMessage());
+    ErrorDetails errorDetails =
+        ErrorDetails.builder()
+            .details(ex.getMessage())
+            .message("Invalid cursor")
+            .timestamp(String.valueOf(LocalDateTime.now()))
+            .build();
+    return new ResponseEntity<>(errorDetails, HttpStatus.BAD_REQUEST);
+  }
+
+  @ExceptionHandler(InvalidRequestException.class)
+  public ResponseEntity<ErrorDetails> handleInvalidRequestException(InvalidRequestException ex) {
+    LOGGER.error("Invalid request: {}", ex.getMessage());
+    ErrorDetails errorDetails =
+        ErrorDetails.builder()
+            .details(ex.getMessage())
+            .message("Invalid request")
+            .timestamp(String.valueOf(LocalDateTime.now()))
+            .build();
+    return new ResponseEntity<>(errorDetails, HttpStatus.BAD_REQUEST);
+  }
+
+  @ExceptionHandler(IdempotencyKeyReusedException.class)
+  public ResponseEntity<ErrorDetails> handleIdempotencyKeyReusedException(
+      IdempotencyKeyReusedException ex) {
+    LOGGER.warn("Idempotency key reused: {}", ex.getMessage());
+    ErrorDetails errorDetails =
+        ErrorDetails.builder()
+            .details(ex.getMessage())
+            .message("Idempotency key reused")
+            .timestamp(String.valueOf(LocalDateTime.now()))
+            .build();
+    return new ResponseEntity<>(errorDetails, HttpStatus.UNPROCESSABLE_ENTITY);
+  }
+
+  @ExceptionHandler(ReservationRejectedException.class)
+  public ResponseEntity<ErrorDetails> handleReservationRejectedException(
+      ReservationRejectedException ex) {
+    LOGGER.warn("Reservation rejected: {}", ex.getMessage());
+    ErrorDetails errorDetails =
+        ErrorDetails.builder()
+            .details(ex.getMessage())
+            .message("Service busy")
+            .timestamp(String.valueOf(LocalDateTime.now()))
+            .build();
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+        .header(HttpHeaders.RETRY_AFTER, "1")
+        .body(errorDetails);
+  }
+
   @ExceptionHandler(UserNotFoundException.class)
   public ResponseEntity<ErrorDetails> handleUserNotFoundException(UserNotFoundException ex) {
     ErrorDetails errorDetails =
@@ -0,0 +1,7 @@
+package com.deepak.registrationservice.exception;
+
+public class ReservationRejectedException extends RuntimeException {
+  public ReservationRejectedException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,47 @@
+package com.deepak.registrationservice.model.appointment;
+
+import com.deepak.registrationservice.model.appointment.enums.AppointmentType;
+import com.deepak.registrationservice.model.appointment.enums.Symptom;
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.time.LocalDate;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.relational.core.mapping.Column;
+
+/** Appointment counts of one clinic, doctor, day, appointment type and symptom. */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class AppointmentStats {
+
+  @Column("clinic_id")
+  @Schema(description = "Clinic Id", example = "1")
+  private Integer clinicId;
+
+  @Column("doctor_id")
+  @Schema(description = "Doctor Id", example = "AB00001")
+  private String doctorId;
+
+  @Column("day")
+  @Schema(description = "Appointment day", example = "2023-06-01")
+  private LocalDate day;
+
+  @Column("appointment_type")
+  @Schema(description = "Appointment Type", example = "GENERAL_CHECKUP")
+  private AppointmentType appointmentType;
+
+  @Column("symptom")
+  @Schema(description = "Symptom", example = "HEADACHE")
+  private Symptom symptom;
+
+  @Column("booked")
+  @Schema(description = "Active appointments", example = "12")
+  private long booked;
+
+  @Column("cancelled")
+  @Schema(description = "Cancelled appointments", example = "2")
+  private long cancelled;
+}
@@ -0,0 +1,38 @@
+package com.deepak.registrationservice.model.appointment;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.time.LocalDateTime;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.data.relational.core.mapping.Column;
+
+/** The columns a schedule view needs; read without the rest of the appointment row. */
+@Getter
+@Setter
+public class AppointmentSummary {
+
+  /** Columns selected for a summary, matching the fields below. */
+  public static final String[] COLUMNS = {
+    "appointment_id", "slot_id", "appointment_date", "appointment_for_name", "active"
+  };
+
+  @Column("appointment_id")
+  @Schema(description = "Appointment Id", example = "1")
+  private Integer appointmentId;
+
+  @Column("slot_id")
+  @Schema(description = "Slot Id", example = "1")
+  private Integer slotId;
+
+  @Column("appointment_date")
+  @Schema(description = "Appointment date and time", example = "2023-06-01T10:00:00")
+  private LocalDateTime appointmentDate;
+
+  @Column("appointment_for_name")
+  @Schema(description = "Name of the patient", example = "John Doe")
+  private String appointmentForName;
+
+  @Column("active")
+  @Schema(description = "False once the appointment is cancelled", example = "true")
+  private boolean active;
+}
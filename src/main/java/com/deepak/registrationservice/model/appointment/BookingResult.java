@@ -0,0 +1,39 @@
+package com.deepak.registrationservice.model.appointment;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BookingResult {
+
+  @Schema(description = "Position of the item in the request", example = "0")
+  private final int index;
+
+  @Schema(description = "Slot Id", example = "1")
+  private final Integer slotId;
+
+  @Schema(description = "Whether the appointment was booked", example = "true")
+  private final boolean booked;
+
+  @Schema(description = "Booked appointment, present when booked is true")
+  private final AppointmentDetails appointment;
+
+  @Schema(description = "Reason the item was rejected", example = "Slot not available")
+  private final String error;
+
+  @JsonIgnore private final RuntimeException failure;
+
+  public static BookingResult booked(int index, AppointmentDetails appointment) {
+    return new BookingResult(index, appointment.getSlotId(), true, appointment, null, null);
+  }
+
+  public static BookingResult failed(int index, Integer slotId, RuntimeException failure) {
+    return new BookingResult(index, slotId, false, null, failure.getMessage(), failure);
+  }
+}
@@ -0,0 +1,24 @@
+package com.deepak.registrationservice.model.appointment;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.time.LocalDate;
+import java.util.List;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+@Getter
+@Setter
+@ToString
+@Schema(description = "Appointments to cancel, either by id or every appointment of a doctor's day")
+public class BulkCancelRequest {
+
+  @Schema(description = "Ids of the appointments to cancel, at most 1000", example = "[1, 2, 3]")
+  private List<Integer> appointmentIds;
+
+  @Schema(description = "Doctor whose appointments are cancelled", example = "DOC001")
+  private String doctorId;
+
+  @Schema(description = "Day whose appointments are cancelled", example = "2023-06-01")
+  private LocalDate date;
+}
@@ -0,0 +1,38 @@
+package com.deepak.registrationservice.model.appointment;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.time.LocalDate;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/** Everything a reception screen shows for one doctor and day, in slot order. */
+@Getter
+@AllArgsConstructor
+public class DaySchedule {
+
+  @Schema(description = "Doctor Id", example = "DOC001")
+  private final String doctorId;
+
+  @Schema(description = "Day of the schedule", example = "2023-06-01")
+  private final LocalDate date;
+
+  @Schema(description = "Slots of the day with their appointment and queue entry")
+  private final List<Entry> entries;
+
+  @Getter
+  @AllArgsConstructor
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  public static class Entry {
+
+    @Schema(description = "Slot, absent for an appointment whose slot is on another day")
+    private final SlotInformation slot;
+
+    @Schema(description = "Active appointment holding the slot, absent when the slot is free")
+    private final AppointmentDetails appointment;
+
+    @Schema(description = "Queue entry of the appointment, absent when it has none")
+    private final QueueManagement queue;
+  }
+}
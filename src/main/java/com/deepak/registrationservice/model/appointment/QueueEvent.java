@@ -0,0 +1,58 @@
+package com.deepak.registrationservice.model.appointment;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Getter;
+
+@Getter
+@Builder(toBuilder = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class QueueEvent {
+
+  @Schema(description = "What happened to the queue entry", example = "UPDATED")
+  private final Type type;
+
+  @Schema(
+      description =
+          "Increases by one for every event of the doctor and day; a gap means events were"
+              + " skipped for a slow client",
+      example = "42")
+  private final long version;
+
+  @Schema(description = "Appointment Id", example = "1")
+  private final Integer appointmentId;
+
+  @Schema(description = "Slot Id", example = "1")
+  private final Integer slotId;
+
+  @Schema(description = "Queue number given at booking", example = "5")
+  private final Integer initialQueueNo;
+
+  @Schema(description = "Current position in the queue", example = "3")
+  private final Integer currentQueueNo;
+
+  @Schema(description = "Whether the patient has reached the clinic", example = "false")
+  private final Boolean patientReached;
+
+  @Schema(description = "Where the patient is in the visit", example = "WAITING")
+  private final String visitStatus;
+
+  public static QueueEvent of(Type type, QueueManagement queueManagement) {
+    return QueueEvent.builder()
+        .type(type)
+        .appointmentId(queueManagement.getAppointmentId())
+        .slotId(queueManagement.getSlotId())
+        .initialQueueNo(queueManagement.getInitialQueueNo())
+        .currentQueueNo(queueManagement.getCurrentQueueNo())
+        .patientReached(queueManagement.getPatientReached())
+        .visitStatus(queueManagement.getVisitStatus())
+        .build();
+  }
+
+  public enum Type {
+    ADDED,
+    UPDATED,
+    REMOVED
+  }
+}
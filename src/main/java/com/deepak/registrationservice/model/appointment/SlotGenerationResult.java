@@ -0,0 +1,22 @@
+package com.deepak.registrationservice.model.appointment;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class SlotGenerationResult {
+
+  @Schema(description = "Slots the template expands to", example = "2880")
+  private final long generated;
+
+  @Schema(description = "Slots that did not exist yet and were inserted", example = "2880")
+  private final long inserted;
+
+  @Schema(description = "Time taken in milliseconds", example = "850")
+  private final long elapsedMillis;
+
+  @Schema(description = "Generated slots processed per second", example = "3388.2")
+  private final double rowsPerSecond;
+}
@@ -0,0 +1,56 @@
+package com.deepak.registrationservice.model.appointment;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Set;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+@Getter
+@Setter
+@ToString
+@Schema(description = "Weekly schedule of a doctor at a clinic, expanded into slots per day")
+public class SlotTemplate {
+
+  @Schema(description = "Doctor Id", example = "DOC001")
+  private String doctorId;
+
+  @Schema(description = "Clinic Id", example = "1")
+  private String clinicId;
+
+  @Schema(description = "First day to generate slots for", example = "2023-06-01")
+  private LocalDate fromDate;
+
+  @Schema(description = "Last day to generate slots for, inclusive", example = "2023-08-29")
+  private LocalDate toDate;
+
+  @Schema(description = "Weekdays the doctor works", example = "[\"MONDAY\", \"WEDNESDAY\"]")
+  private Set<DayOfWeek> daysOfWeek;
+
+  @Schema(description = "Length of one slot in minutes", example = "15")
+  private Integer slotMinutes;
+
+  @Schema(description = "Shifts of a working day, in order")
+  private List<Shift> shifts;
+
+  @Getter
+  @Setter
+  @ToString
+  public static class Shift {
+
+    @Schema(description = "Name stored as the slot's shift time", example = "MORNING")
+    private String name;
+
+    @Schema(description = "Start of the shift", example = "09:00")
+    private LocalTime start;
+
+    @Schema(
+        description = "End of the shift; a slot that would run past it is not created",
+        example = "13:00")
+    private LocalTime end;
+  }
+}
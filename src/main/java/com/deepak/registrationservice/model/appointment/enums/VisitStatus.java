@@ -0,0 +1,24 @@
+package com.deepak.registrationservice.model.appointment.enums;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Getter;
+
+@Getter
+@Schema(enumAsRef = true)
+public enum VisitStatus {
+  WAITING("Waiting"),
+  IN_CONSULTATION("In Consultation"),
+  COMPLETED("Completed"),
+  SKIPPED("Skipped");
+
+  private final String displayName;
+
+  VisitStatus(String displayName) {
+    this.displayName = displayName;
+  }
+
+  /** Queue entries written before statuses were tracked have no status and are still waiting. */
+  public static VisitStatus of(String value) {
+    return value == null ? WAITING : valueOf(value);
+  }
+}
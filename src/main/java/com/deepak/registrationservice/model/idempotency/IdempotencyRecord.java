@@ -0,0 +1,26 @@
+package com.deepak.registrationservice.model.idempotency;
+
+import java.time.LocalDateTime;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+@Getter
+@Setter
+@Table(name = "idempotency_keys")
+public class IdempotencyRecord {
+  @Id
+  @Column("idempotency_key")
+  private String idempotencyKey;
+
+  @Column("request_hash")
+  private String requestHash;
+
+  @Column("response")
+  private String response;
+
+  @Column("created_at")
+  private LocalDateTime createdAt;
+}
@@ -0,0 +1,50 @@
+package com.deepak.registrationservice.pagination;
+
+import com.deepak.registrationservice.exception.InvalidRequestException;
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.List;
+import java.util.function.Function;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Getter
+@AllArgsConstructor
+public class CursorPage<T> {
+
+  @Schema(description = "Items of this page")
+  private final List<T> items;
+
+  @Schema(
+      description = "Token to pass as cursor to fetch the next page, absent on the last page",
+      example = "MjAyMy0xMi0yNFQxNjoyNTo0OHwxMg")
+  private final String nextCursor;
+
+  public static final int MAX_SIZE = 1000;
+
+  /** Returns {@code size} if it is a valid page size, else fails with a bad request. */
+  public static int checkSize(int size) {
+    if (size < 1 || size > MAX_SIZE) {
+      throw new InvalidRequestException("size must be between 1 and " + MAX_SIZE);
+    }
+    return size;
+  }
+
+  /**
+   * Builds a page from rows fetched with a limit of {@code size + 1}; the extra row only tells
+   * whether another page exists and is not returned.
+   */
+  public static <T> Mono<CursorPage<T>> of(Flux<T> rows, int size, Function<T, String> cursorOf) {
+    checkSize(size);
+    return rows.collectList()
+        .map(
+            list -> {
+              if (list.size() <= size) {
+                return new CursorPage<>(list, null);
+              }
+              List<T> items = list.subList(0, size);
+              return new CursorPage<>(items, cursorOf.apply(items.get(size - 1)));
+            });
+  }
+}
@@ -0,0 +1,32 @@
+package com.deepak.registrationservice.pagination;
+
+import java.util.List;
+import java.util.function.Function;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Streams a large result as a sequence of keyset queries of bounded size. The next chunk is only
+ * queried once the previous one has been consumed, so memory stays bounded by the chunk size and a
+ * cancelled subscription stops issuing queries.
+ */
+public final class KeysetChunks {
+
+  private KeysetChunks() {}
+
+  public static <T> Flux<T> stream(
+      PageCursor start,
+      int chunkSize,
+      Function<PageCursor, Flux<T>> fetchAfter,
+      Function<T, PageCursor> cursorOf) {
+    return fetchAfter
+        .apply(start)
+        .collectList()
+        .expand(
+            chunk ->
+                chunk.size() < chunkSize
+                    ? Mono.empty()
+                    : fetchAfter.apply(cursorOf.apply(chunk.get(chunk.size() - 1))).collectList())
+        .concatMapIterable(Function.<List<T>>identity(), 1);
+  }
+}
@@ -0,0 +1,51 @@
+package com.deepak.registrationservice.pagination;
+
+import com.deepak.registrationservice.exception.InvalidCursorException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Opaque cursor for keyset pagination. It carries the sort key of the last row of a page, so the
+ * next page is found with an index seek instead of skipping every earlier row. A cursor without a
+ * date either pages by id alone or, for date-ordered pages, follows a row whose date is null.
+ */
+public record PageCursor(LocalDateTime date, Integer id) {
+
+  private static final String SEPARATOR = "|";
+
+  public static PageCursor ofId(Integer id) {
+    return new PageCursor(null, id);
+  }
+
+  public String encode() {
+    String raw = this.date == null ? String.valueOf(this.id) : this.date + SEPARATOR + this.id;
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /** Decodes a cursor produced by {@link #encode()}; {@code null} means the first page. */
+  public static PageCursor decode(String token, boolean withDate) {
+    if (token == null || token.isBlank()) {
+      return null;
+    }
+    try {
+      String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+      if (!withDate) {
+        return ofId(Integer.valueOf(raw));
+      }
+      int separator = raw.indexOf(SEPARATOR);
+      if (separator < 0) {
+        // The last row of the page had no date; such rows sort before every dated row.
+        return ofId(Integer.valueOf(raw));
+      }
+      return new PageCursor(
+          LocalDateTime.parse(raw.substring(0, separator)),
+          Integer.valueOf(raw.substring(separator + 1)));
+    } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException ex) {
+      throw new InvalidCursorException("Cursor is not valid: " + token);
+    }
+  }
+}
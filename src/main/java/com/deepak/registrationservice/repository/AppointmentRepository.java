@@ -1,11 +1,17 @@
 package com.deepak.registrationservice.repository;
 
 import com.deepak.registrationservice.model.appointment.AppointmentDetails;
+import com.deepak.registrationservice.model.appointment.AppointmentStats;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 @Repository
 public interface AppointmentRepository extends R2dbcRepository<AppointmentDetails, Integer> {
@@ -25,4 +31,234 @@ public interface AppointmentRepository extends R2dbcRepository<AppointmentDetail
 
   Flux<AppointmentDetails> findAllByClinicIdAndAppointmentDateBetween(
       Integer clinicId, LocalDateTime startDate, LocalDateTime endDate);
+
+  // Sorted variants, for reads merged in order with the archive.
+
+  Flux<AppointmentDetails> findAllByUserId(Integer userId, Sort sort);
+
+  Flux<AppointmentDetails> findAllByAppointmentDateBetween(
+      LocalDateTime startDate, LocalDateTime endDate, Sort sort);
+
+  Flux<AppointmentDetails> findAllByDoctorIdAndAppointmentDateBetween(
+      String doctorId, LocalDateTime startDate, LocalDateTime endDate, Sort sort);
+
+  Flux<AppointmentDetails> findAllByClinicIdAndAppointmentDateBetween(
+      Integer clinicId, LocalDateTime startDate, LocalDateTime endDate, Sort sort);
+
+  // Keyset pagination: rows are ordered by (appointment_date, appointment_id) and each page seeks
+  // past the last row of the previous one, so deep pages cost the same as the first. Rows without
+  // a date sort first; the *Undated queries continue after such a row.
+
+  @Query("SELECT * FROM appointments ORDER BY appointment_date, appointment_id LIMIT :limit")
+  Flux<AppointmentDetails> findPage(int limit);
+
+  @Query(
+      "SELECT * FROM appointments WHERE appointment_date >= :afterDate"
+          + " AND (appointment_date > :afterDate OR appointment_id > :afterId)"
+          + " ORDER BY appointment_date, appointment_id LIMIT :limit")
+  Flux<AppointmentDetails> findPageAfter(LocalDateTime afterDate, Integer afterId, int limit);
+
+  @Query(
+      "SELECT * FROM appointments"
+          + " WHERE (appointment_date IS NULL AND appointment_id > :afterId)"
+          + " OR appointment_date IS NOT NULL"
+          + " ORDER BY appointment_date, appointment_id LIMIT :limit")
+  Flux<AppointmentDetails> findPageAfterUndated(Integer afterId, int limit);
+
+  @Query(
+      "SELECT * FROM appointments WHERE doctor_id = :doctorId"
+          + " ORDER BY appointment_date, appointment_id LIMIT :limit")
+  Flux<AppointmentDetails> findPageByDoctorId(String doctorId, int limit);
+
+  @Query(
+      "SELECT * FROM appointments WHERE doctor_id = :doctorId AND appointment_date >= :afterDate"
+          + " AND (appointment_date > :afterDate OR appointment_id > :afterId)"
+          + " ORDER BY appointment_date, appointment_id LIMIT :limit")
+  Flux<AppointmentDetails> findPageByDoctorIdAfter(
+      String doctorId, LocalDateTime afterDate, Integer afterId, int limit);
+
+  @Query(
+      "SELECT * FROM appointments WHERE doctor_id = :doctorId"
+          + " AND ((appointment_date IS NULL AND appointment_id > :afterId)"
+          + " OR appointment_date IS NOT NULL)"
+          + " ORDER BY appointment_date, appointment_id LIMIT :limit")
+  Flux<AppointmentDetails> findPageByDoctorIdAfterUndated(
+      String doctorId, Integer afterId, int limit);
+
+  @Query(
+      "SELECT * FROM appointments WHERE clinic_id = :clinicId"
+          + " ORDER BY appointment_date, appointment_id LIMIT :limit")
+  Flux<AppointmentDetails> findPageByClinicId(Integer clinicId, int limit);
+
+  @Query(
+      "SELECT * FROM appointments WHERE clinic_id = :clinicId AND appointment_date >= :afterDate"
+          + " AND (appointment_date > :afterDate OR appointment_id > :afterId)"
+          + " ORDER BY appointment_date, appointment_id LIMIT :limit")
+  Flux<AppointmentDetails> findPageByClinicIdAfter(
+      Integer clinicId, LocalDateTime afterDate, Integer afterId, int limit);
+
+  @Query(
+      "SELECT * FROM appointments WHERE clinic_id = :clinicId"
+          + " AND ((appointment_date IS NULL AND appointment_id > :afterId)"
+          + " OR appointment_date IS NOT NULL)"
+          + " ORDER BY appointment_date, appointment_id LIMIT :limit")
+  Flux<AppointmentDetails> findPageByClinicIdAfterUndated(
+      Integer clinicId, Integer afterId, int limit);
+
+  // Chunks of a date range in keyset order, used to stream large ranges without loading them
+  // whole. The first chunk starts from (startDate, Integer.MIN_VALUE).
+
+  @Query(
+      "SELECT * FROM appointments WHERE appointment_date >= :afterDate"
+          + " AND appointment_date <= :endDate"
+          + " AND (appointment_date > :afterDate OR appointment_id > :afterId)"
+          + " ORDER BY appointment_date, appointment_id LIMIT :limit")
+  Flux<AppointmentDetails> findRangeChunk(
+      LocalDateTime afterDate, Integer afterId, LocalDateTime endDate, int limit);
+
+  @Query(
+      "SELECT * FROM appointments WHERE doctor_id = :doctorId AND appointment_date >= :afterDate"
+          + " AND appointment_date <= :endDate"
+          + " AND (appointment_date > :afterDate OR appointment_id > :afterId)"
+          + " ORDER BY appointment_date, appointment_id LIMIT :limit")
+  Flux<AppointmentDetails> findRangeChunkByDoctorId(
+      String doctorId, LocalDateTime afterDate, Integer afterId, LocalDateTime endDate, int limit);
+
+  @Query(
+      "SELECT * FROM appointments WHERE clinic_id = :clinicId AND appointment_date >= :afterDate"
+          + " AND appointment_date <= :endDate"
+          + " AND (appointment_date > :afterDate OR appointment_id > :afterId)"
+          + " ORDER BY appointment_date, appointment_id LIMIT :limit")
+  Flux<AppointmentDetails> findRangeChunkByClinicId(
+      Integer clinicId, LocalDateTime afterDate, Integer afterId, LocalDateTime endDate, int limit);
+
+  // Set-based cancellation and deletion: the appointments are read and locked once, then every
+  // row is changed by a fixed number of statements regardless of how many there are.
+
+  @Query("SELECT * FROM appointments WHERE appointment_id IN (:appointmentIds) FOR UPDATE")
+  Flux<AppointmentDetails> lockAllById(Collection<Integer> appointmentIds);
+
+  @Query(
+      "SELECT * FROM appointments WHERE appointment_id IN (:appointmentIds) AND active = true"
+          + " FOR UPDATE")
+  Flux<AppointmentDetails> lockActiveById(Collection<Integer> appointmentIds);
+
+  @Query(
+      "SELECT * FROM appointments WHERE doctor_id = :doctorId AND active = true"
+          + " AND appointment_date >= :dayStart AND appointment_date < :dayEnd FOR UPDATE")
+  Flux<AppointmentDetails> lockActiveByDoctorIdAndDay(
+      String doctorId, LocalDateTime dayStart, LocalDateTime dayEnd);
+
+  /** Marks active appointments inactive and frees their slots in the same statement. */
+  @Modifying
+  @Query(
+      "UPDATE appointments a LEFT JOIN slot_information s ON s.slot_id = a.slot_id"
+          + " SET a.active = false, s.is_available = true"
+          + " WHERE a.appointment_id IN (:appointmentIds) AND a.active = true")
+  Mono<Integer> cancelAllById(Collection<Integer> appointmentIds);
+
+  /** Deletes appointments together with their queue entries. */
+  @Modifying
+  @Query(
+      "DELETE a, q FROM appointments a"
+          + " LEFT JOIN queue_management q ON q.appointment_id = a.appointment_id"
+          + " WHERE a.appointment_id IN (:appointmentIds)")
+  Mono<Integer> deleteAllWithQueueEntriesById(Collection<Integer> appointmentIds);
+
+  /**
+   * Appointment counts per clinic, doctor, day, type and symptom for days in [startDate, endDate).
+   * A {@code null} clinic or doctor matches every clinic or doctor.
+   */
+  @Query(
+      "SELECT clinic_id, doctor_id, DATE(appointment_date) AS day, appointment_type, symptom,"
+          + " CAST(SUM(active) AS SIGNED) AS booked, CAST(SUM(NOT active) AS SIGNED) AS cancelled"
+          + " FROM appointments"
+          + " WHERE appointment_date >= :startDate AND appointment_date < :endDate"
+          + " AND (:clinicId IS NULL OR clinic_id = :clinicId)"
+          + " AND (:doctorId IS NULL OR doctor_id = :doctorId)"
+          + " GROUP BY clinic_id, doctor_id, DATE(appointment_date), appointment_type, symptom"
+          + " ORDER BY day, clinic_id, doctor_id")
+  Flux<AppointmentStats> countGroupedBetween(
+      LocalDateTime startDate, LocalDateTime endDate, Integer clinicId, String doctorId);
+
+  // Archive: appointments older than the archive horizon live in appointments_archive, which has
+  // the same columns and indexes as appointments. Rows come back in (appointment_date,
+  // appointment_id) order so they can be merged with the hot rows without buffering either side.
+
+  @Query(
+      "SELECT * FROM appointments_archive WHERE user_id = :userId"
+          + " ORDER BY appointment_date, appointment_id")
+  Flux<AppointmentDetails> findArchivedByUserId(Integer userId);
+
+  @Query(
+      "SELECT * FROM appointments_archive"
+          + " WHERE appointment_date BETWEEN :startDate AND :endDate"
+          + " ORDER BY appointment_date, appointment_id")
+  Flux<AppointmentDetails> findArchivedBetween(LocalDateTime startDate, LocalDateTime endDate);
+
+  @Query(
+      "SELECT * FROM appointments_archive"
+          + " WHERE doctor_id = :doctorId AND appointment_date BETWEEN :startDate AND :endDate"
+          + " ORDER BY appointment_date, appointment_id")
+  Flux<AppointmentDetails> findArchivedByDoctorIdBetween(
+      String doctorId, LocalDateTime startDate, LocalDateTime endDate);
+
+  @Query(
+      "SELECT * FROM appointments_archive"
+          + " WHERE clinic_id = :clinicId AND appointment_date BETWEEN :startDate AND :endDate"
+          + " ORDER BY appointment_date, appointment_id")
+  Flux<AppointmentDetails> findArchivedByClinicIdBetween(
+      Integer clinicId, LocalDateTime startDate, LocalDateTime endDate);
+
+  @Query(
+      "SELECT * FROM appointments_archive WHERE appointment_date >= :afterDate"
+          + " AND appointment_date <= :endDate"
+          + " AND (appointment_date > :afterDate OR appointment_id > :afterId)"
+          + " ORDER BY appointment_date, appointment_id LIMIT :limit")
+  Flux<AppointmentDetails> findArchivedRangeChunk(
+      LocalDateTime afterDate, Integer afterId, LocalDateTime endDate, int limit);
+
+  @Query(
+      "SELECT * FROM appointments_archive WHERE doctor_id = :doctorId"
+          + " AND appointment_date >= :afterDate AND appointment_date <= :endDate"
+          + " AND (appointment_date > :afterDate OR appointment_id > :afterId)"
+          + " ORDER BY appointment_date, appointment_id LIMIT :limit")
+  Flux<AppointmentDetails> findArchivedRangeChunkByDoctorId(
+      String doctorId, LocalDateTime afterDate, Integer afterId, LocalDateTime endDate, int limit);
+
+  @Query(
+      "SELECT * FROM appointments_archive WHERE clinic_id = :clinicId"
+          + " AND appointment_date >= :afterDate AND appointment_date <= :endDate"
+          + " AND (appointment_date > :afterDate OR appointment_id > :afterId)"
+          + " ORDER BY appointment_date, appointment_id LIMIT :limit")
+  Flux<AppointmentDetails> findArchivedRangeChunkByClinicId(
+      Integer clinicId, LocalDateTime afterDate, Integer afterId, LocalDateTime endDate, int limit);
+
+  /**
+   * Oldest appointments before the cutoff, read without locks through the (appointment_date,
+   * appointment_id) index, so newer rows and the gaps between them are never locked.
+   */
+  @Query(
+      "SELECT appointment_id FROM appointments WHERE appointment_date < :cutoff"
+          + " ORDER BY appointment_date, appointment_id LIMIT :limit")
+  Flux<Integer> findIdsToArchive(LocalDateTime cutoff, int limit);
+
+  /**
+   * Locks the given appointments by primary key until the archiving transaction ends, skipping any
+   * that were moved past the cutoff since they were picked.
+   */
+  @Query(
+      "SELECT appointment_id FROM appointments"
+          + " WHERE appointment_id IN (:appointmentIds) AND appointment_date < :cutoff FOR UPDATE")
+  Flux<Integer> lockIdsToArchive(Collection<Integer> appointmentIds, LocalDateTime cutoff);
+
+  @Modifying
+  @Query(
+      "INSERT INTO appointments_archive"
+          + " SELECT * FROM appointments WHERE appointment_id IN (:appointmentIds)")
+  Mono<Integer> copyToArchive(Collection<Integer> appointmentIds);
+
+  @Modifying
+  @Query("DELETE FROM appointments WHERE appointment_id IN (:appointmentIds)")
+  Mono<Integer> deleteAllByAppointmentIds(Collection<Integer> appointmentIds);
 }
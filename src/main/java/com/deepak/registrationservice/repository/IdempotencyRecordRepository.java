@@ -0,0 +1,35 @@
+package com.deepak.registrationservice.repository;
+
+import com.deepak.registrationservice.model.idempotency.IdempotencyRecord;
+import java.time.LocalDateTime;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+@Repository
+public interface IdempotencyRecordRepository extends R2dbcRepository<IdempotencyRecord, String> {
+
+  @Query(
+      "SELECT * FROM idempotency_keys"
+          + " WHERE idempotency_key = :idempotencyKey AND created_at >= :notBefore")
+  Mono<IdempotencyRecord> findFresh(String idempotencyKey, LocalDateTime notBefore);
+
+  /**
+   * Stores the request hash and response of a key, replacing an expired record that was not purged
+   * yet.
+   */
+  @Modifying
+  @Query(
+      "INSERT INTO idempotency_keys (idempotency_key, request_hash, response, created_at)"
+          + " VALUES (:idempotencyKey, :requestHash, :response, :createdAt)"
+          + " ON DUPLICATE KEY UPDATE request_hash = VALUES(request_hash),"
+          + " response = VALUES(response), created_at = VALUES(created_at)")
+  Mono<Integer> upsert(
+      String idempotencyKey, String requestHash, String response, LocalDateTime createdAt);
+
+  @Modifying
+  @Query("DELETE FROM idempotency_keys WHERE created_at < :notBefore")
+  Mono<Integer> deleteOlderThan(LocalDateTime notBefore);
+}
@@ -1,8 +1,14 @@
 package com.deepak.registrationservice.repository;
 
 import com.deepak.registrationservice.model.appointment.QueueManagement;
+import java.sql.Date;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
 import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 @Repository
@@ -11,4 +17,52 @@ public interface QueueManagementRepository extends R2dbcRepository<QueueManageme
   Mono<QueueManagement> findByAppointmentId(Integer appointmentId);
 
   Mono<Void> deleteByAppointmentId(Integer appointmentId);
+
+  /**
+   * Creates the queue entry for a freshly booked appointment, taking the queue number from the
+   * slot inside the same statement instead of reading the slot first.
+   */
+  @Modifying
+  @Query(
+      "INSERT INTO queue_management (appointment_id, slot_id, clinic_id, doctor_id,"
+          + " initial_queue_no, current_queue_no, advance_paid, cancelled,"
+          + " advance_revert_if_paid, patient_reached, consultation_fee_paid, queue_date)"
+          + " SELECT :appointmentId, s.slot_id, :clinicId, :doctorId, s.slot_no, s.slot_no,"
+          + " false, false, false, false, false, :queueDate"
+          + " FROM slot_information s WHERE s.slot_id = :slotId")
+  Mono<Integer> insertForSlot(
+      Integer appointmentId, Integer slotId, Integer clinicId, String doctorId, Date queueDate);
+
+  @Modifying
+  @Query("DELETE FROM queue_management WHERE appointment_id IN (:appointmentIds)")
+  Mono<Integer> deleteAllByAppointmentIds(Collection<Integer> appointmentIds);
+
+  /** Copies queue entries to queue_management_archive, which has the same columns. */
+  @Modifying
+  @Query(
+      "INSERT INTO queue_management_archive"
+          + " SELECT * FROM queue_management WHERE appointment_id IN (:appointmentIds)")
+  Mono<Integer> copyToArchive(Collection<Integer> appointmentIds);
+
+  /**
+   * Moves the queue entry of an appointment to another slot, taking the queue numbers from the slot
+   * in the same statement.
+   */
+  @Modifying
+  @Query(
+      "UPDATE queue_management q JOIN slot_information s ON s.slot_id = :slotId"
+          + " SET q.slot_id = s.slot_id, q.initial_queue_no = s.slot_no,"
+          + " q.current_queue_no = s.slot_no"
+          + " WHERE q.appointment_id = :appointmentId")
+  Mono<Integer> moveToSlot(Integer appointmentId, Integer slotId);
+
+  /** Queue entries of a doctor's appointments on one day, in queue order. */
+  @Query(
+      "SELECT q.* FROM queue_management q"
+          + " JOIN appointments a ON a.appointment_id = q.appointment_id"
+          + " WHERE q.doctor_id = :doctorId AND q.cancelled = false"
+          + " AND a.appointment_date >= :dayStart AND a.appointment_date < :dayEnd"
+          + " ORDER BY q.current_queue_no, q.initial_queue_no, q.queue_management_id")
+  Flux<QueueManagement> findAllForDay(
+      String doctorId, LocalDateTime dayStart, LocalDateTime dayEnd);
 }
@@ -1,8 +1,55 @@
 package com.deepak.registrationservice.repository;
 
 import com.deepak.registrationservice.model.appointment.SlotInformation;
+import java.util.Collection;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
 import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 @Repository
-public interface SlotInformationRepository extends R2dbcRepository<SlotInformation, Integer> {}
+public interface SlotInformationRepository extends R2dbcRepository<SlotInformation, Integer> {
+
+  Flux<SlotInformation> findAllByDoctorIdAndClinicIdAndSlotDate(
+      String doctorId, String clinicId, String slotDate);
+
+  Flux<SlotInformation> findAllByDoctorIdAndSlotDate(String doctorId, String slotDate);
+
+  /**
+   * Marks the slot as booked only if it is still available. The returned row count is 1 for the
+   * caller that won the slot and 0 for everybody else, so no prior read is needed.
+   */
+  @Modifying
+  @Query(
+      "UPDATE slot_information SET is_available = false"
+          + " WHERE slot_id = :slotId AND is_available = true")
+  Mono<Integer> claimSlot(Integer slotId);
+
+  /** Frees a slot that is currently taken; returns 0 if it was already free. */
+  @Modifying
+  @Query(
+      "UPDATE slot_information SET is_available = true"
+          + " WHERE slot_id = :slotId AND is_available = false")
+  Mono<Integer> releaseSlot(Integer slotId);
+
+  /** Frees the slots held by the given appointments that are still active. */
+  @Modifying
+  @Query(
+      "UPDATE slot_information s JOIN appointments a ON a.slot_id = s.slot_id"
+          + " SET s.is_available = true"
+          + " WHERE a.appointment_id IN (:appointmentIds) AND a.active = true")
+  Mono<Integer> releaseSlotsOfActiveAppointments(Collection<Integer> appointmentIds);
+
+  /** Reads the given slots and locks them until the surrounding transaction ends. */
+  @Query("SELECT * FROM slot_information WHERE slot_id IN (:slotIds) FOR UPDATE")
+  Flux<SlotInformation> lockAllById(Collection<Integer> slotIds);
+
+  /** Bulk variant of {@link #claimSlot(Integer)}; returns how many of the slots were claimed. */
+  @Modifying
+  @Query(
+      "UPDATE slot_information SET is_available = false"
+          + " WHERE slot_id IN (:slotIds) AND is_available = true")
+  Mono<Integer> claimSlots(Collection<Integer> slotIds);
+}
@@ -2,6 +2,7 @@ package com.deepak.registrationservice.repository;
 
 import com.deepak.registrationservice.model.user.User;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
@@ -17,4 +18,10 @@ public interface UserRepository extends R2dbcRepository<User, Integer> {
   Mono<User> findById(Integer id);
 
   Mono<User> findByPhoneNumber(String phoneNumber);
+
+  @Query("SELECT * FROM users ORDER BY id LIMIT :limit")
+  Flux<User> findPage(int limit);
+
+  @Query("SELECT * FROM users WHERE id > :afterId ORDER BY id LIMIT :limit")
+  Flux<User> findPageAfter(Integer afterId, int limit);
 }
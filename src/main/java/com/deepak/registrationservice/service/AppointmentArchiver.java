@@ -0,0 +1,119 @@
+package com.deepak.registrationservice.service;
+
+import com.deepak.registrationservice.repository.AppointmentRepository;
+import com.deepak.registrationservice.repository.QueueManagementRepository;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+
+/**
+ * Moves appointments older than the archive horizon, with their queue entries, into {@code
+ * appointments_archive} and {@code queue_management_archive}. Rows are moved in small batches,
+ * oldest first. Each batch picks its rows with a plain read of the appointment date index and then
+ * locks only those rows by primary key, in its own short transaction, so bookings of newer
+ * appointments are never blocked by it; the job pauses between batches so it never competes with
+ * bookings for long.
+ */
+@Component
+public class AppointmentArchiver {
+  private static final Logger LOGGER = LoggerFactory.getLogger(AppointmentArchiver.class);
+
+  private final AppointmentRepository appointmentRepository;
+  private final QueueManagementRepository queueManagementRepository;
+  private final TransactionalOperator transactionalOperator;
+  private final ResourceVersions resourceVersions;
+  private final boolean enabled;
+  private final Duration horizon;
+  private final int batchSize;
+  private final Duration batchPause;
+  private final AtomicBoolean running = new AtomicBoolean();
+
+  public AppointmentArchiver(
+      AppointmentRepository appointmentRepository,
+      QueueManagementRepository queueManagementRepository,
+      TransactionalOperator transactionalOperator,
+      ResourceVersions resourceVersions,
+      @Value("${archive.enabled:false}") boolean enabled,
+      @Value("${archive.horizon:365d}") Duration horizon,
+      @Value("${archive.batch-size:500}") int batchSize,
+      @Value("${archive.batch-pause:200ms}") Duration batchPause) {
+    this.appointmentRepository = appointmentRepository;
+    this.queueManagementRepository = queueManagementRepository;
+    this.transactionalOperator = transactionalOperator;
+    this.resourceVersions = resourceVersions;
+    this.enabled = enabled;
+    this.horizon = horizon;
+    this.batchSize = batchSize;
+    this.batchPause = batchPause;
+  }
+
+  /** Archives every appointment older than the horizon and returns how many were moved. */
+  @Scheduled(
+      initialDelayString = "${archive.initial-delay:PT5M}",
+      fixedDelayString = "${archive.interval:PT6H}")
+  public Mono<Long> archive() {
+    if (!this.enabled || !this.running.compareAndSet(false, true)) {
+      return Mono.empty();
+    }
+    LocalDateTime cutoff = LocalDateTime.now().minus(this.horizon);
+    LOGGER.info("Archiving appointments before {}", cutoff);
+    return archiveBatch(cutoff)
+        .expand(
+            batch ->
+                batch.picked() < this.batchSize
+                    ? Mono.empty()
+                    : Mono.delay(this.batchPause).then(archiveBatch(cutoff)))
+        .reduce(0L, (total, batch) -> total + batch.moved())
+        .doOnSuccess(total -> LOGGER.info("Archived {} appointments", total))
+        .doOnError(error -> LOGGER.error("Error archiving appointments: {}", error.getMessage()))
+        .doFinally(signal -> this.running.set(false));
+  }
+
+  /**
+   * Archives the oldest rows before the cutoff. Archived rows leave the table, so every batch
+   * starts again from the oldest remaining one and needs no cursor.
+   */
+  private Mono<Batch> archiveBatch(LocalDateTime cutoff) {
+    return this.appointmentRepository
+        .findIdsToArchive(cutoff, this.batchSize)
+        .collectList()
+        .flatMap(
+            candidates -> {
+              if (candidates.isEmpty()) {
+                return Mono.just(new Batch(0, 0));
+              }
+              return this.appointmentRepository
+                  .lockIdsToArchive(candidates, cutoff)
+                  .collectList()
+                  .flatMap(
+                      ids -> {
+                        if (ids.isEmpty()) {
+                          return Mono.just(new Batch(candidates.size(), 0));
+                        }
+                        return this.appointmentRepository
+                            .copyToArchive(ids)
+                            .then(this.queueManagementRepository.copyToArchive(ids))
+                            .then(this.queueManagementRepository.deleteAllByAppointmentIds(ids))
+                            .then(this.appointmentRepository.deleteAllByAppointmentIds(ids))
+                            .thenReturn(new Batch(candidates.size(), ids.size()));
+                      });
+            })
+        .as(this.transactionalOperator::transactional)
+        // Archived rows leave lists that do not include the archive, whoever they belong to.
+        .doOnSuccess(
+            batch -> {
+              if (batch.moved() > 0) {
+                this.resourceVersions.changedEverything();
+              }
+            });
+  }
+
+  private record Batch(int picked, int moved) {}
+}
@@ -0,0 +1,122 @@
+package com.deepak.registrationservice.service;
+
+import com.deepak.registrationservice.model.appointment.AppointmentDetails;
+import com.deepak.registrationservice.model.appointment.QueueEvent;
+import java.time.LocalDate;
+import java.util.Objects;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Brings what the service holds in memory up to date once an appointment write has committed:
+ * the slot availability index, the cached queue and schedule of the affected days, today's
+ * statistics, the versions behind conditional GETs, the shared reads of appointments and the live
+ * queue events. Every {@link
+ * AppointmentService} calls it, so the engines differ only in how they run their statements.
+ */
+@Component
+public class AppointmentChanges {
+
+  private final SlotAvailabilityIndex slotAvailabilityIndex;
+  private final QueueEventHub queueEventHub;
+  private final QueueEngine queueEngine;
+  private final AppointmentStatsService appointmentStatsService;
+  private final ScheduleSnapshots scheduleSnapshots;
+  private final ResourceVersions resourceVersions;
+  private final AppointmentQueryService appointmentQueryService;
+
+  public AppointmentChanges(
+      SlotAvailabilityIndex slotAvailabilityIndex,
+      QueueEventHub queueEventHub,
+      QueueEngine queueEngine,
+      AppointmentStatsService appointmentStatsService,
+      ScheduleSnapshots scheduleSnapshots,
+      ResourceVersions resourceVersions,
+      AppointmentQueryService appointmentQueryService) {
+    this.slotAvailabilityIndex = slotAvailabilityIndex;
+    this.queueEventHub = queueEventHub;
+    this.queueEngine = queueEngine;
+    this.appointmentStatsService = appointmentStatsService;
+    this.scheduleSnapshots = scheduleSnapshots;
+    this.resourceVersions = resourceVersions;
+    this.appointmentQueryService = appointmentQueryService;
+  }
+
+  /** Records a committed booking and publishes its queue entry. */
+  public Mono<AppointmentDetails> booked(AppointmentDetails saved) {
+    this.slotAvailabilityIndex.markBooked(saved.getSlotId());
+    invalidateDay(saved);
+    this.appointmentStatsService.added(saved);
+    appointmentChanged(saved);
+    return this.queueEventHub.publishEntry(saved, QueueEvent.Type.ADDED).thenReturn(saved);
+  }
+
+  /** Records that a booking lost its slot to another one. */
+  public void slotTaken(Integer slotId) {
+    this.slotAvailabilityIndex.markBooked(slotId);
+  }
+
+  /**
+   * Records a committed reschedule from {@code previous}, a copy of the appointment taken before it
+   * was changed, and publishes the move of its queue entry.
+   */
+  public Mono<AppointmentDetails> rescheduled(
+      AppointmentDetails previous, AppointmentDetails saved) {
+    LocalDate previousDay = appointmentDay(previous);
+    this.slotAvailabilityIndex.markAvailable(previous.getSlotId());
+    this.slotAvailabilityIndex.markBooked(saved.getSlotId());
+    invalidateDay(previous);
+    invalidateDay(saved);
+    this.appointmentStatsService.removed(previous);
+    this.appointmentStatsService.added(saved);
+    appointmentChanged(previous);
+    appointmentChanged(saved);
+    if (Objects.equals(previous.getDoctorId(), saved.getDoctorId())
+        && Objects.equals(previousDay, appointmentDay(saved))) {
+      return this.queueEventHub.publishEntry(saved, QueueEvent.Type.UPDATED).thenReturn(saved);
+    }
+    this.queueEventHub.publishRemoved(
+        previous.getDoctorId(), previousDay, previous.getAppointmentId(), previous.getSlotId());
+    return this.queueEventHub.publishEntry(saved, QueueEvent.Type.ADDED).thenReturn(saved);
+  }
+
+  /** Records a committed deletion of an appointment as it was before it was deleted. */
+  public void deleted(AppointmentDetails appointmentDetails) {
+    removed(appointmentDetails);
+    this.appointmentStatsService.removed(appointmentDetails);
+  }
+
+  /** Records a committed cancellation of an appointment as it was before it was cancelled. */
+  public void cancelled(AppointmentDetails appointmentDetails) {
+    removed(appointmentDetails);
+    this.appointmentStatsService.cancelled(appointmentDetails);
+  }
+
+  private void removed(AppointmentDetails appointmentDetails) {
+    if (appointmentDetails.isActive()) {
+      this.slotAvailabilityIndex.markAvailable(appointmentDetails.getSlotId());
+    }
+    invalidateDay(appointmentDetails);
+    appointmentChanged(appointmentDetails);
+    this.queueEventHub.publishRemoved(appointmentDetails);
+  }
+
+  /** Moves the appointment's version on and stops sharing reads that may contain it. */
+  private void appointmentChanged(AppointmentDetails appointmentDetails) {
+    this.resourceVersions.appointmentChanged(appointmentDetails);
+    this.appointmentQueryService.appointmentChanged(appointmentDetails);
+  }
+
+  /** Drops what is held in memory for the appointment's day after one of its rows changed. */
+  private void invalidateDay(AppointmentDetails appointmentDetails) {
+    LocalDate date = appointmentDay(appointmentDetails);
+    this.queueEngine.invalidate(appointmentDetails.getDoctorId(), date);
+    this.scheduleSnapshots.invalidate(appointmentDetails.getDoctorId(), date);
+  }
+
+  static LocalDate appointmentDay(AppointmentDetails appointmentDetails) {
+    return appointmentDetails.getAppointmentDate() == null
+        ? null
+        : appointmentDetails.getAppointmentDate().toLocalDate();
+  }
+}
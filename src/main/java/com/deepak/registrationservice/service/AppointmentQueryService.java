@@ -0,0 +1,243 @@
+package com.deepak.registrationservice.service;
+
+import com.deepak.registrationservice.model.appointment.AppointmentDetails;
+import com.deepak.registrationservice.model.appointment.AppointmentSummary;
+import com.deepak.registrationservice.pagination.KeysetChunks;
+import com.deepak.registrationservice.pagination.PageCursor;
+import com.deepak.registrationservice.repository.AppointmentRepository;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.data.relational.core.query.Query;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+/** Read-side queries over appointments that need more than a single repository call. */
+@Service
+public class AppointmentQueryService {
+
+  private static final Sort SCHEDULE_ORDER = Sort.by("appointmentDate", "appointmentId");
+  // SCHEDULE_ORDER in memory; MySQL sorts rows without a date first.
+  private static final Comparator<AppointmentDetails> SCHEDULE_COMPARATOR =
+      Comparator.comparing(
+              AppointmentDetails::getAppointmentDate,
+              Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder()))
+          .thenComparing(AppointmentDetails::getAppointmentId);
+  private static final String BY_DOCTOR = "appointments.bydoctor";
+  private static final String BY_CLINIC_BETWEEN = "appointments.byclinic.between";
+
+  private final AppointmentRepository appointmentRepository;
+  private final R2dbcEntityTemplate r2dbcEntityTemplate;
+  private final ReadCoalescer readCoalescer;
+  private final int streamChunkSize;
+
+  public AppointmentQueryService(
+      AppointmentRepository appointmentRepository,
+      R2dbcEntityTemplate r2dbcEntityTemplate,
+      ReadCoalescer readCoalescer,
+      @Value("${appointments.stream.chunk-size:500}") int streamChunkSize) {
+    this.appointmentRepository = appointmentRepository;
+    this.r2dbcEntityTemplate = r2dbcEntityTemplate;
+    this.readCoalescer = readCoalescer;
+    this.streamChunkSize = streamChunkSize;
+  }
+
+  // Summaries select only AppointmentSummary.COLUMNS, in schedule order.
+
+  public Flux<AppointmentSummary> findSummaries(int page, int size) {
+    return findSummaries(Query.empty().with(PageRequest.of(page, size)));
+  }
+
+  public Flux<AppointmentSummary> findSummariesByDoctorId(String doctorId, int page, int size) {
+    return findSummaries(
+        Query.query(Criteria.where("doctor_id").is(doctorId)).with(PageRequest.of(page, size)));
+  }
+
+  public Flux<AppointmentSummary> findSummariesByClinicId(Integer clinicId, int page, int size) {
+    return findSummaries(
+        Query.query(Criteria.where("clinic_id").is(clinicId)).with(PageRequest.of(page, size)));
+  }
+
+  public Flux<AppointmentSummary> findSummariesByDoctorIdBetween(
+      String doctorId, LocalDateTime startDate, LocalDateTime endDate) {
+    return findSummaries(
+        Query.query(
+            Criteria.where("doctor_id")
+                .is(doctorId)
+                .and("appointment_date")
+                .between(startDate, endDate)));
+  }
+
+  /** A page of a doctor's appointments; identical concurrent requests share one query. */
+  public Flux<AppointmentDetails> findByDoctorId(String doctorId, int page, int size) {
+    return this.readCoalescer.coalesce(
+        BY_DOCTOR,
+        Arrays.asList(doctorId, page, size),
+        () -> this.appointmentRepository.findAllByDoctorId(doctorId, PageRequest.of(page, size)),
+        AppointmentQueryService::copy);
+  }
+
+  /**
+   * A clinic's appointments in a date range, optionally including archived ones; identical
+   * concurrent requests share one query.
+   */
+  public Flux<AppointmentDetails> findByClinicIdBetween(
+      Integer clinicId, LocalDateTime startDate, LocalDateTime endDate, boolean includeArchive) {
+    return this.readCoalescer.coalesce(
+        BY_CLINIC_BETWEEN,
+        Arrays.asList(clinicId, startDate, endDate, includeArchive),
+        () ->
+            withArchive(
+                this.appointmentRepository.findAllByClinicIdAndAppointmentDateBetween(
+                    clinicId, startDate, endDate, SCHEDULE_ORDER),
+                includeArchive,
+                () ->
+                    this.appointmentRepository.findArchivedByClinicIdBetween(
+                        clinicId, startDate, endDate)),
+        AppointmentQueryService::copy);
+  }
+
+  /** Stops sharing reads that may contain the appointment once one of its rows changed. */
+  public void appointmentChanged(AppointmentDetails appointmentDetails) {
+    this.readCoalescer.invalidate(
+        BY_DOCTOR,
+        parameters -> Objects.equals(parameters.get(0), appointmentDetails.getDoctorId()));
+    this.readCoalescer.invalidate(
+        BY_CLINIC_BETWEEN,
+        parameters -> Objects.equals(parameters.get(0), appointmentDetails.getClinicId()));
+  }
+
+  public Flux<AppointmentDetails> findByUserId(Integer userId, boolean includeArchive) {
+    return withArchive(
+        this.appointmentRepository.findAllByUserId(userId, SCHEDULE_ORDER),
+        includeArchive,
+        () -> this.appointmentRepository.findArchivedByUserId(userId));
+  }
+
+  public Flux<AppointmentDetails> findBetween(
+      LocalDateTime startDate, LocalDateTime endDate, boolean includeArchive) {
+    return withArchive(
+        this.appointmentRepository.findAllByAppointmentDateBetween(
+            startDate, endDate, SCHEDULE_ORDER),
+        includeArchive,
+        () -> this.appointmentRepository.findArchivedBetween(startDate, endDate));
+  }
+
+  public Flux<AppointmentDetails> findByDoctorIdBetween(
+      String doctorId, LocalDateTime startDate, LocalDateTime endDate, boolean includeArchive) {
+    return withArchive(
+        this.appointmentRepository.findAllByDoctorIdAndAppointmentDateBetween(
+            doctorId, startDate, endDate, SCHEDULE_ORDER),
+        includeArchive,
+        () ->
+            this.appointmentRepository.findArchivedByDoctorIdBetween(
+                doctorId, startDate, endDate));
+  }
+
+  public Flux<AppointmentDetails> streamBetween(
+      LocalDateTime startDate, LocalDateTime endDate, boolean includeArchive) {
+    return withArchive(
+        streamChunks(
+            startDate,
+            after ->
+                this.appointmentRepository.findRangeChunk(
+                    after.date(), after.id(), endDate, this.streamChunkSize)),
+        includeArchive,
+        () ->
+            streamChunks(
+                startDate,
+                after ->
+                    this.appointmentRepository.findArchivedRangeChunk(
+                        after.date(), after.id(), endDate, this.streamChunkSize)));
+  }
+
+  public Flux<AppointmentDetails> streamByDoctorIdBetween(
+      String doctorId, LocalDateTime startDate, LocalDateTime endDate, boolean includeArchive) {
+    return withArchive(
+        streamChunks(
+            startDate,
+            after ->
+                this.appointmentRepository.findRangeChunkByDoctorId(
+                    doctorId, after.date(), after.id(), endDate, this.streamChunkSize)),
+        includeArchive,
+        () ->
+            streamChunks(
+                startDate,
+                after ->
+                    this.appointmentRepository.findArchivedRangeChunkByDoctorId(
+                        doctorId, after.date(), after.id(), endDate, this.streamChunkSize)));
+  }
+
+  public Flux<AppointmentDetails> streamByClinicIdBetween(
+      Integer clinicId, LocalDateTime startDate, LocalDateTime endDate, boolean includeArchive) {
+    return withArchive(
+        streamChunks(
+            startDate,
+            after ->
+                this.appointmentRepository.findRangeChunkByClinicId(
+                    clinicId, after.date(), after.id(), endDate, this.streamChunkSize)),
+        includeArchive,
+        () ->
+            streamChunks(
+                startDate,
+                after ->
+                    this.appointmentRepository.findArchivedRangeChunkByClinicId(
+                        clinicId, after.date(), after.id(), endDate, this.streamChunkSize)));
+  }
+
+  private Flux<AppointmentDetails> streamChunks(
+      LocalDateTime startDate, Function<PageCursor, Flux<AppointmentDetails>> fetchAfter) {
+    return KeysetChunks.stream(
+        start(startDate), this.streamChunkSize, fetchAfter, AppointmentQueryService::cursorOf);
+  }
+
+  private static PageCursor start(LocalDateTime startDate) {
+    return new PageCursor(startDate, Integer.MIN_VALUE);
+  }
+
+  private static PageCursor cursorOf(AppointmentDetails appointment) {
+    return new PageCursor(appointment.getAppointmentDate(), appointment.getAppointmentId());
+  }
+
+  /**
+   * Merges the hot and archived rows, both in schedule order, into one stream in schedule order.
+   * The archive is only queried once the hot query has produced its first signal, so that a row
+   * moved by a batch committing in between is seen twice rather than not at all. A moved row keeps
+   * its date and id, so its two copies are neighbours and the second one is dropped without
+   * remembering any other ids.
+   */
+  private static Flux<AppointmentDetails> withArchive(
+      Flux<AppointmentDetails> hot,
+      boolean includeArchive,
+      Supplier<Flux<AppointmentDetails>> archived) {
+    if (!includeArchive) {
+      return hot;
+    }
+    return hot.switchOnFirst(
+            (first, rows) -> Flux.mergeComparing(SCHEDULE_COMPARATOR, rows, Flux.defer(archived)))
+        .distinctUntilChanged(AppointmentDetails::getAppointmentId);
+  }
+
+  private Flux<AppointmentSummary> findSummaries(Query query) {
+    return this.r2dbcEntityTemplate
+        .select(AppointmentDetails.class)
+        .as(AppointmentSummary.class)
+        .matching(query.columns(AppointmentSummary.COLUMNS).sort(SCHEDULE_ORDER))
+        .all();
+  }
+
+  private static AppointmentDetails copy(AppointmentDetails appointmentDetails) {
+    AppointmentDetails copy = new AppointmentDetails();
+    BeanUtils.copyProperties(appointmentDetails, copy);
+    return copy;
+  }
+}
@@ -3,6 +3,8 @@ package com.deepak.registrationservice.service;
 import com.deepak.registrationservice.exception.DuplicateEntryException;
 import com.deepak.registrationservice.exception.SlotIdNotAvailableException;
 import com.deepak.registrationservice.model.appointment.AppointmentDetails;
+import com.deepak.registrationservice.model.appointment.BookingResult;
+import java.time.LocalDate;
 import java.util.List;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
@@ -13,10 +15,16 @@ public interface AppointmentService {
   Mono<List<AppointmentDetails>> savedAppointment(List<AppointmentDetails> appointmentDetailsList)
       throws DuplicateEntryException, SlotIdNotAvailableException;
 
+  Mono<List<BookingResult>> bookAppointments(List<AppointmentDetails> appointmentDetailsList);
+
   Mono<AppointmentDetails> updateAppointment(
       Integer id, AppointmentDetails updatedAppointmentDetails);
 
   Mono<Void> deleteAppointment(Integer id);
 
   Mono<Void> cancelAppointment(Integer id);
+
+  Mono<List<Integer>> cancelAppointments(List<Integer> appointmentIds);
+
+  Mono<List<Integer>> cancelAppointmentsOfDoctor(String doctorId, LocalDate date);
 }
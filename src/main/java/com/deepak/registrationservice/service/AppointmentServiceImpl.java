@@ -2,232 +2,271 @@ package com.deepak.registrationservice.service;
 
 import com.deepak.registrationservice.exception.AppointmentNotFoundException;
 import com.deepak.registrationservice.exception.DuplicateEntryException;
+import com.deepak.registrationservice.exception.InvalidRequestException;
 import com.deepak.registrationservice.exception.SlotIdNotAvailableException;
 import com.deepak.registrationservice.model.appointment.AppointmentDetails;
-import com.deepak.registrationservice.model.appointment.QueueManagement;
-import com.deepak.registrationservice.model.appointment.SlotInformation;
+import com.deepak.registrationservice.model.appointment.BookingResult;
 import com.deepak.registrationservice.repository.AppointmentRepository;
 import com.deepak.registrationservice.repository.QueueManagementRepository;
 import com.deepak.registrationservice.repository.SlotInformationRepository;
 import java.sql.Date;
 import java.time.LocalDate;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanUtils;
+import org.springframework.context.annotation.Profile;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 @Service
+@Profile("!jdbc")
 public class AppointmentServiceImpl implements AppointmentService {
   private static final Logger LOGGER = LoggerFactory.getLogger(AppointmentServiceImpl.class);
   private final AppointmentRepository appointmentRepository;
   private final QueueManagementRepository queueManagementRepository;
   private final SlotInformationRepository slotInformationRepository;
+  private final TransactionalOperator transactionalOperator;
+  private final BatchBookingEngine batchBookingEngine;
+  private final ReservationCoordinator reservationCoordinator;
+  private final AppointmentChanges appointmentChanges;
+  private final PipelineMetrics pipelineMetrics;
 
   public AppointmentServiceImpl(
       AppointmentRepository appointmentRepository,
       QueueManagementRepository queueManagementRepository,
-      SlotInformationRepository slotInformationRepository) {
+      SlotInformationRepository slotInformationRepository,
+      TransactionalOperator transactionalOperator,
+      BatchBookingEngine batchBookingEngine,
+      ReservationCoordinator reservationCoordinator,
+      AppointmentChanges appointmentChanges,
+      PipelineMetrics pipelineMetrics) {
     this.appointmentRepository = appointmentRepository;
     this.queueManagementRepository = queueManagementRepository;
     this.slotInformationRepository = slotInformationRepository;
+    this.transactionalOperator = transactionalOperator;
+    this.batchBookingEngine = batchBookingEngine;
+    this.reservationCoordinator = reservationCoordinator;
+    this.appointmentChanges = appointmentChanges;
+    this.pipelineMetrics = pipelineMetrics;
   }
 
   @Override
   public Mono<List<AppointmentDetails>> savedAppointment(
       List<AppointmentDetails> appointmentDetailsList)
       throws DuplicateEntryException, SlotIdNotAvailableException {
-    List<Mono<AppointmentDetails>> savedAppointments = new ArrayList<>();
-
-    for (AppointmentDetails appointmentDetails : appointmentDetailsList) {
-      Mono<SlotInformation> slotInfoMono =
-          this.slotInformationRepository.findById(appointmentDetails.getSlotId());
-      savedAppointments.add(
-          slotInfoMono
-              .flatMap(
-                  slotInformation -> {
-                    if (slotInformation != null && slotInformation.getIsAvailable()) {
-                      return this.appointmentRepository
-                          .save(Objects.requireNonNull(appointmentDetails))
-                          .flatMap(
-                              savedAppointment -> {
-                                QueueManagement queueManagement = new QueueManagement();
-                                queueManagement.setAppointmentId(
-                                    savedAppointment.getAppointmentId());
-                                queueManagement.setSlotId(savedAppointment.getSlotId());
-                                queueManagement.setClinicId(savedAppointment.getClinicId());
-                                queueManagement.setDoctorId(savedAppointment.getDoctorId());
-                                queueManagement.setInitialQueueNo(slotInformation.getSlotNo());
-                                queueManagement.setCurrentQueueNo(slotInformation.getSlotNo());
-                                queueManagement.setCancelled(false);
-                                queueManagement.setAdvancePaid(false);
-                                queueManagement.setAdvanceRevertIfPaid(false);
-                                queueManagement.setPatientReached(false);
-                                queueManagement.setVisitStatus(null);
-                                queueManagement.setConsultationFeePaid(false);
-                                queueManagement.setConsultationFeeAmount(null);
-                                queueManagement.setTransactionIdAdvanceFee(null);
-                                queueManagement.setTransactionIdConsultationFee(null);
-                                queueManagement.setTransactionIdAdvanceRevert(null);
-                                queueManagement.setDate(Date.valueOf(LocalDate.now()));
-                                slotInformation.setIsAvailable(false);
-                                return this.slotInformationRepository
-                                    .save(slotInformation)
-                                    .then(
-                                        this.queueManagementRepository
-                                            .save(queueManagement)
-                                            .thenReturn(savedAppointment));
-                              });
-                    } else {
-                      if (slotInformation != null && slotInformation.getIsAvailable() == false
-                          || slotInformation == null) {
-                        return Mono.error(new SlotIdNotAvailableException("Slot not available"));
-                      } else {
-                        return Mono.error(
-                            new DuplicateEntryException("Duplicate appointment found"));
-                      }
-                    }
-                  })
-              .switchIfEmpty(Mono.error(new SlotIdNotAvailableException("Slot not available")))
-              .onErrorMap(
-                  DataIntegrityViolationException.class,
-                  ex -> new DuplicateEntryException("Duplicate appointment found")));
+    if (appointmentDetailsList.size() == 1) {
+      return bookAppointment(Objects.requireNonNull(appointmentDetailsList.get(0)))
+          .map(List::of)
+          .doOnError(error -> LOGGER.error("Error creating appointments: {}", error.getMessage()));
     }
+    // All or nothing: partial results are what POST /v1/appointments/batch is for.
+    return this.pipelineMetrics
+        .time("book.batch", this.batchBookingEngine.bookAll(appointmentDetailsList))
+        .flatMap(
+            saved ->
+                Flux.fromIterable(saved).concatMap(this.appointmentChanges::booked).collectList())
+        .doOnError(error -> LOGGER.error("Error creating appointments: {}", error.getMessage()));
+  }
 
-    return Flux.concat(savedAppointments)
-        .collectList()
+  @Override
+  public Mono<List<BookingResult>> bookAppointments(
+      List<AppointmentDetails> appointmentDetailsList) {
+    return this.pipelineMetrics
+        .time("book.batch", this.batchBookingEngine.book(appointmentDetailsList))
+        .flatMap(
+            results ->
+                Flux.fromIterable(results)
+                    .concatMap(
+                        result -> {
+                          if (result.isBooked()) {
+                            return this.appointmentChanges.booked(result.getAppointment());
+                          }
+                          if (result.getFailure() instanceof SlotIdNotAvailableException) {
+                            this.appointmentChanges.slotTaken(result.getSlotId());
+                          }
+                          return Mono.empty();
+                        })
+                    .then(Mono.just(results)))
         .onErrorResume(
+            DataIntegrityViolationException.class,
             error -> {
-              LOGGER.error("Error creating appointments: {}", error.getMessage());
-              return Mono.error(error);
+              LOGGER.warn(
+                  "Batch booking rolled back, booking items one by one: {}", error.getMessage());
+              return Flux.range(0, appointmentDetailsList.size())
+                  .concatMap(
+                      index ->
+                          bookAppointment(appointmentDetailsList.get(index))
+                              .map(saved -> BookingResult.booked(index, saved))
+                              .onErrorResume(
+                                  RuntimeException.class,
+                                  failure ->
+                                      Mono.just(
+                                          BookingResult.failed(
+                                              index,
+                                              appointmentDetailsList.get(index).getSlotId(),
+                                              failure))))
+                  .collectList();
             });
   }
 
+  /**
+   * Books a single appointment. The slot is claimed with one conditional update, so a request that
+   * loses the race is rejected after a single statement; the winner inserts the appointment and
+   * its queue entry in the same transaction, which releases the slot again if either insert fails.
+   * Bookings for the same doctor and day are queued by the {@link ReservationCoordinator}, so
+   * requests that lost the slot while waiting are rejected without any statement at all.
+   */
+  private Mono<AppointmentDetails> bookAppointment(AppointmentDetails appointmentDetails) {
+    return this.pipelineMetrics.time("book", reserveAndBook(appointmentDetails));
+  }
+
+  private Mono<AppointmentDetails> reserveAndBook(AppointmentDetails appointmentDetails) {
+    return this.reservationCoordinator
+        .submit(
+            appointmentDetails.getDoctorId(),
+            AppointmentChanges.appointmentDay(appointmentDetails),
+            appointmentDetails.getSlotId(),
+            () ->
+                this.slotInformationRepository
+                    .claimSlot(appointmentDetails.getSlotId())
+                    .flatMap(
+                        claimed -> {
+                          if (claimed == 0) {
+                            return Mono.error(
+                                new SlotIdNotAvailableException("Slot not available"));
+                          }
+                          return this.appointmentRepository
+                              .save(appointmentDetails)
+                              .flatMap(
+                                  savedAppointment ->
+                                      this.queueManagementRepository
+                                          .insertForSlot(
+                                              savedAppointment.getAppointmentId(),
+                                              savedAppointment.getSlotId(),
+                                              savedAppointment.getClinicId(),
+                                              savedAppointment.getDoctorId(),
+                                              Date.valueOf(LocalDate.now()))
+                                          .thenReturn(savedAppointment));
+                        })
+                    .as(this.transactionalOperator::transactional)
+                    .as(booking -> this.pipelineMetrics.time("book.transaction", booking)))
+        .doOnError(
+            SlotIdNotAvailableException.class,
+            error -> this.appointmentChanges.slotTaken(appointmentDetails.getSlotId()))
+        .onErrorMap(
+            DataIntegrityViolationException.class,
+            ex -> new DuplicateEntryException("Duplicate appointment found"))
+        .flatMap(this.appointmentChanges::booked);
+  }
+
   @Override
   public Mono<AppointmentDetails> updateAppointment(
       Integer id, AppointmentDetails updatedAppointmentDetails)
       throws AppointmentNotFoundException {
-    return this.slotInformationRepository
-        .findById(updatedAppointmentDetails.getSlotId())
+    return this.pipelineMetrics.time(
+        "reschedule",
+        this.reservationCoordinator.submit(
+            updatedAppointmentDetails.getDoctorId(),
+            AppointmentChanges.appointmentDay(updatedAppointmentDetails),
+            updatedAppointmentDetails.getSlotId(),
+            () -> rescheduleAppointment(id, updatedAppointmentDetails)));
+  }
+
+  /**
+   * Moves an appointment to its new slot in one transaction: the appointment is read with a
+   * locking read, the new slot is claimed with a conditional update, so a taken slot fails the
+   * reschedule before anything is written; the old slot is released and the queue entry renumbered
+   * with one statement each, and no slot is read back. Any failure rolls every step back. A
+   * cancelled appointment holds no slot, so it cannot be moved to another one.
+   */
+  private Mono<AppointmentDetails> rescheduleAppointment(
+      Integer id, AppointmentDetails updatedAppointmentDetails) {
+    Integer newSlotId = updatedAppointmentDetails.getSlotId();
+    AppointmentDetails previousAppointment = new AppointmentDetails();
+    return this.appointmentRepository
+        .lockAllById(List.of(id))
+        .next()
+        .switchIfEmpty(Mono.error(new AppointmentNotFoundException("Appointment not found")))
         .flatMap(
-            slotInformation -> {
-              if (slotInformation != null && slotInformation.getIsAvailable()) {
-                return this.appointmentRepository
-                    .findById(id)
-                    .flatMap(
-                        existingAppointment -> {
-                          if (existingAppointment == null) {
-                            return Mono.error(
-                                new AppointmentNotFoundException("Appointment not found"));
-                          }
-                          existingAppointment.setAppointmentDate(
-                              updatedAppointmentDetails.getAppointmentDate());
-                          existingAppointment.setUserId(updatedAppointmentDetails.getUserId());
-                          existingAppointment.setAppointmentType(
-                              updatedAppointmentDetails.getAppointmentType());
-                          existingAppointment.setAppointmentFor(
-                              updatedAppointmentDetails.getAppointmentFor());
-                          existingAppointment.setAppointmentForName(
-                              updatedAppointmentDetails.getAppointmentForName());
-                          existingAppointment.setAppointmentForAge(
-                              updatedAppointmentDetails.getAppointmentForAge());
-                          existingAppointment.setSymptom(updatedAppointmentDetails.getSymptom());
-                          existingAppointment.setOtherSymptoms(
-                              updatedAppointmentDetails.getOtherSymptoms());
-                          existingAppointment.setDoctorId(updatedAppointmentDetails.getDoctorId());
-                          existingAppointment.setClinicId(updatedAppointmentDetails.getClinicId());
-                          existingAppointment.setActive(updatedAppointmentDetails.isActive());
-
-                          // Atomic update of slot information, queue management, and appointment
-                          return this.slotInformationRepository
-                              .findById(existingAppointment.getSlotId())
-                              .flatMap(
-                                  slotInfo -> {
-                                    slotInfo.setIsAvailable(true);
-                                    return this.slotInformationRepository
-                                        .save(slotInfo)
-                                        .then(
-                                            this.slotInformationRepository
-                                                .findById(updatedAppointmentDetails.getSlotId())
-                                                .flatMap(
-                                                    updatedSlotInfo -> {
-                                                      updatedSlotInfo.setIsAvailable(false);
-                                                      existingAppointment.setSlotId(
-                                                          updatedAppointmentDetails.getSlotId());
-                                                      return this.slotInformationRepository
-                                                          .save(updatedSlotInfo)
-                                                          .then(
-                                                              this.queueManagementRepository
-                                                                  .findByAppointmentId(id)
-                                                                  .flatMap(
-                                                                      queueManagement -> {
-                                                                        queueManagement
-                                                                            .setInitialQueueNo(
-                                                                                updatedSlotInfo
-                                                                                    .getSlotNo());
-                                                                        queueManagement
-                                                                            .setCurrentQueueNo(
-                                                                                updatedSlotInfo
-                                                                                    .getSlotNo());
-                                                                        queueManagement.setSlotId(
-                                                                            updatedAppointmentDetails
-                                                                                .getSlotId());
-                                                                        return this
-                                                                            .queueManagementRepository
-                                                                            .save(queueManagement);
-                                                                      }))
-                                                          .then(
-                                                              this.appointmentRepository.save(
-                                                                  existingAppointment));
-                                                    }));
-                                  });
-                        });
-              } else {
-                return Mono.error(new SlotIdNotAvailableException("Slot not available"));
+            existingAppointment -> {
+              Integer previousSlotId = existingAppointment.getSlotId();
+              BeanUtils.copyProperties(existingAppointment, previousAppointment);
+              applyUpdate(existingAppointment, updatedAppointmentDetails);
+              if (Objects.equals(previousSlotId, newSlotId)) {
+                return this.appointmentRepository.save(existingAppointment);
               }
-            });
+              if (!existingAppointment.isActive()) {
+                return Mono.error(
+                    new InvalidRequestException("Cancelled appointments cannot be rescheduled"));
+              }
+              // The lock on the active appointment means it still holds its previous slot.
+              return this.slotInformationRepository
+                  .claimSlot(newSlotId)
+                  .flatMap(
+                      claimed ->
+                          claimed == 0
+                              ? Mono.error(new SlotIdNotAvailableException("Slot not available"))
+                              : this.slotInformationRepository.releaseSlot(previousSlotId))
+                  .then(this.queueManagementRepository.moveToSlot(id, newSlotId))
+                  .then(this.appointmentRepository.save(existingAppointment));
+            })
+        .as(this.transactionalOperator::transactional)
+        .as(saved -> this.pipelineMetrics.time("reschedule.transaction", saved))
+        .doOnError(
+            SlotIdNotAvailableException.class,
+            error -> this.appointmentChanges.slotTaken(newSlotId))
+        .flatMap(saved -> this.appointmentChanges.rescheduled(previousAppointment, saved));
+  }
+
+  /** Copies the updatable fields; {@code active} is left to the cancel path. */
+  static void applyUpdate(AppointmentDetails existing, AppointmentDetails updated) {
+    existing.setAppointmentDate(updated.getAppointmentDate());
+    existing.setUserId(updated.getUserId());
+    existing.setAppointmentType(updated.getAppointmentType());
+    existing.setAppointmentFor(updated.getAppointmentFor());
+    existing.setAppointmentForName(updated.getAppointmentForName());
+    existing.setAppointmentForAge(updated.getAppointmentForAge());
+    existing.setSymptom(updated.getSymptom());
+    existing.setOtherSymptoms(updated.getOtherSymptoms());
+    existing.setDoctorId(updated.getDoctorId());
+    existing.setClinicId(updated.getClinicId());
+    existing.setSlotId(updated.getSlotId());
   }
 
+  /**
+   * Deletes an appointment, its queue entry and, if it was still active, frees its slot: one
+   * locking read and two statements in a single transaction.
+   */
   @Override
   public Mono<Void> deleteAppointment(Integer id) {
     return this.appointmentRepository
-        .findById(id)
+        .lockAllById(List.of(id))
+        .collectList()
         .flatMap(
-            appointmentDetails ->
-                this.slotInformationRepository
-                    .findById(appointmentDetails.getSlotId())
-                    .flatMap(
-                        slotInformation -> {
-                          slotInformation.setIsAvailable(true);
-                          return this.slotInformationRepository.save(slotInformation);
-                        })
-                    .then(this.queueManagementRepository.deleteByAppointmentId(id))
-                    .then(this.appointmentRepository.deleteById(id)));
+            appointments -> {
+              if (appointments.isEmpty()) {
+                return Mono.just(appointments);
+              }
+              List<Integer> ids = appointmentIds(appointments);
+              return this.slotInformationRepository
+                  .releaseSlotsOfActiveAppointments(ids)
+                  .then(this.appointmentRepository.deleteAllWithQueueEntriesById(ids))
+                  .thenReturn(appointments);
+            })
+        .as(this.transactionalOperator::transactional)
+        .doOnSuccess(appointments -> appointments.forEach(this.appointmentChanges::deleted))
+        .as(deleted -> this.pipelineMetrics.time("delete", deleted))
+        .then();
   }
 
   @Override
   public Mono<Void> cancelAppointment(Integer id) {
-    return this.appointmentRepository
-        .findById(id)
-        .flatMap(
-            appointmentDetails -> {
-              appointmentDetails.setActive(false);
-              return this.appointmentRepository
-                  .save(appointmentDetails)
-                  .then(this.queueManagementRepository.deleteByAppointmentId(id))
-                  .then(
-                      this.slotInformationRepository
-                          .findById(appointmentDetails.getSlotId())
-                          .flatMap(
-                              slotInformation -> {
-                                slotInformation.setIsAvailable(true);
-                                return this.slotInformationRepository.save(slotInformation);
-                              }));
-            })
+    return cancel(this.appointmentRepository.lockActiveById(List.of(id)))
         .then()
         .onErrorResume(
             error -> {
@@ -235,4 +274,46 @@ public class AppointmentServiceImpl implements AppointmentService {
               return Mono.error(error);
             });
   }
+
+  @Override
+  public Mono<List<Integer>> cancelAppointments(List<Integer> appointmentIds) {
+    return cancel(this.appointmentRepository.lockActiveById(appointmentIds));
+  }
+
+  @Override
+  public Mono<List<Integer>> cancelAppointmentsOfDoctor(String doctorId, LocalDate date) {
+    return cancel(
+        this.appointmentRepository.lockActiveByDoctorIdAndDay(
+            doctorId, date.atStartOfDay(), date.plusDays(1).atStartOfDay()));
+  }
+
+  /**
+   * Cancels the active appointments read by {@code toCancel}: one statement marks them inactive
+   * and frees their slots, one more removes their queue entries, all in the transaction that holds
+   * the locks, so cancelling a whole day costs the same three statements as cancelling one.
+   * Returns the ids of the cancelled appointments.
+   */
+  private Mono<List<Integer>> cancel(Flux<AppointmentDetails> toCancel) {
+    return toCancel
+        .collectList()
+        .flatMap(
+            appointments -> {
+              if (appointments.isEmpty()) {
+                return Mono.just(appointments);
+              }
+              List<Integer> ids = appointmentIds(appointments);
+              return this.appointmentRepository
+                  .cancelAllById(ids)
+                  .then(this.queueManagementRepository.deleteAllByAppointmentIds(ids))
+                  .thenReturn(appointments);
+            })
+        .as(this.transactionalOperator::transactional)
+        .doOnSuccess(appointments -> appointments.forEach(this.appointmentChanges::cancelled))
+        .as(cancelled -> this.pipelineMetrics.time("cancel", cancelled))
+        .map(AppointmentServiceImpl::appointmentIds);
+  }
+
+  static List<Integer> appointmentIds(List<AppointmentDetails> appointments) {
+    return appointments.stream().map(AppointmentDetails::getAppointmentId).toList();
+  }
 }
@@ -0,0 +1,216 @@
+package com.deepak.registrationservice.service;
+
+import com.deepak.registrationservice.exception.InvalidRequestException;
+import com.deepak.registrationservice.model.appointment.AppointmentDetails;
+import com.deepak.registrationservice.model.appointment.AppointmentStats;
+import com.deepak.registrationservice.model.appointment.enums.AppointmentType;
+import com.deepak.registrationservice.model.appointment.enums.Symptom;
+import com.deepak.registrationservice.repository.AppointmentRepository;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Appointment counts for the stats dashboard. Past and future days are counted by the database
+ * with one grouped query. The current day is answered from in-memory counters that the booking,
+ * cancel and delete paths update once their transaction has committed, so polling today's numbers
+ * does not query at all.
+ *
+ * <p>The counters are seeded from the database the first time the day is asked for and reseeded
+ * after the reload interval, which also corrects a write that landed while a seed was being read.
+ */
+@Service
+public class AppointmentStatsService {
+
+  private static final int MAX_DAYS = 366;
+
+  private static final Comparator<AppointmentStats> GROUP_ORDER =
+      Comparator.comparing(AppointmentStats::getClinicId, Comparator.nullsFirst(Integer::compare))
+          .thenComparing(
+              AppointmentStats::getDoctorId, Comparator.nullsFirst(String::compareTo));
+
+  private final AppointmentRepository appointmentRepository;
+  private final ReadCoalescer readCoalescer;
+  private final long reloadNanos;
+  // Counters of the current day; null until the day is first asked for. Guarded by this.
+  private Day today;
+
+  public AppointmentStatsService(
+      AppointmentRepository appointmentRepository,
+      ReadCoalescer readCoalescer,
+      @Value("${stats.today-reload-interval:15m}") Duration reloadInterval) {
+    this.appointmentRepository = appointmentRepository;
+    this.readCoalescer = readCoalescer;
+    this.reloadNanos = reloadInterval.toNanos();
+  }
+
+  /**
+   * Returns the counts of every day from {@code from} to {@code to}, both inclusive, optionally
+   * limited to one clinic and one doctor.
+   */
+  public Flux<AppointmentStats> getStats(
+      LocalDate from, LocalDate to, Integer clinicId, String doctorId) {
+    if (to.isBefore(from) || from.plusDays(MAX_DAYS).isBefore(to)) {
+      return Flux.error(
+          new InvalidRequestException(
+              "to must be on or after from and at most " + MAX_DAYS + " days later"));
+    }
+    LocalDate current = LocalDate.now();
+    List<Flux<AppointmentStats>> days = new ArrayList<>();
+    if (from.isBefore(current)) {
+      LocalDate last = to.isBefore(current) ? to : current.minusDays(1);
+      days.add(count(from, last, clinicId, doctorId));
+    }
+    if (!current.isBefore(from) && !current.isAfter(to)) {
+      days.add(
+          currentDay(current)
+              .filter(row -> clinicId == null || clinicId.equals(row.getClinicId()))
+              .filter(row -> doctorId == null || doctorId.equals(row.getDoctorId())));
+    }
+    if (to.isAfter(current)) {
+      LocalDate first = from.isAfter(current) ? from : current.plusDays(1);
+      days.add(count(first, to, clinicId, doctorId));
+    }
+    return Flux.concat(days);
+  }
+
+  /** Counts a newly booked appointment. */
+  public void added(AppointmentDetails appointmentDetails) {
+    record(appointmentDetails, 1);
+  }
+
+  /** Uncounts a deleted appointment, or the previous state of a rescheduled one. */
+  public void removed(AppointmentDetails appointmentDetails) {
+    record(appointmentDetails, -1);
+  }
+
+  /** Moves an appointment that was active when it was cancelled from booked to cancelled. */
+  public void cancelled(AppointmentDetails appointmentDetails) {
+    LocalDate day = appointmentDay(appointmentDetails);
+    synchronized (this) {
+      if (this.today != null && this.today.date.equals(day)) {
+        long[] counts = this.today.counts(Key.of(appointmentDetails));
+        counts[0]--;
+        counts[1]++;
+      }
+    }
+  }
+
+  private void record(AppointmentDetails appointmentDetails, int delta) {
+    LocalDate day = appointmentDay(appointmentDetails);
+    synchronized (this) {
+      if (this.today != null && this.today.date.equals(day)) {
+        this.today.counts(Key.of(appointmentDetails))[appointmentDetails.isActive() ? 0 : 1] +=
+            delta;
+      }
+    }
+  }
+
+  private Flux<AppointmentStats> count(
+      LocalDate from, LocalDate to, Integer clinicId, String doctorId) {
+    return this.appointmentRepository.countGroupedBetween(
+        from.atStartOfDay(), to.plusDays(1).atStartOfDay(), clinicId, doctorId);
+  }
+
+  private Flux<AppointmentStats> currentDay(LocalDate date) {
+    return Mono.defer(
+            () -> {
+              synchronized (this) {
+                if (this.today != null
+                    && this.today.date.equals(date)
+                    && System.nanoTime() - this.today.loadedAt < this.reloadNanos) {
+                  return Mono.just(this.today.snapshot());
+                }
+              }
+              return this.readCoalescer
+                  .coalesce("statsOfDay", List.of(date), () -> count(date, date, null, null))
+                  .collectList()
+                  .map(rows -> install(date, rows));
+            })
+        .flatMapIterable(Function.identity());
+  }
+
+  private synchronized List<AppointmentStats> install(LocalDate date, List<AppointmentStats> rows) {
+    if (this.today != null
+        && this.today.date.equals(date)
+        && System.nanoTime() - this.today.loadedAt < this.reloadNanos) {
+      // A concurrent caller seeded the day already and may have counted writes since.
+      return this.today.snapshot();
+    }
+    Day day = new Day(date);
+    for (AppointmentStats row : rows) {
+      long[] counts = day.counts(Key.of(row));
+      counts[0] = row.getBooked();
+      counts[1] = row.getCancelled();
+    }
+    this.today = day;
+    return day.snapshot();
+  }
+
+  private static LocalDate appointmentDay(AppointmentDetails appointmentDetails) {
+    return appointmentDetails.getAppointmentDate() == null
+        ? null
+        : appointmentDetails.getAppointmentDate().toLocalDate();
+  }
+
+  private record Key(
+      Integer clinicId, String doctorId, AppointmentType appointmentType, Symptom symptom) {
+
+    private static Key of(AppointmentDetails appointmentDetails) {
+      return new Key(
+          appointmentDetails.getClinicId(),
+          appointmentDetails.getDoctorId(),
+          appointmentDetails.getAppointmentType(),
+          appointmentDetails.getSymptom());
+    }
+
+    private static Key of(AppointmentStats row) {
+      return new Key(
+          row.getClinicId(), row.getDoctorId(), row.getAppointmentType(), row.getSymptom());
+    }
+  }
+
+  /** Booked and cancelled counts per group of one day. Guarded by the enclosing service. */
+  private static final class Day {
+    private final LocalDate date;
+    private final long loadedAt = System.nanoTime();
+    private final Map<Key, long[]> counts = new HashMap<>();
+
+    private Day(LocalDate date) {
+      this.date = date;
+    }
+
+    private long[] counts(Key key) {
+      return this.counts.computeIfAbsent(key, k -> new long[2]);
+    }
+
+    private List<AppointmentStats> snapshot() {
+      List<AppointmentStats> rows = new ArrayList<>();
+      this.counts.forEach(
+          (key, value) -> {
+            if (value[0] != 0 || value[1] != 0) {
+              rows.add(
+                  new AppointmentStats(
+                      key.clinicId(),
+                      key.doctorId(),
+                      this.date,
+                      key.appointmentType(),
+                      key.symptom(),
+                      value[0],
+                      value[1]));
+            }
+          });
+      rows.sort(GROUP_ORDER);
+      return rows;
+    }
+  }
+}
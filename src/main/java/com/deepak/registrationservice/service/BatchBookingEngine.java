@@ -0,0 +1,269 @@
+package com.deepak.registrationservice.service;
+
+import com.deepak.registrationservice.exception.DuplicateEntryException;
+import com.deepak.registrationservice.exception.SlotIdNotAvailableException;
+import com.deepak.registrationservice.model.appointment.AppointmentDetails;
+import com.deepak.registrationservice.model.appointment.BookingResult;
+import com.deepak.registrationservice.model.appointment.SlotInformation;
+import com.deepak.registrationservice.repository.SlotInformationRepository;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+
+/**
+ * Books a list of appointments with a fixed number of statements regardless of its size: one
+ * locking read of every requested slot, one bulk claim, one multi-row appointment insert, one read
+ * of the generated ids and one multi-row queue insert, all in a single transaction. {@link #book}
+ * reports items that cannot be booked in its result and books the rest; {@link #bookAll} books
+ * every item or none.
+ */
+@Component
+public class BatchBookingEngine {
+
+  private static final String INSERT_APPOINTMENT =
+      "INSERT INTO appointments (user_id, appointment_type, appointment_for,"
+          + " appointment_for_name, appointment_for_age, symptom, other_symptoms,"
+          + " appointment_date, slot_id, doctor_id, clinic_id, active)"
+          + " VALUES ";
+
+  private static final String APPOINTMENT_ROW = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+  private static final int APPOINTMENT_COLUMNS = 12;
+
+  private static final String SELECT_INSERTED_IDS =
+      "SELECT slot_id, MAX(appointment_id) AS appointment_id FROM appointments"
+          + " WHERE slot_id IN (:slotIds) GROUP BY slot_id";
+
+  private static final String INSERT_QUEUE =
+      "INSERT INTO queue_management (appointment_id, slot_id, clinic_id, doctor_id,"
+          + " initial_queue_no, current_queue_no, advance_paid, cancelled,"
+          + " advance_revert_if_paid, patient_reached, consultation_fee_paid, queue_date)"
+          + " VALUES ";
+
+  private static final String QUEUE_ROW =
+      "(?, ?, ?, ?, ?, ?, false, false, false, false, false, ?)";
+
+  private final SlotInformationRepository slotInformationRepository;
+  private final DatabaseClient databaseClient;
+  private final TransactionalOperator transactionalOperator;
+
+  public BatchBookingEngine(
+      SlotInformationRepository slotInformationRepository,
+      DatabaseClient databaseClient,
+      TransactionalOperator transactionalOperator) {
+    this.slotInformationRepository = slotInformationRepository;
+    this.databaseClient = databaseClient;
+    this.transactionalOperator = transactionalOperator;
+  }
+
+  /**
+   * Books every appointment whose slot is still free. A constraint violation while inserting rolls
+   * the whole batch back and is propagated so the caller can fall back to booking item by item.
+   */
+  public Mono<List<BookingResult>> book(List<AppointmentDetails> appointmentDetailsList) {
+    return book(appointmentDetailsList, false);
+  }
+
+  /**
+   * Books every appointment or none of them: the first item that cannot be booked fails the call
+   * with its reason and rolls the batch back. A constraint violation is reported as a {@link
+   * DuplicateEntryException}.
+   */
+  public Mono<List<AppointmentDetails>> bookAll(List<AppointmentDetails> appointmentDetailsList) {
+    return book(appointmentDetailsList, true)
+        .map(results -> results.stream().map(BookingResult::getAppointment).toList())
+        .onErrorMap(
+            DataIntegrityViolationException.class,
+            ex -> new DuplicateEntryException("Duplicate appointment found"));
+  }
+
+  private Mono<List<BookingResult>> book(
+      List<AppointmentDetails> appointmentDetailsList, boolean allOrNothing) {
+    return Mono.defer(
+        () -> {
+          BookingResult[] results = new BookingResult[appointmentDetailsList.size()];
+          Map<Integer, Integer> indexBySlotId = new LinkedHashMap<>();
+          for (int i = 0; i < appointmentDetailsList.size(); i++) {
+            Integer slotId = appointmentDetailsList.get(i).getSlotId();
+            if (slotId == null) {
+              results[i] =
+                  BookingResult.failed(
+                      i, null, new SlotIdNotAvailableException("Slot not available"));
+            } else if (indexBySlotId.putIfAbsent(slotId, i) != null) {
+              results[i] =
+                  BookingResult.failed(
+                      i, slotId, new DuplicateEntryException("Duplicate appointment found"));
+            }
+          }
+          if (allOrNothing && firstFailure(results) != null) {
+            return Mono.error(firstFailure(results));
+          }
+          if (indexBySlotId.isEmpty()) {
+            return Mono.just(Arrays.asList(results));
+          }
+          return this.slotInformationRepository
+              .lockAllById(indexBySlotId.keySet())
+              .filter(slotInformation -> Boolean.TRUE.equals(slotInformation.getIsAvailable()))
+              .collectMap(SlotInformation::getSlotId)
+              .flatMap(
+                  availableSlots -> {
+                    List<AppointmentDetails> toBook = new ArrayList<>();
+                    List<Integer> toBookIndexes = new ArrayList<>();
+                    indexBySlotId.forEach(
+                        (slotId, index) -> {
+                          if (availableSlots.containsKey(slotId)) {
+                            toBook.add(appointmentDetailsList.get(index));
+                            toBookIndexes.add(index);
+                          } else {
+                            results[index] =
+                                BookingResult.failed(
+                                    index,
+                                    slotId,
+                                    new SlotIdNotAvailableException("Slot not available"));
+                          }
+                        });
+                    if (allOrNothing && firstFailure(results) != null) {
+                      return Mono.error(firstFailure(results));
+                    }
+                    if (toBook.isEmpty()) {
+                      return Mono.just(Arrays.asList(results));
+                    }
+                    return this.slotInformationRepository
+                        .claimSlots(availableSlots.keySet())
+                        .flatMap(
+                            claimed ->
+                                claimed == availableSlots.size()
+                                    ? insertAppointments(toBook)
+                                    : Mono.error(
+                                        new IllegalStateException(
+                                            "Locked slots changed while booking")))
+                        .flatMap(saved -> insertQueueEntries(saved, availableSlots))
+                        .then(
+                            Mono.fromSupplier(
+                                () -> {
+                                  for (int i = 0; i < toBook.size(); i++) {
+                                    results[toBookIndexes.get(i)] =
+                                        BookingResult.booked(toBookIndexes.get(i), toBook.get(i));
+                                  }
+                                  return Arrays.asList(results);
+                                }));
+                  })
+              .as(this.transactionalOperator::transactional);
+        });
+  }
+
+  private static RuntimeException firstFailure(BookingResult[] results) {
+    for (BookingResult result : results) {
+      if (result != null && !result.isBooked()) {
+        return result.getFailure();
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Inserts the appointments with one multi-row statement, then reads back the newest appointment
+   * id of each booked slot. Every slot is locked by this transaction, so those are the rows just
+   * inserted whatever auto-increment step the server uses.
+   */
+  private Mono<List<AppointmentDetails>> insertAppointments(List<AppointmentDetails> toBook) {
+    StringBuilder sql = new StringBuilder(INSERT_APPOINTMENT);
+    for (int i = 0; i < toBook.size(); i++) {
+      sql.append(i == 0 ? "" : ", ").append(APPOINTMENT_ROW);
+    }
+    DatabaseClient.GenericExecuteSpec spec = this.databaseClient.sql(sql.toString());
+    for (int i = 0; i < toBook.size(); i++) {
+      spec = bindAppointment(spec, i * APPOINTMENT_COLUMNS, toBook.get(i));
+    }
+    List<Integer> slotIds = toBook.stream().map(AppointmentDetails::getSlotId).toList();
+    return spec.fetch()
+        .rowsUpdated()
+        .thenMany(
+            this.databaseClient
+                .sql(SELECT_INSERTED_IDS)
+                .bind("slotIds", slotIds)
+                .map(
+                    (row, metadata) ->
+                        Map.entry(
+                            ((Number) row.get("slot_id")).intValue(),
+                            ((Number) row.get("appointment_id")).intValue()))
+                .all())
+        .collectMap(Map.Entry::getKey, Map.Entry::getValue)
+        .map(
+            idBySlotId -> {
+              for (AppointmentDetails appointment : toBook) {
+                appointment.setAppointmentId(idBySlotId.get(appointment.getSlotId()));
+              }
+              return toBook;
+            });
+  }
+
+  private Mono<Long> insertQueueEntries(
+      List<AppointmentDetails> saved, Map<Integer, SlotInformation> slots) {
+    StringBuilder sql = new StringBuilder(INSERT_QUEUE);
+    for (int i = 0; i < saved.size(); i++) {
+      sql.append(i == 0 ? "" : ", ").append(QUEUE_ROW);
+    }
+    DatabaseClient.GenericExecuteSpec spec = this.databaseClient.sql(sql.toString());
+    LocalDate queueDate = LocalDate.now();
+    int column = 0;
+    for (AppointmentDetails appointment : saved) {
+      Integer slotNo = slots.get(appointment.getSlotId()).getSlotNo();
+      spec = bind(spec, column++, appointment.getAppointmentId(), Integer.class);
+      spec = bind(spec, column++, appointment.getSlotId(), Integer.class);
+      spec = bind(spec, column++, appointment.getClinicId(), Integer.class);
+      spec = bind(spec, column++, appointment.getDoctorId(), String.class);
+      spec = bind(spec, column++, slotNo, Integer.class);
+      spec = bind(spec, column++, slotNo, Integer.class);
+      spec = spec.bind(column++, queueDate);
+    }
+    return spec.fetch().rowsUpdated();
+  }
+
+  private static DatabaseClient.GenericExecuteSpec bindAppointment(
+      DatabaseClient.GenericExecuteSpec spec, int column, AppointmentDetails appointment) {
+    spec = bind(spec, column, appointment.getUserId(), Integer.class);
+    spec =
+        bind(
+            spec,
+            column + 1,
+            appointment.getAppointmentType() == null
+                ? null
+                : appointment.getAppointmentType().name(),
+            String.class);
+    spec =
+        bind(
+            spec,
+            column + 2,
+            appointment.getAppointmentFor() == null ? null : appointment.getAppointmentFor().name(),
+            String.class);
+    spec = bind(spec, column + 3, appointment.getAppointmentForName(), String.class);
+    spec = bind(spec, column + 4, appointment.getAppointmentForAge(), Integer.class);
+    spec =
+        bind(
+            spec,
+            column + 5,
+            appointment.getSymptom() == null ? null : appointment.getSymptom().name(),
+            String.class);
+    spec = bind(spec, column + 6, appointment.getOtherSymptoms(), String.class);
+    spec = bind(spec, column + 7, appointment.getAppointmentDate(), LocalDateTime.class);
+    spec = bind(spec, column + 8, appointment.getSlotId(), Integer.class);
+    spec = bind(spec, column + 9, appointment.getDoctorId(), String.class);
+    spec = bind(spec, column + 10, appointment.getClinicId(), Integer.class);
+    return spec.bind(column + 11, appointment.isActive());
+  }
+
+  private static DatabaseClient.GenericExecuteSpec bind(
+      DatabaseClient.GenericExecuteSpec spec, int index, Object value, Class<?> type) {
+    return value == null ? spec.bindNull(index, type) : spec.bind(index, value);
+  }
+}
@@ -0,0 +1,202 @@
+package com.deepak.registrationservice.service;
+
+import com.deepak.registrationservice.exception.IdempotencyKeyReusedException;
+import com.deepak.registrationservice.exception.InvalidRequestException;
+import com.deepak.registrationservice.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Runs a request at most once per idempotency key. Responses are kept in a bounded in-memory map
+ * for the key's lifetime and written to {@code idempotency_keys} so they survive a restart. A
+ * retry with a known key gets the stored response; a retry that arrives while the first request
+ * is still running waits for it instead of running again. Failures are not stored, so a request
+ * that failed can be retried with the same key. A SHA-256 hash of the request body is kept with
+ * each key, and a key sent again with a different body is rejected rather than answered with the
+ * response to another request. Keys are stored as the SHA-256 hash of their scope and the client's
+ * key, so every stored key fits {@code idempotency_keys.idempotency_key} whatever the scope holds.
+ */
+@Component
+public class IdempotencyStore {
+  /** Longest key a client may send; longer keys are rejected before the request runs. */
+  public static final int MAX_KEY_LENGTH = 255;
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(IdempotencyStore.class);
+
+  private final IdempotencyRecordRepository idempotencyRecordRepository;
+  private final ObjectMapper objectMapper;
+  private final Duration ttl;
+  private final Map<String, Entry> entries;
+
+  public IdempotencyStore(
+      IdempotencyRecordRepository idempotencyRecordRepository,
+      ObjectMapper objectMapper,
+      @Value("${idempotency.max-keys:10000}") int maxKeys,
+      @Value("${idempotency.ttl:24h}") Duration ttl) {
+    this.idempotencyRecordRepository = idempotencyRecordRepository;
+    this.objectMapper = objectMapper;
+    this.ttl = ttl;
+    this.entries =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > maxKeys;
+          }
+        };
+  }
+
+  /**
+   * Returns the response stored for the client's {@code key} within {@code scope}, or runs {@code
+   * request} and stores its response. Keys are shared by all callers, so the scope should name the
+   * operation guarded and whom the request is for. Fails with {@link InvalidRequestException} if
+   * {@code key} is longer than {@link #MAX_KEY_LENGTH}, and with {@link
+   * IdempotencyKeyReusedException} if it was used for a different {@code body}.
+   */
+  @SuppressWarnings("unchecked")
+  public <T> Mono<T> execute(
+      String scope,
+      String clientKey,
+      Object body,
+      TypeReference<T> type,
+      Supplier<Mono<T>> request) {
+    return Mono.defer(
+        () -> {
+          if (clientKey.length() > MAX_KEY_LENGTH) {
+            return Mono.error(
+                new InvalidRequestException(
+                    "Idempotency-Key must not be longer than " + MAX_KEY_LENGTH + " characters"));
+          }
+          String key = sha256(scope + ":" + clientKey);
+          String requestHash = hash(body);
+          Entry created = new Entry(requestHash, System.nanoTime() + this.ttl.toNanos());
+          Entry entry;
+          synchronized (this.entries) {
+            entry = this.entries.get(key);
+            if (entry == null || entry.expiresAt - System.nanoTime() <= 0) {
+              created.response = load(key, clientKey, requestHash, type, request, created);
+              this.entries.put(key, created);
+              entry = created;
+            }
+          }
+          if (!entry.requestHash.equals(requestHash)) {
+            return Mono.error(reused(clientKey));
+          }
+          return (Mono<T>) entry.response;
+        });
+  }
+
+  /** Deletes persisted responses whose keys have expired. */
+  @Scheduled(fixedDelayString = "${idempotency.purge-interval:PT1H}")
+  public void purgeExpired() {
+    this.idempotencyRecordRepository
+        .deleteOlderThan(LocalDateTime.now().minus(this.ttl))
+        .subscribe(
+            deleted -> LOGGER.info("Purged {} expired idempotency keys", deleted),
+            error -> LOGGER.warn("Could not purge idempotency keys: {}", error.getMessage()));
+  }
+
+  private <T> Mono<T> load(
+      String key,
+      String clientKey,
+      String requestHash,
+      TypeReference<T> type,
+      Supplier<Mono<T>> request,
+      Entry entry) {
+    return this.idempotencyRecordRepository
+        .findFresh(key, LocalDateTime.now().minus(this.ttl))
+        .flatMap(
+            stored ->
+                // Records stored before request hashes were kept have none and are replayed.
+                stored.getRequestHash() == null || stored.getRequestHash().equals(requestHash)
+                    ? Mono.just(read(stored.getResponse(), type))
+                    : Mono.<T>error(reused(clientKey)))
+        .switchIfEmpty(
+            Mono.defer(request).flatMap(response -> store(key, requestHash, response)))
+        .doOnError(
+            error -> {
+              synchronized (this.entries) {
+                this.entries.remove(key, entry);
+              }
+            })
+        .cache();
+  }
+
+  private <T> Mono<T> store(String key, String requestHash, T response) {
+    String json;
+    try {
+      json = this.objectMapper.writeValueAsString(response);
+    } catch (JsonProcessingException e) {
+      LOGGER.warn("Could not serialize response for idempotency key {}", key, e);
+      return Mono.just(response);
+    }
+    // The request has run; failing to persist its response must not fail the caller.
+    return this.idempotencyRecordRepository
+        .upsert(key, requestHash, json, LocalDateTime.now())
+        .onErrorResume(
+            error -> {
+              LOGGER.warn("Could not persist idempotency key {}: {}", key, error.getMessage());
+              return Mono.empty();
+            })
+        .thenReturn(response);
+  }
+
+  private String hash(Object body) {
+    try {
+      return sha256(this.objectMapper.writeValueAsBytes(body));
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Could not hash the request for its idempotency key", e);
+    }
+  }
+
+  private static String sha256(String value) {
+    return sha256(value.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static String sha256(byte[] bytes) {
+    try {
+      return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+
+  private static IdempotencyKeyReusedException reused(String key) {
+    return new IdempotencyKeyReusedException(
+        "Idempotency key " + key + " was already used for a different request");
+  }
+
+  private <T> T read(String json, TypeReference<T> type) {
+    try {
+      return this.objectMapper.readValue(json, type);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Stored idempotent response is not readable", e);
+    }
+  }
+
+  private static final class Entry {
+    private final String requestHash;
+    private final long expiresAt;
+    private Mono<?> response;
+
+    private Entry(String requestHash, long expiresAt) {
+      this.requestHash = requestHash;
+      this.expiresAt = expiresAt;
+    }
+  }
+}
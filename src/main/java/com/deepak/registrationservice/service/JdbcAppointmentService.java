@@ -0,0 +1,518 @@
+package com.deepak.registrationservice.service;
+
+import com.deepak.registrationservice.exception.AppointmentNotFoundException;
+import com.deepak.registrationservice.exception.DuplicateEntryException;
+import com.deepak.registrationservice.exception.InvalidRequestException;
+import com.deepak.registrationservice.exception.SlotIdNotAvailableException;
+import com.deepak.registrationservice.model.appointment.AppointmentDetails;
+import com.deepak.registrationservice.model.appointment.BookingResult;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanUtils;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * Runs the appointment write paths on blocking JDBC instead of R2DBC, for the {@code jdbc}
+ * profile. Each operation runs its statements on a virtual thread from the {@code jdbcScheduler}
+ * with a pooled connection and a plain JDBC transaction; the statements are the ones the R2DBC
+ * repositories use, the reservations go through the same {@link ReservationCoordinator} lanes and
+ * the committed changes are recorded by the same {@link AppointmentChanges}, so both engines behave
+ * the same to callers and differ only in how they wait for the database.
+ */
+@Service
+@Profile("jdbc")
+public class JdbcAppointmentService implements AppointmentService {
+  private static final Logger LOGGER = LoggerFactory.getLogger(JdbcAppointmentService.class);
+  private static final RowMapper<AppointmentDetails> APPOINTMENT_ROW =
+      new BeanPropertyRowMapper<>(AppointmentDetails.class);
+
+  private final NamedParameterJdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final Scheduler jdbcScheduler;
+  private final ReservationCoordinator reservationCoordinator;
+  private final AppointmentChanges appointmentChanges;
+  private final PipelineMetrics pipelineMetrics;
+
+  public JdbcAppointmentService(
+      NamedParameterJdbcTemplate jdbcTemplate,
+      TransactionTemplate transactionTemplate,
+      Scheduler jdbcScheduler,
+      ReservationCoordinator reservationCoordinator,
+      AppointmentChanges appointmentChanges,
+      PipelineMetrics pipelineMetrics) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = transactionTemplate;
+    this.jdbcScheduler = jdbcScheduler;
+    this.reservationCoordinator = reservationCoordinator;
+    this.appointmentChanges = appointmentChanges;
+    this.pipelineMetrics = pipelineMetrics;
+  }
+
+  @Override
+  public Mono<List<AppointmentDetails>> savedAppointment(
+      List<AppointmentDetails> appointmentDetailsList)
+      throws DuplicateEntryException, SlotIdNotAvailableException {
+    if (appointmentDetailsList.size() == 1) {
+      return bookAppointment(Objects.requireNonNull(appointmentDetailsList.get(0)))
+          .map(List::of)
+          .doOnError(error -> LOGGER.error("Error creating appointments: {}", error.getMessage()));
+    }
+    // All or nothing: partial results are what POST /v1/appointments/batch is for.
+    return this.pipelineMetrics
+        .time(
+            "book.batch",
+            inTransaction(
+                    "book.transaction",
+                    () ->
+                        bookFree(appointmentDetailsList, true).stream()
+                            .map(BookingResult::getAppointment)
+                            .toList())
+                .onErrorMap(
+                    DataIntegrityViolationException.class,
+                    ex -> new DuplicateEntryException("Duplicate appointment found")))
+        .flatMap(
+            saved ->
+                Flux.fromIterable(saved).concatMap(this.appointmentChanges::booked).collectList())
+        .doOnError(error -> LOGGER.error("Error creating appointments: {}", error.getMessage()));
+  }
+
+  /**
+   * Books every item whose slot is still free in one transaction and reports each outcome, like
+   * {@link AppointmentServiceImpl#bookAppointments}. A constraint violation rolls the batch back;
+   * the items are then booked one by one, each in its own transaction, so only the offending ones
+   * fail.
+   */
+  @Override
+  public Mono<List<BookingResult>> bookAppointments(
+      List<AppointmentDetails> appointmentDetailsList) {
+    return this.pipelineMetrics
+        .time(
+            "book.batch",
+            inTransaction("book.transaction", () -> bookFree(appointmentDetailsList, false)))
+        .flatMap(
+            results ->
+                Flux.fromIterable(results)
+                    .concatMap(
+                        result -> {
+                          if (result.isBooked()) {
+                            return this.appointmentChanges.booked(result.getAppointment());
+                          }
+                          if (result.getFailure() instanceof SlotIdNotAvailableException) {
+                            this.appointmentChanges.slotTaken(result.getSlotId());
+                          }
+                          return Mono.empty();
+                        })
+                    .then(Mono.just(results)))
+        .onErrorResume(
+            DataIntegrityViolationException.class,
+            error -> {
+              LOGGER.warn(
+                  "Batch booking rolled back, booking items one by one: {}", error.getMessage());
+              return Flux.range(0, appointmentDetailsList.size())
+                  .concatMap(
+                      index ->
+                          bookAppointment(appointmentDetailsList.get(index))
+                              .map(saved -> BookingResult.booked(index, saved))
+                              .onErrorResume(
+                                  RuntimeException.class,
+                                  failure ->
+                                      Mono.just(
+                                          BookingResult.failed(
+                                              index,
+                                              appointmentDetailsList.get(index).getSlotId(),
+                                              failure))))
+                  .collectList();
+            });
+  }
+
+  private Mono<AppointmentDetails> bookAppointment(AppointmentDetails appointmentDetails) {
+    return this.pipelineMetrics.time(
+        "book",
+        this.reservationCoordinator
+            .submit(
+                appointmentDetails.getDoctorId(),
+                AppointmentChanges.appointmentDay(appointmentDetails),
+                appointmentDetails.getSlotId(),
+                () -> inTransaction("book.transaction", () -> insert(appointmentDetails)))
+            .doOnError(
+                SlotIdNotAvailableException.class,
+                error -> this.appointmentChanges.slotTaken(appointmentDetails.getSlotId()))
+            .onErrorMap(
+                DataIntegrityViolationException.class,
+                ex -> new DuplicateEntryException("Duplicate appointment found"))
+            .flatMap(this.appointmentChanges::booked));
+  }
+
+  private AppointmentDetails insert(AppointmentDetails appointmentDetails) {
+    claimSlot(appointmentDetails.getSlotId());
+    insertClaimed(List.of(appointmentDetails));
+    return appointmentDetails;
+  }
+
+  /**
+   * Books the items whose slots are still free with a fixed number of round trips, like {@link
+   * BatchBookingEngine}: one locking read of every requested slot, one claim of the free ones, and
+   * one batch each of appointment and queue entry inserts. Items whose slot is missing, taken or
+   * requested twice are reported as failed and the rest are booked; with {@code allOrNothing} the
+   * first of them fails the transaction instead, before anything is written.
+   */
+  private List<BookingResult> bookFree(
+      List<AppointmentDetails> appointmentDetailsList, boolean allOrNothing) {
+    BookingResult[] results = new BookingResult[appointmentDetailsList.size()];
+    Map<Integer, Integer> indexBySlotId = new LinkedHashMap<>();
+    for (int i = 0; i < appointmentDetailsList.size(); i++) {
+      Integer slotId = appointmentDetailsList.get(i).getSlotId();
+      if (slotId == null) {
+        results[i] =
+            BookingResult.failed(i, null, new SlotIdNotAvailableException("Slot not available"));
+      } else if (indexBySlotId.putIfAbsent(slotId, i) != null) {
+        results[i] =
+            BookingResult.failed(
+                i, slotId, new DuplicateEntryException("Duplicate appointment found"));
+      }
+    }
+    failIfAny(allOrNothing, results);
+    if (indexBySlotId.isEmpty()) {
+      return Arrays.asList(results);
+    }
+    Set<Integer> availableSlotIds =
+        new LinkedHashSet<>(
+            this.jdbcTemplate.queryForList(
+                "SELECT slot_id FROM slot_information"
+                    + " WHERE slot_id IN (:slotIds) AND is_available = true FOR UPDATE",
+                Map.of("slotIds", indexBySlotId.keySet()),
+                Integer.class));
+    List<Integer> toBookIndexes = new ArrayList<>();
+    indexBySlotId.forEach(
+        (slotId, index) -> {
+          if (availableSlotIds.contains(slotId)) {
+            toBookIndexes.add(index);
+          } else {
+            results[index] =
+                BookingResult.failed(
+                    index, slotId, new SlotIdNotAvailableException("Slot not available"));
+          }
+        });
+    failIfAny(allOrNothing, results);
+    if (toBookIndexes.isEmpty()) {
+      return Arrays.asList(results);
+    }
+    int claimed =
+        this.jdbcTemplate.update(
+            "UPDATE slot_information SET is_available = false"
+                + " WHERE slot_id IN (:slotIds) AND is_available = true",
+            Map.of("slotIds", availableSlotIds));
+    if (claimed != availableSlotIds.size()) {
+      throw new IllegalStateException("Locked slots changed while booking");
+    }
+    insertClaimed(toBookIndexes.stream().map(appointmentDetailsList::get).toList());
+    for (Integer index : toBookIndexes) {
+      results[index] = BookingResult.booked(index, appointmentDetailsList.get(index));
+    }
+    return Arrays.asList(results);
+  }
+
+  private static void failIfAny(boolean allOrNothing, BookingResult[] results) {
+    if (!allOrNothing) {
+      return;
+    }
+    for (BookingResult result : results) {
+      if (result != null && !result.isBooked()) {
+        throw result.getFailure();
+      }
+    }
+  }
+
+  /**
+   * Inserts the appointments and their queue entries with one batch each and sets the generated
+   * appointment ids; their slots must already be claimed.
+   */
+  private void insertClaimed(List<AppointmentDetails> appointments) {
+    KeyHolder keyHolder = new GeneratedKeyHolder();
+    this.jdbcTemplate.batchUpdate(
+        "INSERT INTO appointments (user_id, appointment_type, appointment_for,"
+            + " appointment_for_name, appointment_for_age, symptom, other_symptoms,"
+            + " appointment_date, slot_id, doctor_id, clinic_id, active)"
+            + " VALUES (:userId, :appointmentType, :appointmentFor, :appointmentForName,"
+            + " :appointmentForAge, :symptom, :otherSymptoms, :appointmentDate, :slotId,"
+            + " :doctorId, :clinicId, :active)",
+        appointments.stream()
+            .map(JdbcAppointmentService::appointmentParameters)
+            .toArray(SqlParameterSource[]::new),
+        keyHolder,
+        new String[] {"appointment_id"});
+    List<Map<String, Object>> keys = keyHolder.getKeyList();
+    for (int i = 0; i < appointments.size(); i++) {
+      appointments
+          .get(i)
+          .setAppointmentId(((Number) keys.get(i).values().iterator().next()).intValue());
+    }
+    Date queueDate = Date.valueOf(LocalDate.now());
+    this.jdbcTemplate.batchUpdate(
+        "INSERT INTO queue_management (appointment_id, slot_id, clinic_id, doctor_id,"
+            + " initial_queue_no, current_queue_no, advance_paid, cancelled,"
+            + " advance_revert_if_paid, patient_reached, consultation_fee_paid, queue_date)"
+            + " SELECT :appointmentId, s.slot_id, :clinicId, :doctorId, s.slot_no, s.slot_no,"
+            + " false, false, false, false, false, :queueDate"
+            + " FROM slot_information s WHERE s.slot_id = :slotId",
+        appointments.stream()
+            .map(
+                appointment ->
+                    new MapSqlParameterSource()
+                        .addValue("appointmentId", appointment.getAppointmentId())
+                        .addValue("slotId", appointment.getSlotId())
+                        .addValue("clinicId", appointment.getClinicId())
+                        .addValue("doctorId", appointment.getDoctorId())
+                        .addValue("queueDate", queueDate))
+            .toArray(SqlParameterSource[]::new));
+  }
+
+  @Override
+  public Mono<AppointmentDetails> updateAppointment(
+      Integer id, AppointmentDetails updatedAppointmentDetails)
+      throws AppointmentNotFoundException {
+    Integer newSlotId = updatedAppointmentDetails.getSlotId();
+    return this.pipelineMetrics.time(
+        "reschedule",
+        Mono.defer(
+            () -> {
+              AppointmentDetails previousAppointment = new AppointmentDetails();
+              return this.reservationCoordinator
+                  .submit(
+                      updatedAppointmentDetails.getDoctorId(),
+                      AppointmentChanges.appointmentDay(updatedAppointmentDetails),
+                      newSlotId,
+                      () ->
+                          inTransaction(
+                              "reschedule.transaction",
+                              () -> reschedule(id, updatedAppointmentDetails, previousAppointment)))
+                  .doOnError(
+                      SlotIdNotAvailableException.class,
+                      error -> this.appointmentChanges.slotTaken(newSlotId))
+                  .flatMap(
+                      saved -> this.appointmentChanges.rescheduled(previousAppointment, saved));
+            }));
+  }
+
+  /**
+   * Moves the appointment to its new slot and copies it, as it was before, into {@code previous}.
+   * A cancelled appointment holds no slot, so it cannot be moved to another one.
+   */
+  private AppointmentDetails reschedule(
+      Integer id, AppointmentDetails updatedAppointmentDetails, AppointmentDetails previous) {
+    List<AppointmentDetails> found =
+        this.jdbcTemplate.query(
+            "SELECT * FROM appointments WHERE appointment_id = :id FOR UPDATE",
+            Map.of("id", id),
+            APPOINTMENT_ROW);
+    if (found.isEmpty()) {
+      throw new AppointmentNotFoundException("Appointment not found");
+    }
+    AppointmentDetails existingAppointment = found.get(0);
+    BeanUtils.copyProperties(existingAppointment, previous);
+    AppointmentServiceImpl.applyUpdate(existingAppointment, updatedAppointmentDetails);
+    Integer newSlotId = updatedAppointmentDetails.getSlotId();
+    if (!Objects.equals(previous.getSlotId(), newSlotId)) {
+      if (!existingAppointment.isActive()) {
+        throw new InvalidRequestException("Cancelled appointments cannot be rescheduled");
+      }
+      // The lock on the active appointment means it still holds its previous slot.
+      claimSlot(newSlotId);
+      this.jdbcTemplate.update(
+          "UPDATE slot_information SET is_available = true"
+              + " WHERE slot_id = :slotId AND is_available = false",
+          Map.of("slotId", previous.getSlotId()));
+      this.jdbcTemplate.update(
+          "UPDATE queue_management q JOIN slot_information s ON s.slot_id = :slotId"
+              + " SET q.slot_id = s.slot_id, q.initial_queue_no = s.slot_no,"
+              + " q.current_queue_no = s.slot_no"
+              + " WHERE q.appointment_id = :appointmentId",
+          Map.of("appointmentId", id, "slotId", newSlotId));
+    }
+    this.jdbcTemplate.update(
+        "UPDATE appointments SET user_id = :userId, appointment_type = :appointmentType,"
+            + " appointment_for = :appointmentFor, appointment_for_name = :appointmentForName,"
+            + " appointment_for_age = :appointmentForAge, symptom = :symptom,"
+            + " other_symptoms = :otherSymptoms, appointment_date = :appointmentDate,"
+            + " slot_id = :slotId, doctor_id = :doctorId, clinic_id = :clinicId,"
+            + " active = :active WHERE appointment_id = :appointmentId",
+        appointmentParameters(existingAppointment));
+    return existingAppointment;
+  }
+
+  /** Deletes the appointment, its queue entry and frees its slot if it was still active. */
+  @Override
+  public Mono<Void> deleteAppointment(Integer id) {
+    return inTransaction(
+            "delete",
+            () -> {
+              List<AppointmentDetails> appointments =
+                  lock(
+                      "SELECT * FROM appointments WHERE appointment_id IN (:appointmentIds)"
+                          + " FOR UPDATE",
+                      List.of(id));
+              if (!appointments.isEmpty()) {
+                Map<String, ?> ids =
+                    Map.of("appointmentIds", AppointmentServiceImpl.appointmentIds(appointments));
+                this.jdbcTemplate.update(
+                    "UPDATE slot_information s JOIN appointments a ON a.slot_id = s.slot_id"
+                        + " SET s.is_available = true"
+                        + " WHERE a.appointment_id IN (:appointmentIds) AND a.active = true",
+                    ids);
+                this.jdbcTemplate.update(
+                    "DELETE a, q FROM appointments a"
+                        + " LEFT JOIN queue_management q ON q.appointment_id = a.appointment_id"
+                        + " WHERE a.appointment_id IN (:appointmentIds)",
+                    ids);
+              }
+              return appointments;
+            })
+        .doOnSuccess(appointments -> appointments.forEach(this.appointmentChanges::deleted))
+        .then();
+  }
+
+  @Override
+  public Mono<Void> cancelAppointment(Integer id) {
+    return cancelAppointments(List.of(id))
+        .then()
+        .onErrorResume(
+            error -> {
+              LOGGER.error("Error cancelling appointment: {}", error.getMessage());
+              return Mono.error(error);
+            });
+  }
+
+  @Override
+  public Mono<List<Integer>> cancelAppointments(List<Integer> appointmentIds) {
+    return cancel(
+        () ->
+            lock(
+                "SELECT * FROM appointments WHERE appointment_id IN (:appointmentIds)"
+                    + " AND active = true FOR UPDATE",
+                appointmentIds));
+  }
+
+  @Override
+  public Mono<List<Integer>> cancelAppointmentsOfDoctor(String doctorId, LocalDate date) {
+    return cancel(
+        () ->
+            this.jdbcTemplate.query(
+                "SELECT * FROM appointments WHERE doctor_id = :doctorId AND active = true"
+                    + " AND appointment_date >= :dayStart AND appointment_date < :dayEnd"
+                    + " FOR UPDATE",
+                new MapSqlParameterSource()
+                    .addValue("doctorId", doctorId)
+                    .addValue("dayStart", date.atStartOfDay())
+                    .addValue("dayEnd", date.plusDays(1).atStartOfDay()),
+                APPOINTMENT_ROW));
+  }
+
+  /**
+   * Cancels the active appointments locked by {@code toCancel} with the same two statements the
+   * R2DBC engine uses, and returns their ids.
+   */
+  private Mono<List<Integer>> cancel(Callable<List<AppointmentDetails>> toCancel) {
+    return inTransaction(
+            "cancel",
+            () -> {
+              List<AppointmentDetails> appointments = toCancel.call();
+              if (!appointments.isEmpty()) {
+                Map<String, ?> ids =
+                    Map.of("appointmentIds", AppointmentServiceImpl.appointmentIds(appointments));
+                this.jdbcTemplate.update(
+                    "UPDATE appointments a LEFT JOIN slot_information s ON s.slot_id = a.slot_id"
+                        + " SET a.active = false, s.is_available = true"
+                        + " WHERE a.appointment_id IN (:appointmentIds) AND a.active = true",
+                    ids);
+                this.jdbcTemplate.update(
+                    "DELETE FROM queue_management WHERE appointment_id IN (:appointmentIds)",
+                    ids);
+              }
+              return appointments;
+            })
+        .doOnSuccess(appointments -> appointments.forEach(this.appointmentChanges::cancelled))
+        .map(AppointmentServiceImpl::appointmentIds);
+  }
+
+  private void claimSlot(Integer slotId) {
+    int claimed =
+        this.jdbcTemplate.update(
+            "UPDATE slot_information SET is_available = false"
+                + " WHERE slot_id = :slotId AND is_available = true",
+            Map.of("slotId", slotId));
+    if (claimed == 0) {
+      throw new SlotIdNotAvailableException("Slot not available");
+    }
+  }
+
+  private List<AppointmentDetails> lock(String sql, List<Integer> appointmentIds) {
+    return this.jdbcTemplate.query(sql, Map.of("appointmentIds", appointmentIds), APPOINTMENT_ROW);
+  }
+
+  /**
+   * Runs {@code work} in one JDBC transaction on a virtual thread, timed as the given pipeline
+   * stage. The transaction rolls back if {@code work} throws.
+   */
+  private <T> Mono<T> inTransaction(String stage, Callable<T> work) {
+    return this.pipelineMetrics.time(
+        stage,
+        Mono.fromCallable(
+                () ->
+                    this.transactionTemplate.execute(
+                        status -> {
+                          try {
+                            return work.call();
+                          } catch (RuntimeException ex) {
+                            throw ex;
+                          } catch (Exception ex) {
+                            throw new IllegalStateException(ex);
+                          }
+                        }))
+            .subscribeOn(this.jdbcScheduler));
+  }
+
+  private static MapSqlParameterSource appointmentParameters(AppointmentDetails appointment) {
+    return new MapSqlParameterSource()
+        .addValue("appointmentId", appointment.getAppointmentId())
+        .addValue("userId", appointment.getUserId())
+        .addValue("appointmentType", enumName(appointment.getAppointmentType()))
+        .addValue("appointmentFor", enumName(appointment.getAppointmentFor()))
+        .addValue("appointmentForName", appointment.getAppointmentForName())
+        .addValue("appointmentForAge", appointment.getAppointmentForAge())
+        .addValue("symptom", enumName(appointment.getSymptom()))
+        .addValue("otherSymptoms", appointment.getOtherSymptoms())
+        .addValue("appointmentDate", appointment.getAppointmentDate())
+        .addValue("slotId", appointment.getSlotId())
+        .addValue("doctorId", appointment.getDoctorId())
+        .addValue("clinicId", appointment.getClinicId())
+        .addValue("active", appointment.isActive());
+  }
+
+  private static String enumName(Enum<?> value) {
+    return value == null ? null : value.name();
+  }
+}
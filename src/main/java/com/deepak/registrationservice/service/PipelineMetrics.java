@@ -0,0 +1,33 @@
+package com.deepak.registrationservice.service;
+
+import com.deepak.registrationservice.config.ReactiveTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Times the stages of the appointment write paths as {@code appointment.pipeline}, tagged with the
+ * stage. Together with the per-statement {@code repository.calls} timers this shows whether a slow
+ * booking waited for its lane, its transaction or the statements inside it.
+ */
+@Component
+public class PipelineMetrics {
+
+  private final MeterRegistry meterRegistry;
+  private final Map<String, ReactiveTimer> stages = new ConcurrentHashMap<>();
+
+  public PipelineMetrics(MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+  }
+
+  public <T> Mono<T> time(String stage, Mono<T> mono) {
+    return this.stages.computeIfAbsent(stage, this::timer).time(mono);
+  }
+
+  private ReactiveTimer timer(String stage) {
+    return new ReactiveTimer(this.meterRegistry, "appointment.pipeline", Tags.of("stage", stage));
+  }
+}
@@ -0,0 +1,353 @@
+package com.deepak.registrationservice.service;
+
+import com.deepak.registrationservice.exception.AppointmentNotFoundException;
+import com.deepak.registrationservice.model.appointment.QueueEvent;
+import com.deepak.registrationservice.model.appointment.QueueManagement;
+import com.deepak.registrationservice.model.appointment.enums.VisitStatus;
+import com.deepak.registrationservice.repository.QueueManagementRepository;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Advances the queue of a doctor for a day. Each day is held in memory as an ordered list of its
+ * entries; an operation changes that list and then writes every entry it renumbered or moved with
+ * one {@code UPDATE}, so advancing a queue of any length is a single round trip.
+ *
+ * <p>Operations run in the doctor's lane of the {@link ReservationCoordinator}, so they never
+ * interleave with each other or with bookings for the same day. Writes that change a day's queue
+ * outside the engine must call {@link #invalidate}; the day is then read again on its next use.
+ * Invalidations do not wait for the lane, so each day carries a version that they bump: a read of
+ * the day that overlapped an invalidation may have missed the write and is started over instead
+ * of being kept.
+ *
+ * <p>Waiting patients are numbered 1..n in {@code current_queue_no}. The patient being seen and
+ * patients who are done or skipped are numbered 0. A skipped patient joins the end of the queue
+ * again once marked as reached.
+ */
+@Component
+public class QueueEngine {
+
+  private static final String UPDATE_PREFIX = "UPDATE queue_management SET current_queue_no = ";
+  private static final String CASE_PREFIX = "CASE queue_management_id";
+  private static final String CASE_ARM = " WHEN ? THEN ?";
+
+  private final QueueManagementRepository queueManagementRepository;
+  private final DatabaseClient databaseClient;
+  private final ReservationCoordinator reservationCoordinator;
+  private final QueueEventHub queueEventHub;
+  private final ScheduleSnapshots scheduleSnapshots;
+  private final Map<DayKey, DayState> days;
+
+  public QueueEngine(
+      QueueManagementRepository queueManagementRepository,
+      DatabaseClient databaseClient,
+      ReservationCoordinator reservationCoordinator,
+      QueueEventHub queueEventHub,
+      ScheduleSnapshots scheduleSnapshots,
+      @Value("${queue-engine.max-days:1024}") int maxDays) {
+    this.queueManagementRepository = queueManagementRepository;
+    this.databaseClient = databaseClient;
+    this.reservationCoordinator = reservationCoordinator;
+    this.queueEventHub = queueEventHub;
+    this.scheduleSnapshots = scheduleSnapshots;
+    this.days =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<DayKey, DayState> eldest) {
+            return size() > maxDays;
+          }
+        };
+  }
+
+  /** Returns the entries of the day: the patient being seen, then the waiting patients in order. */
+  public Mono<List<QueueManagement>> getQueue(String doctorId, LocalDate date) {
+    return run(doctorId, date, queue -> Set.of());
+  }
+
+  /**
+   * Finishes the consultation in progress, calls the first waiting patient in and moves everyone
+   * behind them up by one.
+   */
+  public Mono<List<QueueManagement>> callNext(String doctorId, LocalDate date) {
+    return run(
+        doctorId,
+        date,
+        queue -> {
+          Set<QueueManagement> changed = new LinkedHashSet<>();
+          for (QueueManagement entry : queue.entries) {
+            if (VisitStatus.of(entry.getVisitStatus()) == VisitStatus.IN_CONSULTATION) {
+              setStatus(entry, VisitStatus.COMPLETED, 0, changed);
+            }
+          }
+          List<QueueManagement> waiting = queue.waiting();
+          if (!waiting.isEmpty()) {
+            setStatus(waiting.remove(0), VisitStatus.IN_CONSULTATION, 0, changed);
+          }
+          renumber(waiting, changed);
+          return changed;
+        });
+  }
+
+  /** Takes a waiting patient out of the queue until they are marked as reached. */
+  public Mono<List<QueueManagement>> skip(String doctorId, LocalDate date, Integer appointmentId) {
+    return run(
+        doctorId,
+        date,
+        queue -> {
+          QueueManagement entry = queue.find(appointmentId);
+          Set<QueueManagement> changed = new LinkedHashSet<>();
+          if (VisitStatus.of(entry.getVisitStatus()) == VisitStatus.WAITING) {
+            setStatus(entry, VisitStatus.SKIPPED, 0, changed);
+            renumber(queue.waiting(), changed);
+          }
+          return changed;
+        });
+  }
+
+  /**
+   * Records that the patient is at the clinic. A skipped patient goes back into the queue behind
+   * everyone who is waiting.
+   */
+  public Mono<List<QueueManagement>> markReached(
+      String doctorId, LocalDate date, Integer appointmentId) {
+    return run(
+        doctorId,
+        date,
+        queue -> {
+          QueueManagement entry = queue.find(appointmentId);
+          Set<QueueManagement> changed = new LinkedHashSet<>();
+          if (!Boolean.TRUE.equals(entry.getPatientReached())) {
+            entry.setPatientReached(true);
+            changed.add(entry);
+          }
+          if (VisitStatus.of(entry.getVisitStatus()) == VisitStatus.SKIPPED) {
+            List<QueueManagement> waiting = queue.waiting();
+            setStatus(entry, VisitStatus.WAITING, waiting.size() + 1, changed);
+            // Keep the list ordered so the entry stays last until the next renumbering.
+            queue.entries.remove(entry);
+            queue.entries.add(entry);
+          }
+          return changed;
+        });
+  }
+
+  /** Closes the gaps cancellations leave in the numbering of waiting patients. */
+  public Mono<List<QueueManagement>> compact(String doctorId, LocalDate date) {
+    return run(
+        doctorId,
+        date,
+        queue -> {
+          Set<QueueManagement> changed = new LinkedHashSet<>();
+          renumber(queue.waiting(), changed);
+          return changed;
+        });
+  }
+
+  /** Drops the in-memory queue of the day after it was changed by another write path. */
+  public void invalidate(String doctorId, LocalDate date) {
+    synchronized (this.days) {
+      DayState state = this.days.get(new DayKey(doctorId, date));
+      if (state != null) {
+        state.version++;
+        state.queue = null;
+      }
+    }
+  }
+
+  private Mono<List<QueueManagement>> run(
+      String doctorId, LocalDate date, Function<DayQueue, Set<QueueManagement>> operation) {
+    DayKey key = new DayKey(doctorId, date);
+    return this.reservationCoordinator.submit(
+        doctorId,
+        date,
+        null,
+        () ->
+            load(key)
+                .flatMap(
+                    queue -> {
+                      Set<QueueManagement> changed = operation.apply(queue);
+                      return persist(changed)
+                          .then(
+                              Mono.fromSupplier(
+                                  () -> {
+                                    if (!changed.isEmpty()) {
+                                      this.scheduleSnapshots.invalidate(doctorId, date);
+                                    }
+                                    changed.forEach(
+                                        entry ->
+                                            this.queueEventHub.publish(
+                                                doctorId,
+                                                date,
+                                                QueueEvent.of(QueueEvent.Type.UPDATED, entry)));
+                                    return queue.view();
+                                  }));
+                    })
+                // The in-memory queue may be ahead of the database now; read it again next time.
+                .doOnError(error -> invalidate(doctorId, date)));
+  }
+
+  private Mono<DayQueue> load(DayKey key) {
+    DayState state;
+    long version;
+    synchronized (this.days) {
+      state = this.days.computeIfAbsent(key, k -> new DayState());
+      if (state.queue != null) {
+        return Mono.just(state.queue);
+      }
+      version = state.version;
+    }
+    return this.queueManagementRepository
+        .findAllForDay(
+            key.doctorId(), key.date().atStartOfDay(), key.date().plusDays(1).atStartOfDay())
+        .collectList()
+        .flatMap(
+            entries -> {
+              synchronized (this.days) {
+                if (state.version != version) {
+                  return load(key);
+                }
+                if (this.days.get(key) == state) {
+                  state.queue = new DayQueue(entries);
+                  return Mono.just(state.queue);
+                }
+              }
+              // Evicted while it was read; use it for this operation without caching it.
+              return Mono.just(new DayQueue(entries));
+            });
+  }
+
+  /**
+   * Writes the queue number, status and arrival of every changed entry as one statement of the
+   * form {@code SET col = CASE queue_management_id WHEN ? THEN ? ... END WHERE
+   * queue_management_id IN (...)}.
+   */
+  private Mono<Long> persist(Set<QueueManagement> changed) {
+    if (changed.isEmpty()) {
+      return Mono.just(0L);
+    }
+    StringBuilder sql = new StringBuilder(UPDATE_PREFIX);
+    appendCase(sql, changed.size());
+    sql.append(", visit_status = ");
+    appendCase(sql, changed.size());
+    sql.append(", patient_reached = ");
+    appendCase(sql, changed.size());
+    sql.append(" WHERE queue_management_id IN (");
+    for (int i = 0; i < changed.size(); i++) {
+      sql.append(i == 0 ? "?" : ", ?");
+    }
+    sql.append(')');
+
+    DatabaseClient.GenericExecuteSpec spec = this.databaseClient.sql(sql.toString());
+    int column = 0;
+    for (QueueManagement entry : changed) {
+      spec = spec.bind(column++, entry.getQueueManagementId());
+      spec = spec.bind(column++, entry.getCurrentQueueNo());
+    }
+    for (QueueManagement entry : changed) {
+      spec = spec.bind(column++, entry.getQueueManagementId());
+      spec = spec.bind(column++, VisitStatus.of(entry.getVisitStatus()).name());
+    }
+    for (QueueManagement entry : changed) {
+      spec = spec.bind(column++, entry.getQueueManagementId());
+      spec = spec.bind(column++, Boolean.TRUE.equals(entry.getPatientReached()));
+    }
+    for (QueueManagement entry : changed) {
+      spec = spec.bind(column++, entry.getQueueManagementId());
+    }
+    return spec.fetch().rowsUpdated();
+  }
+
+  private static void appendCase(StringBuilder sql, int arms) {
+    sql.append(CASE_PREFIX);
+    for (int i = 0; i < arms; i++) {
+      sql.append(CASE_ARM);
+    }
+    sql.append(" END");
+  }
+
+  private static void setStatus(
+      QueueManagement entry, VisitStatus status, int queueNo, Set<QueueManagement> changed) {
+    entry.setVisitStatus(status.name());
+    entry.setCurrentQueueNo(queueNo);
+    changed.add(entry);
+  }
+
+  private static void renumber(List<QueueManagement> waiting, Set<QueueManagement> changed) {
+    for (int i = 0; i < waiting.size(); i++) {
+      QueueManagement entry = waiting.get(i);
+      if (!Objects.equals(entry.getCurrentQueueNo(), i + 1)) {
+        entry.setCurrentQueueNo(i + 1);
+        changed.add(entry);
+      }
+    }
+  }
+
+  private record DayKey(String doctorId, LocalDate date) {}
+
+  /** The cached queue of a day, if any, and how often the day was invalidated. */
+  private static final class DayState {
+    private DayQueue queue;
+    private long version;
+  }
+
+  /** Entries of one day in queue order. Only touched from the day's lane. */
+  private static final class DayQueue {
+    private final List<QueueManagement> entries;
+
+    private DayQueue(List<QueueManagement> entries) {
+      this.entries = new ArrayList<>(entries);
+    }
+
+    private QueueManagement find(Integer appointmentId) {
+      for (QueueManagement entry : this.entries) {
+        if (entry.getAppointmentId().equals(appointmentId)) {
+          return entry;
+        }
+      }
+      throw new AppointmentNotFoundException(
+          "Appointment not in queue with id: " + appointmentId);
+    }
+
+    private List<QueueManagement> waiting() {
+      List<QueueManagement> waiting = new ArrayList<>();
+      for (QueueManagement entry : this.entries) {
+        if (VisitStatus.of(entry.getVisitStatus()) == VisitStatus.WAITING) {
+          waiting.add(entry);
+        }
+      }
+      return waiting;
+    }
+
+    /** Copies of the entries, so callers never see a later operation change them. */
+    private List<QueueManagement> view() {
+      List<QueueManagement> view = new ArrayList<>();
+      for (QueueManagement entry : this.entries) {
+        if (VisitStatus.of(entry.getVisitStatus()) == VisitStatus.IN_CONSULTATION) {
+          view.add(copy(entry));
+        }
+      }
+      for (QueueManagement entry : waiting()) {
+        view.add(copy(entry));
+      }
+      return view;
+    }
+  }
+
+  private static QueueManagement copy(QueueManagement entry) {
+    QueueManagement copy = new QueueManagement();
+    BeanUtils.copyProperties(entry, copy);
+    return copy;
+  }
+}
@@ -0,0 +1,133 @@
+package com.deepak.registrationservice.service;
+
+import com.deepak.registrationservice.model.appointment.AppointmentDetails;
+import com.deepak.registrationservice.model.appointment.QueueEvent;
+import com.deepak.registrationservice.repository.QueueManagementRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Live queue changes per doctor and day. A hub exists only while someone is subscribed to it, so
+ * publishing to a day nobody watches costs a map lookup. Each subscriber keeps only the latest
+ * undelivered event when it cannot keep up, instead of buffering without limit.
+ */
+@Component
+public class QueueEventHub {
+  private static final Logger LOGGER = LoggerFactory.getLogger(QueueEventHub.class);
+
+  private final QueueManagementRepository queueManagementRepository;
+  private final Map<HubKey, Hub> hubs = new ConcurrentHashMap<>();
+  private final AtomicInteger subscribers = new AtomicInteger();
+
+  public QueueEventHub(
+      QueueManagementRepository queueManagementRepository, MeterRegistry meterRegistry) {
+    this.queueManagementRepository = queueManagementRepository;
+    Gauge.builder("queue.stream.subscribers", this.subscribers, AtomicInteger::get)
+        .description("Clients subscribed to live queue events")
+        .register(meterRegistry);
+    Gauge.builder("queue.stream.hubs", this.hubs, Map::size)
+        .description("Doctor days with at least one live queue subscriber")
+        .register(meterRegistry);
+  }
+
+  public Flux<QueueEvent> subscribe(String doctorId, LocalDate date) {
+    HubKey key = new HubKey(doctorId, date);
+    return Flux.defer(
+        () -> {
+          Hub hub =
+              this.hubs.compute(
+                  key,
+                  (k, existing) -> {
+                    Hub acquired = existing == null ? new Hub() : existing;
+                    acquired.subscribers++;
+                    return acquired;
+                  });
+          this.subscribers.incrementAndGet();
+          return hub.sink.asFlux().onBackpressureLatest().doFinally(signal -> release(key));
+        });
+  }
+
+  public boolean hasSubscribers(String doctorId, LocalDate date) {
+    return this.hubs.containsKey(new HubKey(doctorId, date));
+  }
+
+  public void publish(String doctorId, LocalDate date, QueueEvent event) {
+    Hub hub = this.hubs.get(new HubKey(doctorId, date));
+    if (hub != null) {
+      hub.emit(event);
+    }
+  }
+
+  /**
+   * Publishes the current queue entry of the appointment. The entry is only read when the
+   * appointment's day has subscribers, and a failed read never fails the caller.
+   */
+  public Mono<Void> publishEntry(AppointmentDetails appointment, QueueEvent.Type type) {
+    LocalDate date = dayOf(appointment);
+    if (!hasSubscribers(appointment.getDoctorId(), date)) {
+      return Mono.empty();
+    }
+    return this.queueManagementRepository
+        .findByAppointmentId(appointment.getAppointmentId())
+        .doOnNext(entry -> publish(appointment.getDoctorId(), date, QueueEvent.of(type, entry)))
+        .then()
+        .onErrorResume(
+            error -> {
+              LOGGER.warn("Could not publish queue event: {}", error.getMessage());
+              return Mono.empty();
+            });
+  }
+
+  public void publishRemoved(AppointmentDetails appointment) {
+    publishRemoved(
+        appointment.getDoctorId(),
+        dayOf(appointment),
+        appointment.getAppointmentId(),
+        appointment.getSlotId());
+  }
+
+  public void publishRemoved(
+      String doctorId, LocalDate date, Integer appointmentId, Integer slotId) {
+    publish(
+        doctorId,
+        date,
+        QueueEvent.builder()
+            .type(QueueEvent.Type.REMOVED)
+            .appointmentId(appointmentId)
+            .slotId(slotId)
+            .build());
+  }
+
+  private static LocalDate dayOf(AppointmentDetails appointment) {
+    return appointment.getAppointmentDate() == null
+        ? null
+        : appointment.getAppointmentDate().toLocalDate();
+  }
+
+  private void release(HubKey key) {
+    this.subscribers.decrementAndGet();
+    this.hubs.computeIfPresent(key, (k, hub) -> --hub.subscribers == 0 ? null : hub);
+  }
+
+  private record HubKey(String doctorId, LocalDate date) {}
+
+  private static final class Hub {
+    private final Sinks.Many<QueueEvent> sink = Sinks.many().multicast().directBestEffort();
+    private int subscribers;
+    private long version;
+
+    private synchronized void emit(QueueEvent event) {
+      this.sink.tryEmitNext(event.toBuilder().version(++this.version).build());
+    }
+  }
+}
@@ -0,0 +1,115 @@
+package com.deepak.registrationservice.service;
+
+import com.deepak.registrationservice.config.ReadRouting;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Lets identical concurrent reads share one query. The first caller for a key runs the query; every
+ * caller that arrives while it runs, or within the reuse window after it completed, receives a
+ * replay of the same rows instead of querying again. A failed query is forgotten at once so the
+ * next caller retries it. Callers that may read from a replica and callers that must read from the
+ * primary never share a query.
+ *
+ * <p>Rows that callers may change must be read with a copy function, so every caller receives
+ * copies of its own and never the shared instances. Writes {@link #invalidate} the reads they
+ * affect, so a caller arriving after a write never receives rows read before it.
+ */
+@Component
+public class ReadCoalescer {
+
+  private final MeterRegistry meterRegistry;
+  private final Duration reuseWindow;
+  private final Map<Key, Shared<?>> shared = new ConcurrentHashMap<>();
+  private final Map<String, Counter> coalesced = new ConcurrentHashMap<>();
+
+  public ReadCoalescer(
+      MeterRegistry meterRegistry,
+      @Value("${read-coalescing.reuse-window:250ms}") Duration reuseWindow) {
+    this.meterRegistry = meterRegistry;
+    this.reuseWindow = reuseWindow;
+  }
+
+  /**
+   * Returns the rows of {@code query} for the given parameters, sharing them with every concurrent
+   * caller that uses the same query name and parameters. The rows are handed to every caller as
+   * they are, so they must not be changed.
+   */
+  @SuppressWarnings("unchecked")
+  public <T> Flux<T> coalesce(String query, List<?> parameters, Supplier<Flux<T>> source) {
+    return Flux.deferContextual(
+        context -> {
+          Key key = new Key(query, parameters, ReadRouting.replicaAllowed(context));
+          Shared<?> created = new Shared<>(key, source);
+          Shared<?> existing = this.shared.putIfAbsent(key, created);
+          if (existing == null) {
+            return (Flux<T>) created.rows;
+          }
+          counter(query).increment();
+          return (Flux<T>) existing.rows;
+        });
+  }
+
+  /**
+   * Like {@link #coalesce(String, List, Supplier)}, for rows callers may change: each caller
+   * receives {@code copy} of every shared row.
+   */
+  public <T> Flux<T> coalesce(
+      String query, List<?> parameters, Supplier<Flux<T>> source, UnaryOperator<T> copy) {
+    return coalesce(query, parameters, source).map(copy);
+  }
+
+  /**
+   * Stops sharing the rows of {@code query} for every parameter list that matches, after a write
+   * that may have changed them. Callers already receiving the rows keep them; later callers run
+   * the query again.
+   */
+  public void invalidate(String query, Predicate<List<?>> parameters) {
+    this.shared
+        .keySet()
+        .removeIf(key -> key.query().equals(query) && parameters.test(key.parameters()));
+  }
+
+  private Counter counter(String query) {
+    return this.coalesced.computeIfAbsent(
+        query,
+        name ->
+            Counter.builder("read.coalesced")
+                .description("Reads answered from a query another request already ran")
+                .tag("query", name)
+                .register(this.meterRegistry));
+  }
+
+  private void release(Key key, Shared<?> entry) {
+    if (this.reuseWindow.isZero()) {
+      this.shared.remove(key, entry);
+    } else {
+      Mono.delay(this.reuseWindow).subscribe(tick -> this.shared.remove(key, entry));
+    }
+  }
+
+  private record Key(String query, List<?> parameters, boolean fromReplica) {}
+
+  private final class Shared<T> {
+    private final Flux<T> rows;
+
+    private Shared(Key key, Supplier<Flux<T>> source) {
+      this.rows =
+          Flux.defer(source)
+              .doOnError(error -> ReadCoalescer.this.shared.remove(key, this))
+              .doOnComplete(() -> release(key, this))
+              .cache();
+    }
+  }
+}
@@ -0,0 +1,236 @@
+package com.deepak.registrationservice.service;
+
+import com.deepak.registrationservice.exception.ReservationRejectedException;
+import com.deepak.registrationservice.exception.SlotIdNotAvailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+/**
+ * Serializes slot reservations per doctor and day. Every (doctorId, date) pair hashes to one of a
+ * fixed number of lanes; a lane runs one reservation at a time in arrival order while different
+ * lanes run in parallel. Because a lane knows which slots it has just handed out, requests that
+ * queued behind the winner of a slot are rejected without going to the database.
+ *
+ * <p>Lanes are lock free: whoever moves a lane's depth from zero to one drains it, and each
+ * reservation hands the lane on to the next one when it terminates.
+ *
+ * <p>A lane is shared by every doctor and day that hashes to it, so a busy day also delays the
+ * reservations of the other days in its lane and counts against the same queue limit; more lanes
+ * make such collisions rarer. A reservation is rejected with {@link ReservationRejectedException}
+ * when its lane already holds the maximum number of reservations, or when it has not started
+ * within the queue timeout, so a stalled lane fails its callers quickly instead of piling up.
+ */
+@Component
+public class ReservationCoordinator {
+
+  private final Lane[] lanes;
+  private final int maxQueued;
+  private final long queueTimeoutNanos;
+  private final Counter fastRejections;
+  private final Counter overloadRejections;
+  private final Timer laneWait;
+
+  public ReservationCoordinator(
+      MeterRegistry meterRegistry,
+      @Value("${reservation.lanes:32}") int laneCount,
+      @Value("${reservation.max-queued:256}") int maxQueued,
+      @Value("${reservation.queue-timeout:2s}") Duration queueTimeout) {
+    this.lanes = new Lane[laneCount];
+    this.maxQueued = maxQueued;
+    this.queueTimeoutNanos = queueTimeout.toNanos();
+    for (int i = 0; i < laneCount; i++) {
+      Lane lane = new Lane();
+      this.lanes[i] = lane;
+      Gauge.builder("reservation.lane.queue.depth", lane.depth, AtomicInteger::get)
+          .description("Reservations queued or running in the lane")
+          .tag("lane", String.valueOf(i))
+          .register(meterRegistry);
+    }
+    this.fastRejections =
+        Counter.builder("reservation.fast.rejections")
+            .description("Reservations rejected in memory because an earlier one won the slot")
+            .register(meterRegistry);
+    this.overloadRejections =
+        Counter.builder("reservation.overload.rejections")
+            .description("Reservations rejected because their lane was full or did not reach them")
+            .register(meterRegistry);
+    this.laneWait =
+        Timer.builder("reservation.lane.wait")
+            .description("Time a reservation waited in its lane before it started")
+            .register(meterRegistry);
+  }
+
+  /**
+   * Runs {@code reservation} in the lane of the given doctor and day once every reservation queued
+   * before it has finished. If an earlier reservation in the lane won {@code slotId} while this one
+   * was waiting, it fails with {@link SlotIdNotAvailableException} without being subscribed; if
+   * the lane is full or does not reach it in time, it fails with {@link
+   * ReservationRejectedException}.
+   */
+  public <T> Mono<T> submit(
+      String doctorId, LocalDate date, Integer slotId, Supplier<Mono<T>> reservation) {
+    Lane lane = this.lanes[Math.floorMod(Objects.hash(doctorId, date), this.lanes.length)];
+    return Mono.create(sink -> lane.enqueue(new Reservation<>(slotId, reservation, sink)));
+  }
+
+  private final class Lane {
+    private final Queue<Reservation<?>> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger depth = new AtomicInteger();
+    private final AtomicLong sequence = new AtomicLong();
+    // Slot id -> lane sequence at the moment a reservation won it. Only touched by the drainer.
+    private final Map<Integer, Long> wonAt = new HashMap<>();
+
+    private void enqueue(Reservation<?> reservation) {
+      // Checked before joining, so concurrent submitters may overshoot the limit by a few.
+      if (this.depth.get() >= maxQueued) {
+        reservation.reject("Too many reservations queued in its lane");
+        return;
+      }
+      reservation.expireAfter(queueTimeoutNanos);
+      reservation.sequence = this.sequence.incrementAndGet();
+      reservation.enqueuedAt = System.nanoTime();
+      this.queue.offer(reservation);
+      if (this.depth.getAndIncrement() == 0) {
+        drain();
+      }
+    }
+
+    private void drain() {
+      do {
+        Reservation<?> next = this.queue.poll();
+        if (next.start(this)) {
+          return;
+        }
+        if (this.depth.get() == 1) {
+          // Nothing is waiting, so no queued reservation can be affected by the recorded wins.
+          this.wonAt.clear();
+        }
+      } while (this.depth.decrementAndGet() > 0);
+    }
+
+    private void resume() {
+      if (this.depth.get() == 1) {
+        this.wonAt.clear();
+      }
+      if (this.depth.decrementAndGet() > 0) {
+        drain();
+      }
+    }
+  }
+
+  private final class Reservation<T> {
+    private static final int RUNNING = 0;
+    private static final int FINISHED_INLINE = 1;
+    private static final int DETACHED = 2;
+
+    private final Integer slotId;
+    private final Supplier<Mono<T>> action;
+    private final MonoSink<T> sink;
+    private final AtomicInteger state = new AtomicInteger(RUNNING);
+    // Set by whichever comes first: the lane starting the reservation or its rejection.
+    private final AtomicBoolean claimed = new AtomicBoolean();
+    private volatile boolean cancelled;
+    private volatile Disposable subscription;
+    private volatile Disposable expiry;
+    private long sequence;
+    private long enqueuedAt;
+
+    private Reservation(Integer slotId, Supplier<Mono<T>> action, MonoSink<T> sink) {
+      this.slotId = slotId;
+      this.action = action;
+      this.sink = sink;
+      sink.onCancel(
+          () -> {
+            this.cancelled = true;
+            stopExpiry();
+            Disposable running = this.subscription;
+            if (running != null) {
+              running.dispose();
+            }
+          });
+    }
+
+    private void expireAfter(long timeoutNanos) {
+      this.expiry =
+          Mono.delay(Duration.ofNanos(timeoutNanos))
+              .subscribe(tick -> reject("Timed out waiting for earlier reservations in its lane"));
+    }
+
+    private void stopExpiry() {
+      Disposable timer = this.expiry;
+      if (timer != null) {
+        timer.dispose();
+      }
+    }
+
+    /** Fails the reservation unless it has already started; the lane skips it when reached. */
+    private void reject(String reason) {
+      if (this.claimed.compareAndSet(false, true)) {
+        overloadRejections.increment();
+        this.sink.error(new ReservationRejectedException(reason));
+      }
+    }
+
+    /**
+     * Starts the reservation. Returns {@code true} if it is still running, in which case it will
+     * call {@link Lane#resume()} itself when it terminates.
+     */
+    private boolean start(Lane lane) {
+      stopExpiry();
+      if (this.cancelled || !this.claimed.compareAndSet(false, true)) {
+        return false;
+      }
+      laneWait.record(System.nanoTime() - this.enqueuedAt, TimeUnit.NANOSECONDS);
+      Long won = this.slotId == null ? null : lane.wonAt.get(this.slotId);
+      if (won != null && this.sequence <= won) {
+        fastRejections.increment();
+        this.sink.error(new SlotIdNotAvailableException("Slot not available"));
+        return false;
+      }
+      Mono<T> mono;
+      try {
+        mono = this.action.get();
+      } catch (RuntimeException ex) {
+        this.sink.error(ex);
+        return false;
+      }
+      this.subscription =
+          mono.doOnSuccess(
+                  value -> {
+                    if (value != null && this.slotId != null) {
+                      lane.wonAt.put(this.slotId, lane.sequence.get());
+                    }
+                  })
+              .doFinally(
+                  signal -> {
+                    if (!this.state.compareAndSet(RUNNING, FINISHED_INLINE)) {
+                      lane.resume();
+                    }
+                  })
+              .subscribe(this.sink::success, this.sink::error, this.sink::success);
+      if (this.cancelled) {
+        this.subscription.dispose();
+      }
+      return this.state.compareAndSet(RUNNING, DETACHED);
+    }
+  }
+}
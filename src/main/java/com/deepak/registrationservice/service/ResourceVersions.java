@@ -0,0 +1,114 @@
+package com.deepak.registrationservice.service;
+
+import com.deepak.registrationservice.config.ReadRouting;
+import com.deepak.registrationservice.model.appointment.AppointmentDetails;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+/**
+ * Version counters behind the ETags of the read endpoints. Every write through the service layer
+ * bumps the counters of the resources it changed, so a conditional GET is answered by comparing
+ * counters, before any query runs and without hashing a response body.
+ *
+ * <p>Counters live in a fixed array of stripes indexed by resource and id. Two resources that
+ * share a stripe only cause a spurious change, never a missed one. Every tag also carries a value
+ * drawn at startup, so tags handed out before a restart never match afterwards.
+ *
+ * <p>The counters only see writes made by this instance. Behind a load balancer, a write on one
+ * instance leaves every other instance answering 304 to a tag it handed out before the write, so
+ * conditional GETs are off unless {@code conditional-get.enabled} is set, which is only safe for a
+ * single instance.
+ */
+@Component
+public class ResourceVersions {
+
+  /** The kinds of resource a read endpoint returns. */
+  public enum Resource {
+    /** Every appointment; lists that are not scoped to a user, doctor or clinic. */
+    APPOINTMENTS,
+    APPOINTMENT,
+    USER_APPOINTMENTS,
+    DOCTOR_APPOINTMENTS,
+    CLINIC_APPOINTMENTS,
+    /** Every user; lists of users. */
+    USERS,
+    USER,
+    USER_PHONE_NUMBER
+  }
+
+  private final boolean enabled;
+  private final String instance =
+      Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+  private final AtomicLongArray versions;
+  // Bumped by writes that cannot tell which resources they changed.
+  private final AtomicLong everything = new AtomicLong();
+
+  public ResourceVersions(
+      @Value("${conditional-get.enabled:false}") boolean enabled,
+      @Value("${conditional-get.version-stripes:4096}") int stripes) {
+    this.enabled = enabled;
+    this.versions = new AtomicLongArray(stripes);
+  }
+
+  /** The weak entity tag of the resource's current version. */
+  public String etag(Resource resource, Object id) {
+    return "W/\""
+        + this.instance
+        + "-"
+        + Long.toString(this.everything.get(), 36)
+        + "-"
+        + Long.toString(this.versions.get(stripe(resource, id)), 36)
+        + "\"";
+  }
+
+  /**
+   * Sets the resource's entity tag on the response and returns {@code true} if the request's
+   * {@code If-None-Match} already names it; the response status is then 304 and the handler must
+   * return {@code null} without reading anything. Returns {@code false} without setting a tag when
+   * conditional GETs are disabled, and for reads a replica may answer: a lagging replica would
+   * otherwise serve a stale body under the tag of a newer version.
+   */
+  public boolean notModified(ServerWebExchange exchange, Resource resource, Object id) {
+    return this.enabled
+        && !ReadRouting.replicaAllowed(exchange)
+        && exchange.checkNotModified(etag(resource, id));
+  }
+
+  public void changed(Resource resource, Object id) {
+    this.versions.incrementAndGet(stripe(resource, id));
+  }
+
+  /** Records a change to every list the appointment appears in. */
+  public void appointmentChanged(AppointmentDetails appointmentDetails) {
+    changed(Resource.APPOINTMENTS, null);
+    changed(Resource.APPOINTMENT, appointmentDetails.getAppointmentId());
+    changed(Resource.USER_APPOINTMENTS, appointmentDetails.getUserId());
+    changed(Resource.DOCTOR_APPOINTMENTS, appointmentDetails.getDoctorId());
+    changed(Resource.CLINIC_APPOINTMENTS, appointmentDetails.getClinicId());
+  }
+
+  /** Records a change to a user; either argument may be {@code null}. */
+  public void userChanged(Integer id, String phoneNumber) {
+    changed(Resource.USERS, null);
+    if (id != null) {
+      changed(Resource.USER, id);
+    }
+    if (phoneNumber != null) {
+      changed(Resource.USER_PHONE_NUMBER, phoneNumber);
+    }
+  }
+
+  /** Records a change that may affect any resource. */
+  public void changedEverything() {
+    this.everything.incrementAndGet();
+  }
+
+  private int stripe(Resource resource, Object id) {
+    return Math.floorMod(Objects.hash(resource, id), this.versions.length());
+  }
+}
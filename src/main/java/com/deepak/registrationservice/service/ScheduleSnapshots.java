@@ -0,0 +1,200 @@
+package com.deepak.registrationservice.service;
+
+import com.deepak.registrationservice.model.appointment.AppointmentDetails;
+import com.deepak.registrationservice.model.appointment.DaySchedule;
+import com.deepak.registrationservice.model.appointment.QueueManagement;
+import com.deepak.registrationservice.model.appointment.SlotInformation;
+import com.deepak.registrationservice.repository.AppointmentRepository;
+import com.deepak.registrationservice.repository.QueueManagementRepository;
+import com.deepak.registrationservice.repository.SlotInformationRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import reactor.core.publisher.Mono;
+
+/**
+ * Serialized schedules per doctor and day. A schedule joins the day's slots, its active
+ * appointments and their queue entries; it is built and serialized to JSON once, on first
+ * request, and every later request is served the same bytes until a write to the day drops it.
+ * At most a bounded number of days are kept, least recently used first out.
+ *
+ * <p>Write paths must call {@link #invalidate} after they change a slot, appointment or queue
+ * entry of the day. A build that is still running when the day is invalidated is not kept.
+ */
+@Component
+public class ScheduleSnapshots {
+
+  private final SlotInformationRepository slotInformationRepository;
+  private final AppointmentRepository appointmentRepository;
+  private final QueueManagementRepository queueManagementRepository;
+  private final ObjectMapper objectMapper;
+  private final Map<DayKey, Held> snapshots;
+
+  public ScheduleSnapshots(
+      SlotInformationRepository slotInformationRepository,
+      AppointmentRepository appointmentRepository,
+      QueueManagementRepository queueManagementRepository,
+      ObjectMapper objectMapper,
+      @Value("${schedule-snapshot.max-days:512}") int maxDays) {
+    this.slotInformationRepository = slotInformationRepository;
+    this.appointmentRepository = appointmentRepository;
+    this.queueManagementRepository = queueManagementRepository;
+    this.objectMapper = objectMapper;
+    this.snapshots =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<DayKey, Held> eldest) {
+            return size() > maxDays;
+          }
+        };
+  }
+
+  /** Returns the schedule of the day, building it if it is not held yet. */
+  public Mono<Snapshot> get(String doctorId, LocalDate date) {
+    DayKey key = new DayKey(doctorId, date);
+    return Mono.defer(
+        () -> {
+          synchronized (this.snapshots) {
+            Held held = this.snapshots.get(key);
+            if (held == null) {
+              held = new Held();
+              held.snapshot = build(key, held);
+              this.snapshots.put(key, held);
+            }
+            return held.snapshot;
+          }
+        });
+  }
+
+  /** Drops the schedule of the day after one of its rows changed. */
+  public void invalidate(String doctorId, LocalDate date) {
+    synchronized (this.snapshots) {
+      this.snapshots.remove(new DayKey(doctorId, date));
+    }
+  }
+
+  private Mono<Snapshot> build(DayKey key, Held held) {
+    LocalDateTime dayStart = key.date().atStartOfDay();
+    return Mono.zip(
+            this.slotInformationRepository
+                .findAllByDoctorIdAndSlotDate(key.doctorId(), key.date().toString())
+                .collectList(),
+            this.appointmentRepository
+                .findAllByDoctorIdAndAppointmentDateBetween(
+                    key.doctorId(), dayStart, key.date().atTime(LocalTime.MAX))
+                .filter(AppointmentDetails::isActive)
+                .collectList(),
+            this.queueManagementRepository
+                .findAllForDay(key.doctorId(), dayStart, dayStart.plusDays(1))
+                .collectList())
+        .map(
+            rows ->
+                serialize(
+                    new DaySchedule(
+                        key.doctorId(),
+                        key.date(),
+                        entries(rows.getT1(), rows.getT2(), rows.getT3()))))
+        .doOnError(
+            error -> {
+              synchronized (this.snapshots) {
+                this.snapshots.remove(key, held);
+              }
+            })
+        .cache();
+  }
+
+  private static List<DaySchedule.Entry> entries(
+      List<SlotInformation> slots,
+      List<AppointmentDetails> appointments,
+      List<QueueManagement> queue) {
+    Map<Integer, AppointmentDetails> appointmentsBySlot =
+        appointments.stream()
+            .collect(
+                Collectors.toMap(
+                    AppointmentDetails::getSlotId,
+                    Function.identity(),
+                    (first, second) -> first,
+                    LinkedHashMap::new));
+    Map<Integer, QueueManagement> queueByAppointment =
+        queue.stream()
+            .collect(
+                Collectors.toMap(
+                    QueueManagement::getAppointmentId, Function.identity(), (a, b) -> a));
+    List<DaySchedule.Entry> entries = new ArrayList<>();
+    slots.stream()
+        .sorted(
+            Comparator.comparing(
+                SlotInformation::getSlotNo, Comparator.nullsLast(Integer::compare)))
+        .forEach(
+            slot -> {
+              AppointmentDetails appointment = appointmentsBySlot.remove(slot.getSlotId());
+              entries.add(
+                  new DaySchedule.Entry(
+                      slot,
+                      appointment,
+                      appointment == null
+                          ? null
+                          : queueByAppointment.get(appointment.getAppointmentId())));
+            });
+    appointmentsBySlot
+        .values()
+        .forEach(
+            appointment ->
+                entries.add(
+                    new DaySchedule.Entry(
+                        null,
+                        appointment,
+                        queueByAppointment.get(appointment.getAppointmentId()))));
+    return entries;
+  }
+
+  private Snapshot serialize(DaySchedule schedule) {
+    byte[] body;
+    try {
+      body = this.objectMapper.writeValueAsBytes(schedule);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Schedule could not be serialized", e);
+    }
+    return new Snapshot(body, "\"" + DigestUtils.md5DigestAsHex(body) + "\"");
+  }
+
+  private record DayKey(String doctorId, LocalDate date) {}
+
+  /** The build of one day, shared by every caller until the day is invalidated. */
+  private static final class Held {
+    private Mono<Snapshot> snapshot;
+  }
+
+  /** A serialized schedule and its entity tag, quoted as it is sent in the ETag header. */
+  public static final class Snapshot {
+    private final byte[] body;
+    private final String etag;
+
+    private Snapshot(byte[] body, String etag) {
+      this.body = body;
+      this.etag = etag;
+    }
+
+    /** The JSON body as a read-only view; the bytes are shared, not copied. */
+    public ByteBuffer body() {
+      return ByteBuffer.wrap(this.body).asReadOnlyBuffer();
+    }
+
+    public String etag() {
+      return this.etag;
+    }
+  }
+}
@@ -0,0 +1,217 @@
+package com.deepak.registrationservice.service;
+
+import com.deepak.registrationservice.model.appointment.SlotInformation;
+import com.deepak.registrationservice.repository.SlotInformationRepository;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * In-memory availability of slots, kept as one bitset per doctor, clinic and day. A day is loaded
+ * from {@code slot_information} the first time it is asked for and is then kept current by the
+ * booking write paths, so listing free slots does not touch the database. The index is only a
+ * read model: the conditional update in the database still decides who gets a slot.
+ *
+ * <p>Writes that bypass this service, such as another instance booking or an operator editing
+ * {@code slot_information}, are not seen by the write paths, so a day is reloaded on the first
+ * lookup after it has been in memory for longer than the configured time to live.
+ */
+@Component
+public class SlotAvailabilityIndex {
+
+  private final SlotInformationRepository slotInformationRepository;
+  private final Map<DayKey, DaySlots> days;
+  private final Map<Integer, DaySlots> daysBySlotId = new ConcurrentHashMap<>();
+  private final Map<Integer, Boolean> writesDuringLoad = new HashMap<>();
+  private final long ttlNanos;
+  private int loadsInFlight;
+
+  public SlotAvailabilityIndex(
+      SlotInformationRepository slotInformationRepository,
+      @Value("${slot-index.max-days:1024}") int maxDays,
+      @Value("${slot-index.ttl:5m}") Duration ttl) {
+    this.slotInformationRepository = slotInformationRepository;
+    this.ttlNanos = ttl.toNanos();
+    this.days =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<DayKey, DaySlots> eldest) {
+            if (size() <= maxDays) {
+              return false;
+            }
+            eldest.getValue().slotIds.keySet().forEach(daysBySlotId::remove);
+            return true;
+          }
+        };
+  }
+
+  /** Returns the free slots of the day ordered by slot number, loading the day if needed. */
+  public Mono<List<SlotInformation>> findAvailable(
+      String doctorId, String clinicId, String slotDate) {
+    DayKey key = new DayKey(doctorId, clinicId, slotDate);
+    DaySlots cached;
+    synchronized (this.days) {
+      cached = this.days.get(key);
+      if (cached != null && System.nanoTime() - cached.loadedAt > this.ttlNanos) {
+        remove(key);
+        cached = null;
+      }
+    }
+    if (cached != null) {
+      return Mono.just(cached.available());
+    }
+    return Mono.defer(
+            () -> {
+              beginLoad();
+              return this.slotInformationRepository
+                  .findAllByDoctorIdAndClinicIdAndSlotDate(doctorId, clinicId, slotDate)
+                  .collectList();
+            })
+        .map(slots -> install(key, new DaySlots(slots)).available())
+        .doFinally(signal -> endLoad());
+  }
+
+  public void markBooked(Integer slotId) {
+    update(slotId, false);
+  }
+
+  public void markAvailable(Integer slotId) {
+    update(slotId, true);
+  }
+
+  /** Forgets a loaded day so that slots added to it are picked up by the next lookup. */
+  public void evict(String doctorId, String clinicId, String slotDate) {
+    synchronized (this.days) {
+      remove(new DayKey(doctorId, clinicId, slotDate));
+    }
+  }
+
+  private void remove(DayKey key) {
+    DaySlots removed = this.days.remove(key);
+    if (removed != null) {
+      removed.slotIds.keySet().forEach(this.daysBySlotId::remove);
+    }
+  }
+
+  private void update(Integer slotId, boolean available) {
+    if (slotId == null) {
+      return;
+    }
+    DaySlots day = this.daysBySlotId.get(slotId);
+    if (day != null) {
+      day.set(slotId, available);
+      return;
+    }
+    synchronized (this.days) {
+      day = this.daysBySlotId.get(slotId);
+      if (day != null) {
+        day.set(slotId, available);
+      } else if (this.loadsInFlight > 0) {
+        // The slot may belong to a day that is being read right now; remember the write so the
+        // loaded snapshot can be corrected before it is published.
+        this.writesDuringLoad.put(slotId, available);
+      }
+    }
+  }
+
+  private void beginLoad() {
+    synchronized (this.days) {
+      this.loadsInFlight++;
+    }
+  }
+
+  private void endLoad() {
+    synchronized (this.days) {
+      if (--this.loadsInFlight == 0) {
+        this.writesDuringLoad.clear();
+      }
+    }
+  }
+
+  private DaySlots install(DayKey key, DaySlots loaded) {
+    synchronized (this.days) {
+      DaySlots existing = this.days.putIfAbsent(key, loaded);
+      if (existing != null) {
+        return existing;
+      }
+      for (Integer slotId : loaded.slotIds.keySet()) {
+        Boolean available = this.writesDuringLoad.get(slotId);
+        if (available != null) {
+          loaded.set(slotId, available);
+        }
+        this.daysBySlotId.put(slotId, loaded);
+      }
+      return loaded;
+    }
+  }
+
+  private record DayKey(String doctorId, String clinicId, String slotDate) {}
+
+  /** Slots of one day ordered by slot number; bit {@code i} is set while slot {@code i} is free. */
+  private static final class DaySlots {
+    private final SlotInformation[] slots;
+    private final Map<Integer, Integer> slotIds;
+    private final AtomicLongArray bits;
+    private final long loadedAt = System.nanoTime();
+
+    private DaySlots(List<SlotInformation> rows) {
+      List<SlotInformation> sorted = new ArrayList<>(rows);
+      sorted.sort(
+          Comparator.comparing(
+              SlotInformation::getSlotNo, Comparator.nullsLast(Comparator.naturalOrder())));
+      this.slots = sorted.toArray(new SlotInformation[0]);
+      this.slotIds = new HashMap<>();
+      this.bits = new AtomicLongArray((this.slots.length + 63) / 64);
+      for (int i = 0; i < this.slots.length; i++) {
+        this.slotIds.put(this.slots[i].getSlotId(), i);
+        if (Boolean.TRUE.equals(this.slots[i].getIsAvailable())) {
+          setBit(i, true);
+        }
+      }
+    }
+
+    private void set(Integer slotId, boolean available) {
+      Integer position = this.slotIds.get(slotId);
+      if (position != null) {
+        setBit(position, available);
+      }
+    }
+
+    private void setBit(int position, boolean available) {
+      long mask = 1L << position;
+      this.bits.getAndUpdate(position >>> 6, word -> available ? word | mask : word & ~mask);
+    }
+
+    private List<SlotInformation> available() {
+      List<SlotInformation> available = new ArrayList<>();
+      for (int word = 0; word < this.bits.length(); word++) {
+        long value = this.bits.get(word);
+        while (value != 0) {
+          int position = (word << 6) + Long.numberOfTrailingZeros(value);
+          value &= value - 1;
+          SlotInformation slot = this.slots[position];
+          SlotInformation copy = new SlotInformation();
+          copy.setSlotId(slot.getSlotId());
+          copy.setSlotNo(slot.getSlotNo());
+          copy.setShiftTime(slot.getShiftTime());
+          copy.setSlotTime(slot.getSlotTime());
+          copy.setClinicId(slot.getClinicId());
+          copy.setDoctorId(slot.getDoctorId());
+          copy.setSlotDate(slot.getSlotDate());
+          copy.setIsAvailable(true);
+          available.add(copy);
+        }
+      }
+      return available;
+    }
+  }
+}
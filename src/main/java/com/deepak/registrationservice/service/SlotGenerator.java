@@ -0,0 +1,259 @@
+package com.deepak.registrationservice.service;
+
+import com.deepak.registrationservice.exception.InvalidRequestException;
+import com.deepak.registrationservice.model.appointment.SlotGenerationResult;
+import com.deepak.registrationservice.model.appointment.SlotInformation;
+import com.deepak.registrationservice.model.appointment.SlotTemplate;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Expands a weekly template into slots and inserts them with one multi-row statement per chunk.
+ * Days are expanded one at a time as the inserts ask for more rows, so a long range is never held
+ * in memory.
+ *
+ * <p>Slots are numbered from 1 per doctor, clinic and day across all shifts, and the insert skips
+ * rows whose (doctor, clinic, day, slot number) already exists. Generating the same range again
+ * therefore only adds what is missing and never touches slots that may already be booked. That
+ * relies on a unique key over those columns, so its presence is checked at startup and no slots
+ * are generated while it is missing. Each chunk commits on its own; after a failure the request can
+ * simply be repeated.
+ */
+@Component
+public class SlotGenerator {
+  private static final Logger LOGGER = LoggerFactory.getLogger(SlotGenerator.class);
+
+  private static final String UNIQUE_KEY = "uk_slot_information_day_slot";
+
+  private static final Set<String> UNIQUE_KEY_COLUMNS =
+      Set.of("doctor_id", "clinic_id", "slot_date", "slot_no");
+
+  private static final String SELECT_UNIQUE_KEYS =
+      "SELECT index_name AS key_name, column_name AS key_column"
+          + " FROM information_schema.statistics"
+          + " WHERE table_schema = DATABASE() AND table_name = 'slot_information'"
+          + " AND non_unique = 0";
+
+  private static final String INSERT_SLOTS =
+      "INSERT INTO slot_information (slot_no, shift_time, slot_time, clinic_id, doctor_id,"
+          + " slot_date, is_available) VALUES ";
+
+  private static final String SLOT_ROW = "(?, ?, ?, ?, ?, ?, true)";
+
+  private static final String ON_DUPLICATE = " ON DUPLICATE KEY UPDATE slot_id = slot_id";
+
+  private static final int SLOT_COLUMNS = 6;
+
+  private static final DateTimeFormatter SLOT_TIME = DateTimeFormatter.ofPattern("HH:mm");
+
+  private static final int MAX_DAYS = 366;
+
+  private final DatabaseClient databaseClient;
+  private final SlotAvailabilityIndex slotAvailabilityIndex;
+  private final ScheduleSnapshots scheduleSnapshots;
+  private final int chunkSize;
+  private volatile boolean uniqueKeyVerified;
+
+  public SlotGenerator(
+      DatabaseClient databaseClient,
+      SlotAvailabilityIndex slotAvailabilityIndex,
+      ScheduleSnapshots scheduleSnapshots,
+      @Value("${slots.generate.chunk-size:500}") int chunkSize) {
+    this.databaseClient = databaseClient;
+    this.slotAvailabilityIndex = slotAvailabilityIndex;
+    this.scheduleSnapshots = scheduleSnapshots;
+    this.chunkSize = chunkSize;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void verifyUniqueKeyOnStartup() {
+    requireUniqueKey().onErrorResume(error -> Mono.empty()).subscribe();
+  }
+
+  public Mono<SlotGenerationResult> generate(SlotTemplate template) {
+    return Mono.defer(
+        () -> {
+          validate(template);
+          return requireUniqueKey().then(insertSlots(template));
+        });
+  }
+
+  /**
+   * Fails unless {@code slot_information} has a unique key over exactly the columns the insert
+   * deduplicates on. Without it the insert would add a second copy of every slot on each repeated
+   * request. A database whose catalog cannot be read is trusted, with a warning.
+   */
+  private Mono<Void> requireUniqueKey() {
+    if (this.uniqueKeyVerified) {
+      return Mono.empty();
+    }
+    return this.databaseClient
+        .sql(SELECT_UNIQUE_KEYS)
+        .map(
+            (row, metadata) ->
+                Map.entry(
+                    row.get("key_name", String.class),
+                    row.get("key_column", String.class).toLowerCase(Locale.ROOT)))
+        .all()
+        .collect(
+            Collectors.groupingBy(
+                Map.Entry::getKey,
+                Collectors.mapping(Map.Entry::getValue, Collectors.toSet())))
+        .map(columnsByKey -> columnsByKey.containsValue(UNIQUE_KEY_COLUMNS))
+        .onErrorResume(
+            error -> {
+              LOGGER.warn(
+                  "Could not check the unique key of slot_information: {}", error.getMessage());
+              return Mono.just(true);
+            })
+        .flatMap(
+            present -> {
+              if (!present) {
+                LOGGER.error(
+                    "slot_information has no unique key on {}; slot generation is disabled",
+                    UNIQUE_KEY_COLUMNS);
+                return Mono.error(
+                    new IllegalStateException(
+                        "slot_information needs the unique key "
+                            + UNIQUE_KEY
+                            + " (doctor_id, clinic_id, slot_date, slot_no) to generate slots"));
+              }
+              this.uniqueKeyVerified = true;
+              return Mono.empty();
+            });
+  }
+
+  private Mono<SlotGenerationResult> insertSlots(SlotTemplate template) {
+    return Mono.defer(
+        () -> {
+          long started = System.nanoTime();
+          long[] generated = new long[1];
+          List<LocalDate> days = new ArrayList<>();
+          return days(template)
+              .doOnNext(days::add)
+              .concatMapIterable(day -> slotsOf(template, day))
+              .doOnNext(slot -> generated[0]++)
+              .buffer(this.chunkSize)
+              .concatMap(this::insert)
+              .reduce(0L, Long::sum)
+              // Drop what is cached for every day touched, even if a later chunk failed.
+              .doFinally(signal -> days.forEach(day -> evict(template, day)))
+              .map(
+                  inserted -> {
+                    long elapsedNanos = Math.max(System.nanoTime() - started, 1);
+                    return new SlotGenerationResult(
+                        generated[0],
+                        inserted,
+                        elapsedNanos / 1_000_000,
+                        generated[0] * 1_000_000_000d / elapsedNanos);
+                  });
+        });
+  }
+
+  private Flux<LocalDate> days(SlotTemplate template) {
+    return Flux.fromStream(
+        template
+            .getFromDate()
+            .datesUntil(template.getToDate().plusDays(1))
+            .filter(day -> template.getDaysOfWeek().contains(day.getDayOfWeek())));
+  }
+
+  private static List<SlotInformation> slotsOf(SlotTemplate template, LocalDate day) {
+    List<SlotInformation> slots = new ArrayList<>();
+    int slotNo = 1;
+    for (SlotTemplate.Shift shift : template.getShifts()) {
+      LocalTime start = shift.getStart();
+      LocalTime end = start.plusMinutes(template.getSlotMinutes());
+      // The second check stops at midnight, where plusMinutes wraps around.
+      while (!end.isAfter(shift.getEnd()) && end.isAfter(start)) {
+        SlotInformation slot = new SlotInformation();
+        slot.setSlotNo(slotNo++);
+        slot.setShiftTime(shift.getName());
+        slot.setSlotTime(start.format(SLOT_TIME));
+        slot.setClinicId(template.getClinicId());
+        slot.setDoctorId(template.getDoctorId());
+        slot.setSlotDate(day.toString());
+        slot.setIsAvailable(true);
+        slots.add(slot);
+        start = end;
+        end = start.plusMinutes(template.getSlotMinutes());
+      }
+    }
+    return slots;
+  }
+
+  /** Inserts one chunk as a single multi-row statement and returns how many rows were new. */
+  private Mono<Long> insert(List<SlotInformation> chunk) {
+    StringBuilder sql = new StringBuilder(INSERT_SLOTS);
+    for (int i = 0; i < chunk.size(); i++) {
+      sql.append(i == 0 ? "" : ", ").append(SLOT_ROW);
+    }
+    sql.append(ON_DUPLICATE);
+    DatabaseClient.GenericExecuteSpec spec = this.databaseClient.sql(sql.toString());
+    for (int i = 0; i < chunk.size(); i++) {
+      SlotInformation slot = chunk.get(i);
+      int column = i * SLOT_COLUMNS;
+      spec =
+          spec.bind(column, slot.getSlotNo())
+              .bind(column + 1, slot.getShiftTime())
+              .bind(column + 2, slot.getSlotTime())
+              .bind(column + 3, slot.getClinicId())
+              .bind(column + 4, slot.getDoctorId())
+              .bind(column + 5, slot.getSlotDate());
+    }
+    // MySQL reports 1 for an inserted row and 0 for an existing one left unchanged.
+    return spec.fetch().rowsUpdated();
+  }
+
+  private void evict(SlotTemplate template, LocalDate day) {
+    this.slotAvailabilityIndex.evict(
+        template.getDoctorId(), template.getClinicId(), day.toString());
+    this.scheduleSnapshots.invalidate(template.getDoctorId(), day);
+  }
+
+  private static void validate(SlotTemplate template) {
+    if (template.getDoctorId() == null
+        || template.getClinicId() == null
+        || template.getFromDate() == null
+        || template.getToDate() == null
+        || template.getDaysOfWeek() == null
+        || template.getSlotMinutes() == null
+        || template.getShifts() == null
+        || template.getShifts().isEmpty()) {
+      throw new InvalidRequestException(
+          "doctorId, clinicId, fromDate, toDate, daysOfWeek, slotMinutes and shifts are required");
+    }
+    if (template.getSlotMinutes() <= 0) {
+      throw new InvalidRequestException("slotMinutes must be positive");
+    }
+    if (template.getToDate().isBefore(template.getFromDate())
+        || template.getFromDate().plusDays(MAX_DAYS).isBefore(template.getToDate())) {
+      throw new InvalidRequestException(
+          "toDate must be on or after fromDate and at most " + MAX_DAYS + " days later");
+    }
+    for (SlotTemplate.Shift shift : template.getShifts()) {
+      if (shift.getName() == null
+          || shift.getStart() == null
+          || shift.getEnd() == null
+          || !shift.getEnd().isAfter(shift.getStart())) {
+        throw new InvalidRequestException("Every shift needs a name and a start before its end");
+      }
+    }
+  }
+}
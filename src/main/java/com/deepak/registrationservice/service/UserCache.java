@@ -0,0 +1,190 @@
+package com.deepak.registrationservice.service;
+
+import com.deepak.registrationservice.config.ReadRouting;
+import com.deepak.registrationservice.model.user.User;
+import com.deepak.registrationservice.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Read-through cache of users by id and by phone number. Each index is bounded in size and evicts
+ * its least recently used entry first; entries also expire after a fixed time. A lookup that finds
+ * nothing is cached too, for a shorter time, so unknown phone numbers do not reach the database on
+ * every login.
+ *
+ * <p>Write paths must call {@link #invalidate} after they change a user. A load that overlaps an
+ * invalidation is returned to its caller but not cached, so a stale row is never stored.
+ */
+@Component
+public class UserCache {
+
+  private final UserRepository userRepository;
+  private final long ttlNanos;
+  private final long negativeTtlNanos;
+  private final Index<Integer> byId;
+  private final Index<String> byPhoneNumber;
+  private final Counter hits;
+  private final Counter misses;
+  private final Counter sizeEvictions;
+  private final Counter expiryEvictions;
+  // Bumped by every invalidation; a load only caches its result if this did not move meanwhile.
+  private long invalidations;
+
+  public UserCache(
+      UserRepository userRepository,
+      MeterRegistry meterRegistry,
+      @Value("${user-cache.max-size:10000}") int maxSize,
+      @Value("${user-cache.ttl:10m}") Duration ttl,
+      @Value("${user-cache.negative-ttl:30s}") Duration negativeTtl) {
+    this.userRepository = userRepository;
+    this.ttlNanos = ttl.toNanos();
+    this.negativeTtlNanos = negativeTtl.toNanos();
+    this.byId = new Index<>(maxSize);
+    this.byPhoneNumber = new Index<>(maxSize);
+    this.hits = gets(meterRegistry, "hit");
+    this.misses = gets(meterRegistry, "miss");
+    this.sizeEvictions = evictions(meterRegistry, "size");
+    this.expiryEvictions = evictions(meterRegistry, "expired");
+    Gauge.builder("cache.size", this, UserCache::size)
+        .description("Entries in the user cache, including cached misses")
+        .tag("cache", "users")
+        .register(meterRegistry);
+  }
+
+  public Mono<User> findById(Integer id) {
+    return find(this.byId, id, this.userRepository::findById);
+  }
+
+  public Mono<User> findByPhoneNumber(String phoneNumber) {
+    return find(this.byPhoneNumber, phoneNumber, this.userRepository::findByPhoneNumber);
+  }
+
+  /** Drops everything cached under the id and phone number; either may be {@code null}. */
+  public void invalidate(Integer id, String phoneNumber) {
+    synchronized (this) {
+      this.invalidations++;
+      if (id != null) {
+        this.byId.entries.remove(id);
+      }
+      if (phoneNumber != null) {
+        this.byPhoneNumber.entries.remove(phoneNumber);
+      }
+    }
+  }
+
+  public void invalidate(User user) {
+    invalidate(user.getId(), user.getPhoneNumber());
+  }
+
+  private <K> Mono<User> find(Index<K> index, K key, Function<K, Mono<User>> load) {
+    return Mono.defer(
+        () -> {
+          long generation;
+          synchronized (this) {
+            Cached cached = index.entries.get(key);
+            if (cached != null && cached.expiresAt - System.nanoTime() > 0) {
+              this.hits.increment();
+              return Mono.justOrEmpty(copy(cached.user));
+            }
+            if (cached != null) {
+              index.entries.remove(key);
+              this.expiryEvictions.increment();
+            }
+            generation = this.invalidations;
+          }
+          this.misses.increment();
+          // Cached rows must not come from a replica that has not seen the latest write yet.
+          return load.apply(key)
+              .contextWrite(ReadRouting::pinToPrimary)
+              .doOnNext(user -> store(generation, user))
+              .switchIfEmpty(Mono.fromRunnable(() -> storeMissing(generation, index, key)));
+        });
+  }
+
+  private void store(long generation, User user) {
+    long expiresAt = System.nanoTime() + this.ttlNanos;
+    synchronized (this) {
+      if (generation != this.invalidations) {
+        return;
+      }
+      Cached cached = new Cached(copy(user), expiresAt);
+      this.byId.entries.put(user.getId(), cached);
+      if (user.getPhoneNumber() != null) {
+        this.byPhoneNumber.entries.put(user.getPhoneNumber(), cached);
+      }
+    }
+  }
+
+  private <K> void storeMissing(long generation, Index<K> index, K key) {
+    long expiresAt = System.nanoTime() + this.negativeTtlNanos;
+    synchronized (this) {
+      if (generation == this.invalidations) {
+        index.entries.put(key, new Cached(null, expiresAt));
+      }
+    }
+  }
+
+  private synchronized int size() {
+    return this.byId.entries.size() + this.byPhoneNumber.entries.size();
+  }
+
+  private static Counter gets(MeterRegistry meterRegistry, String result) {
+    return Counter.builder("cache.gets")
+        .description("User cache lookups")
+        .tag("cache", "users")
+        .tag("result", result)
+        .register(meterRegistry);
+  }
+
+  private static Counter evictions(MeterRegistry meterRegistry, String cause) {
+    return Counter.builder("cache.evictions")
+        .description("Entries dropped from the user cache")
+        .tag("cache", "users")
+        .tag("cause", cause)
+        .register(meterRegistry);
+  }
+
+  /** Callers get their own instance, since controllers modify the users they load. */
+  private static User copy(User user) {
+    if (user == null) {
+      return null;
+    }
+    User copy = new User();
+    copy.setId(user.getId());
+    copy.setName(user.getName());
+    copy.setPhoneNumber(user.getPhoneNumber());
+    copy.setEmail(user.getEmail());
+    copy.setBirthdate(user.getBirthdate());
+    return copy;
+  }
+
+  /** A cached user, or a cached miss when {@code user} is {@code null}. */
+  private record Cached(User user, long expiresAt) {}
+
+  /** Entries of one lookup key in access order. Guarded by the enclosing cache. */
+  private final class Index<K> {
+    private final Map<K, Cached> entries;
+
+    private Index(int maxSize) {
+      this.entries =
+          new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Cached> eldest) {
+              if (size() <= maxSize) {
+                return false;
+              }
+              sizeEvictions.increment();
+              return true;
+            }
+          };
+    }
+  }
+}
@@ -0,0 +1,145 @@
+package com.deepak.registrationservice;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.deepak.registrationservice.config.AdmissionControlFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.RequestPath;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public class AdmissionControlFilterTest {
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @Test
+  public void filter_givesEachReadEndpointClassItsOwnLimit() {
+    AdmissionControlFilter filter = filter(1, 1, 1);
+    WebFilterChain pending = exchange -> Mono.never();
+
+    filter.filter(exchange(HttpMethod.GET, "/v1/user/by/id/1"), pending).subscribe();
+    ServerWebExchange secondUserRead = exchange(HttpMethod.GET, "/v1/user/by/id/2");
+    ServerWebExchange appointmentRead = exchange(HttpMethod.GET, "/v1/appointments/summary");
+    WebFilterChain chain = mock(WebFilterChain.class);
+    when(chain.filter(appointmentRead)).thenReturn(Mono.empty());
+
+    filter.filter(secondUserRead, chain).block();
+    filter.filter(appointmentRead, chain).block();
+
+    verify(secondUserRead.getResponse()).setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+    verify(chain, never()).filter(secondUserRead);
+    verify(chain).filter(appointmentRead);
+    assertThat(rejections("user")).isEqualTo(1);
+    assertThat(rejections("appointments")).isZero();
+  }
+
+  @Test
+  public void filter_doesNotLetA304SetTheExpectedLatency() {
+    AdmissionControlFilter filter = filter(20, 1, 20);
+    ServerWebExchange notModified = exchange(HttpMethod.GET, "/v1/appointments");
+    when(notModified.getResponse().getStatusCode()).thenReturn(HttpStatus.NOT_MODIFIED);
+    filter.filter(notModified, exchange -> Mono.empty()).block();
+
+    // Enough slow reads at once to keep the limit in use while they complete.
+    Flux.range(0, 12)
+        .flatMap(
+            i ->
+                filter.filter(
+                    exchange(HttpMethod.GET, "/v1/appointments"),
+                    exchange -> Mono.delay(Duration.ofMillis(20)).then()))
+        .blockLast();
+
+    assertThat(limit("appointments")).isEqualTo(20);
+    assertThat(inFlight("appointments")).isZero();
+  }
+
+  @Test
+  public void filter_limitsAppointmentWritesSeparatelyFromReads() {
+    AdmissionControlFilter filter = filter(1, 1, 1);
+    filter
+        .filter(exchange(HttpMethod.GET, "/v1/appointment/1"), exchange -> Mono.never())
+        .subscribe();
+    ServerWebExchange booking = exchange(HttpMethod.POST, "/v1/appointment");
+    WebFilterChain chain = mock(WebFilterChain.class);
+    when(chain.filter(booking)).thenReturn(Mono.empty());
+
+    filter.filter(booking, chain).block();
+
+    verify(chain).filter(booking);
+  }
+
+  @Test
+  public void filter_leavesStreamingReadsUnlimited() {
+    AdmissionControlFilter filter = filter(1, 1, 1);
+    filter
+        .filter(exchange(HttpMethod.GET, "/v1/appointments"), exchange -> Mono.never())
+        .subscribe();
+    ServerWebExchange stream = exchange(HttpMethod.GET, "/v1/appointments");
+    stream.getRequest().getHeaders().setAccept(List.of(MediaType.APPLICATION_NDJSON));
+    WebFilterChain chain = mock(WebFilterChain.class);
+    when(chain.filter(stream)).thenReturn(Mono.empty());
+
+    filter.filter(stream, chain).block();
+
+    verify(chain).filter(stream);
+  }
+
+  private AdmissionControlFilter filter(int readsInitial, int readsMin, int readsMax) {
+    return new AdmissionControlFilter(
+        new ObjectMapper(),
+        meterRegistry,
+        true,
+        Duration.ofSeconds(1),
+        10,
+        2,
+        100,
+        readsInitial,
+        readsMin,
+        readsMax);
+  }
+
+  private static ServerWebExchange exchange(HttpMethod method, String path) {
+    ServerHttpRequest request = mock(ServerHttpRequest.class);
+    when(request.getPath()).thenReturn(RequestPath.parse(path, null));
+    when(request.getMethod()).thenReturn(method);
+    when(request.getHeaders()).thenReturn(new HttpHeaders());
+    ServerHttpResponse response = mock(ServerHttpResponse.class);
+    when(response.getHeaders()).thenReturn(new HttpHeaders());
+    when(response.bufferFactory()).thenReturn(DefaultDataBufferFactory.sharedInstance);
+    when(response.writeWith(any())).thenReturn(Mono.empty());
+    ServerWebExchange exchange = mock(ServerWebExchange.class);
+    when(exchange.getRequest()).thenReturn(request);
+    when(exchange.getResponse()).thenReturn(response);
+    return exchange;
+  }
+
+  private double rejections(String endpoint) {
+    return meterRegistry.get("admission.rejections").tag("endpoint", endpoint).counter().count();
+  }
+
+  private double inFlight(String endpoint) {
+    return meterRegistry.get("admission.in.flight").tag("endpoint", endpoint).gauge().value();
+  }
+
+  private double limit(String endpoint) {
+    return meterRegistry.get("admission.limit").tag("endpoint", endpoint).gauge().value();
+  }
+}
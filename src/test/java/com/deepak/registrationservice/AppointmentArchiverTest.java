@@ -0,0 +1,114 @@
+package com.deepak.registrationservice;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.deepak.registrationservice.repository.AppointmentRepository;
+import com.deepak.registrationservice.repository.QueueManagementRepository;
+import com.deepak.registrationservice.service.AppointmentArchiver;
+import com.deepak.registrationservice.service.ResourceVersions;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@ExtendWith(MockitoExtension.class)
+public class AppointmentArchiverTest {
+
+  private static final Duration HORIZON = Duration.ofDays(365);
+
+  @Mock private AppointmentRepository appointmentRepository;
+  @Mock private QueueManagementRepository queueManagementRepository;
+  @Mock private TransactionalOperator transactionalOperator;
+  @Mock private ResourceVersions resourceVersions;
+
+  @BeforeEach
+  public void setUp() {
+    lenient()
+        .when(transactionalOperator.transactional(any(Mono.class)))
+        .thenAnswer(invocation -> invocation.getArgument(0));
+  }
+
+  @Test
+  public void archive_movesOldestRowsInBatchesUntilAShortOne() {
+    when(appointmentRepository.findIdsToArchive(any(), eq(2)))
+        .thenReturn(Flux.just(1, 2), Flux.just(3));
+    givenLocked(List.of(1, 2), List.of(1, 2));
+    givenLocked(List.of(3), List.of(3));
+    givenMoved(List.of(1, 2));
+    givenMoved(List.of(3));
+    LocalDateTime before = LocalDateTime.now().minus(HORIZON);
+
+    Long archived = archiver(true).archive().block();
+    LocalDateTime after = LocalDateTime.now().minus(HORIZON);
+
+    assertThat(archived).isEqualTo(3);
+    ArgumentCaptor<LocalDateTime> cutoff = ArgumentCaptor.forClass(LocalDateTime.class);
+    verify(appointmentRepository, times(2)).findIdsToArchive(cutoff.capture(), eq(2));
+    assertThat(cutoff.getAllValues())
+        .allSatisfy(value -> assertThat(value).isBetween(before, after));
+    verify(appointmentRepository).lockIdsToArchive(List.of(1, 2), cutoff.getValue());
+    verify(transactionalOperator, times(2)).transactional(any(Mono.class));
+    verify(resourceVersions, times(2)).changedEverything();
+  }
+
+  @Test
+  public void archive_leavesRowsMovedPastTheCutoffSinceTheyWerePicked() {
+    when(appointmentRepository.findIdsToArchive(any(), eq(2)))
+        .thenReturn(Flux.just(1, 2), Flux.empty());
+    givenLocked(List.of(1, 2), List.of(2));
+    givenMoved(List.of(2));
+
+    Long archived = archiver(true).archive().block();
+
+    assertThat(archived).isEqualTo(1);
+    verify(appointmentRepository, never()).copyToArchive(List.of(1, 2));
+    verify(appointmentRepository, never()).deleteAllByAppointmentIds(List.of(1, 2));
+  }
+
+  @Test
+  public void archive_doesNothingWhenDisabled() {
+    assertThat(archiver(false).archive().block()).isNull();
+    verifyNoInteractions(appointmentRepository, queueManagementRepository, resourceVersions);
+  }
+
+  private void givenLocked(List<Integer> candidates, List<Integer> locked) {
+    when(appointmentRepository.lockIdsToArchive(eq(candidates), any()))
+        .thenReturn(Flux.fromIterable(locked));
+  }
+
+  private void givenMoved(List<Integer> ids) {
+    when(appointmentRepository.copyToArchive(ids)).thenReturn(Mono.just(ids.size()));
+    when(queueManagementRepository.copyToArchive(ids)).thenReturn(Mono.just(ids.size()));
+    when(queueManagementRepository.deleteAllByAppointmentIds(ids))
+        .thenReturn(Mono.just(ids.size()));
+    when(appointmentRepository.deleteAllByAppointmentIds(ids)).thenReturn(Mono.just(ids.size()));
+  }
+
+  private AppointmentArchiver archiver(boolean enabled) {
+    return new AppointmentArchiver(
+        appointmentRepository,
+        queueManagementRepository,
+        transactionalOperator,
+        resourceVersions,
+        enabled,
+        HORIZON,
+        2,
+        Duration.ZERO);
+  }
+}
@@ -0,0 +1,124 @@
+package com.deepak.registrationservice;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.deepak.registrationservice.model.appointment.AppointmentDetails;
+import com.deepak.registrationservice.model.appointment.QueueEvent;
+import com.deepak.registrationservice.model.appointment.QueueManagement;
+import com.deepak.registrationservice.repository.QueueManagementRepository;
+import com.deepak.registrationservice.service.AppointmentChanges;
+import com.deepak.registrationservice.service.AppointmentQueryService;
+import com.deepak.registrationservice.service.AppointmentStatsService;
+import com.deepak.registrationservice.service.QueueEngine;
+import com.deepak.registrationservice.service.QueueEventHub;
+import com.deepak.registrationservice.service.ResourceVersions;
+import com.deepak.registrationservice.service.ScheduleSnapshots;
+import com.deepak.registrationservice.service.SlotAvailabilityIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.LocalDate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+public class AppointmentChangesTest {
+
+  private static final LocalDate OLD_DAY = LocalDate.of(2024, 1, 1);
+  private static final LocalDate NEW_DAY = LocalDate.of(2024, 1, 2);
+
+  @Mock private QueueManagementRepository queueManagementRepository;
+  @Mock private SlotAvailabilityIndex slotAvailabilityIndex;
+  @Mock private QueueEngine queueEngine;
+  @Mock private AppointmentStatsService appointmentStatsService;
+  @Mock private ScheduleSnapshots scheduleSnapshots;
+  @Mock private AppointmentQueryService appointmentQueryService;
+
+  private QueueEventHub queueEventHub;
+  private AppointmentChanges appointmentChanges;
+
+  @BeforeEach
+  public void setUp() {
+    queueEventHub = new QueueEventHub(queueManagementRepository, new SimpleMeterRegistry());
+    appointmentChanges =
+        new AppointmentChanges(
+            slotAvailabilityIndex,
+            queueEventHub,
+            queueEngine,
+            appointmentStatsService,
+            scheduleSnapshots,
+            new ResourceVersions(true, 16),
+            appointmentQueryService);
+  }
+
+  @Test
+  public void rescheduled_removesEntryFromThePreviousDoctorsDay() {
+    AppointmentDetails previous = appointment("DOC001", OLD_DAY, 11);
+    AppointmentDetails saved = appointment("DOC002", NEW_DAY, 12);
+
+    StepVerifier.create(queueEventHub.subscribe("DOC001", OLD_DAY))
+        .then(() -> appointmentChanges.rescheduled(previous, saved).block())
+        .assertNext(
+            event -> {
+              assertThat(event.getType()).isEqualTo(QueueEvent.Type.REMOVED);
+              assertThat(event.getAppointmentId()).isEqualTo(1);
+              assertThat(event.getSlotId()).isEqualTo(11);
+            })
+        .thenCancel()
+        .verify();
+    verify(queueEngine).invalidate("DOC001", OLD_DAY);
+    verify(queueEngine).invalidate("DOC002", NEW_DAY);
+    verify(slotAvailabilityIndex).markAvailable(11);
+    verify(slotAvailabilityIndex).markBooked(12);
+    verify(appointmentQueryService).appointmentChanged(previous);
+    verify(appointmentQueryService).appointmentChanged(saved);
+  }
+
+  @Test
+  public void rescheduled_updatesEntryInPlaceWithinTheSameDay() {
+    AppointmentDetails previous = appointment("DOC001", OLD_DAY, 11);
+    AppointmentDetails saved = appointment("DOC001", OLD_DAY, 12);
+    QueueManagement entry = new QueueManagement();
+    entry.setAppointmentId(1);
+    entry.setSlotId(12);
+    when(queueManagementRepository.findByAppointmentId(1)).thenReturn(Mono.just(entry));
+
+    StepVerifier.create(queueEventHub.subscribe("DOC001", OLD_DAY))
+        .then(() -> appointmentChanges.rescheduled(previous, saved).block())
+        .assertNext(event -> assertThat(event.getType()).isEqualTo(QueueEvent.Type.UPDATED))
+        .thenCancel()
+        .verify();
+  }
+
+  @Test
+  public void cancelled_freesTheSlotOnlyOfAnAppointmentThatWasActive() {
+    AppointmentDetails active = appointment("DOC001", OLD_DAY, 11);
+    AppointmentDetails alreadyCancelled = appointment("DOC001", OLD_DAY, 12);
+    alreadyCancelled.setActive(false);
+
+    appointmentChanges.cancelled(active);
+    appointmentChanges.deleted(alreadyCancelled);
+
+    verify(slotAvailabilityIndex).markAvailable(11);
+    verify(slotAvailabilityIndex, never()).markAvailable(12);
+    verify(queueEngine, times(2)).invalidate("DOC001", OLD_DAY);
+  }
+
+  private static AppointmentDetails appointment(String doctorId, LocalDate day, int slotId) {
+    AppointmentDetails appointment = new AppointmentDetails();
+    appointment.setAppointmentId(1);
+    appointment.setSlotId(slotId);
+    appointment.setDoctorId(doctorId);
+    appointment.setClinicId(1);
+    appointment.setAppointmentDate(day.atTime(10, 0));
+    appointment.setActive(true);
+    return appointment;
+  }
+}
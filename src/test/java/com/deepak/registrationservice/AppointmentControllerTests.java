@@ -2,31 +2,67 @@ package com.deepak.registrationservice;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 import com.deepak.registrationservice.controller.AppointmentController;
+import com.deepak.registrationservice.exception.InvalidRequestException;
 import com.deepak.registrationservice.model.appointment.AppointmentDetails;
+import com.deepak.registrationservice.model.appointment.BulkCancelRequest;
 import com.deepak.registrationservice.model.appointment.enums.AppointmentFor;
 import com.deepak.registrationservice.model.appointment.enums.AppointmentType;
 import com.deepak.registrationservice.model.appointment.enums.Symptom;
 import com.deepak.registrationservice.repository.AppointmentRepository;
+import com.deepak.registrationservice.service.AppointmentService;
+import com.deepak.registrationservice.service.ResourceVersions;
 import java.time.LocalDateTime;
+import java.util.stream.IntStream;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Pageable;
+import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
 
 @ExtendWith(MockitoExtension.class)
 public class AppointmentControllerTests {
 
   @Mock private AppointmentRepository appointmentRepository;
 
+  @Mock private AppointmentService appointmentService;
+
+  @Mock private ServerWebExchange exchange;
+
+  @Spy private ResourceVersions resourceVersions = new ResourceVersions(true, 16);
+
   @InjectMocks private AppointmentController appointmentController;
 
+  @Test
+  public void cancelAppointments_rejectsMoreIdsThanTheCap() {
+    BulkCancelRequest request = new BulkCancelRequest();
+    request.setAppointmentIds(IntStream.rangeClosed(1, 1001).boxed().toList());
+
+    StepVerifier.create(appointmentController.cancelAppointments(request))
+        .verifyError(InvalidRequestException.class);
+    verifyNoInteractions(appointmentService);
+  }
+
+  @Test
+  public void cancelAppointments_rejectsRequestWithoutIdsOrDay() {
+    BulkCancelRequest request = new BulkCancelRequest();
+    request.setDoctorId("DOC001");
+
+    StepVerifier.create(appointmentController.cancelAppointments(request))
+        .verifyError(InvalidRequestException.class);
+    verifyNoInteractions(appointmentService);
+  }
+
   @Test
   public void getAllAppointments_success() {
     AppointmentDetails appointment = new AppointmentDetails();
@@ -46,7 +82,7 @@ public class AppointmentControllerTests {
     when(appointmentRepository.findAllBy(any(Pageable.class))).thenReturn(Flux.just(appointment));
 
     // Call the controller method
-    var result = appointmentController.getAllAppointments(0, 10).collectList().block();
+    var result = appointmentController.getAllAppointments(0, 10, exchange).collectList().block();
 
     assertThat(result).isNotNull();
     assertThat(result).hasSize(1); // Ensure the size is correct
@@ -57,8 +93,18 @@ public class AppointmentControllerTests {
   public void getAppointmentById_notFound() {
     when(this.appointmentRepository.findById(0)).thenReturn(Mono.empty());
 
-    var result = this.appointmentController.getAppointment(0).block();
+    var result = this.appointmentController.getAppointment(0, exchange).block();
+
+    assertThat(result).isNull();
+  }
+
+  @Test
+  public void getAppointmentById_notModified() {
+    when(exchange.checkNotModified(anyString())).thenReturn(true);
+
+    var result = this.appointmentController.getAppointment(0, exchange);
 
     assertThat(result).isNull();
+    verifyNoInteractions(appointmentRepository);
   }
 }
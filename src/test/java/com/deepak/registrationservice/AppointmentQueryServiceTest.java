@@ -0,0 +1,134 @@
+package com.deepak.registrationservice;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.deepak.registrationservice.model.appointment.AppointmentDetails;
+import com.deepak.registrationservice.repository.AppointmentRepository;
+import com.deepak.registrationservice.service.AppointmentQueryService;
+import com.deepak.registrationservice.service.ReadCoalescer;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+public class AppointmentQueryServiceTest {
+
+  private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+  private static final LocalDateTime END = LocalDateTime.of(2024, 1, 31, 23, 59);
+  private static final LocalDateTime NINE = LocalDateTime.of(2024, 1, 2, 9, 0);
+  private static final LocalDateTime TEN = LocalDateTime.of(2024, 1, 2, 10, 0);
+
+  @Mock private AppointmentRepository appointmentRepository;
+  @Mock private R2dbcEntityTemplate r2dbcEntityTemplate;
+  @Mock private ReadCoalescer readCoalescer;
+
+  private AppointmentQueryService appointmentQueryService;
+
+  @BeforeEach
+  public void setUp() {
+    appointmentQueryService =
+        new AppointmentQueryService(appointmentRepository, r2dbcEntityTemplate, readCoalescer, 2);
+  }
+
+  @Test
+  public void streamBetween_seeksEachChunkPastTheLastRowOfThePreviousOne() {
+    AppointmentDetails first = appointment(1, NINE);
+    AppointmentDetails second = appointment(2, NINE);
+    AppointmentDetails third = appointment(3, NINE);
+    when(appointmentRepository.findRangeChunk(START, Integer.MIN_VALUE, END, 2))
+        .thenReturn(Flux.just(first, second));
+    when(appointmentRepository.findRangeChunk(NINE, 2, END, 2)).thenReturn(Flux.just(third));
+
+    StepVerifier.create(appointmentQueryService.streamBetween(START, END, false))
+        .expectNext(first, second, third)
+        .verifyComplete();
+  }
+
+  @Test
+  public void streamBetween_completesEmptyForAnEmptyRange() {
+    when(appointmentRepository.findRangeChunk(START, Integer.MIN_VALUE, END, 2))
+        .thenReturn(Flux.empty());
+
+    StepVerifier.create(appointmentQueryService.streamBetween(START, END, false)).verifyComplete();
+  }
+
+  @Test
+  public void streamBetween_mergesArchivedChunksInOrderAndDropsTheCopyOfAMovedRow() {
+    when(appointmentRepository.findRangeChunk(START, Integer.MIN_VALUE, END, 2))
+        .thenReturn(Flux.just(appointment(1, NINE), appointment(4, TEN)));
+    when(appointmentRepository.findRangeChunk(TEN, 4, END, 2)).thenReturn(Flux.empty());
+    // Row 1 was archived while the hot chunk was being read, so both tables returned it.
+    when(appointmentRepository.findArchivedRangeChunk(START, Integer.MIN_VALUE, END, 2))
+        .thenReturn(Flux.just(appointment(1, NINE), appointment(2, NINE)));
+    when(appointmentRepository.findArchivedRangeChunk(NINE, 2, END, 2))
+        .thenReturn(Flux.just(appointment(3, TEN)));
+
+    List<AppointmentDetails> rows =
+        appointmentQueryService.streamBetween(START, END, true).collectList().block();
+
+    assertThat(rows).extracting(AppointmentDetails::getAppointmentId).containsExactly(1, 2, 3, 4);
+  }
+
+  @Test
+  public void findByUserId_sortsRowsWithoutADateFirst() {
+    when(appointmentRepository.findAllByUserId(eq(7), any(Sort.class)))
+        .thenReturn(Flux.just(appointment(5, null), appointment(6, NINE)));
+    when(appointmentRepository.findArchivedByUserId(7))
+        .thenReturn(Flux.just(appointment(2, null), appointment(3, TEN)));
+
+    List<AppointmentDetails> rows =
+        appointmentQueryService.findByUserId(7, true).collectList().block();
+
+    assertThat(rows).extracting(AppointmentDetails::getAppointmentId).containsExactly(2, 5, 6, 3);
+  }
+
+  @Test
+  public void findByUserId_readsTheArchiveOnlyAfterTheHotQueryHasStarted() {
+    Sinks.Many<AppointmentDetails> hot = Sinks.many().unicast().onBackpressureBuffer();
+    when(appointmentRepository.findAllByUserId(eq(7), any(Sort.class))).thenReturn(hot.asFlux());
+    when(appointmentRepository.findArchivedByUserId(7)).thenReturn(Flux.empty());
+
+    StepVerifier.create(appointmentQueryService.findByUserId(7, true))
+        .then(() -> verify(appointmentRepository, never()).findArchivedByUserId(7))
+        .then(() -> hot.tryEmitNext(appointment(1, NINE)))
+        .then(() -> verify(appointmentRepository).findArchivedByUserId(7))
+        .then(hot::tryEmitComplete)
+        .expectNextMatches(row -> row.getAppointmentId() == 1)
+        .verifyComplete();
+  }
+
+  @Test
+  public void findByUserId_leavesTheArchiveAloneByDefault() {
+    when(appointmentRepository.findAllByUserId(eq(7), any(Sort.class)))
+        .thenReturn(Flux.just(appointment(1, NINE)));
+
+    StepVerifier.create(appointmentQueryService.findByUserId(7, false))
+        .expectNextCount(1)
+        .verifyComplete();
+    verify(appointmentRepository, never()).findArchivedByUserId(any());
+  }
+
+  private static AppointmentDetails appointment(int id, LocalDateTime date) {
+    AppointmentDetails appointment = new AppointmentDetails();
+    appointment.setAppointmentId(id);
+    appointment.setAppointmentDate(date);
+    appointment.setDoctorId("DOC001");
+    appointment.setClinicId(1);
+    appointment.setActive(true);
+    return appointment;
+  }
+}
@@ -0,0 +1,315 @@
+package com.deepak.registrationservice;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.deepak.registrationservice.exception.DuplicateEntryException;
+import com.deepak.registrationservice.exception.InvalidRequestException;
+import com.deepak.registrationservice.exception.SlotIdNotAvailableException;
+import com.deepak.registrationservice.model.appointment.AppointmentDetails;
+import com.deepak.registrationservice.model.appointment.BookingResult;
+import com.deepak.registrationservice.model.appointment.enums.Symptom;
+import com.deepak.registrationservice.repository.AppointmentRepository;
+import com.deepak.registrationservice.repository.QueueManagementRepository;
+import com.deepak.registrationservice.repository.SlotInformationRepository;
+import com.deepak.registrationservice.service.AppointmentChanges;
+import com.deepak.registrationservice.service.AppointmentServiceImpl;
+import com.deepak.registrationservice.service.BatchBookingEngine;
+import com.deepak.registrationservice.service.PipelineMetrics;
+import com.deepak.registrationservice.service.ReservationCoordinator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+public class AppointmentServiceImplTest {
+
+  @Mock private AppointmentRepository appointmentRepository;
+  @Mock private QueueManagementRepository queueManagementRepository;
+  @Mock private SlotInformationRepository slotInformationRepository;
+  @Mock private TransactionalOperator transactionalOperator;
+  @Mock private BatchBookingEngine batchBookingEngine;
+  @Mock private AppointmentChanges appointmentChanges;
+
+  private AppointmentServiceImpl appointmentService;
+
+  @BeforeEach
+  public void setUp() {
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    appointmentService =
+        new AppointmentServiceImpl(
+            appointmentRepository,
+            queueManagementRepository,
+            slotInformationRepository,
+            transactionalOperator,
+            batchBookingEngine,
+            new ReservationCoordinator(meterRegistry, 4, 256, Duration.ofSeconds(2)),
+            appointmentChanges,
+            new PipelineMetrics(meterRegistry));
+    lenient()
+        .when(transactionalOperator.transactional(any(Mono.class)))
+        .thenAnswer(invocation -> invocation.getArgument(0));
+    lenient()
+        .when(appointmentChanges.booked(any()))
+        .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+  }
+
+  @Test
+  public void savedAppointment_claimsSlotAndInsertsAppointmentAndQueueEntryInOneTransaction() {
+    when(slotInformationRepository.claimSlot(1)).thenReturn(Mono.just(1));
+    when(appointmentRepository.save(any(AppointmentDetails.class)))
+        .thenAnswer(
+            invocation -> {
+              AppointmentDetails saved = invocation.getArgument(0);
+              saved.setAppointmentId(101);
+              return Mono.just(saved);
+            });
+    when(queueManagementRepository.insertForSlot(eq(101), eq(1), anyInt(), anyString(), any()))
+        .thenReturn(Mono.just(1));
+
+    StepVerifier.create(appointmentService.savedAppointment(List.of(appointment(1))))
+        .assertNext(saved -> assertThat(saved.get(0).getAppointmentId()).isEqualTo(101))
+        .verifyComplete();
+    verify(transactionalOperator).transactional(any(Mono.class));
+    verify(appointmentChanges).booked(any());
+  }
+
+  @Test
+  public void savedAppointment_rejectsTakenSlotAfterTheClaimAlone() {
+    when(slotInformationRepository.claimSlot(1)).thenReturn(Mono.just(0));
+
+    StepVerifier.create(appointmentService.savedAppointment(List.of(appointment(1))))
+        .verifyError(SlotIdNotAvailableException.class);
+    verify(appointmentRepository, never()).save(any(AppointmentDetails.class));
+    verifyNoInteractions(queueManagementRepository);
+    verify(appointmentChanges).slotTaken(1);
+    verify(appointmentChanges, never()).booked(any());
+  }
+
+  @Test
+  public void savedAppointment_failsTheWholeTransactionWhenTheQueueInsertFails() {
+    AtomicBoolean rolledBack = new AtomicBoolean();
+    when(transactionalOperator.transactional(any(Mono.class)))
+        .thenAnswer(
+            invocation ->
+                invocation.<Mono<?>>getArgument(0).doOnError(error -> rolledBack.set(true)));
+    when(slotInformationRepository.claimSlot(1)).thenReturn(Mono.just(1));
+    when(appointmentRepository.save(any(AppointmentDetails.class)))
+        .thenAnswer(
+            invocation -> {
+              AppointmentDetails saved = invocation.getArgument(0);
+              saved.setAppointmentId(101);
+              return Mono.just(saved);
+            });
+    when(queueManagementRepository.insertForSlot(eq(101), eq(1), anyInt(), anyString(), any()))
+        .thenReturn(Mono.error(new DataIntegrityViolationException("Duplicate entry")));
+
+    StepVerifier.create(appointmentService.savedAppointment(List.of(appointment(1))))
+        .verifyError(DuplicateEntryException.class);
+    // The claim ran inside the transaction that saw the failure, so its rollback frees the slot.
+    assertThat(rolledBack).isTrue();
+    verify(appointmentChanges, never()).booked(any());
+  }
+
+  @Test
+  public void bookAppointments_fallsBackToItemByItemAfterConstraintViolation() {
+    when(batchBookingEngine.book(any()))
+        .thenReturn(Mono.error(new DataIntegrityViolationException("Duplicate entry")));
+    when(slotInformationRepository.claimSlot(1)).thenReturn(Mono.just(1));
+    when(slotInformationRepository.claimSlot(2)).thenReturn(Mono.just(0));
+    when(appointmentRepository.save(any(AppointmentDetails.class)))
+        .thenAnswer(
+            invocation -> {
+              AppointmentDetails saved = invocation.getArgument(0);
+              saved.setAppointmentId(100 + saved.getSlotId());
+              return Mono.just(saved);
+            });
+    when(queueManagementRepository.insertForSlot(eq(101), eq(1), anyInt(), anyString(), any()))
+        .thenReturn(Mono.just(1));
+
+    List<BookingResult> results =
+        appointmentService.bookAppointments(List.of(appointment(1), appointment(2))).block();
+
+    assertThat(results).extracting(BookingResult::isBooked).containsExactly(true, false);
+    assertThat(results.get(0).getAppointment().getAppointmentId()).isEqualTo(101);
+    assertThat(results.get(1).getFailure()).isInstanceOf(SlotIdNotAvailableException.class);
+    verify(appointmentChanges).slotTaken(2);
+  }
+
+  @Test
+  public void savedAppointment_booksListAllOrNothing() {
+    when(batchBookingEngine.bookAll(any()))
+        .thenReturn(Mono.error(new SlotIdNotAvailableException("Slot not available")));
+
+    StepVerifier.create(
+            appointmentService.savedAppointment(List.of(appointment(1), appointment(2))))
+        .verifyError(SlotIdNotAvailableException.class);
+    verify(batchBookingEngine, never()).book(any());
+    verifyNoInteractions(slotInformationRepository, appointmentRepository);
+  }
+
+  @Test
+  public void updateAppointment_reportsTheAppointmentAsItWasBeforeTheMove() {
+    AppointmentDetails existing = appointment(1);
+    existing.setAppointmentId(5);
+    AppointmentDetails update = appointment(2);
+    update.setDoctorId("DOC002");
+    update.setAppointmentDate(LocalDateTime.of(2024, 1, 2, 10, 0));
+    when(appointmentRepository.lockAllById(List.of(5))).thenReturn(Flux.just(existing));
+    when(slotInformationRepository.claimSlot(2)).thenReturn(Mono.just(1));
+    when(slotInformationRepository.releaseSlot(1)).thenReturn(Mono.just(1));
+    when(queueManagementRepository.moveToSlot(5, 2)).thenReturn(Mono.just(1));
+    when(appointmentRepository.save(existing)).thenReturn(Mono.just(existing));
+    ArgumentCaptor<AppointmentDetails> previous = ArgumentCaptor.forClass(AppointmentDetails.class);
+    when(appointmentChanges.rescheduled(previous.capture(), any()))
+        .thenAnswer(invocation -> Mono.just(invocation.getArgument(1)));
+
+    appointmentService.updateAppointment(5, update).block();
+
+    assertThat(previous.getValue().getDoctorId()).isEqualTo("DOC001");
+    assertThat(previous.getValue().getSlotId()).isEqualTo(1);
+    assertThat(previous.getValue().getAppointmentDate())
+        .isEqualTo(LocalDateTime.of(2024, 1, 1, 10, 0));
+    assertThat(existing.getDoctorId()).isEqualTo("DOC002");
+  }
+
+  @Test
+  public void updateAppointment_failsBeforeAnyWriteWhenTheNewSlotIsTaken() {
+    AppointmentDetails existing = appointment(1);
+    existing.setAppointmentId(5);
+    when(appointmentRepository.lockAllById(List.of(5))).thenReturn(Flux.just(existing));
+    when(slotInformationRepository.claimSlot(2)).thenReturn(Mono.just(0));
+
+    StepVerifier.create(appointmentService.updateAppointment(5, appointment(2)))
+        .verifyError(SlotIdNotAvailableException.class);
+    verify(slotInformationRepository, never()).releaseSlot(any());
+    verify(queueManagementRepository, never()).moveToSlot(any(), any());
+    verify(appointmentRepository, never()).save(any(AppointmentDetails.class));
+    verify(appointmentChanges).slotTaken(2);
+  }
+
+  @Test
+  public void updateAppointment_keepsTheSlotWhenItDoesNotChange() {
+    AppointmentDetails existing = appointment(1);
+    existing.setAppointmentId(5);
+    AppointmentDetails update = appointment(1);
+    update.setSymptom(Symptom.FEVER);
+    when(appointmentRepository.lockAllById(List.of(5))).thenReturn(Flux.just(existing));
+    when(appointmentRepository.save(existing)).thenReturn(Mono.just(existing));
+    when(appointmentChanges.rescheduled(any(), any()))
+        .thenAnswer(invocation -> Mono.just(invocation.getArgument(1)));
+
+    AppointmentDetails saved = appointmentService.updateAppointment(5, update).block();
+
+    assertThat(saved.getSymptom()).isEqualTo(Symptom.FEVER);
+    verifyNoInteractions(slotInformationRepository, queueManagementRepository);
+  }
+
+  @Test
+  public void updateAppointment_refusesToMoveACancelledAppointment() {
+    AppointmentDetails cancelled = appointment(1);
+    cancelled.setAppointmentId(5);
+    cancelled.setActive(false);
+    when(appointmentRepository.lockAllById(List.of(5))).thenReturn(Flux.just(cancelled));
+
+    StepVerifier.create(appointmentService.updateAppointment(5, appointment(2)))
+        .verifyError(InvalidRequestException.class);
+    verifyNoInteractions(slotInformationRepository, queueManagementRepository);
+    verify(appointmentRepository, never()).save(any(AppointmentDetails.class));
+  }
+
+  @Test
+  public void updateAppointment_doesNotReactivateACancelledAppointment() {
+    AppointmentDetails cancelled = appointment(1);
+    cancelled.setAppointmentId(5);
+    cancelled.setActive(false);
+    when(appointmentRepository.lockAllById(List.of(5))).thenReturn(Flux.just(cancelled));
+    when(appointmentRepository.save(cancelled)).thenReturn(Mono.just(cancelled));
+    when(appointmentChanges.rescheduled(any(), any()))
+        .thenAnswer(invocation -> Mono.just(invocation.getArgument(1)));
+
+    AppointmentDetails saved = appointmentService.updateAppointment(5, appointment(1)).block();
+
+    assertThat(saved.isActive()).isFalse();
+    verifyNoInteractions(slotInformationRepository, queueManagementRepository);
+  }
+
+  @Test
+  public void cancelAppointments_cancelsLockedAppointmentsAndQueueEntriesWithOneStatementEach() {
+    AppointmentDetails first = appointment(1);
+    first.setAppointmentId(5);
+    AppointmentDetails second = appointment(2);
+    second.setAppointmentId(6);
+    when(appointmentRepository.lockActiveById(List.of(5, 6, 7)))
+        .thenReturn(Flux.just(first, second));
+    when(appointmentRepository.cancelAllById(List.of(5, 6))).thenReturn(Mono.just(2));
+    when(queueManagementRepository.deleteAllByAppointmentIds(List.of(5, 6)))
+        .thenReturn(Mono.just(2));
+
+    StepVerifier.create(appointmentService.cancelAppointments(List.of(5, 6, 7)))
+        .expectNext(List.of(5, 6))
+        .verifyComplete();
+    verify(appointmentChanges).cancelled(first);
+    verify(appointmentChanges).cancelled(second);
+  }
+
+  @Test
+  public void cancelAppointments_leavesAlreadyCancelledAppointmentsAndTheirSlotsAlone() {
+    when(appointmentRepository.lockActiveById(List.of(5))).thenReturn(Flux.empty());
+
+    StepVerifier.create(appointmentService.cancelAppointments(List.of(5)))
+        .expectNext(List.of())
+        .verifyComplete();
+    verify(appointmentRepository, never()).cancelAllById(any());
+    verify(queueManagementRepository, never()).deleteAllByAppointmentIds(any());
+    verify(appointmentChanges, never()).cancelled(any());
+  }
+
+  @Test
+  public void deleteAppointment_freesTheSlotOnlyThroughTheActiveAppointmentStatement() {
+    AppointmentDetails cancelled = appointment(1);
+    cancelled.setAppointmentId(5);
+    cancelled.setActive(false);
+    when(appointmentRepository.lockAllById(List.of(5))).thenReturn(Flux.just(cancelled));
+    when(slotInformationRepository.releaseSlotsOfActiveAppointments(List.of(5)))
+        .thenReturn(Mono.just(0));
+    when(appointmentRepository.deleteAllWithQueueEntriesById(List.of(5)))
+        .thenReturn(Mono.just(1));
+
+    StepVerifier.create(appointmentService.deleteAppointment(5)).verifyComplete();
+    verify(slotInformationRepository, never()).releaseSlot(any());
+    verify(appointmentChanges).deleted(cancelled);
+  }
+
+  private static AppointmentDetails appointment(int slotId) {
+    AppointmentDetails appointment = new AppointmentDetails();
+    appointment.setUserId(1);
+    appointment.setSlotId(slotId);
+    appointment.setDoctorId("DOC001");
+    appointment.setClinicId(1);
+    appointment.setAppointmentDate(LocalDateTime.of(2024, 1, 1, 10, 0));
+    appointment.setActive(true);
+    return appointment;
+  }
+}
@@ -0,0 +1,98 @@
+package com.deepak.registrationservice;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.deepak.registrationservice.model.appointment.AppointmentDetails;
+import com.deepak.registrationservice.model.appointment.AppointmentStats;
+import com.deepak.registrationservice.model.appointment.enums.AppointmentType;
+import com.deepak.registrationservice.model.appointment.enums.Symptom;
+import com.deepak.registrationservice.repository.AppointmentRepository;
+import com.deepak.registrationservice.service.AppointmentStatsService;
+import com.deepak.registrationservice.service.ReadCoalescer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.LocalDate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+
+@ExtendWith(MockitoExtension.class)
+public class AppointmentStatsServiceTest {
+
+  private static final LocalDate TODAY = LocalDate.now();
+
+  @Mock private AppointmentRepository appointmentRepository;
+
+  private AppointmentStatsService appointmentStatsService;
+
+  @BeforeEach
+  public void setUp() {
+    appointmentStatsService =
+        new AppointmentStatsService(
+            appointmentRepository,
+            new ReadCoalescer(new SimpleMeterRegistry(), Duration.ZERO),
+            Duration.ofMinutes(15));
+    when(appointmentRepository.countGroupedBetween(any(), any(), isNull(), isNull()))
+        .thenReturn(
+            Flux.just(
+                new AppointmentStats(
+                    1, "DOC001", TODAY, AppointmentType.GENERAL_CHECKUP, Symptom.HEADACHE, 3, 1)));
+  }
+
+  @Test
+  public void getStats_countsCurrentDayOnceAndThenFromMemory() {
+    appointmentStatsService.getStats(TODAY, TODAY, null, null).collectList().block();
+
+    AppointmentDetails booked = appointment(true);
+    appointmentStatsService.added(booked);
+    appointmentStatsService.added(appointment(true));
+    appointmentStatsService.cancelled(booked);
+
+    var stats = appointmentStatsService.getStats(TODAY, TODAY, 1, "DOC001").collectList().block();
+
+    assertThat(stats).hasSize(1);
+    assertThat(stats.get(0).getBooked()).isEqualTo(4);
+    assertThat(stats.get(0).getCancelled()).isEqualTo(2);
+    verify(appointmentRepository, times(1)).countGroupedBetween(any(), any(), isNull(), isNull());
+  }
+
+  @Test
+  public void removed_uncountsAppointmentInItsState() {
+    appointmentStatsService.getStats(TODAY, TODAY, null, null).collectList().block();
+
+    appointmentStatsService.removed(appointment(true));
+    appointmentStatsService.removed(appointment(false));
+
+    var stats = appointmentStatsService.getStats(TODAY, TODAY, null, null).collectList().block();
+
+    assertThat(stats.get(0).getBooked()).isEqualTo(2);
+    assertThat(stats.get(0).getCancelled()).isZero();
+  }
+
+  @Test
+  public void getStats_filtersCurrentDayByDoctor() {
+    var stats =
+        appointmentStatsService.getStats(TODAY, TODAY, null, "DOC002").collectList().block();
+
+    assertThat(stats).isEmpty();
+  }
+
+  private static AppointmentDetails appointment(boolean active) {
+    AppointmentDetails appointment = new AppointmentDetails();
+    appointment.setClinicId(1);
+    appointment.setDoctorId("DOC001");
+    appointment.setAppointmentDate(TODAY.atTime(10, 0));
+    appointment.setAppointmentType(AppointmentType.GENERAL_CHECKUP);
+    appointment.setSymptom(Symptom.HEADACHE);
+    appointment.setActive(active);
+    return appointment;
+  }
+}
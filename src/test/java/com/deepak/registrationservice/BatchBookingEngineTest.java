@@ -0,0 +1,224 @@
+package com.deepak.registrationservice;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.deepak.registrationservice.exception.DuplicateEntryException;
+import com.deepak.registrationservice.exception.SlotIdNotAvailableException;
+import com.deepak.registrationservice.model.appointment.AppointmentDetails;
+import com.deepak.registrationservice.model.appointment.BookingResult;
+import com.deepak.registrationservice.model.appointment.SlotInformation;
+import com.deepak.registrationservice.repository.SlotInformationRepository;
+import com.deepak.registrationservice.service.BatchBookingEngine;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.FetchSpec;
+import org.springframework.r2dbc.core.RowsFetchSpec;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+public class BatchBookingEngineTest {
+
+  @Mock private SlotInformationRepository slotInformationRepository;
+  @Mock private DatabaseClient databaseClient;
+  @Mock private TransactionalOperator transactionalOperator;
+
+  @Mock(answer = Answers.RETURNS_SELF)
+  private DatabaseClient.GenericExecuteSpec appointmentInsert;
+
+  @Mock private FetchSpec<Map<String, Object>> appointmentInsertResult;
+
+  @Mock(answer = Answers.RETURNS_SELF)
+  private DatabaseClient.GenericExecuteSpec insertedIds;
+
+  @Mock private RowsFetchSpec<Map.Entry<Integer, Integer>> insertedIdsResult;
+
+  @Mock(answer = Answers.RETURNS_SELF)
+  private DatabaseClient.GenericExecuteSpec queueInsert;
+
+  @Mock private FetchSpec<Map<String, Object>> queueInsertResult;
+
+  private BatchBookingEngine batchBookingEngine;
+
+  @BeforeEach
+  public void setUp() {
+    batchBookingEngine =
+        new BatchBookingEngine(slotInformationRepository, databaseClient, transactionalOperator);
+    lenient()
+        .when(transactionalOperator.transactional(any(Mono.class)))
+        .thenAnswer(invocation -> invocation.getArgument(0));
+  }
+
+  @Test
+  public void book_skipsTakenAndDuplicateSlotsAndInsertsEachTableInOneStatement() {
+    when(slotInformationRepository.lockAllById(Set.of(1, 2, 3)))
+        .thenReturn(Flux.just(slot(1, 1, true), slot(2, 2, false), slot(3, 3, true)));
+    when(slotInformationRepository.claimSlots(Set.of(1, 3))).thenReturn(Mono.just(2));
+    givenInsertedIds(Map.of(1, 101, 3, 103));
+    ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+    when(databaseClient.sql(startsWith("INSERT INTO queue_management"))).thenReturn(queueInsert);
+    when(queueInsert.fetch()).thenReturn(queueInsertResult);
+    when(queueInsertResult.rowsUpdated()).thenReturn(Mono.just(2L));
+
+    List<BookingResult> results =
+        batchBookingEngine
+            .book(List.of(appointment(1), appointment(2), appointment(1), appointment(3)))
+            .block();
+
+    assertThat(results)
+        .extracting(BookingResult::isBooked)
+        .containsExactly(true, false, false, true);
+    assertThat(results.get(0).getAppointment().getAppointmentId()).isEqualTo(101);
+    assertThat(results.get(1).getFailure()).isInstanceOf(SlotIdNotAvailableException.class);
+    assertThat(results.get(2).getFailure()).isInstanceOf(DuplicateEntryException.class);
+    assertThat(results.get(3).getAppointment().getAppointmentId()).isEqualTo(103);
+    verify(databaseClient, times(3)).sql(sql.capture());
+    assertThat(sql.getAllValues().get(0)).startsWith("INSERT INTO appointments");
+    assertThat(sql.getAllValues().get(0).split("\\(\\?", -1)).hasSize(3);
+    assertThat(sql.getAllValues().get(2).split("\\(\\?", -1)).hasSize(3);
+    verify(appointmentInsert).bind(8, 1);
+    verify(appointmentInsert).bind(20, 3);
+    verify(insertedIds).bind("slotIds", List.of(1, 3));
+    verify(queueInsert).bind(0, 101);
+    verify(queueInsert).bind(7, 103);
+  }
+
+  @Test
+  public void book_failsWhenAnotherBookingClaimedALockedSlot() {
+    when(slotInformationRepository.lockAllById(Set.of(1, 2)))
+        .thenReturn(Flux.just(slot(1, 1, true), slot(2, 2, true)));
+    when(slotInformationRepository.claimSlots(Set.of(1, 2))).thenReturn(Mono.just(1));
+
+    StepVerifier.create(batchBookingEngine.book(List.of(appointment(1), appointment(2))))
+        .verifyError(IllegalStateException.class);
+    verify(databaseClient, never()).sql(anyString());
+  }
+
+  @Test
+  public void book_propagatesConstraintViolationsForTheItemByItemFallback() {
+    when(slotInformationRepository.lockAllById(Set.of(1, 2)))
+        .thenReturn(Flux.just(slot(1, 1, true), slot(2, 2, true)));
+    when(slotInformationRepository.claimSlots(Set.of(1, 2))).thenReturn(Mono.just(2));
+    givenInsertFails();
+
+    StepVerifier.create(batchBookingEngine.book(List.of(appointment(1), appointment(2))))
+        .verifyError(DataIntegrityViolationException.class);
+    verify(databaseClient, never()).sql(startsWith("SELECT"));
+    verify(databaseClient, never()).sql(startsWith("INSERT INTO queue_management"));
+  }
+
+  @Test
+  public void bookAll_failsWholeBatchWhenOneSlotIsTaken() {
+    when(slotInformationRepository.lockAllById(Set.of(1, 2)))
+        .thenReturn(Flux.just(slot(1, 1, true), slot(2, 2, false)));
+
+    StepVerifier.create(batchBookingEngine.bookAll(List.of(appointment(1), appointment(2))))
+        .verifyError(SlotIdNotAvailableException.class);
+    verify(slotInformationRepository, never()).claimSlots(any());
+  }
+
+  @Test
+  public void bookAll_rejectsDuplicateSlotsBeforeAnyStatement() {
+    StepVerifier.create(batchBookingEngine.bookAll(List.of(appointment(1), appointment(1))))
+        .verifyError(DuplicateEntryException.class);
+    verify(slotInformationRepository, never()).lockAllById(any());
+  }
+
+  @Test
+  public void bookAll_reportsConstraintViolationAsDuplicate() {
+    when(slotInformationRepository.lockAllById(Set.of(1, 2)))
+        .thenReturn(Flux.just(slot(1, 1, true), slot(2, 2, true)));
+    when(slotInformationRepository.claimSlots(Set.of(1, 2))).thenReturn(Mono.just(2));
+    givenInsertFails();
+
+    StepVerifier.create(batchBookingEngine.bookAll(List.of(appointment(1), appointment(2))))
+        .verifyError(DuplicateEntryException.class);
+  }
+
+  @SuppressWarnings("unchecked")
+  private void givenInsertedIds(Map<Integer, Integer> idBySlotId) {
+    givenInsert();
+    when(appointmentInsertResult.rowsUpdated()).thenReturn(Mono.just((long) idBySlotId.size()));
+    when(databaseClient.sql(startsWith("SELECT"))).thenReturn(insertedIds);
+    List<Row> rows =
+        idBySlotId.entrySet().stream()
+            .map(
+                entry -> {
+                  Row row = mock(Row.class);
+                  when(row.get("slot_id")).thenReturn(entry.getKey());
+                  when(row.get("appointment_id")).thenReturn((long) entry.getValue());
+                  return row;
+                })
+            .toList();
+    AtomicReference<BiFunction<Row, RowMetadata, Map.Entry<Integer, Integer>>> mapper =
+        new AtomicReference<>();
+    when(insertedIds.map(any(BiFunction.class)))
+        .thenAnswer(
+            invocation -> {
+              mapper.set(invocation.getArgument(0));
+              return insertedIdsResult;
+            });
+    when(insertedIdsResult.all())
+        .thenAnswer(
+            invocation -> Flux.fromIterable(rows).map(row -> mapper.get().apply(row, null)));
+  }
+
+  private void givenInsertFails() {
+    givenInsert();
+    when(appointmentInsertResult.rowsUpdated())
+        .thenReturn(Mono.error(new DataIntegrityViolationException("Duplicate entry")));
+  }
+
+  private void givenInsert() {
+    when(databaseClient.sql(startsWith("INSERT INTO appointments"))).thenReturn(appointmentInsert);
+    when(appointmentInsert.fetch()).thenReturn(appointmentInsertResult);
+  }
+
+  private static AppointmentDetails appointment(int slotId) {
+    AppointmentDetails appointment = new AppointmentDetails();
+    appointment.setUserId(1);
+    appointment.setSlotId(slotId);
+    appointment.setDoctorId("DOC001");
+    appointment.setClinicId(1);
+    appointment.setAppointmentDate(LocalDateTime.of(2024, 1, 1, 10, 0));
+    appointment.setActive(true);
+    return appointment;
+  }
+
+  private static SlotInformation slot(int slotId, int slotNo, boolean available) {
+    SlotInformation slot = new SlotInformation();
+    slot.setSlotId(slotId);
+    slot.setSlotNo(slotNo);
+    slot.setDoctorId("DOC001");
+    slot.setClinicId("1");
+    slot.setSlotDate("2024-01-01");
+    slot.setIsAvailable(available);
+    return slot;
+  }
+}
@@ -0,0 +1,42 @@
+package com.deepak.registrationservice;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.deepak.registrationservice.exception.InvalidRequestException;
+import com.deepak.registrationservice.pagination.CursorPage;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+public class CursorPageTest {
+
+  @Test
+  public void of_dropsExtraRowAndPointsCursorAtLastItem() {
+    CursorPage<Integer> page = CursorPage.of(Flux.just(1, 2, 3), 2, String::valueOf).block();
+
+    assertThat(page.getItems()).containsExactly(1, 2);
+    assertThat(page.getNextCursor()).isEqualTo("2");
+  }
+
+  @Test
+  public void of_hasNoCursorOnLastPage() {
+    CursorPage<Integer> full = CursorPage.of(Flux.just(1, 2), 2, String::valueOf).block();
+    CursorPage<Integer> empty = CursorPage.of(Flux.<Integer>empty(), 2, String::valueOf).block();
+
+    assertThat(full.getItems()).containsExactly(1, 2);
+    assertThat(full.getNextCursor()).isNull();
+    assertThat(empty.getItems()).isEmpty();
+    assertThat(empty.getNextCursor()).isNull();
+  }
+
+  @Test
+  public void checkSize_rejectsSizesOutsideTheAllowedRange() {
+    assertThat(CursorPage.checkSize(1)).isEqualTo(1);
+    assertThat(CursorPage.checkSize(CursorPage.MAX_SIZE)).isEqualTo(CursorPage.MAX_SIZE);
+    assertThatThrownBy(() -> CursorPage.checkSize(0)).isInstanceOf(InvalidRequestException.class);
+    assertThatThrownBy(() -> CursorPage.checkSize(CursorPage.MAX_SIZE + 1))
+        .isInstanceOf(InvalidRequestException.class);
+    assertThatThrownBy(() -> CursorPage.of(Flux.just(1), -1, String::valueOf))
+        .isInstanceOf(InvalidRequestException.class);
+  }
+}
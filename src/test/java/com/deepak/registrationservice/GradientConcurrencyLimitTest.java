@@ -0,0 +1,61 @@
+package com.deepak.registrationservice;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.deepak.registrationservice.config.GradientConcurrencyLimit;
+import org.junit.jupiter.api.Test;
+
+public class GradientConcurrencyLimitTest {
+
+  private static final long MILLIS = 1_000_000L;
+
+  @Test
+  public void tryAcquire_refusesRequestsBeyondTheLimit() {
+    GradientConcurrencyLimit limit = new GradientConcurrencyLimit(2, 1, 10);
+
+    assertThat(limit.tryAcquire()).isTrue();
+    assertThat(limit.tryAcquire()).isTrue();
+    assertThat(limit.tryAcquire()).isFalse();
+
+    limit.release();
+
+    assertThat(limit.tryAcquire()).isTrue();
+    assertThat(limit.getInFlight()).isEqualTo(2);
+  }
+
+  @Test
+  public void release_growsLimitWhileLatencyIsSteadyAndShrinksItWhenLatencyRises() {
+    GradientConcurrencyLimit limit = new GradientConcurrencyLimit(10, 2, 100);
+    runFullyLoaded(limit, 50, 10 * MILLIS);
+    int grown = limit.getLimit();
+
+    runFullyLoaded(limit, 20, 200 * MILLIS);
+
+    assertThat(grown).isGreaterThan(10);
+    assertThat(limit.getLimit()).isLessThan(grown);
+  }
+
+  @Test
+  public void release_keepsLimitWhileMostlyIdle() {
+    GradientConcurrencyLimit limit = new GradientConcurrencyLimit(10, 2, 100);
+
+    for (int i = 0; i < 50; i++) {
+      limit.tryAcquire();
+      limit.release(10 * MILLIS);
+    }
+
+    assertThat(limit.getLimit()).isEqualTo(10);
+  }
+
+  private static void runFullyLoaded(GradientConcurrencyLimit limit, int rounds, long rttNanos) {
+    for (int round = 0; round < rounds; round++) {
+      int admitted = 0;
+      while (limit.tryAcquire()) {
+        admitted++;
+      }
+      for (int i = 0; i < admitted; i++) {
+        limit.release(rttNanos);
+      }
+    }
+  }
+}
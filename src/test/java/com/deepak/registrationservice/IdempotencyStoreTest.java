@@ -0,0 +1,163 @@
+package com.deepak.registrationservice;
+
+import static java.util.stream.Collectors.joining;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.deepak.registrationservice.exception.IdempotencyKeyReusedException;
+import com.deepak.registrationservice.exception.InvalidRequestException;
+import com.deepak.registrationservice.model.idempotency.IdempotencyRecord;
+import com.deepak.registrationservice.repository.IdempotencyRecordRepository;
+import com.deepak.registrationservice.service.IdempotencyStore;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+
+@ExtendWith(MockitoExtension.class)
+public class IdempotencyStoreTest {
+
+  private static final TypeReference<String> STRING = new TypeReference<>() {};
+  private static final String SCOPE = "appointments:1";
+  private static final String KEY = sha256(SCOPE + ":k");
+
+  @Mock private IdempotencyRecordRepository idempotencyRecordRepository;
+
+  private IdempotencyStore idempotencyStore;
+
+  @BeforeEach
+  public void setUp() {
+    idempotencyStore =
+        new IdempotencyStore(
+            idempotencyRecordRepository, new ObjectMapper(), 100, Duration.ofHours(24));
+  }
+
+  @Test
+  public void execute_replaysResponseForSameBody() {
+    when(idempotencyRecordRepository.findFresh(eq(KEY), any())).thenReturn(Mono.empty());
+    when(idempotencyRecordRepository.upsert(eq(KEY), anyString(), anyString(), any()))
+        .thenReturn(Mono.just(1));
+    AtomicInteger runs = new AtomicInteger();
+
+    String first = book(List.of(1), runs).block();
+    String second = book(List.of(1), runs).block();
+
+    assertThat(first).isEqualTo("booked-1");
+    assertThat(second).isEqualTo("booked-1");
+    assertThat(runs).hasValue(1);
+  }
+
+  @Test
+  public void execute_rejectsKeyReusedForDifferentBody() {
+    when(idempotencyRecordRepository.findFresh(eq(KEY), any())).thenReturn(Mono.empty());
+    when(idempotencyRecordRepository.upsert(eq(KEY), anyString(), anyString(), any()))
+        .thenReturn(Mono.just(1));
+    AtomicInteger runs = new AtomicInteger();
+
+    book(List.of(1), runs).block();
+    Mono<String> reused = book(List.of(2), runs);
+
+    assertThatThrownBy(reused::block).isInstanceOf(IdempotencyKeyReusedException.class);
+    assertThat(runs).hasValue(1);
+  }
+
+  @Test
+  public void execute_rejectsStoredRecordWithDifferentHash() {
+    IdempotencyRecord stored = new IdempotencyRecord();
+    stored.setIdempotencyKey(KEY);
+    stored.setRequestHash("0".repeat(64));
+    stored.setResponse("\"booked-0\"");
+    stored.setCreatedAt(LocalDateTime.now());
+    when(idempotencyRecordRepository.findFresh(eq(KEY), any())).thenReturn(Mono.just(stored));
+
+    Mono<String> reused =
+        idempotencyStore.execute(SCOPE, "k", List.of(1), STRING, () -> Mono.just("booked-1"));
+
+    assertThatThrownBy(reused::block).isInstanceOf(IdempotencyKeyReusedException.class);
+    verify(idempotencyRecordRepository, never()).upsert(any(), any(), any(), any());
+  }
+
+  @Test
+  public void execute_replaysStoredRecordWithoutHash() {
+    IdempotencyRecord stored = new IdempotencyRecord();
+    stored.setIdempotencyKey(KEY);
+    stored.setResponse("\"booked-0\"");
+    stored.setCreatedAt(LocalDateTime.now());
+    when(idempotencyRecordRepository.findFresh(eq(KEY), any())).thenReturn(Mono.just(stored));
+
+    String response =
+        idempotencyStore
+            .execute(SCOPE, "k", List.of(1), STRING, () -> Mono.just("booked-1"))
+            .block();
+
+    assertThat(response).isEqualTo("booked-0");
+  }
+
+  @Test
+  public void execute_storesScopeAndKeyAsOneHashThatFitsTheKeyColumn() {
+    String scope =
+        "appointments:"
+            + IntStream.rangeClosed(1, 500).mapToObj(String::valueOf).collect(joining(","));
+    String key = sha256(scope + ":k");
+    when(idempotencyRecordRepository.findFresh(eq(key), any())).thenReturn(Mono.empty());
+    when(idempotencyRecordRepository.upsert(eq(key), anyString(), anyString(), any()))
+        .thenReturn(Mono.just(1));
+
+    idempotencyStore.execute(scope, "k", List.of(1), STRING, () -> Mono.just("booked-1")).block();
+
+    assertThat(key).hasSize(64);
+    verify(idempotencyRecordRepository).upsert(eq(key), anyString(), anyString(), any());
+  }
+
+  @Test
+  public void execute_rejectsKeysLongerThanTheMaximumBeforeRunning() {
+    AtomicInteger runs = new AtomicInteger();
+
+    Mono<String> tooLong =
+        idempotencyStore.execute(
+            SCOPE,
+            "k".repeat(IdempotencyStore.MAX_KEY_LENGTH + 1),
+            List.of(1),
+            STRING,
+            () -> Mono.just("booked-" + runs.incrementAndGet()));
+
+    assertThatThrownBy(tooLong::block).isInstanceOf(InvalidRequestException.class);
+    assertThat(runs).hasValue(0);
+    verifyNoInteractions(idempotencyRecordRepository);
+  }
+
+  private Mono<String> book(List<Integer> body, AtomicInteger runs) {
+    return idempotencyStore.execute(
+        SCOPE, "k", body, STRING, () -> Mono.just("booked-" + runs.incrementAndGet()));
+  }
+
+  private static String sha256(String value) {
+    try {
+      return HexFormat.of()
+          .formatHex(
+              MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,289 @@
+package com.deepak.registrationservice;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.deepak.registrationservice.exception.DuplicateEntryException;
+import com.deepak.registrationservice.exception.InvalidRequestException;
+import com.deepak.registrationservice.exception.SlotIdNotAvailableException;
+import com.deepak.registrationservice.model.appointment.AppointmentDetails;
+import com.deepak.registrationservice.model.appointment.BookingResult;
+import com.deepak.registrationservice.service.AppointmentChanges;
+import com.deepak.registrationservice.service.JdbcAppointmentService;
+import com.deepak.registrationservice.service.PipelineMetrics;
+import com.deepak.registrationservice.service.ReservationCoordinator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+public class JdbcAppointmentServiceTest {
+
+  private static final String LOCK_SLOTS = "SELECT slot_id FROM slot_information";
+  private static final String CLAIM_SLOT = "UPDATE slot_information SET is_available = false";
+  private static final String RELEASE_SLOT = "UPDATE slot_information SET is_available = true";
+  private static final String INSERT_APPOINTMENT = "INSERT INTO appointments";
+  private static final String INSERT_QUEUE = "INSERT INTO queue_management";
+  private static final String LOCK_APPOINTMENT = "SELECT * FROM appointments";
+  private static final String MOVE_QUEUE_ENTRY = "UPDATE queue_management";
+
+  @Mock private NamedParameterJdbcTemplate jdbcTemplate;
+  @Mock private TransactionTemplate transactionTemplate;
+  @Mock private AppointmentChanges appointmentChanges;
+
+  private JdbcAppointmentService appointmentService;
+
+  @BeforeEach
+  public void setUp() {
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    appointmentService =
+        new JdbcAppointmentService(
+            jdbcTemplate,
+            transactionTemplate,
+            Schedulers.immediate(),
+            new ReservationCoordinator(meterRegistry, 4, 256, Duration.ofSeconds(2)),
+            appointmentChanges,
+            new PipelineMetrics(meterRegistry));
+    lenient()
+        .when(transactionTemplate.execute(any()))
+        .thenAnswer(
+            invocation ->
+                invocation
+                    .<TransactionCallback<?>>getArgument(0)
+                    .doInTransaction(mock(TransactionStatus.class)));
+    lenient()
+        .when(appointmentChanges.booked(any()))
+        .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+  }
+
+  @Test
+  public void savedAppointment_locksEverySlotThenBooksTheListInOneTransaction() {
+    when(jdbcTemplate.queryForList(startsWith(LOCK_SLOTS), anyMap(), eq(Integer.class)))
+        .thenReturn(List.of(1, 2));
+    when(jdbcTemplate.update(startsWith(CLAIM_SLOT), anyMap())).thenReturn(2);
+    givenInsertedAppointments();
+    givenInsertedQueueEntries();
+
+    List<AppointmentDetails> saved =
+        appointmentService.savedAppointment(List.of(appointment(1), appointment(2))).block();
+
+    assertThat(saved).extracting(AppointmentDetails::getAppointmentId).containsExactly(101, 102);
+    verify(transactionTemplate).execute(any());
+    InOrder order = inOrder(jdbcTemplate);
+    order.verify(jdbcTemplate).queryForList(startsWith(LOCK_SLOTS), anyMap(), eq(Integer.class));
+    order.verify(jdbcTemplate).update(startsWith(CLAIM_SLOT), anyMap());
+    order
+        .verify(jdbcTemplate)
+        .batchUpdate(
+            startsWith(INSERT_APPOINTMENT),
+            any(SqlParameterSource[].class),
+            any(KeyHolder.class),
+            any(String[].class));
+    order
+        .verify(jdbcTemplate)
+        .batchUpdate(startsWith(INSERT_QUEUE), any(SqlParameterSource[].class));
+    verify(appointmentChanges, times(2)).booked(any());
+  }
+
+  @Test
+  public void savedAppointment_failsBeforeAnyWriteWhenOneSlotIsTaken() {
+    when(jdbcTemplate.queryForList(startsWith(LOCK_SLOTS), anyMap(), eq(Integer.class)))
+        .thenReturn(List.of(1));
+
+    StepVerifier.create(
+            appointmentService.savedAppointment(List.of(appointment(1), appointment(2))))
+        .verifyError(SlotIdNotAvailableException.class);
+    verify(jdbcTemplate, never()).update(anyString(), anyMap());
+    verify(jdbcTemplate, never()).update(anyString(), any(SqlParameterSource.class));
+    verify(appointmentChanges, never()).booked(any());
+  }
+
+  @Test
+  public void savedAppointment_rejectsASlotRequestedTwiceBeforeAnyStatement() {
+    StepVerifier.create(
+            appointmentService.savedAppointment(List.of(appointment(1), appointment(1))))
+        .verifyError(DuplicateEntryException.class);
+    verifyNoInteractions(jdbcTemplate);
+  }
+
+  @Test
+  public void savedAppointment_failsTheWholeListOnAConstraintViolation() {
+    when(jdbcTemplate.queryForList(startsWith(LOCK_SLOTS), anyMap(), eq(Integer.class)))
+        .thenReturn(List.of(1, 2));
+    when(jdbcTemplate.update(startsWith(CLAIM_SLOT), anyMap())).thenReturn(2);
+    givenInsertedAppointments();
+    when(jdbcTemplate.batchUpdate(startsWith(INSERT_QUEUE), any(SqlParameterSource[].class)))
+        .thenThrow(new DataIntegrityViolationException("duplicate"));
+
+    StepVerifier.create(
+            appointmentService.savedAppointment(List.of(appointment(1), appointment(2))))
+        .verifyError(DuplicateEntryException.class);
+    verify(appointmentChanges, never()).booked(any());
+  }
+
+  @Test
+  public void bookAppointments_booksTheFreeSlotsAndReportsTakenOnesInOneTransaction() {
+    when(jdbcTemplate.queryForList(startsWith(LOCK_SLOTS), anyMap(), eq(Integer.class)))
+        .thenReturn(List.of(1, 3));
+    when(jdbcTemplate.update(startsWith(CLAIM_SLOT), eq(Map.of("slotIds", Set.of(1, 3)))))
+        .thenReturn(2);
+    givenInsertedAppointments();
+    givenInsertedQueueEntries();
+
+    List<BookingResult> results =
+        appointmentService
+            .bookAppointments(List.of(appointment(1), appointment(2), appointment(3)))
+            .block();
+
+    assertThat(results).extracting(BookingResult::isBooked).containsExactly(true, false, true);
+    assertThat(results.get(0).getAppointment().getAppointmentId()).isEqualTo(101);
+    assertThat(results.get(1).getFailure()).isInstanceOf(SlotIdNotAvailableException.class);
+    assertThat(results.get(2).getAppointment().getAppointmentId()).isEqualTo(102);
+    verify(transactionTemplate).execute(any());
+    verify(appointmentChanges).slotTaken(2);
+    verify(appointmentChanges, times(2)).booked(any());
+  }
+
+  @Test
+  public void bookAppointments_fallsBackToOneItemAtATimeOnAConstraintViolation() {
+    when(jdbcTemplate.queryForList(startsWith(LOCK_SLOTS), anyMap(), eq(Integer.class)))
+        .thenReturn(List.of(1, 2));
+    when(jdbcTemplate.update(startsWith(CLAIM_SLOT), anyMap())).thenReturn(2, 1, 1);
+    // The batch insert and the second item's own insert violate a constraint.
+    AtomicInteger inserts = new AtomicInteger();
+    when(jdbcTemplate.batchUpdate(
+            startsWith(INSERT_APPOINTMENT),
+            any(SqlParameterSource[].class),
+            any(KeyHolder.class),
+            any(String[].class)))
+        .thenAnswer(
+            invocation -> {
+              if (inserts.incrementAndGet() != 2) {
+                throw new DataIntegrityViolationException("duplicate");
+              }
+              GeneratedKeyHolder keyHolder = invocation.getArgument(2);
+              keyHolder.getKeyList().add(Map.of("appointment_id", 101));
+              return new int[] {1};
+            });
+    givenInsertedQueueEntries();
+
+    List<BookingResult> results =
+        appointmentService.bookAppointments(List.of(appointment(1), appointment(2))).block();
+
+    assertThat(results).extracting(BookingResult::isBooked).containsExactly(true, false);
+    assertThat(results.get(0).getAppointment().getAppointmentId()).isEqualTo(101);
+    assertThat(results.get(1).getFailure()).isInstanceOf(DuplicateEntryException.class);
+    verify(transactionTemplate, times(3)).execute(any());
+    verify(appointmentChanges).booked(any());
+  }
+
+  @Test
+  public void updateAppointment_claimsTheNewSlotAndReleasesTheOldOne() {
+    AppointmentDetails existing = appointment(1);
+    existing.setAppointmentId(5);
+    givenLocked(existing);
+    when(jdbcTemplate.update(startsWith(CLAIM_SLOT), anyMap())).thenReturn(1);
+    when(jdbcTemplate.update(startsWith(RELEASE_SLOT), anyMap())).thenReturn(1);
+    when(jdbcTemplate.update(startsWith(MOVE_QUEUE_ENTRY), anyMap())).thenReturn(1);
+    when(appointmentChanges.rescheduled(any(), any()))
+        .thenAnswer(invocation -> Mono.just(invocation.getArgument(1)));
+
+    AppointmentDetails saved = appointmentService.updateAppointment(5, appointment(2)).block();
+
+    assertThat(saved.getSlotId()).isEqualTo(2);
+    assertThat(saved.isActive()).isTrue();
+    InOrder order = inOrder(jdbcTemplate);
+    order.verify(jdbcTemplate).update(startsWith(CLAIM_SLOT), eq(Map.of("slotId", 2)));
+    order.verify(jdbcTemplate).update(startsWith(RELEASE_SLOT), eq(Map.of("slotId", 1)));
+  }
+
+  @Test
+  public void updateAppointment_refusesToMoveACancelledAppointment() {
+    AppointmentDetails cancelled = appointment(1);
+    cancelled.setAppointmentId(5);
+    cancelled.setActive(false);
+    givenLocked(cancelled);
+
+    StepVerifier.create(appointmentService.updateAppointment(5, appointment(2)))
+        .verifyError(InvalidRequestException.class);
+    verify(jdbcTemplate, never()).update(anyString(), anyMap());
+    verify(jdbcTemplate, never()).update(anyString(), any(SqlParameterSource.class));
+  }
+
+  private void givenInsertedAppointments() {
+    AtomicInteger ids = new AtomicInteger(100);
+    when(jdbcTemplate.batchUpdate(
+            startsWith(INSERT_APPOINTMENT),
+            any(SqlParameterSource[].class),
+            any(KeyHolder.class),
+            any(String[].class)))
+        .thenAnswer(
+            invocation -> {
+              SqlParameterSource[] rows = invocation.getArgument(1);
+              GeneratedKeyHolder keyHolder = invocation.getArgument(2);
+              for (int i = 0; i < rows.length; i++) {
+                keyHolder.getKeyList().add(Map.of("appointment_id", ids.incrementAndGet()));
+              }
+              return new int[rows.length];
+            });
+  }
+
+  private void givenInsertedQueueEntries() {
+    when(jdbcTemplate.batchUpdate(startsWith(INSERT_QUEUE), any(SqlParameterSource[].class)))
+        .thenAnswer(invocation -> new int[invocation.<SqlParameterSource[]>getArgument(1).length]);
+  }
+
+  private void givenLocked(AppointmentDetails appointment) {
+    when(jdbcTemplate.query(
+            startsWith(LOCK_APPOINTMENT),
+            anyMap(),
+            ArgumentMatchers.<RowMapper<AppointmentDetails>>any()))
+        .thenReturn(List.of(appointment));
+  }
+
+  private static AppointmentDetails appointment(int slotId) {
+    AppointmentDetails appointment = new AppointmentDetails();
+    appointment.setUserId(1);
+    appointment.setSlotId(slotId);
+    appointment.setDoctorId("DOC001");
+    appointment.setClinicId(1);
+    appointment.setAppointmentDate(LocalDateTime.of(2024, 1, 1, 10, 0));
+    appointment.setActive(true);
+    return appointment;
+  }
+}
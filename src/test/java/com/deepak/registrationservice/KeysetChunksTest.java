@@ -0,0 +1,78 @@
+package com.deepak.registrationservice;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.deepak.registrationservice.pagination.KeysetChunks;
+import com.deepak.registrationservice.pagination.PageCursor;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+public class KeysetChunksTest {
+
+  private static final LocalDateTime NINE = LocalDateTime.of(2024, 1, 1, 9, 0);
+  private static final LocalDateTime TEN = LocalDateTime.of(2024, 1, 1, 10, 0);
+
+  private final AtomicInteger queries = new AtomicInteger();
+
+  @Test
+  public void stream_crossesChunkBoundariesInsideEqualTimestamps() {
+    List<PageCursor> rows = new ArrayList<>();
+    for (int id = 1; id <= 5; id++) {
+      rows.add(new PageCursor(NINE, id));
+    }
+    rows.add(new PageCursor(TEN, 2));
+    rows.add(new PageCursor(TEN, 3));
+
+    List<PageCursor> streamed = stream(rows, 2).collectList().block();
+
+    assertThat(streamed).isEqualTo(rows);
+    assertThat(queries).hasValue(4);
+  }
+
+  @Test
+  public void stream_issuesOneQueryForAnEmptyRange() {
+    assertThat(stream(List.of(), 2).collectList().block()).isEmpty();
+    assertThat(queries).hasValue(1);
+  }
+
+  @Test
+  public void stream_stopsAfterAnEmptyChunkWhenRowsFillTheLastChunk() {
+    List<PageCursor> rows = List.of(new PageCursor(NINE, 1), new PageCursor(NINE, 2));
+
+    assertThat(stream(rows, 2).collectList().block()).isEqualTo(rows);
+    assertThat(queries).hasValue(2);
+  }
+
+  @Test
+  public void stream_stopsQueryingWhenCancelled() {
+    List<PageCursor> rows = new ArrayList<>();
+    for (int id = 1; id <= 100; id++) {
+      rows.add(new PageCursor(NINE, id));
+    }
+
+    assertThat(stream(rows, 10).take(5).collectList().block()).hasSize(5);
+    assertThat(queries.get()).isLessThan(10);
+  }
+
+  /** Streams {@code rows}, which are in keyset order, the way the range queries page them. */
+  private Flux<PageCursor> stream(List<PageCursor> rows, int chunkSize) {
+    return KeysetChunks.stream(
+        new PageCursor(NINE, Integer.MIN_VALUE),
+        chunkSize,
+        after -> {
+          queries.incrementAndGet();
+          return Flux.fromIterable(rows)
+              .filter(
+                  row ->
+                      row.date().isAfter(after.date())
+                          || row.date().isEqual(after.date()) && row.id() > after.id())
+              .take(chunkSize);
+        },
+        Function.identity());
+  }
+}
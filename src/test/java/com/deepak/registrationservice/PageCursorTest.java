@@ -0,0 +1,52 @@
+package com.deepak.registrationservice;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.deepak.registrationservice.exception.InvalidCursorException;
+import com.deepak.registrationservice.pagination.PageCursor;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import org.junit.jupiter.api.Test;
+
+public class PageCursorTest {
+
+  @Test
+  public void decode_readsBackDatedCursor() {
+    PageCursor cursor = new PageCursor(LocalDateTime.of(2023, 12, 24, 16, 25, 48), 12);
+
+    assertThat(PageCursor.decode(cursor.encode(), true)).isEqualTo(cursor);
+  }
+
+  @Test
+  public void decode_readsBackCursorOfRowWithoutDate() {
+    PageCursor cursor = new PageCursor(null, 12);
+
+    assertThat(PageCursor.decode(cursor.encode(), true)).isEqualTo(cursor);
+  }
+
+  @Test
+  public void decode_readsBackIdCursor() {
+    assertThat(PageCursor.decode(PageCursor.ofId(7).encode(), false)).isEqualTo(PageCursor.ofId(7));
+  }
+
+  @Test
+  public void decode_returnsNullForFirstPage() {
+    assertThat(PageCursor.decode(null, true)).isNull();
+    assertThat(PageCursor.decode(" ", false)).isNull();
+  }
+
+  @Test
+  public void decode_rejectsTokensItDidNotProduce() {
+    assertThatThrownBy(() -> PageCursor.decode("not base64!", true))
+        .isInstanceOf(InvalidCursorException.class);
+    assertThatThrownBy(() -> PageCursor.decode(encoded("yesterday|12"), true))
+        .isInstanceOf(InvalidCursorException.class);
+    assertThatThrownBy(() -> PageCursor.decode(encoded("twelve"), false))
+        .isInstanceOf(InvalidCursorException.class);
+  }
+
+  private static String encoded(String raw) {
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes());
+  }
+}
@@ -0,0 +1,58 @@
+package com.deepak.registrationservice;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+import com.deepak.registrationservice.controller.QueueController;
+import com.deepak.registrationservice.model.appointment.QueueEvent;
+import com.deepak.registrationservice.service.QueueEngine;
+import com.deepak.registrationservice.service.QueueEventHub;
+import java.time.Duration;
+import java.time.LocalDate;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+public class QueueControllerTest {
+
+  private static final LocalDate DAY = LocalDate.of(2024, 1, 1);
+
+  @Mock private QueueEventHub queueEventHub;
+  @Mock private QueueEngine queueEngine;
+
+  @Test
+  public void streamQueue_sendsEventsWithVersionAsIdAndTypeAsName() {
+    QueueController queueController =
+        new QueueController(queueEventHub, queueEngine, Duration.ofHours(1));
+    QueueEvent event =
+        QueueEvent.builder().type(QueueEvent.Type.UPDATED).version(7).appointmentId(1).build();
+    when(queueEventHub.subscribe("DOC001", DAY)).thenReturn(Flux.just(event));
+
+    StepVerifier.create(queueController.streamQueue("DOC001", DAY))
+        .assertNext(
+            sse -> {
+              assertThat(sse.id()).isEqualTo("7");
+              assertThat(sse.event()).isEqualTo("UPDATED");
+              assertThat(sse.data()).isSameAs(event);
+            })
+        .thenCancel()
+        .verify();
+  }
+
+  @Test
+  public void streamQueue_sendsHeartbeatCommentsWhileIdle() {
+    QueueController queueController =
+        new QueueController(queueEventHub, queueEngine, Duration.ofSeconds(15));
+    when(queueEventHub.subscribe("DOC001", DAY)).thenReturn(Flux.never());
+
+    StepVerifier.withVirtualTime(() -> queueController.streamQueue("DOC001", DAY))
+        .thenAwait(Duration.ofSeconds(15))
+        .assertNext(sse -> assertThat(sse.comment()).isEqualTo("heartbeat"))
+        .thenCancel()
+        .verify();
+  }
+}
@@ -0,0 +1,206 @@
+package com.deepak.registrationservice;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.deepak.registrationservice.model.appointment.QueueManagement;
+import com.deepak.registrationservice.repository.QueueManagementRepository;
+import com.deepak.registrationservice.service.QueueEngine;
+import com.deepak.registrationservice.service.QueueEventHub;
+import com.deepak.registrationservice.service.ReservationCoordinator;
+import com.deepak.registrationservice.service.ScheduleSnapshots;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.FetchSpec;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@ExtendWith(MockitoExtension.class)
+public class QueueEngineTest {
+
+  private static final LocalDate DAY = LocalDate.of(2024, 1, 1);
+
+  @Mock private QueueManagementRepository queueManagementRepository;
+  @Mock private DatabaseClient databaseClient;
+  @Mock private QueueEventHub queueEventHub;
+  @Mock private ScheduleSnapshots scheduleSnapshots;
+
+  @Mock(answer = Answers.RETURNS_SELF)
+  private DatabaseClient.GenericExecuteSpec update;
+
+  @Mock private FetchSpec<Map<String, Object>> updateResult;
+
+  private QueueEngine queueEngine;
+  private ArgumentCaptor<String> sql;
+
+  @BeforeEach
+  public void setUp() {
+    queueEngine =
+        new QueueEngine(
+            queueManagementRepository,
+            databaseClient,
+            new ReservationCoordinator(new SimpleMeterRegistry(), 4, 256, Duration.ofSeconds(2)),
+            queueEventHub,
+            scheduleSnapshots,
+            16);
+    sql = ArgumentCaptor.forClass(String.class);
+    lenient().when(databaseClient.sql(sql.capture())).thenReturn(update);
+    lenient().when(update.fetch()).thenReturn(updateResult);
+    lenient().when(updateResult.rowsUpdated()).thenReturn(Mono.just(1L));
+  }
+
+  @Test
+  public void callNext_finishesConsultationAndMovesEveryoneUpInOneUpdate() {
+    givenDay(
+        entry(1, 0, "IN_CONSULTATION"),
+        entry(2, 1, "WAITING"),
+        entry(3, 2, null),
+        entry(4, 3, "WAITING"));
+
+    List<QueueManagement> queue = queueEngine.callNext("DOC001", DAY).block();
+
+    assertThat(queue)
+        .extracting(QueueManagement::getQueueManagementId)
+        .containsExactly(2, 3, 4);
+    assertThat(queue).extracting(QueueManagement::getCurrentQueueNo).containsExactly(0, 1, 2);
+    assertThat(sql.getValue())
+        .isEqualTo(
+            "UPDATE queue_management SET current_queue_no = CASE queue_management_id"
+                + " WHEN ? THEN ? WHEN ? THEN ? WHEN ? THEN ? WHEN ? THEN ? END,"
+                + " visit_status = CASE queue_management_id"
+                + " WHEN ? THEN ? WHEN ? THEN ? WHEN ? THEN ? WHEN ? THEN ? END,"
+                + " patient_reached = CASE queue_management_id"
+                + " WHEN ? THEN ? WHEN ? THEN ? WHEN ? THEN ? WHEN ? THEN ? END"
+                + " WHERE queue_management_id IN (?, ?, ?, ?)");
+    verify(update).bind(0, 1);
+    verify(update).bind(1, 0);
+    verify(update).bind(3, 0);
+    verify(update).bind(5, 1);
+    verify(update).bind(7, 2);
+    verify(update).bind(9, "COMPLETED");
+    verify(update).bind(11, "IN_CONSULTATION");
+    verify(update).bind(13, "WAITING");
+    verify(update).bind(17, false);
+    verify(update).bind(27, 4);
+    verify(scheduleSnapshots).invalidate("DOC001", DAY);
+  }
+
+  @Test
+  public void skip_takesPatientOutAndRenumbersOnlyThoseBehindThem() {
+    givenDay(entry(1, 1, "WAITING"), entry(2, 2, "WAITING"), entry(3, 3, "WAITING"));
+
+    List<QueueManagement> queue = queueEngine.skip("DOC001", DAY, 102).block();
+
+    assertThat(queue).extracting(QueueManagement::getQueueManagementId).containsExactly(1, 3);
+    assertThat(queue).extracting(QueueManagement::getCurrentQueueNo).containsExactly(1, 2);
+    assertThat(sql.getValue()).endsWith("WHERE queue_management_id IN (?, ?)");
+    verify(update).bind(0, 2);
+    verify(update).bind(1, 0);
+    verify(update).bind(2, 3);
+    verify(update).bind(3, 2);
+  }
+
+  @Test
+  public void markReached_putsSkippedPatientBackAtTheEnd() {
+    givenDay(entry(1, 1, "WAITING"), entry(2, 0, "SKIPPED"), entry(3, 2, "WAITING"));
+
+    List<QueueManagement> queue = queueEngine.markReached("DOC001", DAY, 102).block();
+
+    assertThat(queue)
+        .extracting(QueueManagement::getQueueManagementId)
+        .containsExactly(1, 3, 2);
+    assertThat(queue).extracting(QueueManagement::getCurrentQueueNo).containsExactly(1, 2, 3);
+    verify(update).bind(0, 2);
+    verify(update).bind(1, 3);
+    verify(update).bind(3, "WAITING");
+    verify(update).bind(5, true);
+  }
+
+  @Test
+  public void compact_closesGapsWithoutWritingUnchangedEntries() {
+    givenDay(entry(1, 1, "WAITING"), entry(2, 3, "WAITING"), entry(3, 7, "WAITING"));
+
+    List<QueueManagement> queue = queueEngine.compact("DOC001", DAY).block();
+
+    assertThat(queue).extracting(QueueManagement::getCurrentQueueNo).containsExactly(1, 2, 3);
+    assertThat(sql.getValue()).endsWith("WHERE queue_management_id IN (?, ?)");
+    verify(update).bind(0, 2);
+    verify(update).bind(1, 2);
+    verify(update).bind(2, 3);
+    verify(update).bind(3, 3);
+  }
+
+  @Test
+  public void getQueue_writesNothingAndReadsTheDayOnce() {
+    givenDay(entry(1, 1, "WAITING"));
+
+    queueEngine.getQueue("DOC001", DAY).block();
+    queueEngine.getQueue("DOC001", DAY).block();
+
+    verify(queueManagementRepository, times(1)).findAllForDay(any(), any(), any());
+    verify(databaseClient, never()).sql(any(String.class));
+  }
+
+  @Test
+  public void invalidate_makesTheNextOperationReadTheDayAgain() {
+    givenDay(entry(1, 1, "WAITING"));
+
+    queueEngine.getQueue("DOC001", DAY).block();
+    queueEngine.invalidate("DOC001", DAY);
+    queueEngine.getQueue("DOC001", DAY).block();
+
+    verify(queueManagementRepository, times(2)).findAllForDay(any(), any(), any());
+  }
+
+  @Test
+  public void invalidateDuringRead_discardsTheReadAndStartsOver() {
+    QueueManagement booked = entry(2, 2, "WAITING");
+    when(queueManagementRepository.findAllForDay(any(), any(), any()))
+        .thenReturn(
+            Flux.defer(
+                () -> {
+                  // A booking commits and invalidates the day while it is being read.
+                  queueEngine.invalidate("DOC001", DAY);
+                  return Flux.just(entry(1, 1, "WAITING"));
+                }),
+            Flux.just(entry(1, 1, "WAITING"), booked));
+
+    List<QueueManagement> queue = queueEngine.getQueue("DOC001", DAY).block();
+    queueEngine.getQueue("DOC001", DAY).block();
+
+    assertThat(queue).extracting(QueueManagement::getQueueManagementId).containsExactly(1, 2);
+    verify(queueManagementRepository, times(2)).findAllForDay(any(), any(), any());
+  }
+
+  private void givenDay(QueueManagement... entries) {
+    when(queueManagementRepository.findAllForDay(any(), any(), any()))
+        .thenReturn(Flux.just(entries));
+  }
+
+  private static QueueManagement entry(int id, int queueNo, String visitStatus) {
+    QueueManagement entry = new QueueManagement();
+    entry.setQueueManagementId(id);
+    entry.setAppointmentId(100 + id);
+    entry.setDoctorId("DOC001");
+    entry.setCurrentQueueNo(queueNo);
+    entry.setVisitStatus(visitStatus);
+    entry.setPatientReached(false);
+    return entry;
+  }
+}
@@ -0,0 +1,105 @@
+package com.deepak.registrationservice;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.deepak.registrationservice.model.appointment.AppointmentDetails;
+import com.deepak.registrationservice.model.appointment.QueueEvent;
+import com.deepak.registrationservice.model.appointment.QueueManagement;
+import com.deepak.registrationservice.repository.QueueManagementRepository;
+import com.deepak.registrationservice.service.QueueEventHub;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+public class QueueEventHubTest {
+
+  private static final LocalDate DAY = LocalDate.of(2024, 1, 1);
+
+  @Mock private QueueManagementRepository queueManagementRepository;
+
+  private QueueEventHub queueEventHub;
+
+  @BeforeEach
+  public void setUp() {
+    queueEventHub = new QueueEventHub(queueManagementRepository, new SimpleMeterRegistry());
+  }
+
+  @Test
+  public void subscribe_receivesEventsOfItsDayWithIncreasingVersions() {
+    StepVerifier.create(queueEventHub.subscribe("DOC001", DAY))
+        .then(
+            () -> {
+              queueEventHub.publishRemoved("DOC001", DAY, 1, 11);
+              queueEventHub.publishRemoved("DOC002", DAY, 2, 12);
+              queueEventHub.publishRemoved("DOC001", DAY.plusDays(1), 3, 13);
+              queueEventHub.publishRemoved("DOC001", DAY, 4, 14);
+            })
+        .assertNext(event -> assertThat(event.getVersion()).isEqualTo(1L))
+        .assertNext(
+            event -> {
+              assertThat(event.getVersion()).isEqualTo(2L);
+              assertThat(event.getAppointmentId()).isEqualTo(4);
+              assertThat(event.getType()).isEqualTo(QueueEvent.Type.REMOVED);
+            })
+        .thenCancel()
+        .verify();
+
+    assertThat(queueEventHub.hasSubscribers("DOC001", DAY)).isFalse();
+  }
+
+  @Test
+  public void publishEntry_skipsTheReadWhenNobodyWatchesTheDay() {
+    queueEventHub.publishEntry(appointment(), QueueEvent.Type.ADDED).block();
+
+    verifyNoInteractions(queueManagementRepository);
+  }
+
+  @Test
+  public void publishEntry_publishesTheCurrentQueueEntry() {
+    QueueManagement entry = new QueueManagement();
+    entry.setAppointmentId(1);
+    entry.setSlotId(11);
+    entry.setCurrentQueueNo(3);
+    when(queueManagementRepository.findByAppointmentId(1)).thenReturn(Mono.just(entry));
+
+    StepVerifier.create(queueEventHub.subscribe("DOC001", DAY))
+        .then(() -> queueEventHub.publishEntry(appointment(), QueueEvent.Type.ADDED).block())
+        .assertNext(
+            event -> {
+              assertThat(event.getType()).isEqualTo(QueueEvent.Type.ADDED);
+              assertThat(event.getCurrentQueueNo()).isEqualTo(3);
+            })
+        .thenCancel()
+        .verify();
+  }
+
+  @Test
+  public void publishEntry_neverFailsTheCaller() {
+    when(queueManagementRepository.findByAppointmentId(1))
+        .thenReturn(Mono.error(new IllegalStateException("connection lost")));
+
+    StepVerifier.create(queueEventHub.subscribe("DOC001", DAY))
+        .then(() -> queueEventHub.publishEntry(appointment(), QueueEvent.Type.ADDED).block())
+        .thenCancel()
+        .verify();
+  }
+
+  private static AppointmentDetails appointment() {
+    AppointmentDetails appointment = new AppointmentDetails();
+    appointment.setAppointmentId(1);
+    appointment.setSlotId(11);
+    appointment.setDoctorId("DOC001");
+    appointment.setAppointmentDate(LocalDateTime.of(2024, 1, 1, 10, 0));
+    return appointment;
+  }
+}
@@ -0,0 +1,65 @@
+package com.deepak.registrationservice;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.deepak.registrationservice.config.ReactiveTimer;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+public class ReactiveTimerTest {
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final ReactiveTimer timer =
+      new ReactiveTimer(meterRegistry, "repository.calls", Tags.of("method", "findById"));
+
+  @Test
+  public void time_recordsSuccessOnlyWhenSubscribed() {
+    Mono<String> timed = timer.time(Mono.just("row"));
+
+    assertThat(timer("SUCCESS", "none").count()).isZero();
+    StepVerifier.create(timed).expectNext("row").verifyComplete();
+    StepVerifier.create(timed).expectNext("row").verifyComplete();
+
+    assertThat(timer("SUCCESS", "none").count()).isEqualTo(2);
+  }
+
+  @Test
+  public void time_recordsFluxUntilItCompletes() {
+    StepVerifier.create(timer.time(Flux.just(1, 2).delayElements(Duration.ofMillis(20))))
+        .expectNext(1, 2)
+        .verifyComplete();
+
+    assertThat(timer("SUCCESS", "none").totalTime(TimeUnit.MILLISECONDS))
+        .isGreaterThanOrEqualTo(40);
+  }
+
+  @Test
+  public void time_tagsFailuresWithExceptionType() {
+    StepVerifier.create(timer.time(Mono.error(new IllegalStateException("boom"))))
+        .verifyError(IllegalStateException.class);
+
+    assertThat(timer("ERROR", "IllegalStateException").count()).isEqualTo(1);
+    assertThat(timer("SUCCESS", "none").count()).isZero();
+  }
+
+  @Test
+  public void time_recordsCancellation() {
+    StepVerifier.create(timer.time(Mono.never())).thenCancel().verify();
+
+    assertThat(timer("CANCELLED", "none").count()).isEqualTo(1);
+  }
+
+  private Timer timer(String outcome, String exception) {
+    return meterRegistry
+        .get("repository.calls")
+        .tags("method", "findById", "outcome", outcome, "exception", exception)
+        .timer();
+  }
+}
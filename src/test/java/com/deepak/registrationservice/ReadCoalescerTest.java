@@ -0,0 +1,97 @@
+package com.deepak.registrationservice;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.deepak.registrationservice.model.appointment.AppointmentDetails;
+import com.deepak.registrationservice.service.ReadCoalescer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+public class ReadCoalescerTest {
+
+  private SimpleMeterRegistry meterRegistry;
+  private ReadCoalescer readCoalescer;
+  private AtomicInteger queries;
+
+  @BeforeEach
+  public void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    readCoalescer = new ReadCoalescer(meterRegistry, Duration.ofMinutes(1));
+    queries = new AtomicInteger();
+  }
+
+  @Test
+  public void coalesce_replaysRowsToCallersWithinTheReuseWindow() {
+    List<AppointmentDetails> first = read("DOC001").collectList().block();
+    List<AppointmentDetails> second = read("DOC001").collectList().block();
+
+    assertThat(queries.get()).isEqualTo(1);
+    assertThat(second.get(0).getDoctorId()).isEqualTo("DOC001");
+    assertThat(meterRegistry.counter("read.coalesced", "query", "byDoctor").count())
+        .isEqualTo(1.0);
+    assertThat(first.get(0)).isNotSameAs(second.get(0));
+  }
+
+  @Test
+  public void coalesce_handsEachCallerCopiesItCanChange() {
+    AppointmentDetails first = read("DOC001").blockFirst();
+    first.setDoctorId("changed");
+
+    assertThat(read("DOC001").blockFirst().getDoctorId()).isEqualTo("DOC001");
+  }
+
+  @Test
+  public void invalidate_makesLaterCallersQueryAgainForMatchingParametersOnly() {
+    read("DOC001").blockLast();
+    read("DOC002").blockLast();
+
+    readCoalescer.invalidate("byDoctor", parameters -> "DOC001".equals(parameters.get(0)));
+    read("DOC001").blockLast();
+    read("DOC002").blockLast();
+
+    assertThat(queries.get()).isEqualTo(3);
+  }
+
+  @Test
+  public void coalesce_forgetsFailedQueries() {
+    readCoalescer
+        .coalesce(
+            "failing",
+            List.of(1),
+            () -> {
+              queries.incrementAndGet();
+              return Flux.<String>error(new IllegalStateException("down"));
+            })
+        .onErrorResume(error -> Flux.empty())
+        .blockLast();
+    readCoalescer
+        .coalesce("failing", List.of(1), () -> Flux.just("row" + queries.incrementAndGet()))
+        .blockLast();
+
+    assertThat(queries.get()).isEqualTo(2);
+  }
+
+  private Flux<AppointmentDetails> read(String doctorId) {
+    return readCoalescer.coalesce(
+        "byDoctor",
+        List.of(doctorId),
+        () -> {
+          queries.incrementAndGet();
+          AppointmentDetails appointment = new AppointmentDetails();
+          appointment.setAppointmentId(1);
+          appointment.setDoctorId(doctorId);
+          return Flux.just(appointment);
+        },
+        appointment -> {
+          AppointmentDetails copy = new AppointmentDetails();
+          copy.setAppointmentId(appointment.getAppointmentId());
+          copy.setDoctorId(appointment.getDoctorId());
+          return copy;
+        });
+  }
+}
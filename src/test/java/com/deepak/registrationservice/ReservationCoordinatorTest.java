@@ -0,0 +1,104 @@
+package com.deepak.registrationservice;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.deepak.registrationservice.exception.ReservationRejectedException;
+import com.deepak.registrationservice.exception.SlotIdNotAvailableException;
+import com.deepak.registrationservice.service.ReservationCoordinator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+public class ReservationCoordinatorTest {
+
+  private final ReservationCoordinator reservationCoordinator =
+      new ReservationCoordinator(new SimpleMeterRegistry(), 4, 256, Duration.ofSeconds(2));
+
+  @Test
+  public void submit_rejectsQueuedReservationForSlotWonByEarlierOne() {
+    LocalDate day = LocalDate.of(2024, 1, 1);
+    Sinks.One<String> firstClaim = Sinks.one();
+    AtomicInteger secondCalls = new AtomicInteger();
+
+    Mono<String> first =
+        reservationCoordinator.submit("DOC001", day, 7, firstClaim::asMono).cache();
+    Mono<String> second =
+        reservationCoordinator
+            .submit(
+                "DOC001",
+                day,
+                7,
+                () -> {
+                  secondCalls.incrementAndGet();
+                  return Mono.just("second");
+                })
+            .cache();
+    first.subscribe();
+    second.subscribe();
+
+    firstClaim.tryEmitValue("first");
+
+    StepVerifier.create(first).expectNext("first").verifyComplete();
+    StepVerifier.create(second).expectError(SlotIdNotAvailableException.class).verify();
+    assertThat(secondCalls).hasValue(0);
+  }
+
+  @Test
+  public void submit_runsReservationsForOtherSlotsAfterTheWinner() {
+    LocalDate day = LocalDate.of(2024, 1, 1);
+
+    Mono<String> first = reservationCoordinator.submit("DOC001", day, 7, () -> Mono.just("a"));
+    Mono<String> second = reservationCoordinator.submit("DOC001", day, 8, () -> Mono.just("b"));
+
+    StepVerifier.create(first).expectNext("a").verifyComplete();
+    StepVerifier.create(second).expectNext("b").verifyComplete();
+  }
+
+  @Test
+  public void submit_rejectsReservationWhenLaneIsFull() {
+    ReservationCoordinator small =
+        new ReservationCoordinator(new SimpleMeterRegistry(), 1, 1, Duration.ofSeconds(2));
+    LocalDate day = LocalDate.of(2024, 1, 1);
+    Sinks.One<String> firstClaim = Sinks.one();
+
+    Mono<String> first = small.submit("DOC001", day, 7, firstClaim::asMono).cache();
+    first.subscribe();
+
+    StepVerifier.create(small.submit("DOC002", day, 8, () -> Mono.just("second")))
+        .expectError(ReservationRejectedException.class)
+        .verify();
+    firstClaim.tryEmitValue("first");
+    StepVerifier.create(first).expectNext("first").verifyComplete();
+  }
+
+  @Test
+  public void submit_rejectsReservationThatWaitedLongerThanTheQueueTimeout() {
+    ReservationCoordinator impatient =
+        new ReservationCoordinator(new SimpleMeterRegistry(), 1, 16, Duration.ofMillis(50));
+    LocalDate day = LocalDate.of(2024, 1, 1);
+    Sinks.One<String> firstClaim = Sinks.one();
+    AtomicInteger secondCalls = new AtomicInteger();
+
+    impatient.submit("DOC001", day, 7, firstClaim::asMono).subscribe();
+    Mono<String> second =
+        impatient.submit(
+            "DOC001",
+            day,
+            8,
+            () -> {
+              secondCalls.incrementAndGet();
+              return Mono.just("second");
+            });
+
+    StepVerifier.create(second)
+        .expectError(ReservationRejectedException.class)
+        .verify(Duration.ofSeconds(2));
+    firstClaim.tryEmitValue("first");
+    assertThat(secondCalls).hasValue(0);
+  }
+}
@@ -0,0 +1,67 @@
+package com.deepak.registrationservice;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.deepak.registrationservice.model.appointment.AppointmentDetails;
+import com.deepak.registrationservice.service.ResourceVersions;
+import com.deepak.registrationservice.service.ResourceVersions.Resource;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ServerWebExchange;
+
+public class ResourceVersionsTest {
+
+  private final ResourceVersions resourceVersions = new ResourceVersions(true, 4096);
+
+  @Test
+  public void appointmentChanged_movesTagsOfEveryListItAppearsIn() {
+    AppointmentDetails appointment = new AppointmentDetails();
+    appointment.setAppointmentId(1);
+    appointment.setUserId(7);
+    appointment.setDoctorId("DOC001");
+    appointment.setClinicId(3);
+    String all = resourceVersions.etag(Resource.APPOINTMENTS, null);
+    String byDoctor = resourceVersions.etag(Resource.DOCTOR_APPOINTMENTS, "DOC001");
+    String byUser = resourceVersions.etag(Resource.USER_APPOINTMENTS, 7);
+
+    resourceVersions.appointmentChanged(appointment);
+
+    assertThat(resourceVersions.etag(Resource.APPOINTMENTS, null)).isNotEqualTo(all);
+    assertThat(resourceVersions.etag(Resource.DOCTOR_APPOINTMENTS, "DOC001"))
+        .isNotEqualTo(byDoctor);
+    assertThat(resourceVersions.etag(Resource.USER_APPOINTMENTS, 7)).isNotEqualTo(byUser);
+  }
+
+  @Test
+  public void etag_isWeakAndStableUntilChanged() {
+    String tag = resourceVersions.etag(Resource.USER, 1);
+
+    assertThat(tag).startsWith("W/\"").endsWith("\"");
+    assertThat(resourceVersions.etag(Resource.USER, 1)).isEqualTo(tag);
+
+    resourceVersions.changedEverything();
+
+    assertThat(resourceVersions.etag(Resource.USER, 1)).isNotEqualTo(tag);
+  }
+
+  @Test
+  public void notModified_answersFromTheCurrentTagWhenEnabled() {
+    ServerWebExchange exchange = mock(ServerWebExchange.class);
+    String tag = resourceVersions.etag(Resource.USER, 1);
+    when(exchange.checkNotModified(tag)).thenReturn(true);
+
+    assertThat(resourceVersions.notModified(exchange, Resource.USER, 1)).isTrue();
+    verify(exchange).checkNotModified(tag);
+  }
+
+  @Test
+  public void notModified_setsNoTagWhenDisabled() {
+    ServerWebExchange exchange = mock(ServerWebExchange.class);
+
+    assertThat(new ResourceVersions(false, 16).notModified(exchange, Resource.USER, 1)).isFalse();
+    verifyNoInteractions(exchange);
+  }
+}
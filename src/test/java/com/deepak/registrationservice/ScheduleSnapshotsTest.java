@@ -0,0 +1,119 @@
+package com.deepak.registrationservice;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.deepak.registrationservice.model.appointment.AppointmentDetails;
+import com.deepak.registrationservice.model.appointment.QueueManagement;
+import com.deepak.registrationservice.model.appointment.SlotInformation;
+import com.deepak.registrationservice.repository.AppointmentRepository;
+import com.deepak.registrationservice.repository.QueueManagementRepository;
+import com.deepak.registrationservice.repository.SlotInformationRepository;
+import com.deepak.registrationservice.service.ScheduleSnapshots;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+
+@ExtendWith(MockitoExtension.class)
+public class ScheduleSnapshotsTest {
+
+  private static final LocalDate DAY = LocalDate.of(2024, 1, 1);
+
+  @Mock private SlotInformationRepository slotInformationRepository;
+  @Mock private AppointmentRepository appointmentRepository;
+  @Mock private QueueManagementRepository queueManagementRepository;
+
+  private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+  private ScheduleSnapshots scheduleSnapshots;
+
+  @BeforeEach
+  public void setUp() {
+    scheduleSnapshots =
+        new ScheduleSnapshots(
+            slotInformationRepository,
+            appointmentRepository,
+            queueManagementRepository,
+            objectMapper,
+            16);
+    when(slotInformationRepository.findAllByDoctorIdAndSlotDate("DOC001", "2024-01-01"))
+        .thenReturn(Flux.just(slot(12, 2), slot(11, 1)));
+    when(appointmentRepository.findAllByDoctorIdAndAppointmentDateBetween(
+            eq("DOC001"), any(), any()))
+        .thenReturn(Flux.just(appointment(100, 12)));
+    when(queueManagementRepository.findAllForDay(eq("DOC001"), any(), any()))
+        .thenReturn(Flux.just(queueEntry(100)));
+  }
+
+  @Test
+  public void get_buildsOnceAndJoinsSlotsAppointmentsAndQueue() throws Exception {
+    var first = scheduleSnapshots.get("DOC001", DAY).block();
+    var second = scheduleSnapshots.get("DOC001", DAY).block();
+
+    assertThat(second).isSameAs(first);
+    JsonNode entries = objectMapper.readTree(bytes(first.body())).get("entries");
+    assertThat(entries).hasSize(2);
+    assertThat(entries.get(0).get("slot").get("slotId").asInt()).isEqualTo(11);
+    assertThat(entries.get(0).has("appointment")).isFalse();
+    assertThat(entries.get(1).get("appointment").get("appointmentId").asInt()).isEqualTo(100);
+    assertThat(entries.get(1).get("queue").get("currentQueueNo").asInt()).isEqualTo(2);
+    verify(slotInformationRepository, times(1))
+        .findAllByDoctorIdAndSlotDate("DOC001", "2024-01-01");
+  }
+
+  @Test
+  public void invalidate_rebuildsOnNextRequest() {
+    scheduleSnapshots.get("DOC001", DAY).block();
+
+    scheduleSnapshots.invalidate("DOC001", DAY);
+    scheduleSnapshots.get("DOC001", DAY).block();
+
+    verify(slotInformationRepository, times(2))
+        .findAllByDoctorIdAndSlotDate("DOC001", "2024-01-01");
+  }
+
+  private static byte[] bytes(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.remaining()];
+    buffer.get(bytes);
+    return bytes;
+  }
+
+  private static SlotInformation slot(int slotId, int slotNo) {
+    SlotInformation slot = new SlotInformation();
+    slot.setSlotId(slotId);
+    slot.setSlotNo(slotNo);
+    slot.setDoctorId("DOC001");
+    slot.setClinicId("1");
+    slot.setSlotDate("2024-01-01");
+    slot.setIsAvailable(slotId != 12);
+    return slot;
+  }
+
+  private static AppointmentDetails appointment(int appointmentId, int slotId) {
+    AppointmentDetails appointment = new AppointmentDetails();
+    appointment.setAppointmentId(appointmentId);
+    appointment.setSlotId(slotId);
+    appointment.setDoctorId("DOC001");
+    appointment.setAppointmentDate(DAY.atTime(9, 15));
+    appointment.setActive(true);
+    return appointment;
+  }
+
+  private static QueueManagement queueEntry(int appointmentId) {
+    QueueManagement entry = new QueueManagement();
+    entry.setAppointmentId(appointmentId);
+    entry.setSlotId(12);
+    entry.setCurrentQueueNo(2);
+    return entry;
+  }
+}
@@ -0,0 +1,79 @@
+package com.deepak.registrationservice;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.deepak.registrationservice.model.appointment.SlotInformation;
+import com.deepak.registrationservice.repository.SlotInformationRepository;
+import com.deepak.registrationservice.service.SlotAvailabilityIndex;
+import java.time.Duration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+
+@ExtendWith(MockitoExtension.class)
+public class SlotAvailabilityIndexTest {
+
+  @Mock private SlotInformationRepository slotInformationRepository;
+
+  private SlotAvailabilityIndex slotAvailabilityIndex;
+
+  @BeforeEach
+  public void setUp() {
+    slotAvailabilityIndex =
+        new SlotAvailabilityIndex(slotInformationRepository, 16, Duration.ofMinutes(5));
+    when(slotInformationRepository.findAllByDoctorIdAndClinicIdAndSlotDate(
+            "DOC001", "1", "2024-01-01"))
+        .thenReturn(Flux.just(slot(12, 2, true), slot(11, 1, true), slot(13, 3, false)));
+  }
+
+  @Test
+  public void findAvailable_loadsDayOnceAndOrdersBySlotNo() {
+    var first = slotAvailabilityIndex.findAvailable("DOC001", "1", "2024-01-01").block();
+    var second = slotAvailabilityIndex.findAvailable("DOC001", "1", "2024-01-01").block();
+
+    assertThat(first).extracting(SlotInformation::getSlotId).containsExactly(11, 12);
+    assertThat(second).extracting(SlotInformation::getSlotId).containsExactly(11, 12);
+    verify(slotInformationRepository, times(1))
+        .findAllByDoctorIdAndClinicIdAndSlotDate("DOC001", "1", "2024-01-01");
+  }
+
+  @Test
+  public void markBookedAndAvailable_writeThroughToLoadedDay() {
+    slotAvailabilityIndex.findAvailable("DOC001", "1", "2024-01-01").block();
+
+    slotAvailabilityIndex.markBooked(11);
+    slotAvailabilityIndex.markAvailable(13);
+
+    var result = slotAvailabilityIndex.findAvailable("DOC001", "1", "2024-01-01").block();
+    assertThat(result).extracting(SlotInformation::getSlotId).containsExactly(12, 13);
+  }
+
+  @Test
+  public void findAvailable_reloadsDayOnceItsTimeToLiveHasPassed() {
+    SlotAvailabilityIndex expiring =
+        new SlotAvailabilityIndex(slotInformationRepository, 16, Duration.ofNanos(1));
+
+    expiring.findAvailable("DOC001", "1", "2024-01-01").block();
+    expiring.findAvailable("DOC001", "1", "2024-01-01").block();
+
+    verify(slotInformationRepository, times(2))
+        .findAllByDoctorIdAndClinicIdAndSlotDate("DOC001", "1", "2024-01-01");
+  }
+
+  private static SlotInformation slot(int slotId, int slotNo, boolean available) {
+    SlotInformation slot = new SlotInformation();
+    slot.setSlotId(slotId);
+    slot.setSlotNo(slotNo);
+    slot.setDoctorId("DOC001");
+    slot.setClinicId("1");
+    slot.setSlotDate("2024-01-01");
+    slot.setIsAvailable(available);
+    return slot;
+  }
+}
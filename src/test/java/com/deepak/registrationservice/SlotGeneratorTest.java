@@ -0,0 +1,200 @@
+package com.deepak.registrationservice;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.deepak.registrationservice.exception.InvalidRequestException;
+import com.deepak.registrationservice.model.appointment.SlotGenerationResult;
+import com.deepak.registrationservice.model.appointment.SlotTemplate;
+import com.deepak.registrationservice.service.ScheduleSnapshots;
+import com.deepak.registrationservice.service.SlotAvailabilityIndex;
+import com.deepak.registrationservice.service.SlotGenerator;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.FetchSpec;
+import org.springframework.r2dbc.core.RowsFetchSpec;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+public class SlotGeneratorTest {
+
+  private static final LocalDate MONDAY = LocalDate.of(2024, 1, 1);
+  private static final String DAY_SLOT_KEY = "uk_slot_information_day_slot";
+
+  @Mock private DatabaseClient databaseClient;
+  @Mock private SlotAvailabilityIndex slotAvailabilityIndex;
+  @Mock private ScheduleSnapshots scheduleSnapshots;
+  @Mock private DatabaseClient.GenericExecuteSpec uniqueKeys;
+  @Mock private RowsFetchSpec<Map.Entry<String, String>> uniqueKeysResult;
+
+  @Mock(answer = Answers.RETURNS_SELF)
+  private DatabaseClient.GenericExecuteSpec slotInsert;
+
+  @Mock private FetchSpec<Map<String, Object>> slotInsertResult;
+
+  private SlotGenerator slotGenerator;
+
+  @BeforeEach
+  public void setUp() {
+    slotGenerator = new SlotGenerator(databaseClient, slotAvailabilityIndex, scheduleSnapshots, 4);
+  }
+
+  @Test
+  public void generate_numbersSlotsAcrossShiftsAndInsertsOneStatementPerChunk() {
+    givenUniqueKey(DAY_SLOT_KEY, "doctor_id", "clinic_id", "slot_date", "slot_no");
+    givenInsert();
+    when(slotInsertResult.rowsUpdated())
+        .thenReturn(Mono.just(4L), Mono.just(4L), Mono.just(1L));
+    SlotTemplate template =
+        template(
+            MONDAY,
+            MONDAY.plusDays(13),
+            20,
+            shift("MORNING", "09:00", "10:00"),
+            shift("EVENING", "17:00", "17:45"));
+
+    SlotGenerationResult result = slotGenerator.generate(template).block();
+
+    // Two Mondays of three morning and two evening slots, in chunks of 4, 4 and 2.
+    assertThat(result.getGenerated()).isEqualTo(10);
+    assertThat(result.getInserted()).isEqualTo(9);
+    ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+    verify(databaseClient, times(4)).sql(sql.capture());
+    // The unique key lookup, then one insert per chunk.
+    assertThat(sql.getAllValues())
+        .extracting(statement -> statement.split("\\(\\?", -1).length - 1)
+        .containsExactly(0, 4, 4, 2);
+    // The first evening slot is the fourth slot of the first day.
+    verify(slotInsert).bind(18, 4);
+    verify(slotInsert).bind(19, "EVENING");
+    verify(slotInsert).bind(20, "17:00");
+    verify(slotAvailabilityIndex).evict("DOC001", "1", "2024-01-01");
+    verify(slotAvailabilityIndex).evict("DOC001", "1", "2024-01-08");
+    verify(scheduleSnapshots).invalidate("DOC001", MONDAY.plusDays(7));
+  }
+
+  @Test
+  public void generate_stopsAShiftAtMidnightInsteadOfWrappingAround() {
+    givenUniqueKey(DAY_SLOT_KEY, "doctor_id", "clinic_id", "slot_date", "slot_no");
+    givenInsert();
+    when(slotInsertResult.rowsUpdated()).thenReturn(Mono.just(2L));
+    SlotTemplate template = template(MONDAY, MONDAY, 30, shift("NIGHT", "23:00", "23:59"));
+
+    SlotGenerationResult first = slotGenerator.generate(template).block();
+    slotGenerator.generate(template).block();
+
+    assertThat(first.getGenerated()).isEqualTo(2);
+    verify(slotInsert, times(2)).bind(2, "23:00");
+    verify(slotInsert, times(2)).bind(8, "23:30");
+    verify(slotInsert, never()).bind(14, "00:00");
+    // The unique key is only looked up until it has been found once.
+    verify(databaseClient, times(1)).sql(startsWith("SELECT"));
+  }
+
+  @Test
+  public void generate_rejectsInvalidTemplatesBeforeAnyStatement() {
+    StepVerifier.create(
+            slotGenerator.generate(
+                template(MONDAY, MONDAY, 0, shift("MORNING", "09:00", "10:00"))))
+        .verifyError(InvalidRequestException.class);
+    StepVerifier.create(
+            slotGenerator.generate(
+                template(MONDAY, MONDAY, 15, shift("MORNING", "10:00", "09:00"))))
+        .verifyError(InvalidRequestException.class);
+    StepVerifier.create(
+            slotGenerator.generate(
+                template(MONDAY, MONDAY.plusDays(400), 15, shift("MORNING", "09:00", "10:00"))))
+        .verifyError(InvalidRequestException.class);
+    StepVerifier.create(slotGenerator.generate(template(MONDAY, MONDAY, 15)))
+        .verifyError(InvalidRequestException.class);
+    verifyNoInteractions(databaseClient);
+  }
+
+  @Test
+  public void generate_refusesToInsertWithoutTheUniqueKey() {
+    givenUniqueKey("PRIMARY", "slot_id");
+    SlotTemplate template = template(MONDAY, MONDAY, 30, shift("MORNING", "09:00", "10:00"));
+
+    StepVerifier.create(slotGenerator.generate(template)).verifyError(IllegalStateException.class);
+    verify(databaseClient, never()).sql(startsWith("INSERT"));
+    verify(slotAvailabilityIndex, never()).evict(any(), any(), any());
+  }
+
+  @SuppressWarnings("unchecked")
+  private void givenUniqueKey(String name, String... columns) {
+    List<Row> rows =
+        Arrays.stream(columns)
+            .map(
+                column -> {
+                  Row row = mock(Row.class);
+                  when(row.get("key_name", String.class)).thenReturn(name);
+                  when(row.get("key_column", String.class)).thenReturn(column.toUpperCase());
+                  return row;
+                })
+            .toList();
+    AtomicReference<BiFunction<Row, RowMetadata, Map.Entry<String, String>>> mapper =
+        new AtomicReference<>();
+    when(databaseClient.sql(startsWith("SELECT"))).thenReturn(uniqueKeys);
+    when(uniqueKeys.map(any(BiFunction.class)))
+        .thenAnswer(
+            invocation -> {
+              mapper.set(invocation.getArgument(0));
+              return uniqueKeysResult;
+            });
+    when(uniqueKeysResult.all())
+        .thenAnswer(
+            invocation -> Flux.fromIterable(rows).map(row -> mapper.get().apply(row, null)));
+  }
+
+  private void givenInsert() {
+    when(databaseClient.sql(startsWith("INSERT INTO slot_information"))).thenReturn(slotInsert);
+    when(slotInsert.fetch()).thenReturn(slotInsertResult);
+  }
+
+  private static SlotTemplate template(
+      LocalDate from, LocalDate to, int slotMinutes, SlotTemplate.Shift... shifts) {
+    SlotTemplate template = new SlotTemplate();
+    template.setDoctorId("DOC001");
+    template.setClinicId("1");
+    template.setFromDate(from);
+    template.setToDate(to);
+    template.setDaysOfWeek(Set.of(DayOfWeek.MONDAY));
+    template.setSlotMinutes(slotMinutes);
+    template.setShifts(List.of(shifts));
+    return template;
+  }
+
+  private static SlotTemplate.Shift shift(String name, String start, String end) {
+    SlotTemplate.Shift shift = new SlotTemplate.Shift();
+    shift.setName(name);
+    shift.setStart(LocalTime.parse(start));
+    shift.setEnd(LocalTime.parse(end));
+    return shift;
+  }
+}
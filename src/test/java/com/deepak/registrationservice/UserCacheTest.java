@@ -0,0 +1,72 @@
+package com.deepak.registrationservice;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.deepak.registrationservice.model.user.User;
+import com.deepak.registrationservice.repository.UserRepository;
+import com.deepak.registrationservice.service.UserCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+
+@ExtendWith(MockitoExtension.class)
+public class UserCacheTest {
+
+  @Mock private UserRepository userRepository;
+
+  private SimpleMeterRegistry meterRegistry;
+  private UserCache userCache;
+
+  @BeforeEach
+  public void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    userCache =
+        new UserCache(
+            userRepository, meterRegistry, 100, Duration.ofMinutes(10), Duration.ofSeconds(30));
+  }
+
+  @Test
+  public void findByPhoneNumber_cachesUserAndFillsIdIndex() {
+    when(userRepository.findByPhoneNumber("+919876543210")).thenReturn(Mono.just(user()));
+
+    userCache.findByPhoneNumber("+919876543210").block();
+    User byPhoneNumber = userCache.findByPhoneNumber("+919876543210").block();
+    User byId = userCache.findById(1).block();
+
+    assertThat(byPhoneNumber.getName()).isEqualTo("John");
+    assertThat(byId.getPhoneNumber()).isEqualTo("+919876543210");
+    verify(userRepository, times(1)).findByPhoneNumber("+919876543210");
+    assertThat(meterRegistry.get("cache.gets").tag("result", "hit").counter().count())
+        .isEqualTo(2.0);
+  }
+
+  @Test
+  public void findByPhoneNumber_cachesMissUntilInvalidated() {
+    when(userRepository.findByPhoneNumber("+919876543210"))
+        .thenReturn(Mono.empty(), Mono.just(user()));
+
+    assertThat(userCache.findByPhoneNumber("+919876543210").block()).isNull();
+    assertThat(userCache.findByPhoneNumber("+919876543210").block()).isNull();
+    userCache.invalidate(null, "+919876543210");
+    User created = userCache.findByPhoneNumber("+919876543210").block();
+
+    assertThat(created.getId()).isEqualTo(1);
+    verify(userRepository, times(2)).findByPhoneNumber("+919876543210");
+  }
+
+  private static User user() {
+    User user = new User();
+    user.setId(1);
+    user.setName("John");
+    user.setPhoneNumber("+919876543210");
+    return user;
+  }
+}
@@ -6,21 +6,40 @@ import static org.mockito.Mockito.when;
 import com.deepak.registrationservice.controller.UserController;
 import com.deepak.registrationservice.model.user.User;
 import com.deepak.registrationservice.repository.UserRepository;
+import com.deepak.registrationservice.service.ResourceVersions;
+import com.deepak.registrationservice.service.UserCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
 import java.time.LocalDate;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
 @ExtendWith(MockitoExtension.class)
 public class UserControllerTest {
 
-  @InjectMocks private UserController userController;
+  private UserController userController;
 
   @Mock private UserRepository userRepository;
 
+  @Mock private ServerWebExchange exchange;
+
+  @BeforeEach
+  public void setUp() {
+    UserCache userCache =
+        new UserCache(
+            userRepository,
+            new SimpleMeterRegistry(),
+            100,
+            Duration.ofMinutes(10),
+            Duration.ofSeconds(30));
+    userController = new UserController(userRepository, userCache, new ResourceVersions(true, 16));
+  }
+
   @Test
   public void getUserById_validId() {
     // Arrange
@@ -35,7 +54,7 @@ public class UserControllerTest {
     when(userRepository.findById(expectedId)).thenReturn(Mono.just(expectedUser));
 
     // Act
-    var result = userController.getUserById(expectedId).block();
+    var result = userController.getUserById(expectedId, exchange).block();
 
     // Assert
     assertThat(result).isNotNull();
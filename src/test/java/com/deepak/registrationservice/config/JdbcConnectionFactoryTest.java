@@ -0,0 +1,148 @@
+package com.deepak.registrationservice.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.IsolationLevel;
+import io.r2dbc.spi.Result;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+public class JdbcConnectionFactoryTest {
+
+  @Mock private DataSource dataSource;
+  @Mock private java.sql.Connection jdbc;
+  @Mock private PreparedStatement statement;
+  @Mock private ResultSet resultSet;
+  @Mock private ResultSetMetaData metaData;
+
+  private JdbcConnectionFactory connectionFactory;
+
+  @BeforeEach
+  public void setUp() throws Exception {
+    connectionFactory = new JdbcConnectionFactory(dataSource, Schedulers.immediate());
+    when(dataSource.getConnection()).thenReturn(jdbc);
+  }
+
+  @Test
+  public void databaseClient_bindsNamedParametersAsMySqlMarkersAndReadsRowsByLabel()
+      throws Exception {
+    when(jdbc.prepareStatement("SELECT * FROM appointments WHERE doctor_id = ?"))
+        .thenReturn(statement);
+    when(statement.execute()).thenReturn(true);
+    when(statement.getResultSet()).thenReturn(resultSet);
+    givenColumns("appointment_id", Types.INTEGER, "appointment_date", Types.TIMESTAMP);
+    when(resultSet.next()).thenReturn(true, false);
+    when(resultSet.getObject(1)).thenReturn(7);
+    when(resultSet.getObject(2)).thenReturn(Timestamp.valueOf("2024-01-01 10:00:00"));
+
+    List<LocalDateTime> dates =
+        DatabaseClient.create(connectionFactory)
+            .sql("SELECT * FROM appointments WHERE doctor_id = :doctorId")
+            .bind("doctorId", "DOC001")
+            .map((row, metadata) -> row.get("APPOINTMENT_DATE", LocalDateTime.class))
+            .all()
+            .collectList()
+            .block();
+
+    assertThat(dates).containsExactly(LocalDateTime.of(2024, 1, 1, 10, 0));
+    verify(statement).setObject(1, "DOC001");
+    verify(jdbc).close();
+  }
+
+  @Test
+  public void statement_reportsUpdateCountsAndGeneratedKeys() throws Exception {
+    String sql = "INSERT INTO users (name) VALUES (?)";
+    when(jdbc.prepareStatement(sql, new String[] {"id"})).thenReturn(statement);
+    when(statement.execute()).thenReturn(false);
+    when(statement.getUpdateCount()).thenReturn(1);
+    when(statement.getGeneratedKeys()).thenReturn(resultSet);
+    givenColumns("GENERATED_KEY", Types.BIGINT);
+    when(resultSet.next()).thenReturn(true, false);
+    when(resultSet.getObject(1)).thenReturn(42L);
+
+    Result result =
+        Mono.from(connectionFactory.create())
+            .flatMap(
+                connection ->
+                    Mono.from(
+                        connection
+                            .createStatement(sql)
+                            .bind(0, "Asha")
+                            .returnGeneratedValues("id")
+                            .execute()))
+            .block();
+
+    StepVerifier.create(result.getRowsUpdated()).expectNext(1L).verifyComplete();
+    StepVerifier.create(result.map((row, metadata) -> row.get(0, Integer.class)))
+        .expectNext(42)
+        .verifyComplete();
+  }
+
+  @Test
+  public void transaction_commitsOnOneConnectionAndReturnsItToAutoCommit() throws Exception {
+    Connection connection = Mono.from(connectionFactory.create()).block();
+
+    Flux.concat(
+            connection.beginTransaction(IsolationLevel.READ_COMMITTED),
+            connection.commitTransaction(),
+            connection.close())
+        .blockLast();
+
+    InOrder order = inOrder(jdbc);
+    order.verify(jdbc).setTransactionIsolation(java.sql.Connection.TRANSACTION_READ_COMMITTED);
+    order.verify(jdbc).setAutoCommit(false);
+    order.verify(jdbc).commit();
+    order.verify(jdbc).setAutoCommit(true);
+    order.verify(jdbc).close();
+  }
+
+  @Test
+  public void databaseClient_reportsConstraintViolationsAsDataIntegrityViolations()
+      throws Exception {
+    String sql = "INSERT INTO slot_information (slot_id) VALUES (?)";
+    when(jdbc.prepareStatement(sql)).thenReturn(statement);
+    when(statement.execute())
+        .thenThrow(new SQLIntegrityConstraintViolationException("Duplicate entry", "23000", 1062));
+
+    StepVerifier.create(
+            DatabaseClient.create(connectionFactory)
+                .sql("INSERT INTO slot_information (slot_id) VALUES (:slotId)")
+                .bind("slotId", 1)
+                .fetch()
+                .rowsUpdated())
+        .verifyError(DataIntegrityViolationException.class);
+  }
+
+  private void givenColumns(Object... labelsAndTypes) throws Exception {
+    when(resultSet.getMetaData()).thenReturn(metaData);
+    when(metaData.getColumnCount()).thenReturn(labelsAndTypes.length / 2);
+    for (int i = 0; i < labelsAndTypes.length / 2; i++) {
+      when(metaData.getColumnLabel(i + 1)).thenReturn((String) labelsAndTypes[2 * i]);
+      when(metaData.getColumnType(i + 1)).thenReturn((Integer) labelsAndTypes[2 * i + 1]);
+    }
+  }
+}
@@ -0,0 +1,158 @@
+package com.deepak.registrationservice.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import io.r2dbc.spi.Statement;
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.scheduler.VirtualTimeScheduler;
+import reactor.util.context.Context;
+
+public class ReadReplicaConnectionFactoryTest {
+
+  private static final Duration CHECK_INTERVAL = Duration.ofSeconds(5);
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final ConnectionFactory primary = mock(ConnectionFactory.class);
+  private final ConnectionFactory replica = mock(ConnectionFactory.class);
+  private final Connection primaryConnection = mock(Connection.class);
+  private final Connection replicaConnection = mock(Connection.class);
+  private VirtualTimeScheduler scheduler;
+  private ReadReplicaConnectionFactory connectionFactory;
+
+  @BeforeEach
+  public void setUp() {
+    // The replica checks run on the virtual clock, so each one runs when the test advances it.
+    scheduler = VirtualTimeScheduler.getOrSet();
+    doReturn(Mono.just(primaryConnection)).when(primary).create();
+    doReturn(Mono.empty()).when(replicaConnection).close();
+  }
+
+  @AfterEach
+  public void tearDown() {
+    if (connectionFactory != null) {
+      connectionFactory.dispose();
+    }
+    VirtualTimeScheduler.reset();
+  }
+
+  @Test
+  public void create_sendsMarkedReadsToACaughtUpReplicaAndEverythingElseToThePrimary() {
+    givenReplicaStatus(Flux.empty());
+    doReturn(Mono.just(replicaConnection)).when(replica).create();
+    start();
+
+    assertThat(connect(ReadRouting::allowReplica)).isSameAs(replicaConnection);
+    assertThat(connect(context -> context)).isSameAs(primaryConnection);
+    assertThat(connect(ReadRouting::stickToPrimary)).isSameAs(primaryConnection);
+    assertThat(connect(ReadRouting::pinToPrimary)).isSameAs(primaryConnection);
+    assertThat(routed("replica", ReadRouting.REPLICA)).isEqualTo(1);
+    assertThat(routed("primary", ReadRouting.STICKY)).isEqualTo(1);
+  }
+
+  @Test
+  public void create_fallsBackToThePrimaryWhileTheReplicaLags() {
+    givenReplicaStatus(Flux.just(10L));
+    doReturn(Mono.just(replicaConnection)).when(replica).create();
+    start();
+
+    assertThat(connect(ReadRouting::allowReplica)).isSameAs(primaryConnection);
+    assertThat(routed("primary", "fallback")).isEqualTo(1);
+
+    // Caught up by the next check.
+    givenReplicaStatus(Flux.just(1L));
+    scheduler.advanceTimeBy(CHECK_INTERVAL);
+
+    assertThat(connect(ReadRouting::allowReplica)).isSameAs(replicaConnection);
+    assertThat(meterRegistry.get("r2dbc.replica.lag").gauge().value()).isEqualTo(1);
+  }
+
+  @Test
+  public void create_fallsBackToThePrimaryWhileTheReplicaIsDown() {
+    doReturn(Mono.error(new IllegalStateException("connection refused"))).when(replica).create();
+    start();
+
+    assertThat(connect(ReadRouting::allowReplica)).isSameAs(primaryConnection);
+    assertThat(routed("primary", "fallback")).isEqualTo(1);
+    assertThat(meterRegistry.get("r2dbc.replica.lag").gauge().value()).isNaN();
+  }
+
+  @Test
+  public void create_stopsUsingAReplicaWhoseConnectionFailsUntilItsNextCheck() {
+    givenReplicaStatus(Flux.empty());
+    doReturn(Mono.just(replicaConnection))
+        .doReturn(Mono.error(new IllegalStateException("connection reset")))
+        .when(replica)
+        .create();
+    start();
+
+    assertThat(connect(ReadRouting::allowReplica)).isSameAs(primaryConnection);
+    assertThat(connect(ReadRouting::allowReplica)).isSameAs(primaryConnection);
+
+    // One check and the failed read; the second read no longer tried the replica.
+    verify(replica, times(2)).create();
+    assertThat(routed("primary", "fallback")).isEqualTo(2);
+  }
+
+  private void start() {
+    connectionFactory =
+        new ReadReplicaConnectionFactory(
+            primary,
+            Map.of("replica", replica),
+            meterRegistry,
+            Duration.ofSeconds(2),
+            CHECK_INTERVAL);
+    scheduler.advanceTime();
+  }
+
+  private Connection connect(Function<Context, Context> routing) {
+    return Mono.<Connection>from(connectionFactory.create()).contextWrite(routing).block();
+  }
+
+  /** {@code SHOW REPLICA STATUS} answers with one row per lag value, none if not replicating. */
+  private void givenReplicaStatus(Flux<Long> lag) {
+    Statement statement = mock(Statement.class);
+    Result result = mock(Result.class);
+    when(replicaConnection.createStatement("SHOW REPLICA STATUS")).thenReturn(statement);
+    doReturn(Flux.just(result)).when(statement).execute();
+    when(result.map(any(BiFunction.class)))
+        .thenAnswer(
+            invocation -> {
+              BiFunction<Row, RowMetadata, ?> mapper = invocation.getArgument(0);
+              return lag.map(
+                  seconds -> {
+                    Row row = mock(Row.class);
+                    when(row.get("Seconds_Behind_Source")).thenReturn(seconds);
+                    return mapper.apply(row, null);
+                  });
+            });
+  }
+
+  private double routed(String target, String reason) {
+    return meterRegistry
+        .get("r2dbc.routed.connections")
+        .tag("target", target)
+        .tag("reason", reason)
+        .counter()
+        .count();
+  }
+}
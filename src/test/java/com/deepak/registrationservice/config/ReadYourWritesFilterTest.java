@@ -0,0 +1,107 @@
+package com.deepak.registrationservice.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.deepak.registrationservice.service.ResourceVersions;
+import com.deepak.registrationservice.service.ResourceVersions.Resource;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.RequestPath;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+public class ReadYourWritesFilterTest {
+
+  private static final List<String> REPLICAS = List.of("r2dbc:mysql://replica:3306/db");
+
+  private final AtomicReference<String> routedBy = new AtomicReference<>();
+  private final WebFilterChain chain =
+      exchange ->
+          Mono.deferContextual(
+              context -> {
+                routedBy.set(ReadRouting.reason(context));
+                return Mono.empty();
+              });
+
+  @Test
+  public void filter_letsAReplicaAnswerReadsOfClientsThatHaveNotWritten() {
+    ReadYourWritesFilter filter = new ReadYourWritesFilter(REPLICAS, Duration.ofSeconds(5), 16);
+    ServerWebExchange read =
+        exchange(HttpMethod.GET, "/v1/appointment/bydoctor/DOC001", "10.0.0.1");
+
+    filter.filter(read, chain).block();
+
+    assertThat(routedBy).hasValue(ReadRouting.REPLICA);
+    assertThat(ReadRouting.replicaAllowed(read)).isTrue();
+  }
+
+  @Test
+  public void filter_keepsReadsOnThePrimaryWithinTheStickyWindowOfAWrite() {
+    ReadYourWritesFilter filter = new ReadYourWritesFilter(REPLICAS, Duration.ofSeconds(5), 16);
+    filter.filter(exchange(HttpMethod.POST, "/v1/appointment", "10.0.0.1"), chain).block();
+
+    ServerWebExchange ownRead = exchange(HttpMethod.GET, "/v1/appointment/7", "10.0.0.1");
+    filter.filter(ownRead, chain).block();
+    assertThat(routedBy).hasValue(ReadRouting.STICKY);
+    assertThat(ReadRouting.replicaAllowed(ownRead)).isFalse();
+
+    filter.filter(exchange(HttpMethod.GET, "/v1/appointment/7", "10.0.0.2"), chain).block();
+    assertThat(routedBy).hasValue(ReadRouting.REPLICA);
+  }
+
+  @Test
+  public void filter_returnsReadsToAReplicaOnceTheStickyWindowHasPassed() {
+    ReadYourWritesFilter filter = new ReadYourWritesFilter(REPLICAS, Duration.ZERO, 16);
+    filter.filter(exchange(HttpMethod.PUT, "/v1/appointment/7", "10.0.0.1"), chain).block();
+
+    filter.filter(exchange(HttpMethod.GET, "/v1/appointment/7", "10.0.0.1"), chain).block();
+
+    assertThat(routedBy).hasValue(ReadRouting.REPLICA);
+  }
+
+  @Test
+  public void filter_leavesOtherEndpointsAndConfigurationsWithoutReplicasOnThePrimary() {
+    new ReadYourWritesFilter(REPLICAS, Duration.ofSeconds(5), 16)
+        .filter(exchange(HttpMethod.GET, "/v1/schedule/DOC001/2024-01-01", "10.0.0.1"), chain)
+        .block();
+    assertThat(routedBy).hasValue(ReadRouting.DEFAULT);
+
+    new ReadYourWritesFilter(List.of(), Duration.ofSeconds(5), 16)
+        .filter(exchange(HttpMethod.GET, "/v1/appointment/7", "10.0.0.1"), chain)
+        .block();
+    assertThat(routedBy).hasValue(ReadRouting.DEFAULT);
+  }
+
+  @Test
+  public void notModified_handsOutNoTagForAReadAReplicaMayAnswer() {
+    ReadYourWritesFilter filter = new ReadYourWritesFilter(REPLICAS, Duration.ofSeconds(5), 16);
+    ServerWebExchange read = exchange(HttpMethod.GET, "/v1/user/by/id/1", "10.0.0.1");
+    filter.filter(read, chain).block();
+
+    assertThat(new ResourceVersions(true, 16).notModified(read, Resource.USER, 1)).isFalse();
+    verify(read, never()).checkNotModified(anyString());
+  }
+
+  private static ServerWebExchange exchange(HttpMethod method, String path, String client) {
+    ServerHttpRequest request = mock(ServerHttpRequest.class);
+    when(request.getPath()).thenReturn(RequestPath.parse(path, null));
+    when(request.getMethod()).thenReturn(method);
+    when(request.getRemoteAddress()).thenReturn(new InetSocketAddress(client, 40000));
+    ServerWebExchange exchange = mock(ServerWebExchange.class);
+    when(exchange.getRequest()).thenReturn(request);
+    when(exchange.getAttributes()).thenReturn(new HashMap<>());
+    return exchange;
+  }
+}